@@ -0,0 +1,12 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.admin")
+public record AdminProperties(
+        @DefaultValue List<String> githubIds
+) {
+}
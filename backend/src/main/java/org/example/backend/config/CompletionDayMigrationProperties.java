@@ -0,0 +1,16 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.completions.day-migration")
+public record CompletionDayMigrationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("1s") Duration batchInterval,
+        @DefaultValue("30s") Duration leaseDuration,
+        @DefaultValue("false") boolean legacyWrites
+) {
+}
@@ -0,0 +1,20 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.completions.async-write")
+public record CompletionWriteProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("200ms") Duration flushInterval,
+        @DefaultValue("50ms") Duration offerTimeout,
+        @DefaultValue("3") int maxFlushAttempts,
+        @DefaultValue("100ms") Duration retryBackoff,
+        @DefaultValue("5s") Duration maxRetryBackoff,
+        @DefaultValue("10s") Duration shutdownTimeout
+) {
+}
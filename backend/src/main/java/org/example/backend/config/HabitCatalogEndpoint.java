@@ -0,0 +1,36 @@
+package org.example.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.service.HabitCatalog;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "habitcatalog")
+@RequiredArgsConstructor
+public class HabitCatalogEndpoint {
+
+    private final HabitCatalog habitCatalog;
+
+    @ReadOperation
+    public Map<String, Object> catalog() {
+        return describe(habitCatalog.current());
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        return describe(habitCatalog.refresh());
+    }
+
+    private Map<String, Object> describe(HabitCatalog.Snapshot snapshot) {
+        return Map.of(
+                "version", snapshot.version(),
+                "loadedAt", snapshot.loadedAt().toString(),
+                "habits", snapshot.habits().size()
+        );
+    }
+}
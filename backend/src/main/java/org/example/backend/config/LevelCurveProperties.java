@@ -0,0 +1,22 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.level-curve")
+public record LevelCurveProperties(
+        @DefaultValue("LINEAR") Type type,
+        @DefaultValue("100") int baseXp,
+        @DefaultValue("1.5") double growth,
+        @DefaultValue("1000") int maxLevel,
+        @DefaultValue List<Integer> table
+) {
+
+    public enum Type {
+        LINEAR,
+        EXPONENTIAL,
+        TABLE
+    }
+}
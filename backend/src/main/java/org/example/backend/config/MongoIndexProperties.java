@@ -0,0 +1,16 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.mongo.indexes")
+public record MongoIndexProperties(
+        @DefaultValue("CREATE") Mode mode
+) {
+
+    public enum Mode {
+        CREATE,
+        VALIDATE,
+        NONE
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Creates or validates the indexes declared on every {@code @Document} type of the mapping context. The collections
+ * written without an entity (job checkpoints, migrations and resource versions) are only read by _id and need none.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexProvisioner {
+
+    static final int DUPLICATES_SHOWN = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final MongoIndexProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionIndexes() {
+        switch (properties.mode()) {
+            case CREATE -> createIndexes();
+            case VALIDATE -> validateIndexes();
+            case NONE -> log.info("Mongo index provisioning disabled");
+        }
+    }
+
+    public void createIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> entity : indexedEntities()) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity)) {
+                String name;
+                try {
+                    name = indexOps.createIndex(definition);
+                } catch (DuplicateKeyException e) {
+                    throw duplicatesFound(entity, definition, e);
+                }
+                log.info("Ensured index {} on {}", name, mongoTemplate.getCollectionName(entity));
+            }
+        }
+    }
+
+    public void validateIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        List<String> missing = new ArrayList<>();
+        for (Class<?> entity : indexedEntities()) {
+            List<IndexInfo> existing = mongoTemplate.indexOps(entity).getIndexInfo();
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity)) {
+                if (existing.stream().noneMatch(info -> matches(info, definition))) {
+                    missing.add(mongoTemplate.getCollectionName(entity) + " " + definition.getIndexKeys().toJson());
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing Mongo indexes: " + missing);
+        }
+    }
+
+    List<Class<?>> indexedEntities() {
+        return mappingContext.getPersistentEntities().stream()
+                .filter(entity -> entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class))
+                .<Class<?>>map(PersistentEntity::getType)
+                .sorted(Comparator.comparing(Class::getName))
+                .toList();
+    }
+
+    // a unique index can't be built over duplicates; name a few so they can be merged or removed before the next start
+    private IllegalStateException duplicatesFound(Class<?> entity, IndexDefinition definition, DuplicateKeyException e) {
+        String collection = mongoTemplate.getCollectionName(entity);
+        String[] fields = definition.getIndexKeys().keySet().toArray(String[]::new);
+        List<Document> duplicates = mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.group(fields).count().as("count"),
+                Aggregation.match(where("count").gt(1)),
+                Aggregation.limit(DUPLICATES_SHOWN)), collection, Document.class).getMappedResults();
+        return new IllegalStateException("Cannot create unique index " + definition.getIndexKeys().toJson() + " on "
+                + collection + ", it holds duplicate keys such as " + duplicates.stream().map(Document::toJson).toList()
+                + "; remove the duplicates or start with app.mongo.indexes.mode=NONE", e);
+    }
+
+    private boolean matches(IndexInfo info, IndexDefinition definition) {
+        Document keys = definition.getIndexKeys();
+        List<String> fields = info.getIndexFields().stream().map(IndexField::getKey).toList();
+        boolean unique = definition.getIndexOptions().getBoolean("unique", false);
+        return fields.equals(new ArrayList<>(keys.keySet())) && info.isUnique() == unique;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.habits.period-key-migration")
+public record PeriodKeyMigrationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("1s") Duration batchInterval,
+        @DefaultValue("30s") Duration leaseDuration
+) {
+}
@@ -0,0 +1,15 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.streaks.expiry")
+public record StreakExpiryProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0 5 0 * * *") String cron,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("1m") Duration leaseDuration
+) {
+}
@@ -0,0 +1,17 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.habits.trending")
+public record TrendingProperties(
+        @DefaultValue("24h") Duration halfLife,
+        @DefaultValue("3") double acceptWeight,
+        @DefaultValue("1") double completionWeight,
+        @DefaultValue("50") int topK,
+        @DefaultValue("1m") Duration refreshInterval,
+        @DefaultValue("5m") Duration flushInterval
+) {
+}
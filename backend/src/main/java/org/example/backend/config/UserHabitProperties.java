@@ -0,0 +1,10 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.habits")
+public record UserHabitProperties(
+        @DefaultValue("false") boolean trustPeriodKey
+) {
+}
@@ -0,0 +1,20 @@
+package org.example.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.xp")
+public record XpProperties(
+        @DefaultValue("5") int maxUpdateAttempts,
+        @DefaultValue WriteBehind writeBehind
+) {
+
+    public record WriteBehind(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("1s") Duration flushInterval,
+            @DefaultValue("20") int flushThreshold
+    ) {
+    }
+}
@@ -2,30 +2,38 @@ package org.example.backend.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.repository.AppUserRepository;
 import org.example.backend.service.AppUserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.ObjectMapper;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
     private final AppUserRepository appUserRepository;
     private final AppUserService appUserService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/me")
-    public ResponseEntity<?> getMe(@AuthenticationPrincipal OAuth2User oAuth2User) {
+    public ResponseEntity<?> getMe(@AuthenticationPrincipal OAuth2User oAuth2User,
+                                   @RequestParam(required = false) String fields) {
         if(oAuth2User == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Not logged in");
         }
-        AppUser user = appUserService.getOrCreateUser(oAuth2User);
-        return ResponseEntity.ok(user);
+        FieldSelection selection = FieldSelection.parse(fields, AppUser.class, objectMapper);
+        AppUser user = appUserService.getCurrentUser(oAuth2User);
+        return ResponseEntity.ok(SparseFieldsets.render(objectMapper, selection, user));
     }
 }
@@ -0,0 +1,28 @@
+package org.example.backend.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+final class ConditionalResponses {
+
+    static final CacheControl PRIVATE_REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Answers with 304 when the client's If-None-Match matches, before the body is loaded.
+     */
+    static <T> ResponseEntity<T> conditional(WebRequest request, String eTag, CacheControl cacheControl, Supplier<T> body) {
+        String quoted = "\"" + eTag + "\"";
+        if (request.checkNotModified(quoted)) {
+            // checkNotModified already wrote the ETag to the response
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(quoted).cacheControl(cacheControl).body(body.get());
+    }
+}
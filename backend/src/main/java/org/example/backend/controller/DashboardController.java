@@ -0,0 +1,32 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Dashboard;
+import org.example.backend.service.AppUserService;
+import org.example.backend.service.DashboardService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+    private final AppUserService appUserService;
+
+    @GetMapping
+    public ResponseEntity<Dashboard> getDashboard(@AuthenticationPrincipal OAuth2User oAuth2User) {
+        AppUser user = appUserService.getCurrentUser(oAuth2User);
+        return ResponseEntity.ok(dashboardService.getDashboard(user, LocalDate.now()));
+    }
+}
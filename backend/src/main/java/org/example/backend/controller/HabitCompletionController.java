@@ -1,10 +1,13 @@
 package org.example.backend.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.WeeklyCompletionRollup;
 import org.example.backend.service.AppUserService;
 import org.example.backend.service.HabitCompletionService;
+import org.example.backend.service.ResourceVersions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,31 +16,61 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import tools.jackson.databind.ObjectMapper;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.List;
+import java.time.temporal.TemporalAdjusters;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("api/completions")
 @RequiredArgsConstructor
 public class HabitCompletionController {
 
     private final HabitCompletionService habitCompletionService;
     private final AppUserService appUserService;
+    private final ResourceVersions resourceVersions;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/week")
-    public ResponseEntity<List<HabitCompletion>> getWeekCompletions(
+    public ResponseEntity<?> getWeekCompletions(
             @AuthenticationPrincipal OAuth2User oAuth2User,
             @RequestParam(required = false)
-            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String fields,
+            WebRequest request
             ) {
 
-        AppUser user = appUserService.getOrCreateUser(oAuth2User);
+        String userId = appUserService.getUserId(oAuth2User);
+        FieldSelection selection = FieldSelection.parse(fields, HabitCompletion.class, objectMapper);
         LocalDate targetDate = date != null ? date : LocalDate.now();
+        LocalDate weekStart = targetDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
 
-        return ResponseEntity.ok(
-                habitCompletionService.getCompletionsForWeek(user.getId(), targetDate)
-        );
+        return ConditionalResponses.conditional(request,
+                "completions-" + weekStart + "-" + resourceVersions.getCompletionsVersion(userId, targetDate) + selection.cacheKey(),
+                ConditionalResponses.PRIVATE_REVALIDATE,
+                () -> SparseFieldsets.render(objectMapper, selection,
+                        habitCompletionService.getCompletionsForWeek(userId, targetDate, selection)));
+    }
+
+    @GetMapping("/week/summary")
+    public ResponseEntity<WeeklyCompletionRollup> getWeekSummary(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request
+            ) {
+
+        String userId = appUserService.getUserId(oAuth2User);
+        LocalDate targetDate = date != null ? date : LocalDate.now();
+        LocalDate weekStart = targetDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+        return ConditionalResponses.conditional(request,
+                "summary-" + weekStart + "-" + resourceVersions.getCompletionsVersion(userId, targetDate),
+                ConditionalResponses.PRIVATE_REVALIDATE,
+                () -> habitCompletionService.getWeekSummary(userId, targetDate));
     }
 
 }
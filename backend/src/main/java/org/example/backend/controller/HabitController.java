@@ -1,22 +1,32 @@
 package org.example.backend.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.Habit;
-import org.example.backend.model.UserHabit;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.TrendingHabit;
 import org.example.backend.service.AppUserService;
 import org.example.backend.service.HabitService;
 import org.example.backend.service.UserHabitService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/habits")
 @RequiredArgsConstructor
 public class HabitController {
@@ -25,20 +35,47 @@ public class HabitController {
     private final UserHabitService userHabitService;
     private final AppUserService appUserService;
 
+    private final ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Habit>> getAllHabits() {
-        return ResponseEntity.ok(habitService.getAllHabits());
+    public ResponseEntity<?> getAllHabits(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        FieldSelection selection = FieldSelection.parse(fields, Habit.class, objectMapper);
+        if (limit != null || pageToken != null) {
+            return PagedResponses.page(habitService.getHabitsPage(category, pageToken, KeysetPage.checkLimit(limit)),
+                    objectMapper, selection);
+        }
+        String eTag = "habits-" + habitService.getCatalogHash() + (category == null ? "" : "-" + category) + selection.cacheKey();
+        return ConditionalResponses.conditional(request, eTag, CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic(),
+                () -> SparseFieldsets.render(objectMapper, selection, habitService.getHabits(category)));
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHabits(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, Habit.class, objectMapper);
+        return PagedResponses.ndjson(objectMapper, selection, () -> habitService.streamHabits(category));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingHabit>> getTrendingHabits(
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        String eTag = "trending-" + habitService.getTrendingHash() + "-" + limit;
+        return ConditionalResponses.conditional(request, eTag, CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic(),
+                () -> habitService.getTrendingHabits(limit));
+    }
 
     @GetMapping("/daily")
     public ResponseEntity<Habit> getRandomDailyHabit(@AuthenticationPrincipal OAuth2User oAuth2User) {
         if(oAuth2User != null) {
-            AppUser user = appUserService.getOrCreateUser(oAuth2User);
-            List<String> userHabitIds = userHabitService.getUserHabits((user.getId()))
-                    .stream()
-                    .map(UserHabit::getHabitId)
-                    .toList();
+            String userId = appUserService.getUserId(oAuth2User);
+            List<String> userHabitIds = userHabitService.getUserHabitIds(userId);
         return ResponseEntity.ok(habitService.getRandomDailyHabitExcluding(userHabitIds));
         }
         return ResponseEntity.ok(habitService.getRandomDailyHabit());
@@ -47,11 +84,8 @@ public class HabitController {
     @GetMapping("/weekly")
     public ResponseEntity<Habit> getRandomWeeklyHabit(@AuthenticationPrincipal OAuth2User oAuth2User) {
         if(oAuth2User != null) {
-            AppUser user = appUserService.getOrCreateUser(oAuth2User);
-            List<String> userHabitIds = userHabitService.getUserHabits((user.getId()))
-                    .stream()
-                    .map(UserHabit::getHabitId)
-                    .toList();
+            String userId = appUserService.getUserId(oAuth2User);
+            List<String> userHabitIds = userHabitService.getUserHabitIds(userId);
             return ResponseEntity.ok(habitService.getRandomWeeklyHabitExcluding(userHabitIds));
         }
         return ResponseEntity.ok(habitService.getRandomWeeklyHabit());
@@ -0,0 +1,40 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.LeaderboardBoard;
+import org.example.backend.model.LeaderboardPage;
+import org.example.backend.model.LeaderboardStanding;
+import org.example.backend.service.AppUserService;
+import org.example.backend.service.Leaderboard;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/leaderboard")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final Leaderboard leaderboard;
+
+    @GetMapping("/{board:xp|streak}")
+    public ResponseEntity<LeaderboardPage> getTop(
+            @PathVariable String board,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(leaderboard.getTop(LeaderboardBoard.fromPath(board), Leaderboard.checkLimit(limit)));
+    }
+
+    @GetMapping("/{board:xp|streak}/me")
+    public ResponseEntity<LeaderboardStanding> getMyStanding(
+            @PathVariable String board,
+            @AuthenticationPrincipal OAuth2User oAuth2User) {
+        return ResponseEntity.ok(leaderboard.getStanding(LeaderboardBoard.fromPath(board), AppUserService.githubId(oAuth2User)));
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.backend.controller;
+
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.KeysetPage;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+final class PagedResponses {
+
+    static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+
+    private PagedResponses() {
+    }
+
+    static ResponseEntity<Object> page(KeysetPage<?> page, ObjectMapper objectMapper, FieldSelection fields) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextPageToken() != null) {
+            response.header(NEXT_PAGE_TOKEN_HEADER, page.nextPageToken());
+        }
+        return response.body(SparseFieldsets.render(objectMapper, fields, page.items()));
+    }
+
+    /**
+     * Writes one JSON document per line while iterating the source, so the full list is never held in memory.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper, FieldSelection fields,
+                                                           Supplier<Stream<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<T> items = source.get()) {
+                items.forEachOrdered(item -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(SparseFieldsets.render(objectMapper, fields, item)));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.service.ReactiveAppUserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+    private final ReactiveAppUserService reactiveAppUserService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/me")
+    public Mono<ResponseEntity<?>> getMe(@AuthenticationPrincipal OAuth2User oAuth2User,
+                                         @RequestParam(required = false) String fields) {
+        if (oAuth2User == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Not logged in"));
+        }
+        FieldSelection selection = FieldSelection.parse(fields, AppUser.class, objectMapper);
+        return reactiveAppUserService.getCurrentUser(oAuth2User)
+                .map(user -> ResponseEntity.ok(SparseFieldsets.render(objectMapper, selection, user)));
+    }
+}
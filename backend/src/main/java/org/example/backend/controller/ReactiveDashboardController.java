@@ -0,0 +1,33 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.Dashboard;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+public class ReactiveDashboardController {
+
+    private final ReactiveHabitReads reactiveHabitReads;
+    private final ReactiveAppUserService reactiveAppUserService;
+
+    @GetMapping
+    public Mono<ResponseEntity<Dashboard>> getDashboard(@AuthenticationPrincipal OAuth2User oAuth2User) {
+        return reactiveAppUserService.getCurrentUser(oAuth2User)
+                .flatMap(user -> reactiveHabitReads.getDashboard(user, LocalDate.now()))
+                .map(ResponseEntity::ok);
+    }
+}
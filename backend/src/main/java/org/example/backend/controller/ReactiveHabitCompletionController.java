@@ -0,0 +1,72 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("api/completions")
+@RequiredArgsConstructor
+public class ReactiveHabitCompletionController {
+
+    private final ReactiveHabitReads reactiveHabitReads;
+    private final ReactiveAppUserService reactiveAppUserService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/week")
+    public Mono<ResponseEntity<Object>> getWeekCompletions(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String fields,
+            ServerWebExchange exchange) {
+        FieldSelection selection = FieldSelection.parse(fields, HabitCompletion.class, objectMapper);
+        LocalDate targetDate = date != null ? date : LocalDate.now();
+        LocalDate weekStart = targetDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+        return reactiveAppUserService.getUserId(oAuth2User)
+                .flatMap(userId -> reactiveHabitReads.getCompletionsVersion(userId, targetDate)
+                        .flatMap(version -> ReactiveResponses.conditional(exchange,
+                                "completions-" + weekStart + "-" + version + selection.cacheKey(),
+                                ConditionalResponses.PRIVATE_REVALIDATE,
+                                () -> reactiveHabitReads.getCompletionsForWeek(userId, targetDate, selection).collectList()
+                                        .map(completions -> SparseFieldsets.render(objectMapper, selection, completions)))));
+    }
+
+    @GetMapping("/week/summary")
+    public Mono<ResponseEntity<WeeklyCompletionRollup>> getWeekSummary(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            ServerWebExchange exchange) {
+        LocalDate targetDate = date != null ? date : LocalDate.now();
+        LocalDate weekStart = targetDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+        return reactiveAppUserService.getUserId(oAuth2User)
+                .flatMap(userId -> reactiveHabitReads.getCompletionsVersion(userId, targetDate)
+                        .flatMap(version -> ReactiveResponses.conditional(exchange,
+                                "summary-" + weekStart + "-" + version,
+                                ConditionalResponses.PRIVATE_REVALIDATE,
+                                () -> reactiveHabitReads.getWeekSummary(userId, targetDate))));
+    }
+}
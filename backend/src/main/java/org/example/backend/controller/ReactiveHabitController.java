@@ -0,0 +1,94 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.Habit;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.TrendingHabit;
+import org.example.backend.service.HabitService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/habits")
+@RequiredArgsConstructor
+public class ReactiveHabitController {
+
+    private final HabitService habitService;
+    private final ReactiveHabitReads reactiveHabitReads;
+    private final ReactiveAppUserService reactiveAppUserService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping
+    public Mono<ResponseEntity<Object>> getAllHabits(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) String fields,
+            ServerWebExchange exchange) {
+        FieldSelection selection = FieldSelection.parse(fields, Habit.class, objectMapper);
+        if (limit != null || pageToken != null) {
+            return Mono.just(PagedResponses.page(habitService.getHabitsPage(category, pageToken, KeysetPage.checkLimit(limit)),
+                    objectMapper, selection));
+        }
+        String eTag = "habits-" + habitService.getCatalogHash() + (category == null ? "" : "-" + category) + selection.cacheKey();
+        return ReactiveResponses.conditional(exchange, eTag, CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic(),
+                () -> Mono.fromSupplier(() -> SparseFieldsets.render(objectMapper, selection, habitService.getHabits(category))));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamAllHabits(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, Habit.class, objectMapper);
+        return Flux.fromStream(() -> habitService.streamHabits(category))
+                .map(habit -> SparseFieldsets.render(objectMapper, selection, habit));
+    }
+
+    @GetMapping("/trending")
+    public Mono<ResponseEntity<List<TrendingHabit>>> getTrendingHabits(
+            @RequestParam(required = false) Integer limit,
+            ServerWebExchange exchange) {
+        String eTag = "trending-" + habitService.getTrendingHash() + "-" + limit;
+        return ReactiveResponses.conditional(exchange, eTag, CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic(),
+                () -> Mono.fromSupplier(() -> habitService.getTrendingHabits(limit)));
+    }
+
+    @GetMapping("/daily")
+    public Mono<ResponseEntity<Habit>> getRandomDailyHabit(@AuthenticationPrincipal OAuth2User oAuth2User) {
+        if (oAuth2User == null) {
+            return Mono.fromSupplier(() -> ResponseEntity.ok(habitService.getRandomDailyHabit()));
+        }
+        return reactiveAppUserService.getUserId(oAuth2User)
+                .flatMap(reactiveHabitReads::getUserHabitIds)
+                .map(userHabitIds -> ResponseEntity.ok(habitService.getRandomDailyHabitExcluding(userHabitIds)));
+    }
+
+    @GetMapping("/weekly")
+    public Mono<ResponseEntity<Habit>> getRandomWeeklyHabit(@AuthenticationPrincipal OAuth2User oAuth2User) {
+        if (oAuth2User == null) {
+            return Mono.fromSupplier(() -> ResponseEntity.ok(habitService.getRandomWeeklyHabit()));
+        }
+        return reactiveAppUserService.getUserId(oAuth2User)
+                .flatMap(reactiveHabitReads::getUserHabitIds)
+                .map(userHabitIds -> ResponseEntity.ok(habitService.getRandomWeeklyHabitExcluding(userHabitIds)));
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.backend.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+final class ReactiveResponses {
+
+    private ReactiveResponses() {
+    }
+
+    /**
+     * Runs a write through the blocking services on the bounded elastic scheduler so it never blocks an event loop
+     * thread.
+     */
+    static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    static <T> Mono<ResponseEntity<T>> conditional(ServerWebExchange exchange, String eTag, CacheControl cacheControl,
+                                                   Supplier<Mono<T>> body) {
+        String quotedETag = "\"" + eTag + "\"";
+        if (exchange.checkNotModified(quotedETag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(quotedETag)
+                    .cacheControl(cacheControl)
+                    .build());
+        }
+        return body.get().map(content -> ResponseEntity.ok()
+                .eTag(quotedETag)
+                .cacheControl(cacheControl)
+                .body(content));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.HabitBatchOperation;
+import org.example.backend.model.HabitBatchResponse;
+import org.example.backend.model.HabitHeatmap;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.UserHabit;
+import org.example.backend.service.AppUserService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.example.backend.service.UserHabitService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/my-habits")
+public class ReactiveUserHabitController {
+
+    private final UserHabitService userHabitService;
+    private final ReactiveHabitReads reactiveHabitReads;
+    private final ReactiveAppUserService reactiveAppUserService;
+    private final AppUserService appUserService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping
+    public Mono<ResponseEntity<Object>> getMyHabits(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) String fields,
+            ServerWebExchange exchange) {
+        FieldSelection selection = FieldSelection.parse(fields, UserHabit.class, objectMapper);
+        return reactiveAppUserService.getUserId(oAuth2User).flatMap(userId -> {
+            if (limit != null || pageToken != null) {
+                return reactiveHabitReads.getUserHabitsPage(userId, pageToken, KeysetPage.checkLimit(limit), selection)
+                        .map(page -> PagedResponses.page(page, objectMapper, selection));
+            }
+            return reactiveHabitReads.getUserHabitsVersion(userId).flatMap(version -> ReactiveResponses.conditional(exchange,
+                    "my-habits-" + version + selection.cacheKey(),
+                    ConditionalResponses.PRIVATE_REVALIDATE,
+                    () -> reactiveHabitReads.getUserHabits(userId, selection).collectList()
+                            .map(habits -> SparseFieldsets.render(objectMapper, selection, habits))));
+        });
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamMyHabits(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, UserHabit.class, objectMapper);
+        return reactiveAppUserService.getUserId(oAuth2User)
+                .flatMapMany(userId -> reactiveHabitReads.getUserHabits(userId, selection))
+                .map(userHabit -> SparseFieldsets.render(objectMapper, selection, userHabit));
+    }
+
+    @GetMapping("/heatmap")
+    public Mono<ResponseEntity<HabitHeatmap>> getHeatmap(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false) Integer year,
+            ServerWebExchange exchange) {
+        int targetYear = year != null ? year : LocalDate.now().getYear();
+        return reactiveAppUserService.getUserId(oAuth2User)
+                .flatMap(userId -> reactiveHabitReads.getUserHabitsVersion(userId)
+                        .flatMap(version -> ReactiveResponses.conditional(exchange,
+                                "heatmap-" + targetYear + "-" + version,
+                                ConditionalResponses.PRIVATE_REVALIDATE,
+                                () -> reactiveHabitReads.getHeatmap(userId, targetYear))));
+    }
+
+    @PostMapping("/{habitId}")
+    public Mono<ResponseEntity<UserHabit>> acceptUserHabit(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @PathVariable String habitId) {
+        return reactiveAppUserService.getUserId(oAuth2User).flatMap(userId -> ReactiveResponses.blocking(() ->
+                ResponseEntity.ok(userHabitService.acceptUserHabit(userId, habitId))));
+    }
+
+    @DeleteMapping("/{habitId}")
+    public Mono<ResponseEntity<Void>> deleteUserHabit(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @PathVariable String habitId) {
+        return reactiveAppUserService.getUserId(oAuth2User).flatMap(userId -> ReactiveResponses.blocking(() -> {
+            userHabitService.deleteUserHabit(userId, habitId);
+            return ResponseEntity.noContent().build();
+        }));
+    }
+
+    @PostMapping("/{habitId}/complete")
+    public Mono<ResponseEntity<UserHabit>> completeUserHabit(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @PathVariable String habitId) {
+        return reactiveAppUserService.getUserId(oAuth2User).flatMap(userId -> ReactiveResponses.blocking(() -> {
+            UserHabit completedHabit = userHabitService.completeUserHabit(userId, habitId);
+            appUserService.addXp(userId, completedHabit.getDifficulty().getBaseXp());
+            return ResponseEntity.ok(completedHabit);
+        }));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<HabitBatchResponse>> applyBatch(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestBody List<HabitBatchOperation> operations) {
+        return reactiveAppUserService.getUserId(oAuth2User).flatMap(userId -> ReactiveResponses.blocking(() -> {
+            HabitBatchResponse response = userHabitService.applyBatch(userId, operations);
+            if (response.getXpEarned() > 0) {
+                appUserService.addXp(userId, response.getXpEarned());
+            }
+            return ResponseEntity.ok(response);
+        }));
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.backend.controller;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import org.example.backend.model.FieldSelection;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ser.std.SimpleBeanPropertyFilter;
+import tools.jackson.databind.ser.std.SimpleFilterProvider;
+import tools.jackson.databind.util.RawValue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+final class SparseFieldsets {
+
+    private static final String FILTER_ID = "sparseFieldset";
+
+    // the filtering copy of each application mapper, built once since rebuilding a mapper is expensive
+    private static final Map<ObjectMapper, ObjectMapper> FILTERING_MAPPERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private SparseFieldsets() {
+    }
+
+    /**
+     * Serializes only the selected JSON properties, so fields left unset by a Mongo projection are not sent as nulls
+     * or zeros and unselected getters are never called. Entities and collections of entities are supported; the
+     * result is written verbatim by the message converters.
+     */
+    static Object render(ObjectMapper objectMapper, FieldSelection fields, Object value) {
+        if (fields.isAll() || value == null) {
+            return value;
+        }
+        SimpleFilterProvider filters = new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields.getFields()));
+        return new RawValue(FILTERING_MAPPERS.computeIfAbsent(objectMapper, SparseFieldsets::filtering)
+                .writer(filters)
+                .writeValueAsString(value));
+    }
+
+    // entities stay unannotated, so other mappers serialize them without a filter provider
+    private static ObjectMapper filtering(ObjectMapper objectMapper) {
+        return objectMapper.rebuild().addMixIn(Object.class, Filtered.class).build();
+    }
+
+    @JsonFilter(FILTER_ID)
+    private interface Filtered {
+    }
+}
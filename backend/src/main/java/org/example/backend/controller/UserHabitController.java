@@ -1,37 +1,86 @@
 package org.example.backend.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.HabitBatchOperation;
+import org.example.backend.model.HabitBatchResponse;
+import org.example.backend.model.HabitHeatmap;
+import org.example.backend.model.KeysetPage;
 import org.example.backend.model.UserHabit;
 import org.example.backend.service.AppUserService;
+import org.example.backend.service.ResourceVersions;
 import org.example.backend.service.UserHabitService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/my-habits")
 public class UserHabitController {
 
     private final  UserHabitService userHabitService;
     private final AppUserService appUserService;
+    private final ResourceVersions resourceVersions;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<UserHabit>> getMyHabits(@AuthenticationPrincipal OAuth2User oAuth2User) {
-        AppUser user = appUserService.getOrCreateUser(oAuth2User);
-        return ResponseEntity.ok(userHabitService.getUserHabits(user.getId()));
+    public ResponseEntity<?> getMyHabits(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        String userId = appUserService.getUserId(oAuth2User);
+        FieldSelection selection = FieldSelection.parse(fields, UserHabit.class, objectMapper);
+        if (limit != null || pageToken != null) {
+            return PagedResponses.page(userHabitService.getUserHabitsPage(userId, pageToken, KeysetPage.checkLimit(limit), selection),
+                    objectMapper, selection);
+        }
+        return ConditionalResponses.conditional(request,
+                "my-habits-" + resourceVersions.getUserHabitsVersion(userId) + selection.cacheKey(),
+                ConditionalResponses.PRIVATE_REVALIDATE,
+                () -> SparseFieldsets.render(objectMapper, selection, userHabitService.getUserHabits(userId, selection)));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMyHabits(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false) String fields) {
+        String userId = appUserService.getUserId(oAuth2User);
+        FieldSelection selection = FieldSelection.parse(fields, UserHabit.class, objectMapper);
+        return PagedResponses.ndjson(objectMapper, selection, () -> userHabitService.streamUserHabits(userId, selection));
+    }
+
+    @GetMapping("/heatmap")
+    public ResponseEntity<HabitHeatmap> getHeatmap(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestParam(required = false) Integer year,
+            WebRequest request) {
+        String userId = appUserService.getUserId(oAuth2User);
+        int targetYear = year != null ? year : LocalDate.now().getYear();
+        return ConditionalResponses.conditional(request,
+                "heatmap-" + targetYear + "-" + resourceVersions.getUserHabitsVersion(userId),
+                ConditionalResponses.PRIVATE_REVALIDATE,
+                () -> userHabitService.getHeatmap(userId, targetYear));
     }
 
     @PostMapping("/{habitId}")
     public ResponseEntity<UserHabit> acceptUserHabit(
            @AuthenticationPrincipal OAuth2User oAuth2User,
            @PathVariable String habitId) {
-        AppUser user = appUserService.getOrCreateUser(oAuth2User);
-        return ResponseEntity.ok(userHabitService.acceptUserHabit(user.getId(), habitId));
+        String userId = appUserService.getUserId(oAuth2User);
+        return ResponseEntity.ok(userHabitService.acceptUserHabit(userId, habitId));
     }
 
     @DeleteMapping("/{habitId}")
@@ -39,8 +88,8 @@ public class UserHabitController {
             @AuthenticationPrincipal OAuth2User oAuth2User,
             @PathVariable String habitId) {
 
-        AppUser user = appUserService.getOrCreateUser(oAuth2User);
-        userHabitService.deleteUserHabit(user.getId(), habitId);
+        String userId = appUserService.getUserId(oAuth2User);
+        userHabitService.deleteUserHabit(userId, habitId);
         return ResponseEntity.noContent().build();
     }
 
@@ -49,10 +98,24 @@ public class UserHabitController {
             @AuthenticationPrincipal OAuth2User oAuth2User,
             @PathVariable String habitId) {
 
-        AppUser user = appUserService.getOrCreateUser(oAuth2User);
-        UserHabit completedHabit = userHabitService.completeUserHabit(user.getId(), habitId);
-        appUserService.addXp(user.getId(), completedHabit.getDifficulty().getBaseXp());
+        String userId = appUserService.getUserId(oAuth2User);
+        UserHabit completedHabit = userHabitService.completeUserHabit(userId, habitId);
+        appUserService.addXp(userId, completedHabit.getDifficulty().getBaseXp());
 
         return ResponseEntity.ok(completedHabit);
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<HabitBatchResponse> applyBatch(
+            @AuthenticationPrincipal OAuth2User oAuth2User,
+            @RequestBody List<HabitBatchOperation> operations) {
+
+        String userId = appUserService.getUserId(oAuth2User);
+        HabitBatchResponse response = userHabitService.applyBatch(userId, operations);
+        if (response.getXpEarned() > 0) {
+            appUserService.addXp(userId, response.getXpEarned());
+        }
+
+        return ResponseEntity.ok(response);
+    }
 }
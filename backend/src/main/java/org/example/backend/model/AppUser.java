@@ -4,6 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -12,10 +16,13 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "users")
+@CompoundIndex(name = "lastActiveDate_id", def = "{'lastActiveDate': 1, '_id': 1}",
+        partialFilter = "{'currentStreak': {'$gt': 0}}")
 public class AppUser {
 
     @Id
     private String id;
+    @Indexed(name = "githubId", unique = true)
     private String githubId;
     private String username;
     private String email;
@@ -27,6 +34,17 @@ public class AppUser {
     private int currentStreak;
     private int longestStreak;
     private LocalDate lastActiveDate;
+
+    @Version
+    private Long version;
+
+    @Transient
+    @DerivedFrom("level")
+    private int xpForNextLevel;
+    @Transient
+    @DerivedFrom({"level", "totalXp"})
+    private int currentLevelXp;
+
     public AppUser(String githubId, String username, String email, String avatarUrl) {
         this.githubId = githubId;
         this.username = username;
@@ -38,16 +56,4 @@ public class AppUser {
         this.longestStreak = 0;
         this.lastActiveDate = null;
     }
-
-    public int getXpForNextLevel() {
-        return  level * 100;
-    }
-
-    public int getCurrentLevelXp() {
-        int xpUsed = 0;
-        for(int i = 1; i<level; i++) {
-            xpUsed += i * 100;
-        }
-        return totalXp - xpUsed;
-    }
 }
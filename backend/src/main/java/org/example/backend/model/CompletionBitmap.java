@@ -0,0 +1,41 @@
+package org.example.backend.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One bit per day of a year, packed into {@value #WORDS_PER_YEAR} longs; day 1 of the year is bit 0 of word 0.
+ * {@link UserHabit#getCompletionBits()} keeps one such bitmap per year, keyed by the year.
+ */
+public final class CompletionBitmap {
+
+    public static final int WORDS_PER_YEAR = 6;
+
+    private CompletionBitmap() {
+    }
+
+    public static int word(LocalDate day) {
+        return (day.getDayOfYear() - 1) / Long.SIZE;
+    }
+
+    public static long mask(LocalDate day) {
+        return 1L << ((day.getDayOfYear() - 1) % Long.SIZE);
+    }
+
+    public static List<LocalDate> days(int year, List<Long> words) {
+        List<LocalDate> days = new ArrayList<>();
+        if (words == null) {
+            return days;
+        }
+        LocalDate firstDay = LocalDate.ofYearDay(year, 1);
+        for (int word = 0; word < words.size(); word++) {
+            long bits = words.get(word);
+            while (bits != 0) {
+                days.add(firstDay.plusDays(word * Long.SIZE + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return days;
+    }
+}
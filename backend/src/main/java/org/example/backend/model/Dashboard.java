@@ -0,0 +1,18 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Dashboard {
+
+    private AppUser user;
+    private List<UserHabit> habits;
+    private WeeklyCompletionRollup weekSummary;
+    private Habit dailySuggestion;
+}
@@ -0,0 +1,17 @@
+package org.example.backend.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a JSON property that is computed from other document fields, so a {@link FieldSelection} containing it
+ * projects those fields from Mongo instead.
+ */
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DerivedFrom {
+
+    String[] value();
+}
@@ -0,0 +1,112 @@
+package org.example.backend.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.example.backend.exception.InvalidRequestException;
+import org.springframework.data.mongodb.core.query.Query;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A client-requested subset of an entity's JSON properties ({@code ?fields=name,difficulty}). Only properties the
+ * entity is serialized with can be selected and the id is always included. Properties marked {@link DerivedFrom}
+ * project the document fields they are computed from.
+ */
+@EqualsAndHashCode
+@ToString
+public final class FieldSelection {
+
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    // JSON property -> document fields it is read from, per entity type; the application serializes with one mapper
+    private static final Map<Class<?>, Map<String, List<String>>> SELECTABLE_PROPERTIES = new ConcurrentHashMap<>();
+
+    private final SortedSet<String> fields;
+    private final SortedSet<String> documentFields;
+
+    private FieldSelection(SortedSet<String> fields) {
+        this(fields, null);
+    }
+
+    private FieldSelection(SortedSet<String> fields, SortedSet<String> documentFields) {
+        this.fields = fields;
+        this.documentFields = documentFields;
+    }
+
+    public static FieldSelection parse(String fields, Class<?> type, ObjectMapper objectMapper) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Map<String, List<String>> selectable = SELECTABLE_PROPERTIES.computeIfAbsent(type,
+                beanType -> selectableProperties(beanType, objectMapper));
+        SortedSet<String> selected = new TreeSet<>();
+        SortedSet<String> documentFields = new TreeSet<>();
+        selected.add("id");
+        documentFields.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            List<String> readFrom = selectable.get(name);
+            if (readFrom == null) {
+                throw new InvalidRequestException("Unknown field '" + name + "', selectable fields are "
+                        + selectable.keySet());
+            }
+            selected.add(name);
+            documentFields.addAll(readFrom);
+        }
+        return new FieldSelection(Collections.unmodifiableSortedSet(selected),
+                Collections.unmodifiableSortedSet(documentFields));
+    }
+
+    private static Map<String, List<String>> selectableProperties(Class<?> type, ObjectMapper objectMapper) {
+        Map<String, List<String>> properties = new LinkedHashMap<>();
+        List<BeanPropertyDefinition> definitions = objectMapper._serializationContext()
+                .introspectBeanDescription(objectMapper.constructType(type))
+                .findProperties();
+        for (BeanPropertyDefinition property : definitions) {
+            if (!property.couldSerialize()) {
+                continue;
+            }
+            DerivedFrom derivedFrom = property.getAccessor().getAnnotation(DerivedFrom.class);
+            properties.put(property.getName(),
+                    derivedFrom != null ? List.of(derivedFrom.value()) : List.of(property.getName()));
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Restricts the query to the selected fields so Mongo only reads and returns those.
+     */
+    public Query applyTo(Query query) {
+        if (!isAll()) {
+            query.fields().include(documentFields.toArray(String[]::new));
+        }
+        return query;
+    }
+
+    /**
+     * Suffix for cache keys and ETags of responses rendered with this selection.
+     */
+    public String cacheKey() {
+        return isAll() ? "" : ";fields=" + String.join(",", fields);
+    }
+}
@@ -4,20 +4,27 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "habits")
+@CompoundIndex(name = "frequency_difficulty", def = "{'frequency': 1, 'difficulty': 1}")
 public class Habit {
     @Id
     private String id;
     private String name;
     private String description;
+    @Indexed(name = "category")
     private String category;
+    @Indexed(name = "difficulty")
     private HabitDifficulty difficulty;
     private HabitFrequency frequency;
+    // length of the period in days for INTERVAL habits
+    private int intervalDays;
 
     public Habit(String name, String description, String category,
                  HabitDifficulty difficulty, HabitFrequency frequency) {
@@ -28,6 +35,7 @@ public class Habit {
         this.frequency = frequency;
     }
 
+    @DerivedFrom("difficulty")
     public int getXp() {
         return difficulty != null ? difficulty.getBaseXp() : 0;
 
@@ -0,0 +1,14 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HabitBatchOperation {
+
+    private HabitBatchOperationType type;
+    private String habitId;
+}
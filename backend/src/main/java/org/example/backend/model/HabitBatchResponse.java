@@ -0,0 +1,16 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HabitBatchResponse {
+
+    private List<HabitBatchResult> results;
+    private int xpEarned;
+}
@@ -0,0 +1,22 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HabitBatchResult {
+
+    private int index;
+    private HabitBatchOperationType type;
+    private String habitId;
+    private int status;
+    private String message;
+    private UserHabit userHabit;
+
+    public boolean isSuccess() {
+        return status < 300;
+    }
+}
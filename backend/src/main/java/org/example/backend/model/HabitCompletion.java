@@ -5,15 +5,18 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Document (collection = "habit_completion")
+@CompoundIndex(name = "userId_completionDay", def = "{'userId': 1, 'completionDay': 1}")
+// serves documents not yet migrated to completionDay, see CompletionDayMigration
+@CompoundIndex(name = "userId_completionDate", def = "{'userId': 1, 'completionDate': 1}")
 public class HabitCompletion {
 
     @Id
@@ -24,19 +27,36 @@ public class HabitCompletion {
     private String habitName;
     private HabitDifficulty difficulty;
     private HabitFrequency frequency;
+    private Integer completionDay;
     private String completionDate;
     private int xpEarned;
 
 
     public HabitCompletion(String userId, UserHabit userHabit) {
+        this.id = userHabit.getLastCompletionId();
         this.userId = userId;
         this.userHabitId = userHabit.getId();
         this.habitId = userHabit.getHabitId();
         this.habitName = userHabit.getHabitName();
         this.difficulty = userHabit.getDifficulty();
         this.frequency = userHabit.getFrequency();
-        this.completionDate = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
+        this.completionDay = (int) LocalDate.now().toEpochDay();
         this.xpEarned = userHabit.getDifficulty().getBaseXp();
 
     }
+
+    /**
+     * The ISO date clients see. New completions only store the epoch day, unmigrated ones only the string.
+     */
+    @DerivedFrom({"completionDay", "completionDate"})
+    public String getCompletionDate() {
+        if (completionDate == null && completionDay != null) {
+            return LocalDate.ofEpochDay(completionDay).toString();
+        }
+        return completionDate;
+    }
+
+    public LocalDate completedOn() {
+        return completionDay != null ? LocalDate.ofEpochDay(completionDay) : LocalDate.parse(completionDate);
+    }
 }
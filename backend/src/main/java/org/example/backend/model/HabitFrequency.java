@@ -1,6 +1,66 @@
 package org.example.backend.model;
 
+import java.time.LocalDate;
+
+/**
+ * A habit's period, identified by an integer key counted from the epoch: epoch day, Monday-based epoch week, epoch
+ * month, or every intervalDays days. Consecutive periods have consecutive keys, so same-period and consecutive-period
+ * checks are plain comparisons that don't depend on year boundaries or the JVM locale.
+ */
 public enum HabitFrequency {
-    DAILY,
-    WEEKLY
+    DAILY("day"),
+    WEEKLY("week"),
+    MONTHLY("month"),
+    INTERVAL("interval");
+
+    // 1970-01-01 was a Thursday; shifting by three days makes epoch weeks start on Monday like ISO weeks
+    private static final int EPOCH_WEEK_OFFSET = 3;
+    private static final int EPOCH_YEAR = 1970;
+
+    private final String periodName;
+
+    HabitFrequency(String periodName) {
+        this.periodName = periodName;
+    }
+
+    public String getPeriodName() {
+        return periodName;
+    }
+
+    /**
+     * intervalDays is only used by INTERVAL; values below one count as one.
+     */
+    public long periodKey(LocalDate date, int intervalDays) {
+        return switch (this) {
+            case DAILY -> date.toEpochDay();
+            case WEEKLY -> Math.floorDiv(date.toEpochDay() + EPOCH_WEEK_OFFSET, 7);
+            case MONTHLY -> (date.getYear() - EPOCH_YEAR) * 12L + date.getMonthValue() - 1;
+            case INTERVAL -> Math.floorDiv(date.toEpochDay(), days(intervalDays));
+        };
+    }
+
+    public LocalDate periodStart(long periodKey, int intervalDays) {
+        return switch (this) {
+            case DAILY -> LocalDate.ofEpochDay(periodKey);
+            case WEEKLY -> LocalDate.ofEpochDay(periodKey * 7 - EPOCH_WEEK_OFFSET);
+            case MONTHLY -> LocalDate.of(EPOCH_YEAR + (int) Math.floorDiv(periodKey, 12), (int) Math.floorMod(periodKey, 12) + 1, 1);
+            case INTERVAL -> LocalDate.ofEpochDay(periodKey * days(intervalDays));
+        };
+    }
+
+    /**
+     * Start of the period before the one containing {@code date}; a streak survives while the habit was last
+     * completed on or after it.
+     */
+    public LocalDate previousPeriodStart(LocalDate date, int intervalDays) {
+        return periodStart(periodKey(date, intervalDays) - 1, intervalDays);
+    }
+
+    public static boolean isSamePeriod(long lastPeriod, long currentPeriod) {
+        return lastPeriod >= currentPeriod;
+    }
+
+    public static int days(int intervalDays) {
+        return Math.max(1, intervalDays);
+    }
 }
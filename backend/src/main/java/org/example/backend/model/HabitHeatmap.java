@@ -0,0 +1,20 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HabitHeatmap {
+
+    private int year;
+    private List<HabitHeatmapRow> habits;
+
+    public static HabitHeatmap of(int year, List<UserHabit> userHabits) {
+        return new HabitHeatmap(year, userHabits.stream().map(userHabit -> HabitHeatmapRow.of(userHabit, year)).toList());
+    }
+}
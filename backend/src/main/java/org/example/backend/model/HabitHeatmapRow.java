@@ -0,0 +1,28 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HabitHeatmapRow {
+
+    private String habitId;
+    private String habitName;
+    private HabitFrequency frequency;
+    private int completions;
+    private List<LocalDate> days;
+
+    public static HabitHeatmapRow of(UserHabit userHabit, int year) {
+        List<Long> words = userHabit.getCompletionBits() == null ? null
+                : userHabit.getCompletionBits().get(String.valueOf(year));
+        List<LocalDate> days = CompletionBitmap.days(year, words);
+        return new HabitHeatmapRow(userHabit.getHabitId(), userHabit.getHabitName(), userHabit.getFrequency(),
+                days.size(), days);
+    }
+}
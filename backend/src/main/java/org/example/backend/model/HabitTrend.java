@@ -0,0 +1,26 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Persisted popularity of a habit; {@code score} is the decayed score as of {@code scoredAt}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "habit_trends")
+public class HabitTrend {
+
+    @Id
+    private String habitId;
+    private double score;
+    private Instant scoredAt;
+    private long acceptCount;
+    private long completionCount;
+}
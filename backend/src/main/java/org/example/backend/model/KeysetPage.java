@@ -0,0 +1,55 @@
+package org.example.backend.model;
+
+import org.example.backend.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list ordered by id. The next page token is opaque to clients and encodes the last id of this page.
+ */
+public record KeysetPage<T>(List<T> items, String nextPageToken) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Builds a page from up to {@code limit + 1} items; the extra item only signals that another page exists.
+     */
+    public static <T> KeysetPage<T> of(List<T> items, int limit, Function<T, String> id) {
+        if (items.size() <= limit) {
+            return new KeysetPage<>(items, null);
+        }
+        List<T> page = items.subList(0, limit);
+        return new KeysetPage<>(page, encodeToken(id.apply(page.getLast())));
+    }
+
+    public static int checkLimit(Integer limit) {
+        int checked = limit == null ? DEFAULT_LIMIT : limit;
+        if (checked < 1 || checked > MAX_LIMIT) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return checked;
+    }
+
+    public static String encodeToken(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("id:" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodeToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            if (decoded.startsWith("id:") && decoded.length() > 3) {
+                return decoded.substring(3);
+            }
+        } catch (IllegalArgumentException ignored) {
+            // reported below
+        }
+        throw new InvalidRequestException("Invalid page token");
+    }
+}
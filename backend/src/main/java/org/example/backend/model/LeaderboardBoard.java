@@ -0,0 +1,12 @@
+package org.example.backend.model;
+
+import java.util.Locale;
+
+public enum LeaderboardBoard {
+    XP,
+    STREAK;
+
+    public static LeaderboardBoard fromPath(String path) {
+        return valueOf(path.toUpperCase(Locale.ROOT));
+    }
+}
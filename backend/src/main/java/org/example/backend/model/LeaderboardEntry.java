@@ -0,0 +1,18 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntry {
+
+    private int rank;
+    private String userId;
+    private String username;
+    private String avatarUrl;
+    private int level;
+    private int score;
+}
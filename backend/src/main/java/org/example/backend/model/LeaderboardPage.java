@@ -0,0 +1,17 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardPage {
+
+    private LeaderboardBoard board;
+    private int totalUsers;
+    private List<LeaderboardEntry> entries;
+}
@@ -0,0 +1,15 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardStanding {
+
+    private LeaderboardBoard board;
+    private int totalUsers;
+    private LeaderboardEntry entry;
+}
@@ -0,0 +1,16 @@
+package org.example.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrendingHabit {
+
+    private Habit habit;
+    private double score;
+    private long acceptCount;
+    private long completionCount;
+}
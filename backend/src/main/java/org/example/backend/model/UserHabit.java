@@ -1,17 +1,25 @@
 package org.example.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection ="user_habits")
+@CompoundIndex(name = "userId_active_id", def = "{'userId': 1, 'active': 1, '_id': 1}")
+@CompoundIndex(name = "userId_habitId", def = "{'userId': 1, 'habitId': 1}", unique = true)
+@CompoundIndex(name = "frequency_lastCompletedDate_id", def = "{'frequency': 1, 'lastCompletedDate': 1, '_id': 1}",
+        partialFilter = "{'currentStreak': {'$gt': 0}}")
 public class UserHabit {
 
     @Id
@@ -23,12 +31,23 @@ public class UserHabit {
     private String habitName;
     private HabitDifficulty difficulty;
     private HabitFrequency frequency;
+    private int intervalDays;
 
     private int currentStreak;
     private int longestStreak;
     private LocalDate lastCompletedDate;
+    // HabitFrequency period key of lastCompletedDate
+    @JsonIgnore
+    private Long lastCompletedPeriod;
     private int totalCompletions;
     private int totalXpEarned;
+    // id of the completion recorded by the last completion update
+    @JsonIgnore
+    private String lastCompletionId;
+
+    // year -> CompletionBitmap words, set by the completion update
+    @JsonIgnore
+    private Map<String, List<Long>> completionBits;
 
     private boolean active;
 
@@ -38,6 +57,7 @@ public class UserHabit {
         this.habitName = habit.getName();
         this.difficulty = habit.getDifficulty();
         this.frequency = habit.getFrequency();
+        this.intervalDays = habit.getIntervalDays();
         this.currentStreak = 0;
         this.longestStreak = 0;
         this.lastCompletedDate = null;
@@ -46,6 +66,11 @@ public class UserHabit {
         this.active = true;
     }
 
+    public long periodKey(LocalDate date) {
+        return frequency.periodKey(date, intervalDays);
+    }
+
+    @DerivedFrom("difficulty")
     public int getXp() {
        return difficulty != null ? difficulty.getBaseXp() : 0;
 
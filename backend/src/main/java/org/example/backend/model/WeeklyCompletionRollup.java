@@ -0,0 +1,55 @@
+package org.example.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user totals for one Monday-to-Sunday week, maintained with $inc as completions are written.
+ * The id is {@code userId:weekStart}, so a week view is a single _id lookup.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "weekly_completion_rollup")
+public class WeeklyCompletionRollup {
+
+    @Id
+    private String id;
+    private String userId;
+    private String weekStart;
+
+    private Map<String, Integer> completionsByDay = new LinkedHashMap<>();
+    private Map<String, Integer> xpByDay = new LinkedHashMap<>();
+    private Map<String, Integer> completionsByHabit = new LinkedHashMap<>();
+    private int totalCompletions;
+    private int totalXp;
+
+    // guards the $inc against counting a retried completion twice
+    @JsonIgnore
+    private List<String> completionIds = new ArrayList<>();
+
+    public WeeklyCompletionRollup(String userId, String weekStart) {
+        this.id = userId + ":" + weekStart;
+        this.userId = userId;
+        this.weekStart = weekStart;
+    }
+
+    public void add(HabitCompletion completion) {
+        String day = completion.completedOn().toString();
+        completionsByDay.merge(day, 1, Integer::sum);
+        xpByDay.merge(day, completion.getXpEarned(), Integer::sum);
+        completionsByHabit.merge(completion.getHabitId(), 1, Integer::sum);
+        totalCompletions++;
+        totalXp += completion.getXpEarned();
+        completionIds.add(completion.getId());
+    }
+}
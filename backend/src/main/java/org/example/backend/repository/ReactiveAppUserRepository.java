@@ -0,0 +1,12 @@
+package org.example.backend.repository;
+
+import org.example.backend.model.AppUser;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveAppUserRepository extends ReactiveMongoRepository<AppUser, String> {
+
+    Mono<AppUser> findByGithubId(String githubId);
+}
@@ -0,0 +1,12 @@
+package org.example.backend.repository;
+
+import org.example.backend.model.UserHabit;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveUserHabitRepository extends ReactiveMongoRepository<UserHabit, String> {
+
+    Flux<UserHabit> findByUserIdAndActiveTrue(String userId);
+}
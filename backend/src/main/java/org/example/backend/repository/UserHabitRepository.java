@@ -4,6 +4,7 @@ import org.example.backend.model.UserHabit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,5 +17,7 @@ public interface UserHabitRepository extends MongoRepository<UserHabit, String>
 
     Optional<UserHabit> findByUserIdAndHabitId(String userId, String habitId);
 
+    List<UserHabit> findByUserIdAndHabitIdIn(String userId, Collection<String> habitIds);
+
     boolean existsByUserIdAndHabitId(String userId, String habitId);
 }
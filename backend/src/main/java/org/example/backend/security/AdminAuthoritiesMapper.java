@@ -0,0 +1,40 @@
+package org.example.backend.security;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.config.AdminProperties;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Grants the admin role to the GitHub accounts listed in app.admin.github-ids. The OAuth2 login of both security
+ * configurations picks this bean up.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminAuthoritiesMapper implements GrantedAuthoritiesMapper {
+
+    static final String ADMIN_ROLE = "ADMIN";
+
+    private final AdminProperties adminProperties;
+
+    @Override
+    public Collection<? extends GrantedAuthority> mapAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        boolean admin = authorities.stream()
+                .filter(OAuth2UserAuthority.class::isInstance)
+                .map(authority -> ((OAuth2UserAuthority) authority).getAttributes().get("id"))
+                .anyMatch(githubId -> githubId != null && adminProperties.githubIds().contains(githubId.toString()));
+        if (!admin) {
+            return authorities;
+        }
+        List<GrantedAuthority> mapped = new ArrayList<>(authorities);
+        mapped.add(new SimpleGrantedAuthority("ROLE_" + ADMIN_ROLE));
+        return mapped;
+    }
+}
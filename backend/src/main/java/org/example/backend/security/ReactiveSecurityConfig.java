@@ -0,0 +1,64 @@
+package org.example.backend.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.RedirectServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.authentication.logout.RedirectServerLogoutSuccessHandler;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+import java.net.URI;
+
+/**
+ * WebFlux counterpart of {@link SecurityConfig} for the reactive profile. Same rules, OAuth2 login backed by the
+ * reactive WebSession.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        RedirectServerLogoutSuccessHandler logoutSuccessHandler = new RedirectServerLogoutSuccessHandler();
+        logoutSuccessHandler.setLogoutSuccessUrl(URI.create("http://localhost:5173/"));
+
+        return http
+                .cors(cors -> cors.configurationSource(reactiveCorsConfigurationSource()))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(a -> a
+                        //Public
+                        .pathMatchers("/api/habits/**").permitAll()
+
+                        //Authenticated
+                        .pathMatchers("/api/auth/me").authenticated()
+                        .pathMatchers("/api/user/**").authenticated()
+                        .pathMatchers("/api/my-habits").authenticated()
+                        .pathMatchers("/api/my-habits/**").authenticated()
+                        .pathMatchers("/api/completions/**").authenticated()
+                        .pathMatchers("/api/dashboard").authenticated()
+                        .pathMatchers("/api/leaderboard/**").authenticated()
+
+                        //Admin, CSRF protection is off so actuator writes need more than a session
+                        .pathMatchers("/actuator/**").hasRole(AdminAuthoritiesMapper.ADMIN_ROLE)
+                        //Everything else for now
+                        .anyExchange().authenticated())
+
+                .oauth2Login(o -> o
+                        .authenticationSuccessHandler(new RedirectServerAuthenticationSuccessHandler("http://localhost:5173/dashboard")))
+                .logout(logout -> logout
+                        .logoutSuccessHandler(logoutSuccessHandler))
+                .build();
+    }
+
+    @Bean
+    CorsConfigurationSource reactiveCorsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", SecurityConfig.corsConfiguration());
+        return source;
+    }
+}
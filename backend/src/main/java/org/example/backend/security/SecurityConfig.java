@@ -1,6 +1,7 @@
 package org.example.backend.security;
 
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,6 +14,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSecurity
 public class SecurityConfig {
 
@@ -32,6 +34,11 @@ public class SecurityConfig {
                         .requestMatchers("/api/my-habits").authenticated()
                         .requestMatchers("/api/my-habits/**").authenticated()
                         .requestMatchers("/api/completions/**").authenticated()
+                        .requestMatchers("/api/dashboard").authenticated()
+                        .requestMatchers("/api/leaderboard/**").authenticated()
+
+                        //Admin, CSRF protection is off so actuator writes need more than a session
+                        .requestMatchers("/actuator/**").hasRole(AdminAuthoritiesMapper.ADMIN_ROLE)
                         //Everything else for now
                         .anyRequest().authenticated())
 
@@ -45,15 +52,19 @@ public class SecurityConfig {
     }
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", corsConfiguration());
+        return source;
+    }
+
+    static CorsConfiguration corsConfiguration() {
         CorsConfiguration config = new CorsConfiguration();
         config.addAllowedOrigin("http://localhost:5173");
         config.addAllowedMethod("*");
         config.addAllowedHeader("*");
+        config.addExposedHeader("X-Next-Page-Token");
         config.setAllowCredentials(true);
-
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", config);
-        return source;
+        return config;
     }
 
 }
@@ -0,0 +1,69 @@
+package org.example.backend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.backend.config.UserCacheProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Maps GitHub ids to user ids. The id of a user never changes, so entries can't go stale when another node updates
+ * the user, and most endpoints need nothing else; those that need the document read it from Mongo.
+ */
+@Component
+public class AppUserCache {
+
+    private final AsyncCache<String, String> userIdsByGithubId;
+
+    public AppUserCache(UserCacheProperties properties, MeterRegistry meterRegistry) {
+        this.userIdsByGithubId = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdsByGithubId, "appUsers");
+    }
+
+    /**
+     * Loads a missing id on the calling thread, outside the cache's internal map lock. A synchronous Caffeine
+     * loader would run the Mongo read inside that lock and pin the carrier of a virtual thread while it waits.
+     * Concurrent callers for the same user still share one load.
+     */
+    public String get(String githubId, Function<String, String> loader) {
+        CompletableFuture<String> loading = new CompletableFuture<>();
+        CompletableFuture<String> cached = userIdsByGithubId.get(githubId, (key, executor) -> loading);
+        if (cached == loading) {
+            try {
+                loading.complete(loader.apply(githubId));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #get} for the reactive stack. The loader's future is shared with concurrent
+     * callers for the same user and dropped from the cache if it fails.
+     */
+    public CompletableFuture<String> getAsync(String githubId, Function<String, CompletableFuture<String>> loader) {
+        return userIdsByGithubId.get(githubId, (key, executor) -> loader.apply(key));
+    }
+
+    public void invalidate(String githubId) {
+        userIdsByGithubId.synchronous().invalidate(githubId);
+    }
+}
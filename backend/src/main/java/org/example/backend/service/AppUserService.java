@@ -1,47 +1,239 @@
 package org.example.backend.service;
 
-import lombok.RequiredArgsConstructor;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.config.XpProperties;
+import org.example.backend.exception.UserNotFoundException;
 import org.example.backend.model.AppUser;
 import org.example.backend.repository.AppUserRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class AppUserService {
 
+    private static final int FLUSH_LOCK_STRIPES = 64;
+
     private final AppUserRepository appUserRepository;
+    private final AppUserCache appUserCache;
+    private final MongoTemplate mongoTemplate;
+    private final XpProperties xpProperties;
+    private final LevelCurve levelCurve;
+    private final PendingXpBuffer pendingXpBuffer;
+    private final Leaderboard leaderboard;
+    private final Counter xpUpdateConflicts;
+    private final Counter xpUpdateRetries;
+    private final Counter xpUpdateFailures;
+    private final Counter xpGrantsCoalesced;
+    private final Timer xpFlushTimer;
+    private final Lock[] flushLocks = new Lock[FLUSH_LOCK_STRIPES];
 
-    public AppUser getOrCreateUser(OAuth2User oAuth2User) {
-        String githubId = Objects.requireNonNull(oAuth2User.getAttribute("id")).toString();
-        String username = oAuth2User.getAttribute("login");
-        String email = oAuth2User.getAttribute("email");
-        String avatarUrl = oAuth2User.getAttribute("avatar_url");
+    public AppUserService(AppUserRepository appUserRepository, AppUserCache appUserCache, MongoTemplate mongoTemplate,
+                          XpProperties xpProperties, LevelCurve levelCurve, PendingXpBuffer pendingXpBuffer,
+                          Leaderboard leaderboard, MeterRegistry meterRegistry) {
+        this.appUserRepository = appUserRepository;
+        this.appUserCache = appUserCache;
+        this.mongoTemplate = mongoTemplate;
+        this.xpProperties = xpProperties;
+        this.levelCurve = levelCurve;
+        this.pendingXpBuffer = pendingXpBuffer;
+        this.leaderboard = leaderboard;
+        this.xpUpdateConflicts = meterRegistry.counter("app.users.xp.update.conflicts");
+        this.xpUpdateRetries = meterRegistry.counter("app.users.xp.update.retries");
+        this.xpUpdateFailures = meterRegistry.counter("app.users.xp.update.failures");
+        this.xpGrantsCoalesced = meterRegistry.counter("app.xp.write-behind.coalesced");
+        this.xpFlushTimer = meterRegistry.timer("app.xp.write-behind.flush");
+        Arrays.setAll(flushLocks, i -> new ReentrantLock());
+    }
 
-        return appUserRepository.findByGithubId(githubId)
+    /**
+     * Resolves the signed-in user's id from the GitHub id cache, so endpoints that only need the id don't read the
+     * user document. The user is only looked up, or created, on a cache miss.
+     */
+    public String getUserId(OAuth2User oAuth2User) {
+        return appUserCache.get(githubId(oAuth2User), githubId -> findOrCreate(githubId, oAuth2User).getId());
+    }
+
+    public AppUser getOrCreateUser(OAuth2User oAuth2User) {
+        String githubId = githubId(oAuth2User);
+        AtomicReference<AppUser> loaded = new AtomicReference<>();
+        String userId = appUserCache.get(githubId, id -> {
+            loaded.set(findOrCreate(id, oAuth2User));
+            return loaded.get().getId();
+        });
+        if (loaded.get() != null) {
+            return levelCurve.describe(loaded.get());
+        }
+        return appUserRepository.findById(userId)
+                .map(levelCurve::describe)
                 .orElseGet(() -> {
-                    AppUser appUser = new AppUser(githubId, username, email, avatarUrl);
-                   return appUserRepository.save(appUser);
+                    // the cached id belongs to a user that was deleted since
+                    appUserCache.invalidate(githubId);
+                    return getOrCreateUser(oAuth2User);
                 });
     }
 
+    private AppUser findOrCreate(String githubId, OAuth2User oAuth2User) {
+        return appUserRepository.findByGithubId(githubId).orElseGet(() -> {
+            AppUser appUser = appUserRepository.save(new AppUser(githubId, oAuth2User.getAttribute("login"),
+                    oAuth2User.getAttribute("email"), oAuth2User.getAttribute("avatar_url")));
+            leaderboard.record(appUser);
+            return appUser;
+        });
+    }
+
+    public static String githubId(OAuth2User oAuth2User) {
+        return Objects.requireNonNull(oAuth2User.getAttribute("id")).toString();
+    }
+
+    public AppUser getCurrentUser(OAuth2User oAuth2User) {
+        return withPendingXp(getOrCreateUser(oAuth2User));
+    }
+
     public AppUser getUserById(String userId) {
         return appUserRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("user not found"));
+                .orElseThrow(() -> new UserNotFoundException("user not found"));
     }
 
-    public AppUser addXp(String userId, int xpAdded) {
-        AppUser appUser = getUserById(userId);
-
-        appUser.setTotalXp(appUser.getTotalXp() + xpAdded);
+    /**
+     * Grants XP to a user known only by id. With write-behind the grant is just buffered and the user isn't read.
+     */
+    public void addXp(String userId, int xpAdded) {
+        if (pendingXpBuffer.isEnabled()) {
+            bufferXp(userId, xpAdded);
+        } else {
+            applyXp(getUserById(userId), xpAdded, LocalDate.now());
+        }
+    }
 
-        while (appUser.getTotalXp() >= getXpRequiredForNextLevel(appUser.getLevel() +1)) {
-            appUser.setLevel(appUser.getLevel() + 1);
+    public AppUser addXp(AppUser snapshot, int xpAdded) {
+        if (!pendingXpBuffer.isEnabled()) {
+            return applyXp(snapshot, xpAdded, LocalDate.now());
         }
+        bufferXp(snapshot.getId(), xpAdded);
+        return withPendingXp(snapshot);
+    }
+
+    private void bufferXp(String userId, int xpAdded) {
         LocalDate today = LocalDate.now();
+        List<PendingXpBuffer.PendingXp> pending = pendingXpBuffer.get(userId);
+        if (!pending.isEmpty() && pending.getFirst().day().isBefore(today)) {
+            // write the previous day before today's grants pile up behind it
+            flushPendingXp(userId);
+        }
+        if (pendingXpBuffer.reachedThreshold(pendingXpBuffer.add(userId, xpAdded, today))) {
+            flushPendingXp(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.xp.write-behind.flush-interval:1s}")
+    @PreDestroy
+    public void flushPendingXp() {
+        if (!pendingXpBuffer.isEnabled()) {
+            return;
+        }
+        pendingXpBuffer.getPendingUserIds().forEach(this::flushPendingXp);
+    }
+
+    void flushPendingXp(String userId) {
+        // the scheduled flush and a threshold or midnight flush on a request thread must not both write one delta
+        Lock lock = flushLocks[Math.floorMod(userId.hashCode(), flushLocks.length)];
+        lock.lock();
+        try {
+            // oldest day first, so streaks are evaluated in order; a day that fails holds back the later ones
+            for (PendingXpBuffer.PendingXp pending : pendingXpBuffer.get(userId)) {
+                if (!flushPendingXp(userId, pending)) {
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean flushPendingXp(String userId, PendingXpBuffer.PendingXp pending) {
+        try {
+            xpFlushTimer.record(() -> applyXp(getUserById(userId), pending.xp(), pending.day()));
+            xpGrantsCoalesced.increment(pending.grants() - 1);
+            pendingXpBuffer.remove(userId, pending);
+            return true;
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Flushing {} pending XP of {} for user {} failed, retrying on next flush", pending.xp(),
+                    pending.day(), userId);
+            return false;
+        } catch (UserNotFoundException e) {
+            log.warn("Dropping {} pending XP for deleted user {}", pending.xp(), userId);
+            pendingXpBuffer.remove(userId, pending);
+            return true;
+        }
+    }
+
+    AppUser withPendingXp(AppUser appUser) {
+        int pendingXp = pendingXpBuffer.getPendingXp(appUser.getId());
+        if (pendingXp == 0) {
+            return appUser;
+        }
+        AppUser merged = copyOf(appUser, appUser.getVersion());
+        merged.setTotalXp(merged.getTotalXp() + pendingXp);
+        merged.setLevel(Math.max(merged.getLevel(), levelCurve.levelFor(merged.getTotalXp())));
+        return levelCurve.describe(merged);
+    }
+
+    private AppUser applyXp(AppUser snapshot, int xpAdded, LocalDate today) {
+        AppUser current = snapshot;
+        for (int attempt = 1; ; attempt++) {
+            AppUser updated = withXp(current, xpAdded, today);
+            if (compareAndSet(current, updated)) {
+                leaderboard.record(updated);
+                return updated;
+            }
+            xpUpdateConflicts.increment();
+            if (attempt >= xpProperties.maxUpdateAttempts()) {
+                xpUpdateFailures.increment();
+                throw new OptimisticLockingFailureException("Concurrent XP updates for user " + snapshot.getId());
+            }
+            xpUpdateRetries.increment();
+            current = getUserById(snapshot.getId());
+        }
+    }
+
+    private boolean compareAndSet(AppUser expected, AppUser updated) {
+        Query query = Query.query(Criteria.where("id").is(expected.getId()).and("version").is(expected.getVersion()));
+        Update update = new Update()
+                .set("totalXp", updated.getTotalXp())
+                .set("level", updated.getLevel())
+                .set("currentStreak", updated.getCurrentStreak())
+                .set("longestStreak", updated.getLongestStreak())
+                .set("lastActiveDate", updated.getLastActiveDate())
+                .set("version", updated.getVersion());
+        UpdateResult result = mongoTemplate.updateFirst(query, update, AppUser.class);
+        return result.getMatchedCount() == 1;
+    }
+
+    private AppUser withXp(AppUser source, int xpAdded, LocalDate today) {
+        AppUser appUser = copyOf(source, source.getVersion() == null ? 0L : source.getVersion() + 1);
+
+        appUser.setTotalXp(appUser.getTotalXp() + xpAdded);
+        appUser.setLevel(Math.max(appUser.getLevel(), levelCurve.levelFor(appUser.getTotalXp())));
         LocalDate lastActive = appUser.getLastActiveDate();
 
         if (lastActive == null || lastActive.isBefore(today.minusDays(1))) {
@@ -53,16 +245,12 @@ public class AppUserService {
             appUser.setLongestStreak(appUser.getCurrentStreak());
         }
         appUser.setLastActiveDate(today);
-
-        return appUserRepository.save(appUser);
+        return levelCurve.describe(appUser);
     }
 
-    private int getXpRequiredForNextLevel(int level) {
-        int total = 0;
-        for(int i = 1; i < level; i++) {
-            total += i*100;
-
-        }
-        return total;
+    private AppUser copyOf(AppUser source, Long version) {
+        return new AppUser(source.getId(), source.getGithubId(), source.getUsername(), source.getEmail(),
+                source.getAvatarUrl(), source.getTotalXp(), source.getLevel(), source.getCurrentStreak(),
+                source.getLongestStreak(), source.getLastActiveDate(), version, 0, 0);
     }
 }
@@ -0,0 +1,157 @@
+package org.example.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.example.backend.config.CompletionDayMigrationProperties;
+import org.example.backend.model.HabitCompletion;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Moves stored completions from the ISO completionDate string to the numeric completionDay, one batch per tick in
+ * _id order. The last migrated _id is checkpointed in the migrations collection, so a restart resumes where the
+ * previous run stopped. A lease on the checkpoint document keeps the other nodes from migrating at the same time;
+ * they follow its checkpoint instead. Documents written by older binaries may get an _id below the position, so every
+ * pass that converted something is followed by another from the start, and the migration is only complete once a
+ * whole pass found nothing to convert. Until then, and for as long as old binaries may still write the legacy field,
+ * week reads also match it and the migration keeps scanning for new documents.
+ */
+@Slf4j
+@Component
+public class CompletionDayMigration {
+
+    static final String MIGRATIONS_COLLECTION = "migrations";
+    static final String MIGRATION_ID = "habit_completion.completionDay";
+
+    private final MongoTemplate mongoTemplate;
+    private final CompletionDayMigrationProperties properties;
+    private final String collection;
+    private final MongoLease lease;
+
+    private volatile boolean complete;
+    private boolean checkpointLoaded;
+    private boolean leased;
+    private Object lastId;
+    private boolean passMigrated;
+
+    public CompletionDayMigration(MongoTemplate mongoTemplate, CompletionDayMigrationProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.collection = mongoTemplate.getCollectionName(HabitCompletion.class);
+        this.lease = new MongoLease(mongoTemplate, MIGRATIONS_COLLECTION, MIGRATION_ID);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Whether stored completions may still lack completionDay, so week reads have to match completionDate as well.
+     */
+    public boolean includesLegacyDates() {
+        return !complete || properties.legacyWrites();
+    }
+
+    @Scheduled(fixedDelayString = "${app.completions.day-migration.batch-interval:1s}")
+    public void migrateNextBatch() {
+        if (!checkpointLoaded) {
+            loadCheckpoint();
+        }
+        if (!properties.enabled() || (complete && !properties.legacyWrites())) {
+            return;
+        }
+        if (!lease.tryAcquire(properties.leaseDuration())) {
+            // another node migrates; its checkpoint tells this one when week reads can drop the legacy field
+            leased = false;
+            loadCheckpoint();
+            return;
+        }
+        if (!leased) {
+            leased = true;
+            loadCheckpoint();
+        }
+
+        Criteria pending = Criteria.where("completionDay").exists(false);
+        if (lastId != null) {
+            pending = pending.and("_id").gt(lastId);
+        }
+        Query query = Query.query(pending).with(Sort.by("_id")).limit(properties.batchSize());
+        query.fields().include("completionDate");
+        List<Document> batch = mongoTemplate.find(query, Document.class, collection);
+
+        if (!batch.isEmpty()) {
+            if (migrate(batch) > 0) {
+                passMigrated = true;
+                complete = false;
+            }
+            lastId = batch.getLast().get("_id");
+        }
+        if (batch.size() < properties.batchSize()) {
+            boolean wasComplete = complete;
+            complete = !passMigrated;
+            lastId = null;
+            passMigrated = false;
+            if (complete && !wasComplete) {
+                log.info("Completion day migration finished");
+            }
+        }
+        saveCheckpoint();
+    }
+
+    private int migrate(List<Document> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int updates = 0;
+        for (Document completion : batch) {
+            Object id = completion.get("_id");
+            String date = completion.getString("completionDate");
+            LocalDate day = parseDate(date);
+            if (day == null) {
+                log.warn("Skipping completion {} with unreadable completionDate '{}'", id, date);
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("completionDay").exists(false)),
+                    new Update().set("completionDay", (int) day.toEpochDay()).unset("completionDate"));
+            updates++;
+        }
+        if (updates > 0) {
+            bulk.execute();
+        }
+        return updates;
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return date != null ? LocalDate.parse(date) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void loadCheckpoint() {
+        Document checkpoint = mongoTemplate.findById(MIGRATION_ID, Document.class, MIGRATIONS_COLLECTION);
+        if (checkpoint != null) {
+            lastId = checkpoint.get("lastId");
+            passMigrated = checkpoint.getBoolean("passMigrated", true);
+            complete = checkpoint.getBoolean("complete", false);
+        }
+        checkpointLoaded = true;
+    }
+
+    private void saveCheckpoint() {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(MIGRATION_ID)),
+                new Update().set("lastId", lastId).set("passMigrated", passMigrated).set("complete", complete)
+                        .set("updatedAt", Instant.now()),
+                MIGRATIONS_COLLECTION);
+    }
+}
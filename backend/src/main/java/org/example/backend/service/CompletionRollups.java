@@ -0,0 +1,130 @@
+package org.example.backend.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps one {@link WeeklyCompletionRollup} per user and week in step with habit_completion. Completions must be
+ * stored before they are applied: a week without a rollup yet is built from the stored completions, which
+ * covers weeks recorded before rollups existed.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompletionRollups {
+
+    private final MongoTemplate mongoTemplate;
+    private final CompletionDayMigration completionDayMigration;
+
+    public void apply(List<HabitCompletion> completions) {
+        if (completions.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WeeklyCompletionRollup.class);
+        completions.forEach(completion -> bulk.updateOne(incrementQuery(completion), increment(completion)));
+        BulkWriteResult result = bulk.execute();
+        if (result.getMatchedCount() == completions.size()) {
+            return;
+        }
+
+        // no match means the completion was already counted or its week had no rollup yet
+        Map<String, List<HabitCompletion>> byWeek = new LinkedHashMap<>();
+        completions.forEach(completion -> byWeek.computeIfAbsent(rollupId(completion.getUserId(),
+                completion.completedOn()), ignored -> new ArrayList<>()).add(completion));
+        Set<String> existing = new HashSet<>();
+        Query existingQuery = Query.query(Criteria.where("_id").in(byWeek.keySet()));
+        existingQuery.fields().include("_id");
+        mongoTemplate.find(existingQuery, WeeklyCompletionRollup.class).forEach(rollup -> existing.add(rollup.getId()));
+
+        byWeek.forEach((id, weekCompletions) -> {
+            HabitCompletion first = weekCompletions.getFirst();
+            // a rollup created since our update may come from a backfill that read the week before these
+            // completions were stored, so they are incremented again; the guard skips the ones it already counts
+            if (existing.contains(id) || !backfill(first.getUserId(), first.completedOn())) {
+                weekCompletions.forEach(completion ->
+                        mongoTemplate.updateFirst(incrementQuery(completion), increment(completion), WeeklyCompletionRollup.class));
+            }
+        });
+    }
+
+    public WeeklyCompletionRollup getWeek(String userId, LocalDate dateInWeek) {
+        WeeklyCompletionRollup rollup = mongoTemplate.findOne(weekQuery(userId, dateInWeek), WeeklyCompletionRollup.class);
+        if (rollup != null) {
+            return rollup;
+        }
+        if (backfill(userId, dateInWeek)) {
+            rollup = mongoTemplate.findOne(weekQuery(userId, dateInWeek), WeeklyCompletionRollup.class);
+        }
+        return rollup != null ? rollup : new WeeklyCompletionRollup(userId, weekStart(dateInWeek).toString());
+    }
+
+    /**
+     * Builds the week's rollup from the stored completions. Returns false if another writer inserted it first.
+     * Empty weeks are not stored.
+     */
+    boolean backfill(String userId, LocalDate dateInWeek) {
+        LocalDate weekStart = weekStart(dateInWeek);
+        List<HabitCompletion> completions = mongoTemplate.find(HabitCompletionService.weekQuery(userId, weekStart,
+                FieldSelection.ALL, completionDayMigration.includesLegacyDates()), HabitCompletion.class);
+        if (completions.isEmpty()) {
+            return true;
+        }
+        WeeklyCompletionRollup rollup = new WeeklyCompletionRollup(userId, weekStart.toString());
+        completions.forEach(rollup::add);
+        try {
+            mongoTemplate.insert(rollup);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    static Query weekQuery(String userId, LocalDate dateInWeek) {
+        Query query = Query.query(Criteria.where("_id").is(rollupId(userId, dateInWeek)));
+        query.fields().exclude("completionIds");
+        return query;
+    }
+
+    static String rollupId(String userId, LocalDate date) {
+        return userId + ":" + weekStart(date);
+    }
+
+    private static Query incrementQuery(HabitCompletion completion) {
+        return Query.query(Criteria.where("_id").is(rollupId(completion.getUserId(), completion.completedOn()))
+                .and("completionIds").ne(completion.getId()));
+    }
+
+    private static Update increment(HabitCompletion completion) {
+        String day = completion.completedOn().toString();
+        return new Update()
+                .inc("completionsByDay." + day, 1)
+                .inc("xpByDay." + day, completion.getXpEarned())
+                .inc("completionsByHabit." + completion.getHabitId(), 1)
+                .inc("totalCompletions", 1)
+                .inc("totalXp", completion.getXpEarned())
+                .push("completionIds", completion.getId());
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Digest of a list's contents, for public ETags that have to agree across nodes and restarts. Relies on the items'
+ * toString covering every field, as the one Lombok's @Data generates does.
+ */
+final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    static String of(List<?> items) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object item : items) {
+                digest.update(item.toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
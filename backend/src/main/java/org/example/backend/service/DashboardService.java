@@ -0,0 +1,69 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.exception.HabitNotFoundException;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Dashboard;
+import org.example.backend.model.Habit;
+import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private static final ThreadFactory FAN_OUT_THREADS = Thread.ofVirtual().name("dashboard-", 0).factory();
+
+    private final UserHabitService userHabitService;
+    private final HabitCompletionService habitCompletionService;
+    private final HabitService habitService;
+
+    /**
+     * Loads the user's habits and the week's rollup concurrently, one virtual thread each. The executor is
+     * scoped to this call, so both reads have finished or been cancelled when it returns.
+     */
+    public Dashboard getDashboard(AppUser user, LocalDate today) {
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(FAN_OUT_THREADS)) {
+            Future<List<UserHabit>> habits = scope.submit(() -> userHabitService.getUserHabits(user.getId()));
+            Future<WeeklyCompletionRollup> week = scope.submit(
+                    () -> habitCompletionService.getWeekSummary(user.getId(), today));
+
+            List<UserHabit> userHabits = join(habits, scope);
+            return new Dashboard(user, userHabits, join(week, scope), suggestDailyHabit(userHabits));
+        }
+    }
+
+    // The suggestion comes from the in-memory catalog and only needs the habit ids already loaded above.
+    private Habit suggestDailyHabit(List<UserHabit> userHabits) {
+        try {
+            return habitService.getRandomDailyHabitExcluding(userHabits.stream().map(UserHabit::getHabitId).toList());
+        } catch (HabitNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static <T> T join(Future<T> future, ExecutorService scope) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            scope.shutdownNow();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Dashboard query failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scope.shutdownNow();
+            throw new IllegalStateException("Interrupted while loading dashboard", e);
+        }
+    }
+}
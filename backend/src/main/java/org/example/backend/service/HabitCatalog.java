@@ -0,0 +1,169 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.repository.HabitRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the whole habits collection in memory as an immutable, indexed snapshot.
+ * Refreshes build a new snapshot and swap it in atomically, so readers never see a partial catalog.
+ * The returned habits are shared between requests and must be treated as read-only.
+ */
+@Slf4j
+@Component
+public class HabitCatalog {
+
+    private final HabitRepository habitRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Timer refreshTimer;
+
+    public HabitCatalog(HabitRepository habitRepository, MeterRegistry meterRegistry) {
+        this.habitRepository = habitRepository;
+        this.refreshTimer = meterRegistry.timer("app.habits.catalog.refresh");
+        meterRegistry.gauge("app.habits.catalog.size", snapshot, loaded -> loaded.get() == null ? 0 : loaded.get().habits().size());
+        meterRegistry.gauge("app.habits.catalog.version", snapshot, loaded -> loaded.get() == null ? 0 : loaded.get().version());
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot.get();
+        return current != null ? current : refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.habit-catalog.refresh-interval:5m}",
+            initialDelayString = "${app.habit-catalog.refresh-interval:5m}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    // A ReentrantLock instead of synchronized: the Mongo read would otherwise pin a virtual thread's carrier.
+    public Snapshot refresh() {
+        refreshLock.lock();
+        try {
+            return refreshTimer.record(() -> {
+                List<Habit> habits = habitRepository.findAll();
+                Snapshot previous = snapshot.get();
+                if (previous != null && previous.habits().equals(Snapshot.sortedById(habits))) {
+                    return previous;
+                }
+                Snapshot next = Snapshot.of(previous == null ? 1 : previous.version() + 1, habits);
+                snapshot.set(next);
+                log.info("Loaded habit catalog version {} with {} habits", next.version(), habits.size());
+                return next;
+            });
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public long getVersion() {
+        return current().version();
+    }
+
+    public String getContentHash() {
+        return current().contentHash();
+    }
+
+    public List<Habit> getAllHabits() {
+        return current().habits();
+    }
+
+    public Optional<Habit> findById(String id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    public List<Habit> findAllById(Collection<String> ids) {
+        Map<String, Habit> byId = current().byId();
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    public List<Habit> findByCategory(String category) {
+        return current().byCategory().getOrDefault(category, List.of());
+    }
+
+    public List<Habit> findByDifficulty(HabitDifficulty difficulty) {
+        return current().byDifficulty().getOrDefault(difficulty, List.of());
+    }
+
+    public List<Habit> findByFrequency(HabitFrequency frequency) {
+        return current().byFrequency().getOrDefault(frequency, List.of());
+    }
+
+    /**
+     * Returns the habits of a category (or all habits) with an id greater than {@code afterId}, in id order.
+     */
+    public KeysetPage<Habit> page(String category, String afterId, int limit) {
+        List<Habit> habits = category == null ? getAllHabits() : findByCategory(category);
+        int from = 0;
+        if (afterId != null) {
+            int low = 0;
+            int high = habits.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (habits.get(mid).getId().compareTo(afterId) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        return KeysetPage.of(habits.subList(from, Math.min(habits.size(), from + limit + 1)), limit, Habit::getId);
+    }
+
+    public record Snapshot(
+            long version,
+            // unlike the version, the same on every node that loaded the same habits
+            String contentHash,
+            Instant loadedAt,
+            List<Habit> habits,
+            Map<String, Habit> byId,
+            Map<String, List<Habit>> byCategory,
+            Map<HabitDifficulty, List<Habit>> byDifficulty,
+            Map<HabitFrequency, List<Habit>> byFrequency
+    ) {
+
+        static Snapshot of(long version, List<Habit> habits) {
+            List<Habit> sorted = sortedById(habits);
+            return new Snapshot(version, ContentHash.of(sorted), Instant.now(), sorted,
+                    sorted.stream().collect(Collectors.toUnmodifiableMap(Habit::getId, Function.identity())),
+                    index(sorted, Habit::getCategory),
+                    index(sorted, Habit::getDifficulty),
+                    index(sorted, Habit::getFrequency));
+        }
+
+        static List<Habit> sortedById(List<Habit> habits) {
+            return habits.stream().sorted(Comparator.comparing(Habit::getId)).toList();
+        }
+
+        private static <K> Map<K, List<Habit>> index(List<Habit> habits, Function<Habit, K> key) {
+            return habits.stream()
+                    .filter(habit -> key.apply(habit) != null)
+                    .collect(Collectors.collectingAndThen(
+                            Collectors.groupingBy(key, Collectors.toUnmodifiableList()),
+                            Map::copyOf));
+        }
+    }
+}
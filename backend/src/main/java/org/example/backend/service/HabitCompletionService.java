@@ -1,14 +1,18 @@
 package org.example.backend.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.HabitCompletion;
 import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
 import org.example.backend.repository.HabitCompletionRepository;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 
@@ -17,24 +21,71 @@ import java.util.List;
 public class HabitCompletionService {
 
     private final HabitCompletionRepository habitCompletionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final HabitCompletionWriter habitCompletionWriter;
+    private final CompletionRollups completionRollups;
+    private final CompletionDayMigration completionDayMigration;
+    private final ResourceVersions resourceVersions;
 
 
     public HabitCompletion recordCompletion (String userId, UserHabit userHabit) {
         HabitCompletion completion = new HabitCompletion(userId, userHabit);
-        return habitCompletionRepository.save(completion);
+        if (habitCompletionWriter.isEnabled()) {
+            return habitCompletionWriter.enqueue(completion);
+        }
+        HabitCompletion saved = habitCompletionRepository.save(completion);
+        completionRollups.apply(List.of(saved));
+        resourceVersions.completionsChanged(userId, saved.completedOn());
+        return saved;
+    }
+
+    public List<HabitCompletion> recordCompletions(List<HabitCompletion> completions) {
+        if (completions.isEmpty()) {
+            return completions;
+        }
+        if (habitCompletionWriter.isEnabled()) {
+            completions.forEach(habitCompletionWriter::enqueue);
+            return completions;
+        }
+        List<HabitCompletion> inserted = habitCompletionRepository.insert(completions);
+        completionRollups.apply(inserted);
+        resourceVersions.completionsChanged(inserted);
+        return inserted;
     }
 
 
     public List<HabitCompletion> getCompletionsForWeek(String userId, LocalDate dateInWeek) {
-        LocalDate startOfWeek = getStartOfWeek(dateInWeek);
-        LocalDate endOfWeek = startOfWeek.plusDays(6);
-        String startDate = startOfWeek.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String endDate = endOfWeek.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        return habitCompletionRepository.findByUserIdAndWeek(userId, startDate, endDate);
+        return getCompletionsForWeek(userId, dateInWeek, FieldSelection.ALL);
+    }
+
+    public List<HabitCompletion> getCompletionsForWeek(String userId, LocalDate dateInWeek, FieldSelection fields) {
+        return mongoTemplate.find(weekQuery(userId, dateInWeek, fields, completionDayMigration.includesLegacyDates()),
+                HabitCompletion.class);
+    }
+
+    public WeeklyCompletionRollup getWeekSummary(String userId, LocalDate dateInWeek) {
+        return completionRollups.getWeek(userId, dateInWeek);
     }
 
-    private LocalDate getStartOfWeek(LocalDate date) {
-        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    /**
+     * Matches the week on the numeric completionDay and, while documents may still lack one, on the legacy
+     * completionDate string of those.
+     */
+    static Query weekQuery(String userId, LocalDate dateInWeek, FieldSelection fields, boolean includeLegacyDates) {
+        LocalDate startOfWeek = dateInWeek.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate endOfWeek = startOfWeek.plusDays(6);
+        int startDay = (int) startOfWeek.toEpochDay();
+        int endDay = (int) endOfWeek.toEpochDay();
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (includeLegacyDates) {
+            criteria.orOperator(
+                    Criteria.where("completionDay").gte(startDay).lte(endDay),
+                    Criteria.where("completionDay").exists(false).and("completionDate")
+                            .gte(startOfWeek.toString()).lte(endOfWeek.toString()));
+        } else {
+            criteria.and("completionDay").gte(startDay).lte(endDay);
+        }
+        return fields.applyTo(Query.query(criteria));
     }
 
 }
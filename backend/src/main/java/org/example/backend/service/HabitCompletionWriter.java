@@ -0,0 +1,202 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.backend.config.CompletionWriteProperties;
+import org.example.backend.model.HabitCompletion;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class HabitCompletionWriter {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CompletionWriteProperties properties;
+    private final ResourceVersions resourceVersions;
+    private final CompletionRollups completionRollups;
+    private final BlockingQueue<HabitCompletion> queue;
+    private final Timer flushTimer;
+    private final Counter backpressureCounter;
+    private final Counter droppedCounter;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public HabitCompletionWriter(MongoTemplate mongoTemplate, CompletionWriteProperties properties,
+                                 ResourceVersions resourceVersions, CompletionRollups completionRollups,
+                                 MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.resourceVersions = resourceVersions;
+        this.completionRollups = completionRollups;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.flushTimer = meterRegistry.timer("app.completions.write.flush");
+        this.backpressureCounter = meterRegistry.counter("app.completions.write.backpressure");
+        this.droppedCounter = meterRegistry.counter("app.completions.write.dropped");
+        meterRegistry.gauge("app.completions.write.queue.depth", queue, BlockingQueue::size);
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("habit-completion-writer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join(properties.shutdownTimeout().toMillis());
+        if (flusher.isAlive()) {
+            log.warn("Completion writer did not drain within {}, {} completions still queued",
+                    properties.shutdownTimeout(), queue.size());
+        }
+    }
+
+    public HabitCompletion enqueue(HabitCompletion completion) {
+        if (completion.getId() == null) {
+            completion.setId(new ObjectId().toHexString());
+        }
+        try {
+            if (running && queue.offer(completion, properties.offerTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return completion;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // queue full or writer stopped: write on the caller's thread instead of losing the completion
+        backpressureCounter.increment();
+        flush(List.of(completion));
+        return completion;
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<HabitCompletion> batch = new ArrayList<>(properties.batchSize());
+        long flushIntervalNanos = properties.flushInterval().toNanos();
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            // a batch that could not be written stays ahead of newer completions until it is
+            if (batch.isEmpty()) {
+                try {
+                    HabitCompletion first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    long deadline = System.nanoTime() + flushIntervalNanos;
+                    while (batch.size() < properties.batchSize()) {
+                        if (queue.drainTo(batch, properties.batchSize() - batch.size()) > 0) {
+                            continue;
+                        }
+                        long remaining = deadline - System.nanoTime();
+                        HabitCompletion next = remaining > 0 && running ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+            if (!batch.isEmpty() && flushQueued(batch)) {
+                batch = new ArrayList<>(properties.batchSize());
+            }
+        }
+    }
+
+    private boolean flushQueued(List<HabitCompletion> batch) {
+        try {
+            flush(batch);
+            return true;
+        } catch (RuntimeException e) {
+            if (running) {
+                log.error("Flushing {} completions failed {} times, keeping them queued and retrying in {}",
+                        batch.size(), properties.maxFlushAttempts(), properties.maxRetryBackoff(), e);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(properties.maxRetryBackoff().toNanos());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+                return false;
+            }
+            droppedCounter.increment(batch.size());
+            log.error("Dropped {} completions that could not be written before shutdown", batch.size(), e);
+            return true;
+        }
+    }
+
+    /**
+     * Writes the batch, retrying with exponential backoff, and rethrows the last failure once maxFlushAttempts are
+     * used up. Completions are never dropped here: the writer keeps a failed batch queued, and a completion written
+     * on the caller's thread fails the caller's request.
+     */
+    void flush(List<HabitCompletion> batch) {
+        long backoffNanos = properties.retryBackoff().toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flushTimer.record(() -> insert(batch));
+                // readers may have cached the week without these completions while they were queued
+                resourceVersions.completionsChanged(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.maxFlushAttempts()) {
+                    throw e;
+                }
+                log.warn("Flushing {} completions failed (attempt {}/{}), retrying in {} ms", batch.size(), attempt,
+                        properties.maxFlushAttempts(), TimeUnit.NANOSECONDS.toMillis(backoffNanos), e);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffNanos = Math.min(backoffNanos * 2, properties.maxRetryBackoff().toNanos());
+            }
+        }
+    }
+
+    private void insert(List<HabitCompletion> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HabitCompletion.class)
+                    .insert(batch)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // ids are assigned before queueing, so a retried batch only collides with its own earlier writes
+            if (!e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+        // a retry re-applies the whole batch; the rollups skip completions they already counted
+        completionRollups.apply(batch);
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Picks random habits from the catalog snapshot without querying Mongo.
+ * Habits are addressed by their ordinal (position) in the snapshot; each pool keeps its eligible ordinals in an
+ * int array and a user's accepted habits are excluded through a BitSet over the same ordinals.
+ */
+@Component
+@RequiredArgsConstructor
+public class HabitSampler {
+
+    static final Set<HabitDifficulty> DAILY_DIFFICULTIES = EnumSet.of(HabitDifficulty.EASY, HabitDifficulty.MEDIUM);
+    static final Set<HabitDifficulty> WEEKLY_DIFFICULTIES = EnumSet.of(HabitDifficulty.EASY, HabitDifficulty.MEDIUM, HabitDifficulty.HARD);
+    private static final int MAX_REJECTIONS = 8;
+
+    private final HabitCatalog habitCatalog;
+    private final AtomicReference<Pools> pools = new AtomicReference<>();
+
+    public Optional<Habit> sampleDaily(Collection<String> excludedHabitIds) {
+        Pools current = currentPools();
+        return sample(current, current.daily(), excludedHabitIds);
+    }
+
+    public Optional<Habit> sampleWeekly(Collection<String> excludedHabitIds) {
+        Pools current = currentPools();
+        return sample(current, current.weekly(), excludedHabitIds);
+    }
+
+    private Pools currentPools() {
+        HabitCatalog.Snapshot snapshot = habitCatalog.current();
+        Pools current = pools.get();
+        if (current == null || current.snapshot() != snapshot) {
+            current = Pools.of(snapshot);
+            pools.set(current);
+        }
+        return current;
+    }
+
+    private Optional<Habit> sample(Pools current, Pool pool, Collection<String> excludedHabitIds) {
+        int[] ordinals = pool.ordinals();
+        if (ordinals.length == 0) {
+            return Optional.empty();
+        }
+        BitSet excluded = current.toBitSet(excludedHabitIds);
+        excluded.and(pool.members());
+        int eligible = ordinals.length - excluded.cardinality();
+        if (eligible <= 0) {
+            return Optional.empty();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // rejection sampling is O(1) expected while most of the pool is eligible
+        if (eligible * 2 >= ordinals.length) {
+            for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+                int ordinal = ordinals[random.nextInt(ordinals.length)];
+                if (!excluded.get(ordinal)) {
+                    return Optional.of(current.snapshot().habits().get(ordinal));
+                }
+            }
+        }
+        // otherwise pick the n-th eligible habit directly, still uniform
+        int target = random.nextInt(eligible);
+        for (int ordinal : ordinals) {
+            if (!excluded.get(ordinal) && target-- == 0) {
+                return Optional.of(current.snapshot().habits().get(ordinal));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private record Pool(int[] ordinals, BitSet members) {
+
+        static Pool of(List<Habit> habits, HabitFrequency frequency, Set<HabitDifficulty> difficulties) {
+            BitSet members = new BitSet(habits.size());
+            for (int ordinal = 0; ordinal < habits.size(); ordinal++) {
+                Habit habit = habits.get(ordinal);
+                if (habit.getFrequency() == frequency && difficulties.contains(habit.getDifficulty())) {
+                    members.set(ordinal);
+                }
+            }
+            return new Pool(members.stream().toArray(), members);
+        }
+    }
+
+    private record Pools(HabitCatalog.Snapshot snapshot, Map<String, Integer> ordinalById, Pool daily, Pool weekly) {
+
+        static Pools of(HabitCatalog.Snapshot snapshot) {
+            List<Habit> habits = snapshot.habits();
+            Map<String, Integer> ordinalById = new HashMap<>(habits.size() * 2);
+            for (int ordinal = 0; ordinal < habits.size(); ordinal++) {
+                ordinalById.put(habits.get(ordinal).getId(), ordinal);
+            }
+            return new Pools(snapshot, Map.copyOf(ordinalById),
+                    Pool.of(habits, HabitFrequency.DAILY, DAILY_DIFFICULTIES),
+                    Pool.of(habits, HabitFrequency.WEEKLY, WEEKLY_DIFFICULTIES));
+        }
+
+        BitSet toBitSet(Collection<String> habitIds) {
+            BitSet bits = new BitSet(snapshot.habits().size());
+            for (String habitId : habitIds) {
+                Integer ordinal = ordinalById.get(habitId);
+                if (ordinal != null) {
+                    bits.set(ordinal);
+                }
+            }
+            return bits;
+        }
+    }
+}
@@ -4,57 +4,82 @@ import lombok.RequiredArgsConstructor;
 import org.example.backend.exception.HabitNotFoundException;
 import org.example.backend.model.Habit;
 import org.example.backend.model.HabitDifficulty;
-import org.example.backend.repository.HabitRepository;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.TrendingHabit;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class HabitService {
 
-    private final HabitRepository habitRepository;
+    private final HabitCatalog habitCatalog;
+    private final HabitSampler habitSampler;
+    private final TrendingHabits trendingHabits;
 
     public List<Habit> getAllHabits() {
-        return habitRepository.findAll();
+        return habitCatalog.getAllHabits();
     }
 
     public Habit getHabitById(String id) {
-        return habitRepository.findById(id)
+        return habitCatalog.findById(id)
                 .orElseThrow(() -> new RuntimeException("Habit with id " + id + " not found"));
     }
 
+    public List<Habit> getHabits(String category) {
+        return category == null ? getAllHabits() : getHabitsByCategory(category);
+    }
+
+    public KeysetPage<Habit> getHabitsPage(String category, String pageToken, int limit) {
+        return habitCatalog.page(category, KeysetPage.decodeToken(pageToken), limit);
+    }
+
+    public Stream<Habit> streamHabits(String category) {
+        return getHabits(category).stream();
+    }
+
+    public List<Habit> getHabitsByIds(Collection<String> ids) {
+        return habitCatalog.findAllById(ids);
+    }
+
     public List<Habit> getHabitsByCategory(String category) {
-        return habitRepository.findByCategory(category);
+        return habitCatalog.findByCategory(category);
     }
 
     public List<Habit> getHabitsByDifficulty(HabitDifficulty difficulty) {
-        return habitRepository.findByDifficulty(difficulty);
+        return habitCatalog.findByDifficulty(difficulty);
+    }
+
+    public String getCatalogHash() {
+        return habitCatalog.getContentHash();
+    }
+
+    public List<TrendingHabit> getTrendingHabits(Integer limit) {
+        return trendingHabits.getTop(trendingHabits.checkLimit(limit));
+    }
+
+    public String getTrendingHash() {
+        return trendingHabits.getContentHash();
     }
 
     public Habit getRandomDailyHabit() {
-        return habitRepository.findRandomDailyHabit()
-                .orElseThrow(() -> new HabitNotFoundException("No daily habit found"));
+        return getRandomDailyHabitExcluding(List.of());
     }
 
     public Habit getRandomWeeklyHabit() {
-        return habitRepository.findRandomWeeklyHabit()
-                .orElseThrow(() -> new HabitNotFoundException("No weekly habit found"));
+        return getRandomWeeklyHabitExcluding(List.of());
     }
 
     public Habit getRandomDailyHabitExcluding(List<String> excludeIds) {
-        if(excludeIds == null || excludeIds.isEmpty()) {
-            return getRandomDailyHabit();
-        }
-        return habitRepository.findRandomDailyHabitExcluding(excludeIds)
+        return habitSampler.sampleDaily(excludeIds == null ? List.of() : excludeIds)
                 .orElseThrow(() -> new HabitNotFoundException("No daily habit found"));
     }
 
     public Habit getRandomWeeklyHabitExcluding(List<String> excludeIds) {
-        if(excludeIds == null || excludeIds.isEmpty()) {
-            return getRandomWeeklyHabit();
-        }
-        return habitRepository.findRandomWeeklyHabitExcluding(excludeIds)
+        return habitSampler.sampleWeekly(excludeIds == null ? List.of() : excludeIds)
                 .orElseThrow(() -> new HabitNotFoundException("No weekly habit found"));
     }
 }
@@ -0,0 +1,215 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.exception.UserNotFoundException;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.LeaderboardBoard;
+import org.example.backend.model.LeaderboardEntry;
+import org.example.backend.model.LeaderboardPage;
+import org.example.backend.model.LeaderboardStanding;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory XP and longest-streak rankings of all users. Loaded from Mongo at startup and kept current by
+ * {@link AppUserService} on every XP change on this node; reads never touch Mongo. Grants applied by other nodes
+ * reach it through a rebuild every {@code app.leaderboard.refresh-interval}.
+ * Both scores only ever grow, so a grant recorded from a stale snapshot never moves a user down.
+ */
+@Slf4j
+@Component
+public class Leaderboard {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuilding = new ReentrantLock();
+    private final Timer rebuildTimer;
+    private Boards boards = new Boards();
+
+    public Leaderboard(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.rebuildTimer = meterRegistry.timer("app.leaderboard.rebuild");
+        meterRegistry.gauge("app.leaderboard.users", this, Leaderboard::size);
+    }
+
+    public static int checkLimit(Integer limit) {
+        int checked = limit == null ? DEFAULT_LIMIT : limit;
+        if (checked < 1 || checked > MAX_LIMIT) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return checked;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.leaderboard.refresh-interval:5m}",
+            initialDelayString = "${app.leaderboard.refresh-interval:5m}")
+    public void rebuild() {
+        if (!rebuilding.tryLock()) {
+            return;
+        }
+        try {
+            rebuildTimer.record(this::load);
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    private void load() {
+        Boards rebuilt = new Boards();
+        try (Stream<AppUser> users = mongoTemplate.stream(rebuildQuery(), AppUser.class)) {
+            users.forEach(rebuilt::record);
+        }
+        lock.writeLock().lock();
+        try {
+            // keep grants recorded while the users were streamed
+            boards.copyTo(rebuilt);
+            boards = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded leaderboard with {} users", rebuilt.size());
+    }
+
+    public void record(AppUser appUser) {
+        lock.writeLock().lock();
+        try {
+            boards.record(appUser);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public LeaderboardPage getTop(LeaderboardBoard board, int limit) {
+        lock.readLock().lock();
+        try {
+            RankIndex index = boards.index(board);
+            int[] slots = index.top(limit);
+            List<LeaderboardEntry> entries = new ArrayList<>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                entries.add(boards.entry(index, slots[i], i + 1));
+            }
+            return new LeaderboardPage(board, index.size(), entries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LeaderboardStanding getStanding(LeaderboardBoard board, String githubId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = boards.slotByGithubId.get(githubId);
+            if (slot == null) {
+                throw new UserNotFoundException("user is not on the leaderboard");
+            }
+            RankIndex index = boards.index(board);
+            return new LeaderboardStanding(board, index.size(), boards.entry(index, slot, index.rank(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return boards.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static Query rebuildQuery() {
+        Query query = new Query();
+        query.fields().include("githubId", "username", "avatarUrl", "level", "totalXp", "longestStreak");
+        return query;
+    }
+
+    /**
+     * Users get a slot on first sight; the profile columns and both rank indexes are addressed by it.
+     */
+    private static final class Boards {
+
+        private final Map<String, Integer> slotByGithubId = new HashMap<>();
+        private final RankIndex xp = new RankIndex();
+        private final RankIndex streak = new RankIndex();
+        private String[] userIds = new String[16];
+        private String[] githubIds = new String[16];
+        private String[] usernames = new String[16];
+        private String[] avatarUrls = new String[16];
+        private int[] levels = new int[16];
+        private int count;
+
+        int size() {
+            return count;
+        }
+
+        RankIndex index(LeaderboardBoard board) {
+            return switch (board) {
+                case XP -> xp;
+                case STREAK -> streak;
+            };
+        }
+
+        void record(AppUser appUser) {
+            record(appUser.getId(), appUser.getGithubId(), appUser.getUsername(), appUser.getAvatarUrl(),
+                    appUser.getLevel(), appUser.getTotalXp(), appUser.getLongestStreak());
+        }
+
+        void record(String userId, String githubId, String username, String avatarUrl, int level, int totalXp,
+                    int longestStreak) {
+            Integer existing = slotByGithubId.get(githubId);
+            int slot = existing != null ? existing : add(githubId);
+            userIds[slot] = userId;
+            usernames[slot] = username;
+            avatarUrls[slot] = avatarUrl;
+            levels[slot] = Math.max(levels[slot], level);
+            xp.set(slot, existing == null ? totalXp : Math.max(xp.score(slot), totalXp));
+            streak.set(slot, existing == null ? longestStreak : Math.max(streak.score(slot), longestStreak));
+        }
+
+        void copyTo(Boards target) {
+            for (int slot = 0; slot < count; slot++) {
+                target.record(userIds[slot], githubIds[slot], usernames[slot], avatarUrls[slot], levels[slot],
+                        xp.score(slot), streak.score(slot));
+            }
+        }
+
+        LeaderboardEntry entry(RankIndex index, int slot, int rank) {
+            return new LeaderboardEntry(rank, userIds[slot], usernames[slot], avatarUrls[slot], levels[slot],
+                    index.score(slot));
+        }
+
+        private int add(String githubId) {
+            if (count == userIds.length) {
+                int capacity = count * 2;
+                userIds = Arrays.copyOf(userIds, capacity);
+                githubIds = Arrays.copyOf(githubIds, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                avatarUrls = Arrays.copyOf(avatarUrls, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+            }
+            int slot = count++;
+            githubIds[slot] = githubId;
+            slotByGithubId.put(githubId, slot);
+            return slot;
+        }
+    }
+}
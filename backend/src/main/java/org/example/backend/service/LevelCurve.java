@@ -0,0 +1,82 @@
+package org.example.backend.service;
+
+import org.example.backend.config.LevelCurveProperties;
+import org.example.backend.model.AppUser;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+public class LevelCurve {
+
+    // levelStartXp[i] is the total XP at which level i + 1 is reached
+    private final int[] levelStartXp;
+
+    public LevelCurve(LevelCurveProperties properties) {
+        this.levelStartXp = switch (properties.type()) {
+            case LINEAR -> buildLinear(properties.baseXp(), properties.maxLevel());
+            case EXPONENTIAL -> buildExponential(properties.baseXp(), properties.growth(), properties.maxLevel());
+            case TABLE -> buildTable(properties.table());
+        };
+    }
+
+    public int getMaxLevel() {
+        return levelStartXp.length;
+    }
+
+    public int levelFor(int totalXp) {
+        int index = Arrays.binarySearch(levelStartXp, totalXp);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    public int getLevelStartXp(int level) {
+        return levelStartXp[Math.clamp(level, 1, levelStartXp.length) - 1];
+    }
+
+    public int getXpForNextLevel(int level) {
+        if (level >= levelStartXp.length) {
+            return 0;
+        }
+        return levelStartXp[level] - getLevelStartXp(level);
+    }
+
+    public AppUser describe(AppUser appUser) {
+        appUser.setXpForNextLevel(getXpForNextLevel(appUser.getLevel()));
+        appUser.setCurrentLevelXp(appUser.getTotalXp() - getLevelStartXp(appUser.getLevel()));
+        return appUser;
+    }
+
+    private static int[] buildLinear(int baseXp, int maxLevel) {
+        int[] table = new int[maxLevel];
+        for (int level = 2; level <= maxLevel; level++) {
+            table[level - 1] = Math.addExact(table[level - 2], Math.multiplyExact(baseXp, level - 1));
+        }
+        return table;
+    }
+
+    private static int[] buildExponential(int baseXp, double growth, int maxLevel) {
+        int[] table = new int[maxLevel];
+        for (int level = 2; level <= maxLevel; level++) {
+            long levelStart = table[level - 2] + Math.max(1, Math.round(baseXp * Math.pow(growth, level - 2)));
+            if (levelStart > Integer.MAX_VALUE) {
+                return Arrays.copyOf(table, level - 1);
+            }
+            table[level - 1] = (int) levelStart;
+        }
+        return table;
+    }
+
+    private static int[] buildTable(List<Integer> levelStartXp) {
+        if (levelStartXp.isEmpty() || levelStartXp.getFirst() != 0) {
+            throw new IllegalArgumentException("Level table must start at 0 XP");
+        }
+        int[] table = levelStartXp.stream().mapToInt(Integer::intValue).toArray();
+        for (int i = 1; i < table.length; i++) {
+            if (table[i] <= table[i - 1]) {
+                throw new IllegalArgumentException("Level table must be strictly increasing");
+            }
+        }
+        return table;
+    }
+}
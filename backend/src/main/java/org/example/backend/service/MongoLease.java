@@ -0,0 +1,49 @@
+package org.example.backend.service;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A time-bound claim on one document, so a scheduled job runs on a single node at a time. Leases are held per
+ * node: the holder renews it on every run, and once it stops renewing, the lease expires and another node takes over.
+ */
+final class MongoLease {
+
+    private static final String NODE = UUID.randomUUID().toString();
+
+    private final MongoTemplate mongoTemplate;
+    private final String collection;
+    private final String id;
+
+    MongoLease(MongoTemplate mongoTemplate, String collection, String id) {
+        this.mongoTemplate = mongoTemplate;
+        this.collection = collection;
+        this.id = id;
+    }
+
+    /**
+     * Takes or renews the lease for the given duration. Fails while another node holds an unexpired one.
+     */
+    boolean tryAcquire(Duration duration) {
+        Instant now = Instant.now();
+        Query free = Query.query(Criteria.where("_id").is(id).orOperator(
+                Criteria.where("leaseOwner").is(NODE),
+                Criteria.where("leaseUntil").lt(now),
+                Criteria.where("leaseUntil").exists(false)));
+        try {
+            // a document held by another node does not match, so the upsert collides with it on _id
+            mongoTemplate.upsert(free, new Update().set("leaseOwner", NODE).set("leaseUntil", now.plus(duration)),
+                    collection);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.backend.config.XpProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pending XP per user and day. Streaks are evaluated per day, so grants are never coalesced across midnight; a day
+ * that could not be written yet stays apart from the grants of the next.
+ */
+@Component
+public class PendingXpBuffer {
+
+    private final XpProperties.WriteBehind properties;
+    // copied on write, so readers never see a map that is being changed
+    private final Map<String, NavigableMap<LocalDate, PendingXp>> pendingByUserId = new ConcurrentHashMap<>();
+
+    public PendingXpBuffer(XpProperties xpProperties, MeterRegistry meterRegistry) {
+        this.properties = xpProperties.writeBehind();
+        meterRegistry.gaugeMapSize("app.xp.write-behind.pending.users", Tags.empty(), pendingByUserId);
+        meterRegistry.gauge("app.xp.write-behind.pending.xp", pendingByUserId,
+                pending -> pending.values().stream().flatMap(days -> days.values().stream()).mapToLong(PendingXp::xp).sum());
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Adds a delta to the user's pending XP of that day and returns the merged entry.
+     */
+    public PendingXp add(String userId, int xp, LocalDate day) {
+        return pendingByUserId.compute(userId, (id, days) -> {
+            NavigableMap<LocalDate, PendingXp> updated = days == null ? new TreeMap<>() : new TreeMap<>(days);
+            updated.merge(day, new PendingXp(xp, 1, day), PendingXp::plus);
+            return updated;
+        }).get(day);
+    }
+
+    /**
+     * Returns the user's pending entries, oldest day first.
+     */
+    public List<PendingXp> get(String userId) {
+        NavigableMap<LocalDate, PendingXp> days = pendingByUserId.get(userId);
+        return days == null ? List.of() : List.copyOf(days.values());
+    }
+
+    public int getPendingXp(String userId) {
+        NavigableMap<LocalDate, PendingXp> days = pendingByUserId.get(userId);
+        return days == null ? 0 : days.values().stream().mapToInt(PendingXp::xp).sum();
+    }
+
+    public Set<String> getPendingUserIds() {
+        return Set.copyOf(pendingByUserId.keySet());
+    }
+
+    /**
+     * Removes a flushed entry, keeping any delta that was added to its day while it was being written.
+     */
+    public void remove(String userId, PendingXp flushed) {
+        pendingByUserId.computeIfPresent(userId, (id, days) -> {
+            NavigableMap<LocalDate, PendingXp> updated = new TreeMap<>(days);
+            updated.computeIfPresent(flushed.day(), (day, current) -> current.minus(flushed));
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    public boolean reachedThreshold(PendingXp pending) {
+        return pending.grants() >= properties.flushThreshold();
+    }
+
+    public record PendingXp(int xp, int grants, LocalDate day) {
+
+        PendingXp plus(PendingXp other) {
+            return new PendingXp(xp + other.xp, grants + other.grants, day);
+        }
+
+        PendingXp minus(PendingXp flushed) {
+            return grants == flushed.grants ? null : new PendingXp(xp - flushed.xp, grants - flushed.grants, day);
+        }
+    }
+}
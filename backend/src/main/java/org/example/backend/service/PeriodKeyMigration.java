@@ -0,0 +1,139 @@
+package org.example.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.example.backend.config.PeriodKeyMigrationProperties;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Backfills lastCompletedPeriod on user habits completed before period keys were stored, one batch per tick in _id
+ * order, checkpointed and leased in the migrations collection like {@link CompletionDayMigration}. Completions still
+ * derive the period from lastCompletedDate as well, since nodes on an older binary may keep writing habits without it,
+ * until {@code app.habits.trust-period-key} is turned on once the migration is complete and every node stores the key.
+ */
+@Slf4j
+@Component
+public class PeriodKeyMigration {
+
+    static final String MIGRATION_ID = "user_habits.lastCompletedPeriod";
+
+    private final MongoTemplate mongoTemplate;
+    private final PeriodKeyMigrationProperties properties;
+    private final String collection;
+    private final MongoLease lease;
+
+    private volatile boolean complete;
+    private boolean checkpointLoaded;
+    private boolean leased;
+    private Object lastId;
+
+    public PeriodKeyMigration(MongoTemplate mongoTemplate, PeriodKeyMigrationProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.collection = mongoTemplate.getCollectionName(UserHabit.class);
+        this.lease = new MongoLease(mongoTemplate, CompletionDayMigration.MIGRATIONS_COLLECTION, MIGRATION_ID);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Scheduled(fixedDelayString = "${app.habits.period-key-migration.batch-interval:1s}")
+    public void migrateNextBatch() {
+        if (!checkpointLoaded) {
+            loadCheckpoint();
+        }
+        if (complete || !properties.enabled()) {
+            return;
+        }
+        if (!lease.tryAcquire(properties.leaseDuration())) {
+            // another node migrates; follow its checkpoint
+            leased = false;
+            loadCheckpoint();
+            return;
+        }
+        if (!leased) {
+            leased = true;
+            loadCheckpoint();
+        }
+
+        Criteria pending = Criteria.where("lastCompletedPeriod").exists(false).and("lastCompletedDate").ne(null);
+        if (lastId != null) {
+            pending = pending.and("_id").gt(lastId);
+        }
+        Query query = Query.query(pending).with(Sort.by("_id")).limit(properties.batchSize());
+        query.fields().include("frequency", "intervalDays", "lastCompletedDate");
+        List<Document> batch = mongoTemplate.find(query, Document.class, collection);
+
+        if (!batch.isEmpty()) {
+            migrate(batch);
+            lastId = batch.getLast().get("_id");
+        }
+        complete = batch.size() < properties.batchSize();
+        saveCheckpoint();
+        if (complete) {
+            log.info("Period key migration finished");
+        }
+    }
+
+    private void migrate(List<Document> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int updates = 0;
+        for (Document userHabit : batch) {
+            Object id = userHabit.get("_id");
+            HabitFrequency frequency = parseFrequency(userHabit.getString("frequency"));
+            if (frequency == null) {
+                log.warn("Skipping user habit {} with unknown frequency '{}'", id, userHabit.getString("frequency"));
+                continue;
+            }
+            Date lastCompleted = userHabit.getDate("lastCompletedDate");
+            LocalDate day = LocalDate.ofInstant(lastCompleted.toInstant(), ZoneId.systemDefault());
+            // a completion since the read already stored its own key
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("lastCompletedDate").is(lastCompleted)
+                            .and("lastCompletedPeriod").exists(false)),
+                    new Update().set("lastCompletedPeriod", frequency.periodKey(day, userHabit.getInteger("intervalDays", 0))));
+            updates++;
+        }
+        if (updates > 0) {
+            bulk.execute();
+        }
+    }
+
+    private static HabitFrequency parseFrequency(String frequency) {
+        try {
+            return frequency != null ? HabitFrequency.valueOf(frequency) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void loadCheckpoint() {
+        Document checkpoint = mongoTemplate.findById(MIGRATION_ID, Document.class, CompletionDayMigration.MIGRATIONS_COLLECTION);
+        if (checkpoint != null) {
+            lastId = checkpoint.get("lastId");
+            complete = checkpoint.getBoolean("complete", false);
+        }
+        checkpointLoaded = true;
+    }
+
+    private void saveCheckpoint() {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(MIGRATION_ID)),
+                new Update().set("lastId", lastId).set("complete", complete).set("updatedAt", Instant.now()),
+                CompletionDayMigration.MIGRATIONS_COLLECTION);
+    }
+}
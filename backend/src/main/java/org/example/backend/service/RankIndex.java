@@ -0,0 +1,178 @@
+package org.example.backend.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Order-statistic treap over primitive arrays. Each node is a user slot; nodes are ordered by score, ties broken by
+ * slot so the user who got there first ranks higher. Subtree sizes give rank and top-N in O(log n).
+ * Not thread-safe, {@link Leaderboard} guards it.
+ */
+final class RankIndex {
+
+    private static final int NIL = 0;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    // node = slot + 1, node 0 is the empty tree
+    private long[] keys = new long[16];
+    private int[] priorities = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] sizes = new int[16];
+    private int root = NIL;
+
+    int size() {
+        return sizes[root];
+    }
+
+    boolean contains(int slot) {
+        int node = slot + 1;
+        return node < sizes.length && sizes[node] > 0;
+    }
+
+    int score(int slot) {
+        return (int) (keys[slot + 1] >> 32);
+    }
+
+    /**
+     * Inserts the slot or moves it to its new score.
+     */
+    void set(int slot, int score) {
+        int node = slot + 1;
+        ensureCapacity(node);
+        if (sizes[node] > 0) {
+            if (score(slot) == score) {
+                return;
+            }
+            root = remove(root, keys[node]);
+        }
+        keys[node] = key(slot, score);
+        priorities[node] = random.nextInt();
+        left[node] = NIL;
+        right[node] = NIL;
+        sizes[node] = 1;
+        root = insert(root, node);
+    }
+
+    /**
+     * 1-based rank of the slot, highest score first.
+     */
+    int rank(int slot) {
+        long key = keys[slot + 1];
+        int higher = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] > key) {
+                higher += 1 + sizes[right[node]];
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return higher + 1;
+    }
+
+    /**
+     * Slots of the first {@code limit} ranks, highest score first.
+     */
+    int[] top(int limit) {
+        int[] slots = new int[Math.min(limit, size())];
+        int[] stack = new int[64];
+        int depth = 0;
+        int count = 0;
+        int node = root;
+        while (count < slots.length) {
+            while (node != NIL) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                node = right[node];
+            }
+            node = stack[--depth];
+            slots[count++] = node - 1;
+            node = left[node];
+        }
+        return slots;
+    }
+
+    private static long key(int slot, int score) {
+        return (long) score << 32 | (Integer.MAX_VALUE - slot);
+    }
+
+    private int insert(int tree, int node) {
+        if (tree == NIL) {
+            return node;
+        }
+        if (keys[node] < keys[tree]) {
+            left[tree] = insert(left[tree], node);
+            if (priorities[left[tree]] > priorities[tree]) {
+                tree = rotateRight(tree);
+            }
+        } else {
+            right[tree] = insert(right[tree], node);
+            if (priorities[right[tree]] > priorities[tree]) {
+                tree = rotateLeft(tree);
+            }
+        }
+        update(tree);
+        return tree;
+    }
+
+    private int remove(int tree, long key) {
+        if (keys[tree] == key) {
+            if (left[tree] == NIL || right[tree] == NIL) {
+                int child = left[tree] == NIL ? right[tree] : left[tree];
+                sizes[tree] = 0;
+                return child;
+            }
+            if (priorities[left[tree]] > priorities[right[tree]]) {
+                tree = rotateRight(tree);
+                right[tree] = remove(right[tree], key);
+            } else {
+                tree = rotateLeft(tree);
+                left[tree] = remove(left[tree], key);
+            }
+        } else if (key < keys[tree]) {
+            left[tree] = remove(left[tree], key);
+        } else {
+            right[tree] = remove(right[tree], key);
+        }
+        update(tree);
+        return tree;
+    }
+
+    private int rotateRight(int tree) {
+        int pivot = left[tree];
+        left[tree] = right[pivot];
+        right[pivot] = tree;
+        update(tree);
+        update(pivot);
+        return pivot;
+    }
+
+    private int rotateLeft(int tree) {
+        int pivot = right[tree];
+        right[tree] = left[pivot];
+        left[pivot] = tree;
+        update(tree);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(int node) {
+        sizes[node] = 1 + sizes[left[node]] + sizes[right[node]];
+    }
+
+    private void ensureCapacity(int node) {
+        if (node < keys.length) {
+            return;
+        }
+        int capacity = Math.max(node + 1, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.model.AppUser;
+import org.example.backend.repository.ReactiveAppUserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking user resolution for the reactive profile. Shares the GitHub id cache, the leaderboard and the pending
+ * XP with {@link AppUserService}, which still applies XP grants.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveAppUserService {
+
+    private final ReactiveAppUserRepository appUserRepository;
+    private final AppUserCache appUserCache;
+    private final AppUserService appUserService;
+    private final LevelCurve levelCurve;
+    private final Leaderboard leaderboard;
+
+    public Mono<String> getUserId(OAuth2User oAuth2User) {
+        return getUserId(oAuth2User, new AtomicReference<>());
+    }
+
+    public Mono<AppUser> getOrCreateUser(OAuth2User oAuth2User) {
+        return findOrCreateUser(oAuth2User).map(levelCurve::describe);
+    }
+
+    public Mono<AppUser> getCurrentUser(OAuth2User oAuth2User) {
+        return getOrCreateUser(oAuth2User).map(appUserService::withPendingXp);
+    }
+
+    private Mono<AppUser> findOrCreateUser(OAuth2User oAuth2User) {
+        return Mono.defer(() -> {
+            AtomicReference<AppUser> loaded = new AtomicReference<>();
+            return getUserId(oAuth2User, loaded).flatMap(userId -> loaded.get() != null
+                    ? Mono.just(loaded.get())
+                    : appUserRepository.findById(userId).switchIfEmpty(Mono.defer(() -> {
+                        // the cached id belongs to a user that was deleted since
+                        appUserCache.invalidate(AppUserService.githubId(oAuth2User));
+                        return findOrCreateUser(oAuth2User);
+                    })));
+        });
+    }
+
+    // the cache shares a load between callers, so cancelling one subscriber must not cancel it
+    private Mono<String> getUserId(OAuth2User oAuth2User, AtomicReference<AppUser> loaded) {
+        return Mono.fromFuture(() -> appUserCache.getAsync(AppUserService.githubId(oAuth2User),
+                githubId -> findOrCreate(githubId, oAuth2User).doOnNext(loaded::set).map(AppUser::getId).toFuture()),
+                true);
+    }
+
+    private Mono<AppUser> findOrCreate(String githubId, OAuth2User oAuth2User) {
+        return appUserRepository.findByGithubId(githubId)
+                .switchIfEmpty(Mono.defer(() -> appUserRepository.save(new AppUser(githubId,
+                                oAuth2User.getAttribute("login"), oAuth2User.getAttribute("email"),
+                                oAuth2User.getAttribute("avatar_url")))
+                        .doOnNext(leaderboard::record)));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.example.backend.exception.HabitNotFoundException;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Dashboard;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.HabitHeatmap;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.example.backend.repository.ReactiveUserHabitRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking versions of the user habit and completion reads, used by the reactive profile. Queries are shared
+ * with the blocking services so both variants read the same documents through the same indexes.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveHabitReads {
+
+    private final ReactiveUserHabitRepository userHabitRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final HabitService habitService;
+    private final CompletionRollups completionRollups;
+    private final CompletionDayMigration completionDayMigration;
+
+    public Flux<UserHabit> getUserHabits(String userId, FieldSelection fields) {
+        if (fields.isAll()) {
+            return userHabitRepository.findByUserIdAndActiveTrue(userId);
+        }
+        return reactiveMongoTemplate.find(fields.applyTo(UserHabitService.activeHabitsQuery(userId)), UserHabit.class);
+    }
+
+    public Mono<KeysetPage<UserHabit>> getUserHabitsPage(String userId, String pageToken, int limit, FieldSelection fields) {
+        return reactiveMongoTemplate.find(fields.applyTo(UserHabitService.keysetQuery(userId, pageToken, limit)), UserHabit.class)
+                .collectList()
+                .map(habits -> KeysetPage.of(habits, limit, UserHabit::getId));
+    }
+
+    public Mono<List<String>> getUserHabitIds(String userId) {
+        return reactiveMongoTemplate.find(UserHabitService.habitIdsQuery(userId), UserHabit.class)
+                .map(UserHabit::getHabitId)
+                .collectList();
+    }
+
+    public Mono<HabitHeatmap> getHeatmap(String userId, int year) {
+        return reactiveMongoTemplate.find(UserHabitService.heatmapQuery(userId, year), UserHabit.class)
+                .collectList()
+                .map(userHabits -> HabitHeatmap.of(year, userHabits));
+    }
+
+    public Mono<Long> getUserHabitsVersion(String userId) {
+        return getVersion(ResourceVersions.userHabitsKey(userId));
+    }
+
+    public Mono<Long> getCompletionsVersion(String userId, LocalDate dateInWeek) {
+        return getVersion(ResourceVersions.completionsKey(userId, dateInWeek));
+    }
+
+    private Mono<Long> getVersion(String key) {
+        return reactiveMongoTemplate.findOne(ResourceVersions.versionQuery(key), Document.class, ResourceVersions.COLLECTION)
+                .map(ResourceVersions::version)
+                .defaultIfEmpty(0L);
+    }
+
+    public Flux<HabitCompletion> getCompletionsForWeek(String userId, LocalDate dateInWeek, FieldSelection fields) {
+        return reactiveMongoTemplate.find(HabitCompletionService.weekQuery(userId, dateInWeek, fields,
+                completionDayMigration.includesLegacyDates()), HabitCompletion.class);
+    }
+
+    /**
+     * Reads the week's rollup by id. A week without one is built from its completions on a blocking thread, once.
+     */
+    public Mono<WeeklyCompletionRollup> getWeekSummary(String userId, LocalDate dateInWeek) {
+        return reactiveMongoTemplate.findOne(CompletionRollups.weekQuery(userId, dateInWeek), WeeklyCompletionRollup.class)
+                .switchIfEmpty(Mono.fromCallable(() -> completionRollups.getWeek(userId, dateInWeek))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Subscribes to the habits and rollup queries at once; the payload is ready when the slower one completes.
+     */
+    public Mono<Dashboard> getDashboard(AppUser user, LocalDate today) {
+        return Mono.zip(
+                getUserHabits(user.getId(), FieldSelection.ALL).collectList(),
+                getWeekSummary(user.getId(), today)
+        ).map(results -> new Dashboard(user, results.getT1(), results.getT2(), suggestDailyHabit(results.getT1())));
+    }
+
+    private Habit suggestDailyHabit(List<UserHabit> userHabits) {
+        try {
+            return habitService.getRandomDailyHabitExcluding(userHabits.stream().map(UserHabit::getHabitId).toList());
+        } catch (HabitNotFoundException e) {
+            return null;
+        }
+    }
+}
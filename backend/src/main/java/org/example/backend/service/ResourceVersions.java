@@ -0,0 +1,95 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.example.backend.model.HabitCompletion;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Change versions for per-user resources, used to build ETags without reading the resources themselves.
+ * Versions are counters in Mongo, one small document per resource read by _id, so a write on any node, background
+ * jobs included, revalidates what every other node answers. A resource without a document is at version 0.
+ */
+@Component
+public class ResourceVersions {
+
+    static final String COLLECTION = "resource_versions";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ResourceVersions(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public long getUserHabitsVersion(String userId) {
+        return get(userHabitsKey(userId));
+    }
+
+    public void userHabitsChanged(String userId) {
+        bump(userHabitsKey(userId));
+    }
+
+    public void userHabitsChanged(Collection<String> userIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        userIds.forEach(userId -> keys.add(userHabitsKey(userId)));
+        bump(keys);
+    }
+
+    public long getCompletionsVersion(String userId, LocalDate dateInWeek) {
+        return get(completionsKey(userId, dateInWeek));
+    }
+
+    public void completionsChanged(String userId, LocalDate completionDate) {
+        bump(completionsKey(userId, completionDate));
+    }
+
+    public void completionsChanged(Collection<HabitCompletion> completions) {
+        Set<String> keys = new LinkedHashSet<>();
+        completions.forEach(completion -> keys.add(completionsKey(completion.getUserId(), completion.completedOn())));
+        bump(keys);
+    }
+
+    static String userHabitsKey(String userId) {
+        return "habits:" + userId;
+    }
+
+    static String completionsKey(String userId, LocalDate dateInWeek) {
+        return "completions:" + userId + ":" + dateInWeek.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    static Query versionQuery(String key) {
+        return Query.query(Criteria.where("_id").is(key));
+    }
+
+    static long version(Document document) {
+        return document == null ? 0 : document.get("version", Number.class).longValue();
+    }
+
+    private long get(String key) {
+        return version(mongoTemplate.findOne(versionQuery(key), Document.class, COLLECTION));
+    }
+
+    private void bump(String key) {
+        mongoTemplate.upsert(versionQuery(key), new Update().inc("version", 1L), COLLECTION);
+    }
+
+    private void bump(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        keys.forEach(key -> bulk.upsert(versionQuery(key), new Update().inc("version", 1L)));
+        bulk.execute();
+    }
+}
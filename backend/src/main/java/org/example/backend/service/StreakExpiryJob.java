@@ -0,0 +1,242 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.example.backend.config.StreakExpiryProperties;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resets streaks that lapsed without a completion, so reads don't show them until the user's next completion.
+ * Users and each habit frequency are separate partitions, scanned in parallel in (date, _id) order through partial
+ * indexes that only hold active streaks, one bounded batch at a time. Every partition checkpoints its position
+ * after each batch, so a run interrupted by a restart resumes where it stopped, and is leased through its checkpoint
+ * document, so of several nodes only one scans it. Resource versions are shared through Mongo, so the bumps of the
+ * leasing node revalidate what every node answers.
+ */
+@Slf4j
+@Component
+public class StreakExpiryJob {
+
+    static final String CHECKPOINTS_COLLECTION = "job_checkpoints";
+    static final String USERS_PARTITION = "users";
+
+    private final MongoTemplate mongoTemplate;
+    private final ResourceVersions resourceVersions;
+    private final StreakExpiryProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock running = new ReentrantLock();
+
+    public StreakExpiryJob(MongoTemplate mongoTemplate, ResourceVersions resourceVersions,
+                           StreakExpiryProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.resourceVersions = resourceVersions;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // catches up on a run that was missed or interrupted while the application was down
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        Thread.ofVirtual().name("streak-expiry").start(this::expireStreaks);
+    }
+
+    @Scheduled(cron = "${app.streaks.expiry.cron:0 5 0 * * *}")
+    public void expireStreaks() {
+        expireStreaks(LocalDate.now());
+    }
+
+    public void expireStreaks(LocalDate today) {
+        if (!properties.enabled()) {
+            return;
+        }
+        if (!running.tryLock()) {
+            log.info("Streak expiry already running, skipping");
+            return;
+        }
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Partition partition : partitions(today)) {
+                results.add(workers.submit(() -> run(partition, today)));
+            }
+            long reset = 0;
+            for (Future<Long> result : results) {
+                reset += result.get();
+            }
+            log.info("Streak expiry for {} reset {} streaks", today, reset);
+        } catch (ExecutionException e) {
+            log.error("Streak expiry for {} failed, the next run resumes from the last checkpoint", today, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.unlock();
+        }
+    }
+
+    List<Partition> partitions(LocalDate today) {
+        List<Partition> partitions = new ArrayList<>();
+        partitions.add(new Partition(USERS_PARTITION, mongoTemplate.getCollectionName(AppUser.class),
+                Criteria.where("currentStreak").gt(0), "lastActiveDate", toDate(today.minusDays(1)), "githubId",
+                new Update().set("currentStreak", 0).inc("version", 1)));
+        String userHabits = mongoTemplate.getCollectionName(UserHabit.class);
+        for (HabitFrequency frequency : HabitFrequency.values()) {
+            if (frequency != HabitFrequency.INTERVAL) {
+                partitions.add(habitPartition("user_habits." + frequency, userHabits,
+                        Criteria.where("currentStreak").gt(0).and("frequency").is(frequency.name()),
+                        frequency.previousPeriodStart(today, 0)));
+            }
+        }
+        // interval habits lapse on their own period length, so each length in use is a partition of its own
+        Criteria activeInterval = Criteria.where("currentStreak").gt(0).and("frequency").is(HabitFrequency.INTERVAL.name());
+        for (Integer intervalDays : mongoTemplate.findDistinct(Query.query(activeInterval), "intervalDays", userHabits, Integer.class)) {
+            partitions.add(habitPartition("user_habits.INTERVAL." + intervalDays, userHabits,
+                    Criteria.where("currentStreak").gt(0).and("frequency").is(HabitFrequency.INTERVAL.name())
+                            .and("intervalDays").is(intervalDays),
+                    HabitFrequency.INTERVAL.previousPeriodStart(today, intervalDays)));
+        }
+        return partitions;
+    }
+
+    private static Partition habitPartition(String name, String collection, Criteria activeStreak, LocalDate cutoff) {
+        return new Partition(name, collection, activeStreak, "lastCompletedDate", toDate(cutoff), "userId",
+                new Update().set("currentStreak", 0));
+    }
+
+    private long run(Partition partition, LocalDate today) {
+        MongoLease lease = new MongoLease(mongoTemplate, CHECKPOINTS_COLLECTION, checkpointId(partition));
+        if (!lease.tryAcquire(properties.leaseDuration())) {
+            log.info("Streak expiry partition {} is running on another node, skipping", partition.name());
+            return 0;
+        }
+        Checkpoint checkpoint = loadCheckpoint(partition, today);
+        if (checkpoint.complete) {
+            return 0;
+        }
+        long resetBefore = checkpoint.reset;
+        while (true) {
+            if (!lease.tryAcquire(properties.leaseDuration())) {
+                log.warn("Lost the lease on streak expiry partition {}, another node resumes from its checkpoint",
+                        partition.name());
+                return checkpoint.reset - resetBefore;
+            }
+            List<Document> batch = mongoTemplate.find(partition.batchQuery(checkpoint, properties.batchSize()),
+                    Document.class, partition.collection());
+            if (!batch.isEmpty()) {
+                checkpoint.reset += reset(partition, batch);
+                checkpoint.lastDate = batch.getLast().getDate(partition.dateField());
+                checkpoint.lastId = batch.getLast().get("_id");
+            }
+            checkpoint.complete = batch.size() < properties.batchSize();
+            saveCheckpoint(partition, today, checkpoint);
+            if (checkpoint.complete) {
+                meterRegistry.counter("app.streaks.expired", "partition", partition.name())
+                        .increment(checkpoint.reset - resetBefore);
+                return checkpoint.reset - resetBefore;
+            }
+        }
+    }
+
+    private long reset(Partition partition, List<Document> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, partition.collection());
+        for (Document document : batch) {
+            // re-check the lapse so a completion since the read keeps its streak
+            bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))
+                    .and("currentStreak").gt(0)
+                    .and(partition.dateField()).lt(partition.cutoff())), partition.reset());
+        }
+        long modified = bulk.execute().getModifiedCount();
+
+        // user documents are read per request, only the habit lists of the owners are cached
+        if (!partition.name().equals(USERS_PARTITION)) {
+            Set<String> owners = new LinkedHashSet<>();
+            batch.forEach(document -> owners.add(document.getString(partition.ownerField())));
+            resourceVersions.userHabitsChanged(owners);
+        }
+        return modified;
+    }
+
+    private Checkpoint loadCheckpoint(Partition partition, LocalDate today) {
+        Checkpoint checkpoint = new Checkpoint();
+        Document saved = mongoTemplate.findById(checkpointId(partition), Document.class, CHECKPOINTS_COLLECTION);
+        if (saved != null && today.toString().equals(saved.getString("runDate"))) {
+            checkpoint.lastDate = saved.getDate("lastDate");
+            checkpoint.lastId = saved.get("lastId");
+            checkpoint.reset = saved.get("reset", 0L);
+            checkpoint.complete = saved.getBoolean("complete", false);
+        }
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(Partition partition, LocalDate today, Checkpoint checkpoint) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(checkpointId(partition))), new Update()
+                        .set("runDate", today.toString())
+                        .set("lastDate", checkpoint.lastDate)
+                        .set("lastId", checkpoint.lastId)
+                        .set("reset", checkpoint.reset)
+                        .set("complete", checkpoint.complete)
+                        .set("updatedAt", Instant.now()),
+                CHECKPOINTS_COLLECTION);
+    }
+
+    private static String checkpointId(Partition partition) {
+        return "streak-expiry." + partition.name();
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    static final class Checkpoint {
+        Date lastDate;
+        Object lastId;
+        long reset;
+        boolean complete;
+    }
+
+    /**
+     * Documents with an active streak whose date field is before the cutoff.
+     */
+    record Partition(String name, String collection, Criteria activeStreak, String dateField, Date cutoff,
+                     String ownerField, Update reset) {
+
+        Query batchQuery(Checkpoint checkpoint, int batchSize) {
+            Criteria lapsed = Criteria.where(dateField).lt(cutoff);
+            if (checkpoint.lastDate != null) {
+                lapsed = new Criteria().andOperator(lapsed, new Criteria().orOperator(
+                        Criteria.where(dateField).gt(checkpoint.lastDate),
+                        Criteria.where(dateField).is(checkpoint.lastDate).and("_id").gt(checkpoint.lastId)));
+            }
+            Query query = Query.query(activeStreak).addCriteria(lapsed)
+                    .with(Sort.by(dateField, "_id"))
+                    .limit(batchSize);
+            query.fields().include(dateField, ownerField);
+            return query;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.example.backend.config.TrendingProperties;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.model.HabitTrend;
+import org.example.backend.model.TrendingHabit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Habit popularity from acceptances and completions. Request threads only bump striped counters; a scheduled
+ * refresh folds them into exponentially decaying scores and precomputes the top K. A flush adds what this node saw
+ * since the last one to the persisted scores, which every node updates in place, and reads back the totals of all
+ * nodes, so rankings converge across the cluster and a restart doesn't start from zero.
+ */
+@Slf4j
+@Component
+public class TrendingHabits {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final HabitCatalog habitCatalog;
+    private final TrendingProperties properties;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final AtomicReference<Ranking> ranking = new AtomicReference<>(new Ranking(ContentHash.of(List.of()), List.of()));
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final Map<String, Trend> trends = new HashMap<>();
+    private Instant scoredAt;
+
+    public TrendingHabits(MongoTemplate mongoTemplate, HabitCatalog habitCatalog, TrendingProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.habitCatalog = habitCatalog;
+        this.properties = properties;
+        meterRegistry.gaugeMapSize("app.habits.trending.tracked", Tags.empty(), counters);
+    }
+
+    public void recordAccept(String habitId) {
+        counters.computeIfAbsent(habitId, id -> new Counters()).accepts.increment();
+    }
+
+    public void recordCompletion(String habitId) {
+        counters.computeIfAbsent(habitId, id -> new Counters()).completions.increment();
+    }
+
+    public List<TrendingHabit> getTop(int limit) {
+        List<TrendingHabit> top = ranking.get().habits();
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    public String getContentHash() {
+        return ranking.get().contentHash();
+    }
+
+    public int checkLimit(Integer limit) {
+        int checked = limit == null ? Math.min(DEFAULT_LIMIT, properties.topK()) : limit;
+        if (checked < 1 || checked > properties.topK()) {
+            throw new InvalidRequestException("limit must be between 1 and " + properties.topK());
+        }
+        return checked;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant now = Instant.now();
+        List<HabitTrend> saved = mongoTemplate.findAll(HabitTrend.class);
+        lock.lock();
+        try {
+            if (scoredAt == null) {
+                scoredAt = now;
+            }
+            replaceWithSaved(saved);
+        } finally {
+            lock.unlock();
+        }
+        log.info("Loaded trending scores for {} habits", saved.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.habits.trending.refresh-interval:1m}",
+            initialDelayString = "${app.habits.trending.refresh-interval:1m}")
+    public void refresh() {
+        refresh(Instant.now());
+    }
+
+    void refresh(Instant now) {
+        lock.lock();
+        try {
+            double factor = scoredAt == null ? 1 : decay(scoredAt, now);
+            trends.values().forEach(trend -> {
+                trend.score *= factor;
+                trend.unflushedScore *= factor;
+            });
+            scoredAt = now;
+            counters.forEach((habitId, counter) -> {
+                long accepts = counter.accepts.sumThenReset();
+                long completions = counter.completions.sumThenReset();
+                if (accepts + completions == 0) {
+                    return;
+                }
+                Trend trend = trends.computeIfAbsent(habitId, id -> new Trend());
+                double score = accepts * properties.acceptWeight() + completions * properties.completionWeight();
+                trend.score += score;
+                trend.acceptCount += accepts;
+                trend.completionCount += completions;
+                trend.unflushedScore += score;
+                trend.unflushedAccepts += accepts;
+                trend.unflushedCompletions += completions;
+            });
+            rank();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Mongo writes happen under the lock as well; a ReentrantLock doesn't pin a virtual thread's carrier
+    @Scheduled(fixedDelayString = "${app.habits.trending.flush-interval:5m}",
+            initialDelayString = "${app.habits.trending.flush-interval:5m}")
+    @PreDestroy
+    public void flush() {
+        lock.lock();
+        try {
+            refresh(Instant.now());
+            List<Map.Entry<String, Trend>> unflushed = trends.entrySet().stream()
+                    .filter(entry -> entry.getValue().unflushedAccepts + entry.getValue().unflushedCompletions > 0)
+                    .toList();
+            if (unflushed.isEmpty()) {
+                return;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HabitTrend.class);
+            for (Map.Entry<String, Trend> entry : unflushed) {
+                bulk.upsert(Query.query(Criteria.where("habitId").is(entry.getKey())), increment(entry.getValue()));
+            }
+            try {
+                bulk.execute();
+                unflushed.forEach(entry -> entry.getValue().clearUnflushed());
+                replaceWithSaved(mongoTemplate.findAll(HabitTrend.class));
+            } catch (DataAccessException e) {
+                log.warn("Flushing trending scores for {} habits failed, retrying on next flush", unflushed.size(), e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Decays the stored score to scoredAt and adds this node's share in one atomic update, so concurrent flushes of
+    // several nodes add up instead of overwriting each other. Every expression reads the document as it was.
+    private AggregationUpdate increment(Trend trend) {
+        Date now = Date.from(scoredAt);
+        Document halfLives = new Document("$divide", List.of(
+                new Document("$subtract", List.of(now, new Document("$ifNull", List.of("$scoredAt", now)))),
+                properties.halfLife().toMillis()));
+        Document decay = new Document("$pow", List.of(0.5, new Document("$max", List.of(0, halfLives))));
+        Document set = new Document()
+                .append("score", new Document("$add", List.of(
+                        new Document("$multiply", List.of(new Document("$ifNull", List.of("$score", 0)), decay)),
+                        trend.unflushedScore)))
+                .append("scoredAt", new Document("$max", List.of(new Document("$ifNull", List.of("$scoredAt", now)), now)))
+                .append("acceptCount", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$acceptCount", 0)), trend.unflushedAccepts)))
+                .append("completionCount", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$completionCount", 0)), trend.unflushedCompletions)));
+        AggregationOperation add = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(add));
+    }
+
+    // the totals of all nodes, decayed to scoredAt, plus whatever this node has not flushed yet; guarded by lock
+    private void replaceWithSaved(List<HabitTrend> saved) {
+        Map<String, Trend> merged = new HashMap<>();
+        for (HabitTrend habitTrend : saved) {
+            Trend trend = merged.computeIfAbsent(habitTrend.getHabitId(), id -> new Trend());
+            trend.score = habitTrend.getScore() * decay(habitTrend.getScoredAt(), scoredAt);
+            trend.acceptCount = habitTrend.getAcceptCount();
+            trend.completionCount = habitTrend.getCompletionCount();
+        }
+        trends.forEach((habitId, local) -> {
+            if (local.unflushedAccepts + local.unflushedCompletions == 0) {
+                return;
+            }
+            Trend trend = merged.computeIfAbsent(habitId, id -> new Trend());
+            trend.score += local.unflushedScore;
+            trend.acceptCount += local.unflushedAccepts;
+            trend.completionCount += local.unflushedCompletions;
+            trend.unflushedScore = local.unflushedScore;
+            trend.unflushedAccepts = local.unflushedAccepts;
+            trend.unflushedCompletions = local.unflushedCompletions;
+        });
+        trends.clear();
+        trends.putAll(merged);
+        rank();
+    }
+
+    private double decay(Instant from, Instant to) {
+        double halfLives = (double) Duration.between(from, to).toMillis() / properties.halfLife().toMillis();
+        return Math.pow(0.5, Math.max(0, halfLives));
+    }
+
+    private void rank() {
+        // min-heap of the best K so far, O(n log K)
+        PriorityQueue<TrendingHabit> best = new PriorityQueue<>(Comparator.comparingDouble(TrendingHabit::getScore));
+        trends.forEach((habitId, trend) -> {
+            if (trend.score <= 0) {
+                return;
+            }
+            habitCatalog.findById(habitId).ifPresent(habit ->
+                    best.offer(new TrendingHabit(habit, trend.score, trend.acceptCount, trend.completionCount)));
+            if (best.size() > properties.topK()) {
+                best.poll();
+            }
+        });
+        List<TrendingHabit> top = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            top.add(best.poll());
+        }
+        List<TrendingHabit> habits = List.copyOf(top.reversed());
+        ranking.set(new Ranking(ContentHash.of(habits), habits));
+    }
+
+    private static final class Counters {
+        private final LongAdder accepts = new LongAdder();
+        private final LongAdder completions = new LongAdder();
+    }
+
+    private static final class Trend {
+        private double score;
+        private long acceptCount;
+        private long completionCount;
+        // what this node added since its last successful flush, decayed like score
+        private double unflushedScore;
+        private long unflushedAccepts;
+        private long unflushedCompletions;
+
+        private void clearUnflushed() {
+            unflushedScore = 0;
+            unflushedAccepts = 0;
+            unflushedCompletions = 0;
+        }
+    }
+
+    private record Ranking(String contentHash, List<TrendingHabit> habits) {
+    }
+}
@@ -1,32 +1,133 @@
 package org.example.backend.service;
 
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.backend.config.UserHabitProperties;
 import org.example.backend.exception.HabitAlreadyExistsException;
 import org.example.backend.exception.HabitNotFoundException;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.model.CompletionBitmap;
 import org.example.backend.model.Habit;
+import org.example.backend.model.HabitBatchOperation;
+import org.example.backend.model.HabitBatchOperationType;
+import org.example.backend.model.HabitBatchResponse;
+import org.example.backend.model.HabitBatchResult;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.HabitHeatmap;
+import org.example.backend.model.KeysetPage;
 import org.example.backend.model.UserHabit;
 import org.example.backend.repository.UserHabitRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.temporal.WeekFields;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserHabitService {
 
+    static final int MAX_BATCH_SIZE = 100;
+
     private final UserHabitRepository userHabitRepository;
     private final HabitService habitService;
     private final HabitCompletionService habitCompletionService;
-
+    private final MongoTemplate mongoTemplate;
+    private final ResourceVersions resourceVersions;
+    private final TrendingHabits trendingHabits;
+    private final UserHabitProperties properties;
 
     public List<UserHabit> getUserHabits(String userId) {
         return userHabitRepository.findByUserIdAndActiveTrue(userId);
     }
 
+    public List<UserHabit> getUserHabits(String userId, FieldSelection fields) {
+        if (fields.isAll()) {
+            return getUserHabits(userId);
+        }
+        return mongoTemplate.find(fields.applyTo(activeHabitsQuery(userId)), UserHabit.class);
+    }
+
+    /**
+     * Returns only the habit ids of the user's active habits, read through a projection.
+     */
+    public List<String> getUserHabitIds(String userId) {
+        return mongoTemplate.find(habitIdsQuery(userId), UserHabit.class).stream()
+                .map(UserHabit::getHabitId)
+                .toList();
+    }
+
+    public KeysetPage<UserHabit> getUserHabitsPage(String userId, String pageToken, int limit, FieldSelection fields) {
+        Query query = fields.applyTo(keysetQuery(userId, pageToken, limit));
+        return KeysetPage.of(mongoTemplate.find(query, UserHabit.class), limit, UserHabit::getId);
+    }
+
+    public HabitHeatmap getHeatmap(String userId, int year) {
+        return HabitHeatmap.of(year, mongoTemplate.find(heatmapQuery(userId, year), UserHabit.class));
+    }
+
+    /**
+     * Streams the user's active habits from a Mongo cursor; the caller must close the stream.
+     */
+    public Stream<UserHabit> streamUserHabits(String userId, FieldSelection fields) {
+        Query query = activeHabitsQuery(userId).with(Sort.by("id"));
+        return mongoTemplate.stream(fields.applyTo(query), UserHabit.class);
+    }
+
+    static Query activeHabitsQuery(String userId) {
+        return Query.query(Criteria.where("userId").is(userId).and("active").is(true));
+    }
+
+    static Query habitIdsQuery(String userId) {
+        Query query = activeHabitsQuery(userId);
+        query.fields().include("habitId").exclude("id");
+        return query;
+    }
+
+    // Only the requested year's bitmap is read, so a year for all habits is one small indexed query.
+    static Query heatmapQuery(String userId, int year) {
+        Query query = activeHabitsQuery(userId);
+        query.fields().include("habitId", "habitName", "frequency", "completionBits." + year);
+        return query;
+    }
+
+    // Fetches one extra document so KeysetPage can tell whether another page follows.
+    static Query keysetQuery(String userId, String pageToken, int limit) {
+        Query query = activeHabitsQuery(userId);
+        String afterId = KeysetPage.decodeToken(pageToken);
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        return query.with(Sort.by("id")).limit(limit + 1);
+    }
+
     public UserHabit acceptUserHabit(String userId, String habitId) {
         if(userHabitRepository.existsByUserIdAndHabitId(userId, habitId)) {
             throw new RuntimeException("Habit already exists");
@@ -34,41 +135,252 @@ public class UserHabitService {
 
         Habit habit = habitService.getHabitById(habitId);
 
-        UserHabit userHabit = new UserHabit(userId, habit);
-        return  userHabitRepository.save(userHabit);
+        UserHabit userHabit = userHabitRepository.save(new UserHabit(userId, habit));
+        resourceVersions.userHabitsChanged(userId);
+        trendingHabits.recordAccept(habitId);
+        return userHabit;
     }
 
     public void deleteUserHabit(String userId, String habitId) {
         UserHabit userHabit = userHabitRepository.findByUserIdAndHabitId(userId,habitId)
                 .orElseThrow(() -> new RuntimeException("Habit not found in user's habit-list"));
         userHabitRepository.delete(userHabit);
+        resourceVersions.userHabitsChanged(userId);
     }
 
     public UserHabit completeUserHabit(String userId, String habitId) {
-        UserHabit userHabit = userHabitRepository.findByUserIdAndHabitId(userId, habitId)
-                .orElseThrow(() -> new HabitNotFoundException("Habit not found in user's habitlist"));
-        if(isAlreadyCompletedForPeriod(userHabit)) {
-            throw new HabitAlreadyExistsException("Habit already completed for this " + (userHabit.getFrequency() == HabitFrequency.DAILY ? "day" : "week"));
+        LocalDate today = LocalDate.now();
+        UserHabit userHabit = mongoTemplate.findAndModify(completionQuery(userId, habitId, today),
+                completionUpdate(today, new ObjectId().toHexString()),
+                FindAndModifyOptions.options().returnNew(true), UserHabit.class);
+        if (userHabit == null) {
+            UserHabit existing = userHabitRepository.findByUserIdAndHabitId(userId, habitId)
+                    .orElseThrow(() -> new HabitNotFoundException("Habit not found in user's habitlist"));
+            throw new HabitAlreadyExistsException(alreadyCompletedMessage(existing));
         }
+        resourceVersions.userHabitsChanged(userId);
 
+        habitCompletionService.recordCompletion(userId, userHabit);
+        trendingHabits.recordCompletion(habitId);
+        return userHabit;
+    }
+
+    public HabitBatchResponse applyBatch(String userId, List<HabitBatchOperation> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("A batch must contain between 1 and " + MAX_BATCH_SIZE + " operations");
+        }
         LocalDate today = LocalDate.now();
-        LocalDate lastCompleted = userHabit.getLastCompletedDate();
+        Set<String> habitIds = operations.stream()
+                .map(HabitBatchOperation::getHabitId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
 
-        if(lastCompleted != null && isConsecutivePeriod(userHabit, lastCompleted, today)) {
-            userHabit.setCurrentStreak(userHabit.getCurrentStreak() + 1);
-        } else{
-            userHabit.setCurrentStreak(1);
+        Map<String, UserHabit> userHabits = new HashMap<>();
+        userHabitRepository.findByUserIdAndHabitIdIn(userId, habitIds)
+                .forEach(userHabit -> userHabits.put(userHabit.getHabitId(), userHabit));
+        Set<String> acceptedIds = operations.stream()
+                .filter(operation -> operation.getType() == HabitBatchOperationType.ACCEPT)
+                .map(HabitBatchOperation::getHabitId)
+                .filter(habitId -> habitId != null && !userHabits.containsKey(habitId))
+                .collect(Collectors.toSet());
+        Map<String, Habit> habits = acceptedIds.isEmpty() ? Map.of() : habitService.getHabitsByIds(acceptedIds).stream()
+                .collect(Collectors.toMap(Habit::getId, Function.identity()));
+
+        HabitBatchResult[] results = new HabitBatchResult[operations.size()];
+        List<BatchWrite> writes = new ArrayList<>();
+        Set<String> completedInBatch = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            HabitBatchOperation operation = operations.get(i);
+            String habitId = operation.getHabitId();
+            if (operation.getType() == null || habitId == null) {
+                results[i] = batchResult(i, operation, HttpStatus.BAD_REQUEST, "type and habitId are required", null);
+                continue;
+            }
+            UserHabit userHabit = userHabits.get(habitId);
+            switch (operation.getType()) {
+                case ACCEPT -> {
+                    Habit habit = habits.get(habitId);
+                    if (userHabit != null) {
+                        results[i] = batchResult(i, operation, HttpStatus.CONFLICT, "Habit already exists", userHabit);
+                    } else if (habit == null) {
+                        results[i] = batchResult(i, operation, HttpStatus.NOT_FOUND, "Habit with id " + habitId + " not found", null);
+                    } else {
+                        UserHabit created = new UserHabit(userId, habit);
+                        created.setId(new ObjectId().toHexString());
+                        userHabits.put(habitId, created);
+                        writes.add(new BatchWrite(i, habitId, null, bulk -> bulk.insert(created)));
+                        results[i] = batchResult(i, operation, HttpStatus.CREATED, null, created);
+                    }
+                }
+                case COMPLETE -> {
+                    if (userHabit == null) {
+                        results[i] = batchResult(i, operation, HttpStatus.NOT_FOUND, "Habit not found in user's habitlist", null);
+                    } else if (completedInBatch.contains(habitId) || isCompletedInPeriod(userHabit, today)) {
+                        results[i] = batchResult(i, operation, HttpStatus.CONFLICT, alreadyCompletedMessage(userHabit), userHabit);
+                    } else {
+                        String completionId = new ObjectId().toHexString();
+                        completedInBatch.add(habitId);
+                        writes.add(new BatchWrite(i, habitId, completionId, bulk -> bulk.updateOne(
+                                completionQuery(userId, habitId, today), completionUpdate(today, completionId))));
+                        results[i] = batchResult(i, operation, HttpStatus.OK, null, userHabit);
+                    }
+                }
+                case DELETE -> {
+                    if (userHabit == null) {
+                        results[i] = batchResult(i, operation, HttpStatus.NOT_FOUND, "Habit not found in user's habit-list", null);
+                    } else {
+                        userHabits.remove(habitId);
+                        completedInBatch.remove(habitId);
+                        writes.add(new BatchWrite(i, habitId, null, bulk -> bulk.remove(
+                                Query.query(Criteria.where("userId").is(userId).and("habitId").is(habitId)))));
+                        results[i] = batchResult(i, operation, HttpStatus.NO_CONTENT, null, null);
+                    }
+                }
+            }
+        }
+
+        BatchOutcome outcome = executeBatchWrites(writes);
+        if (outcome.rejected().size() < writes.size()) {
+            resourceVersions.userHabitsChanged(userId);
         }
-        if(userHabit.getCurrentStreak() > userHabit.getLongestStreak()) {
-            userHabit.setLongestStreak(userHabit.getCurrentStreak());
+        for (BatchWrite rejected : outcome.rejected()) {
+            HabitBatchOperation operation = operations.get(rejected.index());
+            results[rejected.index()] = batchResult(rejected.index(), operation, HttpStatus.CONFLICT,
+                    "Habit was modified by a concurrent request", null);
         }
-        userHabit.setLastCompletedDate(today);
-        userHabit.setTotalCompletions(userHabit.getTotalCompletions() + 1);
-        userHabit.setTotalXpEarned(userHabit.getTotalXpEarned() + userHabit.getDifficulty().getBaseXp());
+        int xpEarned = recordBatchCompletions(userId, writes, results, operations, outcome.completionsMatched(), today);
+        for (HabitBatchResult result : results) {
+            if (result.isSuccess() && result.getType() == HabitBatchOperationType.ACCEPT) {
+                trendingHabits.recordAccept(result.getHabitId());
+            } else if (result.isSuccess() && result.getType() == HabitBatchOperationType.COMPLETE) {
+                trendingHabits.recordCompletion(result.getHabitId());
+            }
+        }
+        return new HabitBatchResponse(Arrays.asList(results), xpEarned);
+    }
 
-        habitCompletionService.recordCompletion(userId, userHabit);
+    private BatchOutcome executeBatchWrites(List<BatchWrite> writes) {
+        List<BatchWrite> rejected = new ArrayList<>();
+        List<BatchWrite> remaining = writes;
+        int matched = 0;
+        while (!remaining.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, UserHabit.class);
+            remaining.forEach(write -> write.operation().accept(bulk));
+            try {
+                matched += bulk.execute().getMatchedCount();
+                remaining = List.of();
+            } catch (BulkOperationException e) {
+                // without a write error (e.g. only a write concern error) there is no failed write to drop
+                if (e.getErrors().isEmpty()) {
+                    throw e;
+                }
+                // an ordered bulk stops at the first failed write; drop it together with the later writes
+                // on the same habit that depend on it, and resubmit the rest
+                matched += e.getResult().getMatchedCount();
+                int failedIndex = e.getErrors().getFirst().getIndex();
+                String failedHabitId = remaining.get(failedIndex).habitId();
+                List<BatchWrite> unapplied = remaining.subList(failedIndex, remaining.size());
+                unapplied.stream().filter(write -> write.habitId().equals(failedHabitId)).forEach(rejected::add);
+                remaining = unapplied.stream().filter(write -> !write.habitId().equals(failedHabitId)).toList();
+            }
+        }
+        return new BatchOutcome(rejected, matched);
+    }
+
+    private int recordBatchCompletions(String userId, List<BatchWrite> writes, HabitBatchResult[] results,
+                                       List<HabitBatchOperation> operations, int completionsMatched, LocalDate today) {
+        List<BatchWrite> completions = writes.stream()
+                .filter(write -> write.completionId() != null && results[write.index()].isSuccess())
+                .toList();
+        if (completions.isEmpty()) {
+            return 0;
+        }
+        // completions are the only updates in the bulk, so when all of them matched, each one applied to the
+        // habit as it was read; otherwise a concurrent request got in first, and a conditional update that
+        // matched nothing is not a bulk error, so confirm each completion by the id it stamped on the habit
+        Map<String, UserHabit> updated = completionsMatched == completions.size() ? null
+                : userHabitRepository.findByUserIdAndHabitIdIn(userId,
+                        completions.stream().map(BatchWrite::habitId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(UserHabit::getHabitId, Function.identity()));
+
+        List<HabitCompletion> records = new ArrayList<>();
+        int xpEarned = 0;
+        for (BatchWrite write : completions) {
+            HabitBatchOperation operation = operations.get(write.index());
+            UserHabit userHabit;
+            if (updated == null) {
+                userHabit = completed(results[write.index()].getUserHabit(), today, write.completionId());
+            } else {
+                userHabit = updated.get(write.habitId());
+                if (userHabit == null && isDeletedLaterInBatch(write, writes, results, operations)) {
+                    userHabit = results[write.index()].getUserHabit();
+                } else if (userHabit == null || !write.completionId().equals(userHabit.getLastCompletionId())) {
+                    UserHabit completedBy = userHabit != null ? userHabit : results[write.index()].getUserHabit();
+                    results[write.index()] = batchResult(write.index(), operation, HttpStatus.CONFLICT,
+                            alreadyCompletedMessage(completedBy), userHabit);
+                    continue;
+                }
+            }
+            HabitCompletion completion = new HabitCompletion(userId, userHabit);
+            completion.setId(write.completionId());
+            records.add(completion);
+            xpEarned += userHabit.getXp();
+            results[write.index()] = batchResult(write.index(), operation, HttpStatus.OK, null, userHabit);
+        }
+        habitCompletionService.recordCompletions(records);
+        return xpEarned;
+    }
+
+    // the habit as completionUpdate leaves it, for a snapshot the update matched
+    private UserHabit completed(UserHabit snapshot, LocalDate today, String completionId) {
+        long currentPeriod = snapshot.periodKey(today);
+        Long lastCompletedPeriod = lastCompletedPeriod(snapshot);
+        Map<String, List<Long>> completionBits = snapshot.getCompletionBits() == null ? new HashMap<>()
+                : new HashMap<>(snapshot.getCompletionBits());
+        List<Long> words = new ArrayList<>(completionBits.getOrDefault(String.valueOf(today.getYear()),
+                Collections.nCopies(CompletionBitmap.WORDS_PER_YEAR, 0L)));
+        words.set(CompletionBitmap.word(today), words.get(CompletionBitmap.word(today)) | CompletionBitmap.mask(today));
+        completionBits.put(String.valueOf(today.getYear()), words);
+
+        int currentStreak = lastCompletedPeriod != null && lastCompletedPeriod == currentPeriod - 1
+                ? snapshot.getCurrentStreak() + 1 : 1;
+        return new UserHabit(snapshot.getId(), snapshot.getUserId(), snapshot.getHabitId(), snapshot.getHabitName(),
+                snapshot.getDifficulty(), snapshot.getFrequency(), snapshot.getIntervalDays(), currentStreak,
+                Math.max(snapshot.getLongestStreak(), currentStreak), today, currentPeriod,
+                snapshot.getTotalCompletions() + 1, snapshot.getTotalXpEarned() + snapshot.getXp(), completionId,
+                completionBits, snapshot.isActive());
+    }
+
+    private boolean isDeletedLaterInBatch(BatchWrite completion, List<BatchWrite> writes, HabitBatchResult[] results,
+                                          List<HabitBatchOperation> operations) {
+        return writes.stream().anyMatch(write -> write.index() > completion.index()
+                && write.habitId().equals(completion.habitId())
+                && operations.get(write.index()).getType() == HabitBatchOperationType.DELETE
+                && results[write.index()].isSuccess());
+    }
+
+    private HabitBatchResult batchResult(int index, HabitBatchOperation operation, HttpStatus status, String message,
+                                         UserHabit userHabit) {
+        return new HabitBatchResult(index, operation.getType(), operation.getHabitId(), status.value(), message, userHabit);
+    }
+
+    private boolean isCompletedInPeriod(UserHabit userHabit, LocalDate today) {
+        Long lastCompletedPeriod = lastCompletedPeriod(userHabit);
+        return lastCompletedPeriod != null && HabitFrequency.isSamePeriod(lastCompletedPeriod, userHabit.periodKey(today));
+    }
+
+    // the Java side of lastCompletedPeriod(today): the later of the stored key and the one lastCompletedDate gives
+    private Long lastCompletedPeriod(UserHabit userHabit) {
+        Long stored = userHabit.getLastCompletedPeriod();
+        if (properties.trustPeriodKey() || userHabit.getLastCompletedDate() == null) {
+            return stored;
+        }
+        long fromDate = userHabit.periodKey(userHabit.getLastCompletedDate());
+        return stored == null ? fromDate : Math.max(stored, fromDate);
+    }
 
-        return userHabitRepository.save(userHabit);
+    private String alreadyCompletedMessage(UserHabit userHabit) {
+        return "Habit already completed for this " + userHabit.getFrequency().getPeriodName();
     }
 
     /* public void removeUserHabit(String userId, String habitId) {
@@ -78,42 +390,101 @@ public class UserHabitService {
          userHabitRepository.save(userHabit);
      }
      */
-    private boolean isAlreadyCompletedForPeriod(UserHabit userHabit) {
-        LocalDate lastCompleted = userHabit.getLastCompletedDate();
-        if (lastCompleted == null) {
-            return false;
-        }
-        LocalDate today = LocalDate.now();
-        if (userHabit.getFrequency() == HabitFrequency.DAILY) {
-            return lastCompleted.equals(today);
-        } else {
-            WeekFields weekFields = WeekFields.of(Locale.getDefault());
-            int lastWeek = lastCompleted.get(weekFields.weekOfWeekBasedYear());
-            int lastYear = lastCompleted.get(weekFields.weekBasedYear());
-            int currentWeek = today.get(weekFields.weekOfWeekBasedYear());
-            int currentYear = today.get(weekFields.weekBasedYear());
-            return lastWeek == currentWeek && lastYear == currentYear;
+    private Query completionQuery(String userId, String habitId, LocalDate today) {
+        return Query.query(Criteria.where("userId").is(userId).and("habitId").is(habitId)
+                .andOperator(Criteria.expr(() -> new Document("$lt", List.of(lastCompletedPeriod(today), currentPeriod(today))))));
+    }
+
+    // $switch over the fixed frequencies, whose keys for today are constants; INTERVAL divides by the habit's own length
+    private Document currentPeriod(LocalDate today) {
+        List<Document> branches = Arrays.stream(HabitFrequency.values())
+                .filter(frequency -> frequency != HabitFrequency.INTERVAL)
+                .map(frequency -> new Document("case", new Document("$eq", List.of("$frequency", frequency.name())))
+                        .append("then", frequency.periodKey(today, 0)))
+                .toList();
+        Document intervalDays = new Document("$max", List.of(1, "$intervalDays"));
+        Document intervalPeriod = new Document("$toLong", new Document("$floor",
+                new Document("$divide", List.of(today.toEpochDay(), intervalDays))));
+        return new Document("$switch", new Document("branches", branches).append("default", intervalPeriod));
+    }
+
+    private Object lastCompletedPeriod(LocalDate today) {
+        if (properties.trustPeriodKey()) {
+            return "$lastCompletedPeriod";
         }
+        // until the stored key is trusted, habits completed before period keys were stored, or by an older binary during
+        // a rolling deploy, carry no or a stale key; they only need to know whether lastCompletedDate was in the
+        // current or the previous period
+        List<Document> branches = Stream.of(HabitFrequency.DAILY, HabitFrequency.WEEKLY)
+                .map(frequency -> {
+                    long current = frequency.periodKey(today, 0);
+                    return new Document("case", new Document("$eq", List.of("$frequency", frequency.name())))
+                            .append("then", new Document("$cond", List.of(
+                                    new Document("$gte", List.of("$lastCompletedDate", toDate(frequency.periodStart(current, 0)))),
+                                    current,
+                                    new Document("$cond", Arrays.asList(
+                                            new Document("$gte", List.of("$lastCompletedDate", toDate(frequency.periodStart(current - 1, 0)))),
+                                            current - 1,
+                                            null)))));
+                })
+                .toList();
+        Document legacy = new Document("$switch", new Document("branches", branches).append("default", null));
+        // $max skips nulls, so either side may be missing
+        return new Document("$max", Arrays.asList("$lastCompletedPeriod", legacy));
     }
 
-    private boolean isConsecutivePeriod(UserHabit userHabit, LocalDate lastCompleted, LocalDate today) {
-        if (userHabit.getFrequency() == HabitFrequency.DAILY) {
-            return lastCompleted.plusDays(1).equals(today);
-        } else {
-            WeekFields weekFields = WeekFields.of(Locale.getDefault());
-            int lastWeek = lastCompleted.get(weekFields.weekOfWeekBasedYear());
-            int lastYear = lastCompleted.get(weekFields.weekBasedYear());
-            int currentWeek = today.get(weekFields.weekOfWeekBasedYear());
-            int currentYear = today.get(weekFields.weekBasedYear());
+    private AggregationUpdate completionUpdate(LocalDate today, String completionId) {
+        Document currentPeriod = currentPeriod(today);
+        Document previousPeriodCompleted = new Document("$eq", List.of(lastCompletedPeriod(today),
+                new Document("$subtract", List.of(currentPeriod, 1L))));
+        // every expression in one $set reads the document as it was, so the streak sees the old period key
+        AggregationOperation completeAndStreak = context -> new Document("$set", new Document()
+                .append("currentStreak", new Document("$cond", List.of(
+                        previousPeriodCompleted,
+                        new Document("$add", List.of("$currentStreak", 1)),
+                        1)))
+                .append("lastCompletedDate", toDate(today))
+                .append("lastCompletedPeriod", currentPeriod)
+                .append("lastCompletionId", completionId)
+                .append("totalCompletions", new Document("$add", List.of("$totalCompletions", 1)))
+                .append("totalXpEarned", new Document("$add", List.of("$totalXpEarned", xpForDifficulty())))
+                .append("completionBits." + today.getYear(), setCompletionBit(today)));
+        AggregationOperation longestStreak = context -> new Document("$set",
+                new Document("longestStreak", new Document("$max", List.of("$longestStreak", "$currentStreak"))));
+        return AggregationUpdate.from(List.of(completeAndStreak, longestStreak));
+    }
 
-            if (lastYear == currentYear) {
-                return currentWeek == lastWeek + 1;
-            }
-            if (currentYear == lastYear + 1 && currentWeek == 1) {
-                // Week 52 or 53
-                return lastWeek >= 52;
-            }
-            return false;
+    // ORs today's bit into this year's bitmap, creating the bitmap on the first completion of the year.
+    private Document setCompletionBit(LocalDate today) {
+        List<Long> empty = Collections.nCopies(CompletionBitmap.WORDS_PER_YEAR, 0L);
+        Document words = new Document("$ifNull", List.of("$completionBits." + today.getYear(), empty));
+        Document word = new Document("$arrayElemAt", List.of(words, "$$i"));
+        return new Document("$map", new Document("input", new Document("$range", List.of(0, CompletionBitmap.WORDS_PER_YEAR)))
+                .append("as", "i")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$i", CompletionBitmap.word(today))),
+                        new Document("$bitOr", List.of(word, CompletionBitmap.mask(today))),
+                        word))));
+    }
+
+    private Object xpForDifficulty() {
+        Object xp = 0;
+        for (HabitDifficulty difficulty : HabitDifficulty.values()) {
+            xp = new Document("$cond", List.of(
+                    new Document("$eq", List.of("$difficulty", difficulty.name())),
+                    difficulty.getBaseXp(),
+                    xp));
         }
+        return xp;
+    }
+
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private record BatchWrite(int index, String habitId, String completionId, Consumer<BulkOperations> operation) {
+    }
+
+    private record BatchOutcome(List<BatchWrite> rejected, int completionsMatched) {
     }
 }
@@ -0,0 +1,157 @@
+package org.example.backend.config;
+
+import org.bson.Document;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.HabitTrend;
+import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MongoIndexProvisionerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final IndexOperations appUserIndexOps = mock(IndexOperations.class);
+    private final IndexOperations habitIndexOps = mock(IndexOperations.class);
+    private final IndexOperations userHabitIndexOps = mock(IndexOperations.class);
+    private final IndexOperations habitCompletionIndexOps = mock(IndexOperations.class);
+    private final IndexOperations habitTrendIndexOps = mock(IndexOperations.class);
+    private final IndexOperations rollupIndexOps = mock(IndexOperations.class);
+
+    private MongoIndexProvisioner createProvisioner(MongoIndexProperties.Mode mode) {
+        when(mongoTemplate.indexOps(AppUser.class)).thenReturn(appUserIndexOps);
+        when(mongoTemplate.indexOps(Habit.class)).thenReturn(habitIndexOps);
+        when(mongoTemplate.indexOps(UserHabit.class)).thenReturn(userHabitIndexOps);
+        when(mongoTemplate.indexOps(HabitCompletion.class)).thenReturn(habitCompletionIndexOps);
+        when(mongoTemplate.indexOps(HabitTrend.class)).thenReturn(habitTrendIndexOps);
+        when(mongoTemplate.indexOps(WeeklyCompletionRollup.class)).thenReturn(rollupIndexOps);
+        when(mongoTemplate.getCollectionName(UserHabit.class)).thenReturn("user_habits");
+        // as Spring Boot does with the @Document types it scans
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(AppUser.class, Habit.class, UserHabit.class, HabitCompletion.class,
+                HabitTrend.class, WeeklyCompletionRollup.class));
+        mappingContext.initialize();
+        return new MongoIndexProvisioner(mongoTemplate, mappingContext, new MongoIndexProperties(mode));
+    }
+
+    private IndexInfo index(String name, boolean unique, String... fields) {
+        List<IndexField> indexFields = Arrays.stream(fields)
+                .map(field -> IndexField.create(field, Sort.Direction.ASC))
+                .toList();
+        return new IndexInfo(indexFields, name, unique, false, "");
+    }
+
+    @Test
+    void provisionIndexes_createMode_createsDeclaredIndexes() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.CREATE);
+
+        provisioner.provisionIndexes();
+
+        verify(appUserIndexOps, times(2)).createIndex(any(IndexDefinition.class));
+        verify(habitIndexOps, times(3)).createIndex(any(IndexDefinition.class));
+        verify(userHabitIndexOps, times(3)).createIndex(any(IndexDefinition.class));
+        verify(habitCompletionIndexOps, times(2)).createIndex(any(IndexDefinition.class));
+        verify(habitTrendIndexOps, never()).createIndex(any(IndexDefinition.class));
+        verify(rollupIndexOps, never()).createIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void indexedEntities_discoversEveryDocumentTypeOfTheMappingContext() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.CREATE);
+
+        assertEquals(Set.of(AppUser.class, Habit.class, UserHabit.class, HabitCompletion.class, HabitTrend.class,
+                WeeklyCompletionRollup.class), Set.copyOf(provisioner.indexedEntities()));
+    }
+
+    @Test
+    void provisionIndexes_createMode_whenUniqueKeysAreDuplicated_namesThem() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.CREATE);
+        when(userHabitIndexOps.createIndex(argThat(definition -> definition.getIndexOptions().getBoolean("unique", false))))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+        Document duplicate = new Document("_id", new Document("userId", "user123").append("habitId", "habit1")).append("count", 2);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("user_habits"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(duplicate), new Document()));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, provisioner::provisionIndexes);
+
+        assertTrue(exception.getMessage().contains("user_habits"));
+        assertTrue(exception.getMessage().contains(duplicate.toJson()));
+        assertInstanceOf(DuplicateKeyException.class, exception.getCause());
+    }
+
+    @Test
+    void provisionIndexes_createMode_declaresUniqueUserHabitIndex() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.CREATE);
+
+        provisioner.provisionIndexes();
+
+        verify(userHabitIndexOps).createIndex(argThat(definition ->
+                definition.getIndexKeys().keySet().equals(Set.of("userId", "habitId"))
+                        && definition.getIndexOptions().getBoolean("unique", false)));
+    }
+
+    @Test
+    void provisionIndexes_validateMode_whenIndexesExist_doesNotThrow() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.VALIDATE);
+        when(appUserIndexOps.getIndexInfo()).thenReturn(List.of(
+                index("githubId", true, "githubId"),
+                index("lastActiveDate_id", false, "lastActiveDate", "_id")));
+        when(habitIndexOps.getIndexInfo()).thenReturn(List.of(
+                index("category", false, "category"),
+                index("difficulty", false, "difficulty"),
+                index("frequency_difficulty", false, "frequency", "difficulty")));
+        when(userHabitIndexOps.getIndexInfo()).thenReturn(List.of(
+                index("userId_active_id", false, "userId", "active", "_id"),
+                index("userId_habitId", true, "userId", "habitId"),
+                index("frequency_lastCompletedDate_id", false, "frequency", "lastCompletedDate", "_id")));
+        when(habitCompletionIndexOps.getIndexInfo()).thenReturn(List.of(
+                index("userId_completionDay", false, "userId", "completionDay"),
+                index("userId_completionDate", false, "userId", "completionDate")));
+
+        assertDoesNotThrow(provisioner::provisionIndexes);
+        verify(appUserIndexOps, never()).createIndex(any());
+    }
+
+    @Test
+    void provisionIndexes_validateMode_whenIndexMissing_throwsException() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.VALIDATE);
+        when(appUserIndexOps.getIndexInfo()).thenReturn(List.of(index("githubId", false, "githubId")));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, provisioner::provisionIndexes);
+
+        assertTrue(exception.getMessage().contains("githubId"));
+        assertTrue(exception.getMessage().contains("userId"));
+    }
+
+    @Test
+    void provisionIndexes_noneMode_doesNothing() {
+        MongoIndexProvisioner provisioner = createProvisioner(MongoIndexProperties.Mode.NONE);
+
+        provisioner.provisionIndexes();
+
+        verifyNoInteractions(appUserIndexOps, habitIndexOps, userHabitIndexOps, habitCompletionIndexOps,
+                habitTrendIndexOps, rollupIndexOps);
+    }
+}
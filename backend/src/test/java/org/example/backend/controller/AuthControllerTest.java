@@ -2,71 +2,97 @@ package org.example.backend.controller;
 
 import org.example.backend.model.AppUser;
 import org.example.backend.repository.AppUserRepository;
+import org.example.backend.security.ReactiveSecurityConfig;
 import org.example.backend.security.SecurityConfig;
 import org.example.backend.service.AppUserService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
-import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import reactor.core.publisher.Mono;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
-import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 
-@WebMvcTest(AuthController.class)
-@Import(SecurityConfig.class)
 class AuthControllerTest {
 
-    @Autowired
-    private MockMvc mockMvc;
-
-    @MockitoBean
-    private AppUserService appUserService;
-
-    @MockitoBean
-    private AppUserRepository appUserRepository;
-
-    @Test
-    void getMe_whenAuthenticated_returnsUser() throws Exception {
-        AppUser mockUser = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
-        mockUser.setId("abc123");
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-
-        mockMvc.perform(MockMvcRequestBuilders.get("/api/auth/me")
-                        .with(oidcLogin().userInfoToken(token -> token
-                                .claim("id", 12345)
-                                .claim("login", "testUser")
-                                .claim("email", "test@example.com")
-                                .claim("avatar_url", "https://example.com/avatar.png")
-                        ))
-                )
-                .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(content().json("""
-                        {
-                            "id": "abc123",
-                            "githubId": "12345",
-                            "username": "testUser",
-                            "email": "test@example.com",
-                            "avatarUrl": "https://example.com/avatar.png",
-                            "totalXp": 0,
-                            "level": 1,
-                            "currentStreak": 0,
-                            "longestStreak": 0,
-                            "lastActiveDate": null
-                        }
-                        """));
+    @Nested
+    @WebMvcTest(AuthController.class)
+    @Import(SecurityConfig.class)
+    class Servlet extends Requests {
+
+        @MockitoBean
+        private AppUserService appUserService;
+
+        @MockitoBean
+        private AppUserRepository appUserRepository;
+
+        @Override
+        Stack stack() {
+            return Stack.SERVLET;
+        }
+
+        @Override
+        void givenCurrentUser(AppUser user) {
+            when(appUserService.getCurrentUser(any(OAuth2User.class))).thenReturn(user);
+        }
     }
 
-    @Test
-    void getMe_whenNotAuthenticated_redirectsToLogin() throws Exception {
-        mockMvc.perform(MockMvcRequestBuilders.get("/api/auth/me"))
-                .andExpect(MockMvcResultMatchers.status().is3xxRedirection());
+    @Nested
+    @WebFluxTest(ReactiveAuthController.class)
+    @Import(ReactiveSecurityConfig.class)
+    class Reactive extends Requests {
+
+        @MockitoBean
+        private ReactiveAppUserService reactiveAppUserService;
+
+        @Override
+        Stack stack() {
+            return Stack.REACTIVE;
+        }
+
+        @Override
+        void givenCurrentUser(AppUser user) {
+            when(reactiveAppUserService.getCurrentUser(any(OAuth2User.class))).thenReturn(Mono.just(user));
+        }
+    }
+
+    abstract static class Requests extends WebStackTest {
+
+        abstract void givenCurrentUser(AppUser user);
+
+        @Test
+        void getMe_whenAuthenticated_returnsUser() {
+            AppUser mockUser = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
+            mockUser.setId("abc123");
+            givenCurrentUser(mockUser);
+
+            signedIn.get().uri("/api/auth/me").exchange()
+                    .expectStatus().isOk()
+                    .expectBody().json("""
+                            {
+                                "id": "abc123",
+                                "githubId": "12345",
+                                "username": "testUser",
+                                "email": "test@example.com",
+                                "avatarUrl": "https://example.com/avatar.png",
+                                "totalXp": 0,
+                                "level": 1,
+                                "currentStreak": 0,
+                                "longestStreak": 0,
+                                "lastActiveDate": null
+                            }
+                            """);
+        }
+
+        @Test
+        void getMe_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.get().uri("/api/auth/me").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
     }
-}
\ No newline at end of file
+}
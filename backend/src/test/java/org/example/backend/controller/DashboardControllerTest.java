@@ -0,0 +1,119 @@
+package org.example.backend.controller;
+
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Dashboard;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.example.backend.repository.AppUserRepository;
+import org.example.backend.security.ReactiveSecurityConfig;
+import org.example.backend.security.SecurityConfig;
+import org.example.backend.service.AppUserService;
+import org.example.backend.service.DashboardService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardControllerTest {
+
+    @Nested
+    @WebMvcTest(DashboardController.class)
+    @Import(SecurityConfig.class)
+    class Servlet extends Requests {
+
+        @MockitoBean
+        private DashboardService dashboardService;
+
+        @MockitoBean
+        private AppUserService appUserService;
+
+        @MockitoBean
+        private AppUserRepository appUserRepository;
+
+        @Override
+        Stack stack() {
+            return Stack.SERVLET;
+        }
+
+        @Override
+        void givenDashboard(AppUser user, Dashboard dashboard) {
+            when(appUserService.getCurrentUser(any(OAuth2User.class))).thenReturn(user);
+            when(dashboardService.getDashboard(eq(user), any(LocalDate.class))).thenReturn(dashboard);
+        }
+
+        @Override
+        void verifyUserResolvedOnce() {
+            verify(appUserService).getCurrentUser(any(OAuth2User.class));
+        }
+    }
+
+    @Nested
+    @WebFluxTest(ReactiveDashboardController.class)
+    @Import(ReactiveSecurityConfig.class)
+    class Reactive extends Requests {
+
+        @MockitoBean
+        private ReactiveHabitReads reactiveHabitReads;
+
+        @MockitoBean
+        private ReactiveAppUserService reactiveAppUserService;
+
+        @Override
+        Stack stack() {
+            return Stack.REACTIVE;
+        }
+
+        @Override
+        void givenDashboard(AppUser user, Dashboard dashboard) {
+            when(reactiveAppUserService.getCurrentUser(any(OAuth2User.class))).thenReturn(Mono.just(user));
+            when(reactiveHabitReads.getDashboard(eq(user), any(LocalDate.class))).thenReturn(Mono.just(dashboard));
+        }
+
+        @Override
+        void verifyUserResolvedOnce() {
+            verify(reactiveAppUserService).getCurrentUser(any(OAuth2User.class));
+        }
+    }
+
+    abstract static class Requests extends WebStackTest {
+
+        abstract void givenDashboard(AppUser user, Dashboard dashboard);
+
+        abstract void verifyUserResolvedOnce();
+
+        @Test
+        void getDashboard_whenAuthenticated_resolvesUserOnceAndReturnsPayload() {
+            AppUser user = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
+            user.setId("user123");
+            givenDashboard(user, new Dashboard(user, List.of(), new WeeklyCompletionRollup("user123", "2026-01-26"), null));
+
+            signedIn.get().uri("/api/dashboard").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.user.id").isEqualTo("user123")
+                    .jsonPath("$.habits").isEmpty()
+                    .jsonPath("$.weekSummary.weekStart").isEqualTo("2026-01-26")
+                    .jsonPath("$.weekSummary.completionIds").doesNotExist();
+            verifyUserResolvedOnce();
+        }
+
+        @Test
+        void getDashboard_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.get().uri("/api/dashboard").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+    }
+}
@@ -1,174 +1,308 @@
 package org.example.backend.controller;
 
-import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.HabitCompletion;
 import org.example.backend.model.HabitDifficulty;
 import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.WeeklyCompletionRollup;
 import org.example.backend.repository.AppUserRepository;
+import org.example.backend.security.ReactiveSecurityConfig;
 import org.example.backend.security.SecurityConfig;
 import org.example.backend.service.AppUserService;
 import org.example.backend.service.HabitCompletionService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.example.backend.service.ResourceVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(HabitCompletionController.class)
-@Import(SecurityConfig.class)
 class HabitCompletionControllerTest {
 
-    @Autowired
-    private MockMvc mockMvc;
+    @Nested
+    @WebMvcTest(HabitCompletionController.class)
+    @Import(SecurityConfig.class)
+    class Servlet extends Requests {
 
-    @MockitoBean
-    private HabitCompletionService habitCompletionService;
+        @MockitoBean
+        private HabitCompletionService habitCompletionService;
 
-    @MockitoBean
-    private AppUserService appUserService;
+        @MockitoBean
+        private AppUserService appUserService;
 
-    @MockitoBean
-    private AppUserRepository appUserRepository;
+        @MockitoBean
+        private AppUserRepository appUserRepository;
 
-    private AppUser createMockUser() {
-        AppUser user = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        return user;
-    }
+        @MockitoBean
+        private ResourceVersions resourceVersions;
 
-    private HabitCompletion createMockCompletion(String id, String habitName, String completionDate) {
-        HabitCompletion completion = new HabitCompletion();
-        completion.setId(id);
-        completion.setUserId("user123");
-        completion.setUserHabitId("uh123");
-        completion.setHabitId("habit123");
-        completion.setHabitName(habitName);
-        completion.setDifficulty(HabitDifficulty.EASY);
-        completion.setFrequency(HabitFrequency.DAILY);
-        completion.setCompletionDate(completionDate);
-        completion.setXpEarned(25);
-        return completion;
-    }
+        @BeforeEach
+        void setUp() {
+            when(appUserService.getUserId(any(OAuth2User.class))).thenReturn("user123");
+        }
 
-    @Test
-    void getWeekCompletions_whenAuthenticated_returnsCompletions() throws Exception {
-        AppUser mockUser = createMockUser();
-
-        HabitCompletion completion1 = createMockCompletion("c1", "Make your bed", "2026-01-27");
-        HabitCompletion completion2 = createMockCompletion("c2", "Take vitamins", "2026-01-28");
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(habitCompletionService.getCompletionsForWeek(eq("user123"), any(LocalDate.class)))
-                .thenReturn(List.of(completion1, completion2));
-
-        mockMvc.perform(get("/api/completions/week")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value("c1"))
-                .andExpect(jsonPath("$[0].habitName").value("Make your bed"))
-                .andExpect(jsonPath("$[0].completionDate").value("2026-01-27"))
-                .andExpect(jsonPath("$[0].xpEarned").value(25))
-                .andExpect(jsonPath("$[1].id").value("c2"))
-                .andExpect(jsonPath("$[1].habitName").value("Take vitamins"));
-    }
+        @Override
+        Stack stack() {
+            return Stack.SERVLET;
+        }
 
-    @Test
-    void getWeekCompletions_whenAuthenticatedWithDateParam_usesProvidedDate() throws Exception {
-        AppUser mockUser = createMockUser();
+        @Override
+        void givenCompletionsVersion(long version) {
+            when(resourceVersions.getCompletionsVersion(eq("user123"), any(LocalDate.class))).thenReturn(version);
+        }
 
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(habitCompletionService.getCompletionsForWeek("user123", LocalDate.of(2026, 1, 20)))
-                .thenReturn(List.of());
+        @Override
+        void givenCompletions(FieldSelection fields, List<HabitCompletion> completions) {
+            when(habitCompletionService.getCompletionsForWeek(eq("user123"), any(LocalDate.class), eq(fields)))
+                    .thenReturn(completions);
+        }
 
-        mockMvc.perform(get("/api/completions/week")
-                        .param("date", "2026-01-20")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(0));
+        @Override
+        void givenWeekSummary(LocalDate date, WeeklyCompletionRollup rollup) {
+            when(habitCompletionService.getWeekSummary("user123", date)).thenReturn(rollup);
+        }
 
-        verify(habitCompletionService).getCompletionsForWeek("user123", LocalDate.of(2026, 1, 20));
+        @Override
+        void verifyCompletionsRead(LocalDate date, int count) {
+            verify(habitCompletionService, times(count)).getCompletionsForWeek(eq("user123"),
+                    date == null ? any(LocalDate.class) : eq(date), eq(FieldSelection.ALL));
+        }
     }
 
-    @Test
-    void getWeekCompletions_whenAuthenticatedWithoutDateParam_usesToday() throws Exception {
-        AppUser mockUser = createMockUser();
-        LocalDate today = LocalDate.now();
+    @Nested
+    @WebFluxTest(ReactiveHabitCompletionController.class)
+    @Import(ReactiveSecurityConfig.class)
+    class Reactive extends Requests {
 
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(habitCompletionService.getCompletionsForWeek("user123", today))
-                .thenReturn(List.of());
+        @MockitoBean
+        private ReactiveHabitReads reactiveHabitReads;
 
-        mockMvc.perform(get("/api/completions/week")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk());
+        @MockitoBean
+        private ReactiveAppUserService reactiveAppUserService;
 
-        verify(habitCompletionService).getCompletionsForWeek("user123", today);
-    }
+        @BeforeEach
+        void setUp() {
+            when(reactiveAppUserService.getUserId(any(OAuth2User.class))).thenReturn(Mono.just("user123"));
+            givenCompletionsVersion(0L);
+        }
 
-    @Test
-    void getWeekCompletions_whenNotAuthenticated_redirectsToLogin() throws Exception {
-        mockMvc.perform(get("/api/completions/week"))
-                .andExpect(status().is3xxRedirection());
-    }
+        @Override
+        Stack stack() {
+            return Stack.REACTIVE;
+        }
 
-    @Test
-    void getWeekCompletions_whenNoCompletions_returnsEmptyList() throws Exception {
-        AppUser mockUser = createMockUser();
+        @Override
+        void givenCompletionsVersion(long version) {
+            when(reactiveHabitReads.getCompletionsVersion(eq("user123"), any(LocalDate.class))).thenReturn(Mono.just(version));
+        }
 
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(habitCompletionService.getCompletionsForWeek(eq("user123"), any(LocalDate.class)))
-                .thenReturn(List.of());
+        @Override
+        void givenCompletions(FieldSelection fields, List<HabitCompletion> completions) {
+            when(reactiveHabitReads.getCompletionsForWeek(eq("user123"), any(LocalDate.class), eq(fields)))
+                    .thenReturn(Flux.fromIterable(completions));
+        }
 
-        mockMvc.perform(get("/api/completions/week")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(0));
+        @Override
+        void givenWeekSummary(LocalDate date, WeeklyCompletionRollup rollup) {
+            when(reactiveHabitReads.getWeekSummary("user123", date)).thenReturn(Mono.just(rollup));
+        }
+
+        @Override
+        void verifyCompletionsRead(LocalDate date, int count) {
+            verify(reactiveHabitReads, times(count)).getCompletionsForWeek(eq("user123"),
+                    date == null ? any(LocalDate.class) : eq(date), eq(FieldSelection.ALL));
+        }
     }
 
-    @Test
-    void getWeekCompletions_returnsCorrectCompletionFields() throws Exception {
-        AppUser mockUser = createMockUser();
-
-        HabitCompletion completion = new HabitCompletion();
-        completion.setId("c1");
-        completion.setUserId("user123");
-        completion.setUserHabitId("uh456");
-        completion.setHabitId("habit789");
-        completion.setHabitName("Meditate for 10 minutes");
-        completion.setDifficulty(HabitDifficulty.MEDIUM);
-        completion.setFrequency(HabitFrequency.DAILY);
-        completion.setCompletionDate("2026-01-28");
-        completion.setXpEarned(50);
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(habitCompletionService.getCompletionsForWeek(eq("user123"), any(LocalDate.class)))
-                .thenReturn(List.of(completion));
-
-        mockMvc.perform(get("/api/completions/week")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value("c1"))
-                .andExpect(jsonPath("$[0].userId").value("user123"))
-                .andExpect(jsonPath("$[0].userHabitId").value("uh456"))
-                .andExpect(jsonPath("$[0].habitId").value("habit789"))
-                .andExpect(jsonPath("$[0].habitName").value("Meditate for 10 minutes"))
-                .andExpect(jsonPath("$[0].difficulty").value("MEDIUM"))
-                .andExpect(jsonPath("$[0].frequency").value("DAILY"))
-                .andExpect(jsonPath("$[0].completionDate").value("2026-01-28"))
-                .andExpect(jsonPath("$[0].xpEarned").value(50));
+    abstract static class Requests extends WebStackTest {
+
+        abstract void givenCompletionsVersion(long version);
+
+        /** Answers the week of any date. */
+        abstract void givenCompletions(FieldSelection fields, List<HabitCompletion> completions);
+
+        abstract void givenWeekSummary(LocalDate date, WeeklyCompletionRollup rollup);
+
+        /** Verifies the week was read {@code count} times, for {@code date} or any date if null. */
+        abstract void verifyCompletionsRead(LocalDate date, int count);
+
+        private HabitCompletion createMockCompletion(String id, String habitName, String completionDate) {
+            HabitCompletion completion = new HabitCompletion();
+            completion.setId(id);
+            completion.setUserId("user123");
+            completion.setUserHabitId("uh123");
+            completion.setHabitId("habit123");
+            completion.setHabitName(habitName);
+            completion.setDifficulty(HabitDifficulty.EASY);
+            completion.setFrequency(HabitFrequency.DAILY);
+            completion.setCompletionDate(completionDate);
+            completion.setXpEarned(25);
+            return completion;
+        }
+
+        @Test
+        void getWeekCompletions_whenAuthenticated_returnsCompletions() {
+            givenCompletions(FieldSelection.ALL, List.of(createMockCompletion("c1", "Make your bed", "2026-01-27"),
+                    createMockCompletion("c2", "Take vitamins", "2026-01-28")));
+
+            signedIn.get().uri("/api/completions/week").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.length()").isEqualTo(2)
+                    .jsonPath("$[0].id").isEqualTo("c1")
+                    .jsonPath("$[0].habitName").isEqualTo("Make your bed")
+                    .jsonPath("$[0].completionDate").isEqualTo("2026-01-27")
+                    .jsonPath("$[0].xpEarned").isEqualTo(25)
+                    .jsonPath("$[1].id").isEqualTo("c2")
+                    .jsonPath("$[1].habitName").isEqualTo("Take vitamins");
+        }
+
+        @Test
+        void getWeekCompletions_whenAuthenticatedWithDateParam_usesProvidedDate() {
+            givenCompletions(FieldSelection.ALL, List.of());
+
+            signedIn.get().uri("/api/completions/week?date=2026-01-20").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueMatches("ETag", "\"completions-2026-01-19-\\d+\"")
+                    .expectBody().jsonPath("$.length()").isEqualTo(0);
+
+            verifyCompletionsRead(LocalDate.of(2026, 1, 20), 1);
+        }
+
+        @Test
+        void getWeekCompletions_whenAuthenticatedWithoutDateParam_usesToday() {
+            givenCompletions(FieldSelection.ALL, List.of());
+
+            signedIn.get().uri("/api/completions/week").exchange()
+                    .expectStatus().isOk();
+
+            verifyCompletionsRead(LocalDate.now(), 1);
+        }
+
+        @Test
+        void getWeekCompletions_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.get().uri("/api/completions/week").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+
+        @Test
+        void getWeekCompletions_whenNoCompletions_returnsEmptyList() {
+            givenCompletions(FieldSelection.ALL, List.of());
+
+            signedIn.get().uri("/api/completions/week").exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.length()").isEqualTo(0);
+        }
+
+        @Test
+        void getWeekCompletions_returnsCorrectCompletionFields() {
+            HabitCompletion completion = new HabitCompletion();
+            completion.setId("c1");
+            completion.setUserId("user123");
+            completion.setUserHabitId("uh456");
+            completion.setHabitId("habit789");
+            completion.setHabitName("Meditate for 10 minutes");
+            completion.setDifficulty(HabitDifficulty.MEDIUM);
+            completion.setFrequency(HabitFrequency.DAILY);
+            completion.setCompletionDate("2026-01-28");
+            completion.setXpEarned(50);
+            givenCompletions(FieldSelection.ALL, List.of(completion));
+
+            signedIn.get().uri("/api/completions/week").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$[0].id").isEqualTo("c1")
+                    .jsonPath("$[0].userId").isEqualTo("user123")
+                    .jsonPath("$[0].userHabitId").isEqualTo("uh456")
+                    .jsonPath("$[0].habitId").isEqualTo("habit789")
+                    .jsonPath("$[0].habitName").isEqualTo("Meditate for 10 minutes")
+                    .jsonPath("$[0].difficulty").isEqualTo("MEDIUM")
+                    .jsonPath("$[0].frequency").isEqualTo("DAILY")
+                    .jsonPath("$[0].completionDate").isEqualTo("2026-01-28")
+                    .jsonPath("$[0].xpEarned").isEqualTo(50);
+        }
+
+        @Test
+        void getWeekCompletions_withFields_returnsOnlySelectedFields() {
+            HabitCompletion projected = new HabitCompletion();
+            projected.setId("c1");
+            projected.setCompletionDate("2026-01-20");
+            givenCompletions(FieldSelection.parse("completionDate", HabitCompletion.class, JsonMapper.shared()),
+                    List.of(projected));
+
+            signedIn.get().uri("/api/completions/week?date=2026-01-20&fields=completionDate").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$[0].completionDate").isEqualTo("2026-01-20")
+                    .jsonPath("$[0].xpEarned").doesNotExist();
+        }
+
+        @Test
+        void getWeekCompletions_whenWeekUnchanged_returnsNotModified() {
+            givenCompletionsVersion(4L);
+            givenCompletions(FieldSelection.ALL, List.of());
+
+            String eTag = signedIn.get().uri("/api/completions/week?date=2026-01-28").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("Cache-Control", "no-cache, private")
+                    .returnResult(String.class).getResponseHeaders().getETag();
+
+            signedIn.get().uri("/api/completions/week?date=2026-01-26").header("If-None-Match", eTag).exchange()
+                    .expectStatus().isNotModified()
+                    .expectHeader().valueEquals("ETag", eTag);
+
+            verifyCompletionsRead(null, 1);
+        }
+
+        @Test
+        void getWeekCompletions_afterCompletionRecorded_returnsNewBody() {
+            givenCompletionsVersion(4L);
+            givenCompletions(FieldSelection.ALL, List.of());
+
+            String eTag = signedIn.get().uri("/api/completions/week?date=2026-01-28").exchange()
+                    .returnResult(String.class).getResponseHeaders().getETag();
+            givenCompletionsVersion(5L);
+
+            signedIn.get().uri("/api/completions/week?date=2026-01-28").header("If-None-Match", eTag).exchange()
+                    .expectStatus().isOk();
+
+            verifyCompletionsRead(null, 2);
+        }
+
+        @Test
+        void getWeekSummary_returnsRollupWithoutCompletionIds() {
+            WeeklyCompletionRollup rollup = new WeeklyCompletionRollup("user123", "2026-01-19");
+            rollup.add(createMockCompletion("c1", "Make your bed", "2026-01-20"));
+            givenWeekSummary(LocalDate.of(2026, 1, 20), rollup);
+
+            signedIn.get().uri("/api/completions/week/summary?date=2026-01-20").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueMatches("ETag", "\"summary-2026-01-19-\\d+\"")
+                    .expectBody()
+                    .jsonPath("$.weekStart").isEqualTo("2026-01-19")
+                    .jsonPath("$.totalCompletions").isEqualTo(1)
+                    .jsonPath("$.completionsByDay['2026-01-20']").isEqualTo(1)
+                    .jsonPath("$.xpByDay['2026-01-20']").isEqualTo(25)
+                    .jsonPath("$.completionsByHabit.habit123").isEqualTo(1)
+                    .jsonPath("$.totalXp").isEqualTo(25)
+                    .jsonPath("$.completionIds").doesNotExist();
+        }
     }
-}
\ No newline at end of file
+}
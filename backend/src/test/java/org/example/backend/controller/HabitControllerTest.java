@@ -1,101 +1,332 @@
 package org.example.backend.controller;
 
+import org.example.backend.exception.InvalidRequestException;
 import org.example.backend.model.Habit;
 import org.example.backend.model.HabitDifficulty;
 import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.TrendingHabit;
 import org.example.backend.repository.AppUserRepository;
+import org.example.backend.security.ReactiveSecurityConfig;
 import org.example.backend.security.SecurityConfig;
 import org.example.backend.service.AppUserService;
 import org.example.backend.service.HabitService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
 import org.example.backend.service.UserHabitService;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(HabitController.class)
-@Import(SecurityConfig.class)
 class HabitControllerTest {
 
-    @Autowired
-    private MockMvc mockMvc;
+    @Nested
+    @WebMvcTest(HabitController.class)
+    @Import(SecurityConfig.class)
+    class Servlet extends Requests {
 
-    @MockitoBean
-    private HabitService habitService;
+        @Autowired
+        private MockMvc mockMvc;
 
-    @MockitoBean
-    private UserHabitService userHabitService;
+        @MockitoBean
+        private UserHabitService userHabitService;
 
-    @MockitoBean
-    private AppUserService appUserService;
+        @MockitoBean
+        private AppUserService appUserService;
 
-    @MockitoBean
-    private AppUserRepository appUserRepository;
+        @MockitoBean
+        private AppUserRepository appUserRepository;
 
-    @Test
-    void getAllHabits_returnsHabitList() throws Exception {
-        Habit habit1 = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
-        habit1.setId("habit1");
-        Habit habit2 = new Habit("Gym workout", "Push your limits", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
-        habit2.setId("habit2");
+        @Override
+        Stack stack() {
+            return Stack.SERVLET;
+        }
 
-        when(habitService.getAllHabits()).thenReturn(List.of(habit1, habit2));
+        @Override
+        void givenUserHabitIds(List<String> habitIds) {
+            when(appUserService.getUserId(any(OAuth2User.class))).thenReturn("user123");
+            when(userHabitService.getUserHabitIds("user123")).thenReturn(habitIds);
+        }
 
-        mockMvc.perform(get("/api/habits"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value("habit1"))
-                .andExpect(jsonPath("$[0].name").value("Make your bed"))
-                .andExpect(jsonPath("$[0].difficulty").value("EASY"))
-                .andExpect(jsonPath("$[0].frequency").value("DAILY"))
-                .andExpect(jsonPath("$[1].id").value("habit2"))
-                .andExpect(jsonPath("$[1].name").value("Gym workout"));
-    }
+        @Override
+        void verifyUserHabitsNotLoaded() {
+            verify(userHabitService, never()).getUserHabits(any());
+        }
 
-    @Test
-    void getAllHabits_whenEmpty_returnsEmptyList() throws Exception {
-        when(habitService.getAllHabits()).thenReturn(List.of());
+        @Test
+        void actuator_withoutAdminRole_isForbidden() throws Exception {
+            mockMvc.perform(post("/actuator/habitcatalog").with(oidcLogin()))
+                    .andExpect(status().isForbidden());
+        }
 
-        mockMvc.perform(get("/api/habits"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(0));
+        @Test
+        void actuator_withAdminRole_isNotForbidden() throws Exception {
+            // the slice has no actuator endpoints, so getting past security ends in a 404
+            mockMvc.perform(post("/actuator/habitcatalog").with(oidcLogin().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                    .andExpect(status().isNotFound());
+        }
     }
 
-    @Test
-    void getRandomDailyHabit_returnsHabit() throws Exception {
-        Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
-        habit.setId("daily123");
+    @Nested
+    @WebFluxTest(ReactiveHabitController.class)
+    @Import(ReactiveSecurityConfig.class)
+    class Reactive extends Requests {
+
+        @MockitoBean
+        private ReactiveHabitReads reactiveHabitReads;
+
+        @MockitoBean
+        private ReactiveAppUserService reactiveAppUserService;
 
-        when(habitService.getRandomDailyHabit()).thenReturn(habit);
+        @Override
+        Stack stack() {
+            return Stack.REACTIVE;
+        }
 
-        mockMvc.perform(get("/api/habits/daily"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value("daily123"))
-                .andExpect(jsonPath("$.name").value("Make your bed"))
-                .andExpect(jsonPath("$.difficulty").value("EASY"))
-                .andExpect(jsonPath("$.frequency").value("DAILY"));
+        @Override
+        void givenUserHabitIds(List<String> habitIds) {
+            when(reactiveAppUserService.getUserId(any(OAuth2User.class))).thenReturn(Mono.just("user123"));
+            when(reactiveHabitReads.getUserHabitIds("user123")).thenReturn(Mono.just(habitIds));
+        }
+
+        @Override
+        void verifyUserHabitsNotLoaded() {
+            verify(reactiveHabitReads, never()).getUserHabits(any(), any());
+        }
     }
 
-    @Test
-    void getRandomWeeklyHabit_returnsHabit() throws Exception {
-        Habit habit = new Habit("Meal prep", "Prepare for the week", "Health", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
-        habit.setId("weekly123");
+    abstract static class Requests extends WebStackTest {
+
+        @MockitoBean
+        HabitService habitService;
+
+        abstract void givenUserHabitIds(List<String> habitIds);
+
+        abstract void verifyUserHabitsNotLoaded();
+
+        private Habit createHabit(String id, String name, String category, HabitDifficulty difficulty, HabitFrequency frequency) {
+            Habit habit = new Habit(name, "Description", category, difficulty, frequency);
+            habit.setId(id);
+            return habit;
+        }
+
+        @Test
+        void getAllHabits_returnsHabitList() {
+            when(habitService.getHabits(null)).thenReturn(List.of(
+                    createHabit("habit1", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                    createHabit("habit2", "Gym workout", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY)));
+
+            anonymous.get().uri("/api/habits").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.length()").isEqualTo(2)
+                    .jsonPath("$[0].id").isEqualTo("habit1")
+                    .jsonPath("$[0].name").isEqualTo("Make your bed")
+                    .jsonPath("$[0].difficulty").isEqualTo("EASY")
+                    .jsonPath("$[0].frequency").isEqualTo("DAILY")
+                    .jsonPath("$[1].id").isEqualTo("habit2")
+                    .jsonPath("$[1].name").isEqualTo("Gym workout");
+        }
+
+        @Test
+        void getAllHabits_whenEmpty_returnsEmptyList() {
+            when(habitService.getHabits(null)).thenReturn(List.of());
+
+            anonymous.get().uri("/api/habits").exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.length()").isEqualTo(0);
+        }
+
+        @Test
+        void getRandomDailyHabit_returnsHabit() {
+            when(habitService.getRandomDailyHabit())
+                    .thenReturn(createHabit("daily123", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY));
+
+            anonymous.get().uri("/api/habits/daily").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo("daily123")
+                    .jsonPath("$.name").isEqualTo("Make your bed")
+                    .jsonPath("$.difficulty").isEqualTo("EASY")
+                    .jsonPath("$.frequency").isEqualTo("DAILY");
+        }
+
+        @Test
+        void getRandomWeeklyHabit_returnsHabit() {
+            when(habitService.getRandomWeeklyHabit())
+                    .thenReturn(createHabit("weekly123", "Meal prep", "Health", HabitDifficulty.HARD, HabitFrequency.WEEKLY));
+
+            anonymous.get().uri("/api/habits/weekly").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo("weekly123")
+                    .jsonPath("$.name").isEqualTo("Meal prep")
+                    .jsonPath("$.difficulty").isEqualTo("HARD")
+                    .jsonPath("$.frequency").isEqualTo("WEEKLY");
+        }
+
+        @Test
+        void getAllHabits_setsETagAndCacheControl() {
+            when(habitService.getCatalogHash()).thenReturn("c7");
+            when(habitService.getHabits(null)).thenReturn(List.of());
+
+            anonymous.get().uri("/api/habits").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("ETag", "\"habits-c7\"")
+                    .expectHeader().valueEquals("Cache-Control", "max-age=60, public");
+        }
+
+        @Test
+        void getAllHabits_whenETagMatches_returnsNotModifiedWithoutLoadingCatalog() {
+            when(habitService.getCatalogHash()).thenReturn("c7");
+
+            anonymous.get().uri("/api/habits").header("If-None-Match", "\"habits-c7\"").exchange()
+                    .expectStatus().isNotModified()
+                    .expectHeader().valueEquals("ETag", "\"habits-c7\"")
+                    .expectBody().isEmpty();
+
+            verify(habitService, never()).getHabits(any());
+        }
+
+        @Test
+        void getAllHabits_withLimit_returnsPageAndNextToken() {
+            when(habitService.getHabitsPage("Morning Routine", null, 1)).thenReturn(new KeysetPage<>(
+                    List.of(createHabit("habit1", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY)),
+                    KeysetPage.encodeToken("habit1")));
+
+            anonymous.get().uri("/api/habits?category={category}&limit=1&fields=name", "Morning Routine").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("X-Next-Page-Token", KeysetPage.encodeToken("habit1"))
+                    .expectBody()
+                    .json("[{\"id\": \"habit1\", \"name\": \"Make your bed\"}]")
+                    .jsonPath("$[0].description").doesNotExist();
+        }
+
+        @Test
+        void getAllHabits_withLimitOutOfRange_returnsBadRequest() {
+            anonymous.get().uri("/api/habits?limit=501").exchange()
+                    .expectStatus().isBadRequest();
+        }
+
+        @Test
+        void getAllHabits_acceptingNdjson_streamsOneHabitPerLine() {
+            when(habitService.streamHabits(null)).thenReturn(Stream.of(
+                    createHabit("habit1", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                    createHabit("habit2", "Gym workout", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY)));
+
+            String body = anonymous.get().uri("/api/habits").accept(MediaType.APPLICATION_NDJSON).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                    .expectBody(String.class).returnResult().getResponseBody();
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertTrue(lines[0].contains("\"id\":\"habit1\""));
+            assertTrue(lines[1].contains("\"id\":\"habit2\""));
+        }
+
+        @Test
+        void getAllHabits_withoutAcceptHeader_returnsJsonArray() {
+            when(habitService.getHabits(null)).thenReturn(List.of());
+
+            anonymous.get().uri("/api/habits").accept(MediaType.ALL).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                    .expectBody().json("[]");
+        }
+
+        @Test
+        void getRandomDailyHabit_whenAuthenticated_excludesHabitIdsFromProjection() {
+            givenUserHabitIds(List.of("habit1"));
+            when(habitService.getRandomDailyHabitExcluding(List.of("habit1")))
+                    .thenReturn(createHabit("habit2", "Drink water", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY));
+
+            signedIn.get().uri("/api/habits/daily").exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.id").isEqualTo("habit2");
+            verifyUserHabitsNotLoaded();
+        }
+
+        @Test
+        void getRandomWeeklyHabit_whenAuthenticated_excludesUserHabits() {
+            givenUserHabitIds(List.of("habit1"));
+            when(habitService.getRandomWeeklyHabitExcluding(List.of("habit1")))
+                    .thenReturn(createHabit("weekly123", "Gym workout", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY));
+
+            signedIn.get().uri("/api/habits/weekly").exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.id").isEqualTo("weekly123");
+        }
+
+        @Test
+        void getAllHabits_withFields_filtersCatalogResponse() {
+            when(habitService.getCatalogHash()).thenReturn("c3");
+            when(habitService.getHabits(null)).thenReturn(List.of(
+                    createHabit("habit1", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY)));
+
+            anonymous.get().uri("/api/habits?fields=name").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("ETag", "\"habits-c3;fields=id,name\"")
+                    .expectBody()
+                    .jsonPath("$[0].name").isEqualTo("Make your bed")
+                    .jsonPath("$[0].description").doesNotExist();
+        }
+
+        @Test
+        void getTrendingHabits_isPublicAndCachedByRankingContent() {
+            Habit habit = createHabit("habit1", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+            when(habitService.getTrendingHash()).thenReturn("t12");
+            when(habitService.getTrendingHabits(5)).thenReturn(List.of(new TrendingHabit(habit, 7.5, 2, 1)));
+
+            anonymous.get().uri("/api/habits/trending?limit=5").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("ETag", "\"trending-t12-5\"")
+                    .expectHeader().valueEquals("Cache-Control", "max-age=60, public")
+                    .expectBody()
+                    .jsonPath("$[0].habit.id").isEqualTo("habit1")
+                    .jsonPath("$[0].score").isEqualTo(7.5)
+                    .jsonPath("$[0].acceptCount").isEqualTo(2);
+        }
+
+        @Test
+        void getTrendingHabits_withoutLimit_keysETagOnDefault() {
+            Habit habit = createHabit("habit1", "Make your bed", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+            when(habitService.getTrendingHash()).thenReturn("t12");
+            when(habitService.getTrendingHabits(null)).thenReturn(List.of(new TrendingHabit(habit, 7.5, 2, 1)));
+
+            anonymous.get().uri("/api/habits/trending").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("ETag", "\"trending-t12-null\"")
+                    .expectBody().jsonPath("$[0].habit.id").isEqualTo("habit1");
+        }
 
-        when(habitService.getRandomWeeklyHabit()).thenReturn(habit);
+        @Test
+        void getTrendingHabits_whenLimitTooLarge_returnsBadRequest() {
+            when(habitService.getTrendingHabits(500)).thenThrow(new InvalidRequestException("limit must be between 1 and 50"));
 
-        mockMvc.perform(get("/api/habits/weekly"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value("weekly123"))
-                .andExpect(jsonPath("$.name").value("Meal prep"))
-                .andExpect(jsonPath("$.difficulty").value("HARD"))
-                .andExpect(jsonPath("$.frequency").value("WEEKLY"));
+            anonymous.get().uri("/api/habits/trending?limit=500").exchange()
+                    .expectStatus().isBadRequest();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package org.example.backend.controller;
+
+import org.example.backend.exception.UserNotFoundException;
+import org.example.backend.model.LeaderboardBoard;
+import org.example.backend.model.LeaderboardEntry;
+import org.example.backend.model.LeaderboardPage;
+import org.example.backend.model.LeaderboardStanding;
+import org.example.backend.repository.AppUserRepository;
+import org.example.backend.security.ReactiveSecurityConfig;
+import org.example.backend.security.SecurityConfig;
+import org.example.backend.service.Leaderboard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LeaderboardControllerTest {
+
+    @Nested
+    @WebMvcTest(LeaderboardController.class)
+    @Import(SecurityConfig.class)
+    class Servlet extends Requests {
+
+        @MockitoBean
+        private AppUserRepository appUserRepository;
+
+        @Override
+        Stack stack() {
+            return Stack.SERVLET;
+        }
+
+        @AfterEach
+        void readsNoUser() {
+            verifyNoInteractions(appUserRepository);
+        }
+    }
+
+    @Nested
+    @WebFluxTest(ReactiveLeaderboardController.class)
+    @Import(ReactiveSecurityConfig.class)
+    class Reactive extends Requests {
+
+        @Override
+        Stack stack() {
+            return Stack.REACTIVE;
+        }
+    }
+
+    abstract static class Requests extends WebStackTest {
+
+        @MockitoBean
+        Leaderboard leaderboard;
+
+        private LeaderboardEntry entry(int rank, int score) {
+            return new LeaderboardEntry(rank, "user123", "testUser", "https://example.com/avatar.png", 3, score);
+        }
+
+        @Test
+        void getTop_returnsRankedEntries() {
+            when(leaderboard.getTop(LeaderboardBoard.XP, 5))
+                    .thenReturn(new LeaderboardPage(LeaderboardBoard.XP, 42, List.of(entry(1, 900))));
+
+            signedIn.get().uri("/api/leaderboard/xp?limit=5").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.board").isEqualTo("XP")
+                    .jsonPath("$.totalUsers").isEqualTo(42)
+                    .jsonPath("$.entries[0].rank").isEqualTo(1)
+                    .jsonPath("$.entries[0].score").isEqualTo(900);
+        }
+
+        @Test
+        void getTop_withInvalidLimit_returnsBadRequest() {
+            signedIn.get().uri("/api/leaderboard/streak?limit=1000").exchange()
+                    .expectStatus().isBadRequest();
+        }
+
+        @Test
+        void getTop_withUnknownBoard_returnsNotFound() {
+            signedIn.get().uri("/api/leaderboard/level").exchange()
+                    .expectStatus().isNotFound();
+        }
+
+        @Test
+        void getMyStanding_looksUpPrincipalByGithubId() {
+            when(leaderboard.getStanding(LeaderboardBoard.STREAK, String.valueOf(GITHUB_ID)))
+                    .thenReturn(new LeaderboardStanding(LeaderboardBoard.STREAK, 42, entry(7, 12)));
+
+            signedIn.get().uri("/api/leaderboard/streak/me").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.entry.rank").isEqualTo(7)
+                    .jsonPath("$.entry.score").isEqualTo(12);
+        }
+
+        @Test
+        void getMyStanding_whenNotOnLeaderboard_returnsNotFound() {
+            when(leaderboard.getStanding(LeaderboardBoard.XP, String.valueOf(GITHUB_ID)))
+                    .thenThrow(new UserNotFoundException("user is not on the leaderboard"));
+
+            signedIn.get().uri("/api/leaderboard/xp/me").exchange()
+                    .expectStatus().isNotFound();
+        }
+
+        @Test
+        void getTop_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.get().uri("/api/leaderboard/xp").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+    }
+}
@@ -1,188 +1,436 @@
 package org.example.backend.controller;
 
-import org.example.backend.model.AppUser;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.HabitBatchOperationType;
+import org.example.backend.model.HabitBatchResponse;
+import org.example.backend.model.HabitBatchResult;
 import org.example.backend.model.HabitDifficulty;
 import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.HabitHeatmap;
+import org.example.backend.model.HabitHeatmapRow;
+import org.example.backend.model.KeysetPage;
 import org.example.backend.model.UserHabit;
 import org.example.backend.repository.AppUserRepository;
+import org.example.backend.security.ReactiveSecurityConfig;
 import org.example.backend.security.SecurityConfig;
 import org.example.backend.service.AppUserService;
+import org.example.backend.service.ReactiveAppUserService;
+import org.example.backend.service.ReactiveHabitReads;
+import org.example.backend.service.ResourceVersions;
 import org.example.backend.service.UserHabitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.json.JsonCompareMode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(UserHabitController.class)
-@Import(SecurityConfig.class)
 class UserHabitControllerTest {
 
-    @Autowired
-    private MockMvc mockMvc;
-
-    @MockitoBean
-    private UserHabitService userHabitService;
-
-    @MockitoBean
-    private AppUserService appUserService;
-
-    @MockitoBean
-    private AppUserRepository appUserRepository;
-
-    private AppUser createMockUser() {
-        AppUser user = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        return user;
-    }
-
-    @Test
-    void getMyHabits_whenAuthenticated_returnsUserHabits() throws Exception {
-        AppUser mockUser = createMockUser();
-
-        UserHabit userHabit1 = new UserHabit();
-        userHabit1.setId("uh1");
-        userHabit1.setUserId("user123");
-        userHabit1.setHabitId("habit1");
-        userHabit1.setHabitName("Make your bed");
-        userHabit1.setDifficulty(HabitDifficulty.EASY);
-        userHabit1.setFrequency(HabitFrequency.DAILY);
-        userHabit1.setCurrentStreak(5);
-        userHabit1.setActive(true);
-
-        UserHabit userHabit2 = new UserHabit();
-        userHabit2.setId("uh2");
-        userHabit2.setUserId("user123");
-        userHabit2.setHabitId("habit2");
-        userHabit2.setHabitName("Meal prep");
-        userHabit2.setDifficulty(HabitDifficulty.HARD);
-        userHabit2.setFrequency(HabitFrequency.WEEKLY);
-        userHabit2.setCurrentStreak(2);
-        userHabit2.setActive(true);
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(userHabitService.getUserHabits("user123")).thenReturn(List.of(userHabit1, userHabit2));
-
-        mockMvc.perform(get("/api/my-habits")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value("uh1"))
-                .andExpect(jsonPath("$[0].habitName").value("Make your bed"))
-                .andExpect(jsonPath("$[0].difficulty").value("EASY"))
-                .andExpect(jsonPath("$[0].currentStreak").value(5))
-                .andExpect(jsonPath("$[1].id").value("uh2"))
-                .andExpect(jsonPath("$[1].habitName").value("Meal prep"));
-    }
-
-    @Test
-    void getMyHabits_whenNotAuthenticated_redirectsToLogin() throws Exception {
-        mockMvc.perform(get("/api/my-habits"))
-                .andExpect(status().is3xxRedirection());
-    }
-
-    @Test
-    void acceptUserHabit_whenAuthenticated_returnsCreatedUserHabit() throws Exception {
-        AppUser mockUser = createMockUser();
-
-        UserHabit userHabit = new UserHabit();
-        userHabit.setId("uh123");
-        userHabit.setUserId("user123");
-        userHabit.setHabitId("habit456");
-        userHabit.setHabitName("Read for 20 minutes");
-        userHabit.setDifficulty(HabitDifficulty.MEDIUM);
-        userHabit.setFrequency(HabitFrequency.DAILY);
-        userHabit.setCurrentStreak(0);
-        userHabit.setTotalCompletions(0);
-        userHabit.setActive(true);
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(userHabitService.acceptUserHabit("user123", "habit456")).thenReturn(userHabit);
-
-        mockMvc.perform(post("/api/my-habits/habit456")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value("uh123"))
-                .andExpect(jsonPath("$.userId").value("user123"))
-                .andExpect(jsonPath("$.habitId").value("habit456"))
-                .andExpect(jsonPath("$.habitName").value("Read for 20 minutes"))
-                .andExpect(jsonPath("$.currentStreak").value(0))
-                .andExpect(jsonPath("$.active").value(true));
-
-        verify(userHabitService).acceptUserHabit("user123", "habit456");
-    }
-
-    @Test
-    void acceptUserHabit_whenNotAuthenticated_redirectsToLogin() throws Exception {
-        mockMvc.perform(post("/api/my-habits/habit456"))
-                .andExpect(status().is3xxRedirection());
-    }
-
-    @Test
-    void deleteUserHabit_whenAuthenticated_returnsNoContent() throws Exception {
-        AppUser mockUser = createMockUser();
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-
-        mockMvc.perform(delete("/api/my-habits/habit456")
-                        .with(oidcLogin()))
-                .andExpect(status().isNoContent());
-
-        verify(userHabitService).deleteUserHabit("user123", "habit456");
-    }
-
-    @Test
-    void deleteUserHabit_whenNotAuthenticated_redirectsToLogin() throws Exception {
-        mockMvc.perform(delete("/api/my-habits/habit456"))
-                .andExpect(status().is3xxRedirection());
+    @Nested
+    @WebMvcTest(UserHabitController.class)
+    @Import(SecurityConfig.class)
+    class Servlet extends Requests {
+
+        @MockitoBean
+        private AppUserRepository appUserRepository;
+
+        @MockitoBean
+        private ResourceVersions resourceVersions;
+
+        @BeforeEach
+        void setUp() {
+            when(appUserService.getUserId(any(OAuth2User.class))).thenReturn("user123");
+        }
+
+        @Override
+        Stack stack() {
+            return Stack.SERVLET;
+        }
+
+        @Override
+        void givenUserHabitsVersion(long version) {
+            when(resourceVersions.getUserHabitsVersion("user123")).thenReturn(version);
+        }
+
+        @Override
+        void givenUserHabits(FieldSelection fields, List<UserHabit> userHabits) {
+            when(userHabitService.getUserHabits("user123", fields)).thenReturn(userHabits);
+            when(userHabitService.streamUserHabits("user123", fields)).thenAnswer(invocation -> userHabits.stream());
+        }
+
+        @Override
+        void givenUserHabitsPage(String pageToken, int limit, FieldSelection fields, KeysetPage<UserHabit> page) {
+            when(userHabitService.getUserHabitsPage("user123", pageToken, limit, fields)).thenReturn(page);
+        }
+
+        @Override
+        void givenHeatmap(int year, HabitHeatmap heatmap) {
+            when(userHabitService.getHeatmap("user123", year)).thenReturn(heatmap);
+        }
+
+        @Override
+        void verifyUserHabitsRead(int count) {
+            verify(userHabitService, times(count)).getUserHabits(any(), any());
+        }
+
+        @Test
+        void getMyHabits_acceptingNdjson_streamsAndClosesCursor() {
+            UserHabit userHabit = new UserHabit();
+            userHabit.setId("uh1");
+            userHabit.setHabitId("habit1");
+            AtomicBoolean closed = new AtomicBoolean();
+            when(userHabitService.streamUserHabits("user123", FieldSelection.ALL))
+                    .thenReturn(Stream.of(userHabit).onClose(() -> closed.set(true)));
+
+            String body = signedIn.get().uri("/api/my-habits").accept(MediaType.APPLICATION_NDJSON).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                    .expectBody(String.class).returnResult().getResponseBody();
+            assertTrue(body.contains("\"id\":\"uh1\"") && body.endsWith("}\n"), body);
+            assertTrue(closed.get());
+        }
     }
 
-    @Test
-    void completeUserHabit_whenAuthenticated_returnsCompletedHabit() throws Exception {
-        AppUser mockUser = createMockUser();
-
-        UserHabit completedHabit = new UserHabit();
-        completedHabit.setId("uh123");
-        completedHabit.setUserId("user123");
-        completedHabit.setHabitId("habit456");
-        completedHabit.setHabitName("Read for 20 minutes");
-        completedHabit.setDifficulty(HabitDifficulty.MEDIUM);
-        completedHabit.setFrequency(HabitFrequency.DAILY);
-        completedHabit.setCurrentStreak(5);
-        completedHabit.setLongestStreak(5);
-        completedHabit.setTotalCompletions(10);
-        completedHabit.setActive(true);
-
-        when(appUserService.getOrCreateUser(any(OAuth2User.class))).thenReturn(mockUser);
-        when(userHabitService.completeUserHabit("user123", "habit456")).thenReturn(completedHabit);
-        when(appUserService.addXp("user123", HabitDifficulty.MEDIUM.getBaseXp())).thenReturn(mockUser);
-
-        mockMvc.perform(post("/api/my-habits/habit456/complete")
-                        .with(oidcLogin()))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value("uh123"))
-                .andExpect(jsonPath("$.habitName").value("Read for 20 minutes"))
-                .andExpect(jsonPath("$.currentStreak").value(5))
-                .andExpect(jsonPath("$.totalCompletions").value(10));
-
-        verify(userHabitService).completeUserHabit("user123", "habit456");
-        verify(appUserService).addXp("user123", HabitDifficulty.MEDIUM.getBaseXp());
+    @Nested
+    @WebFluxTest(ReactiveUserHabitController.class)
+    @Import(ReactiveSecurityConfig.class)
+    class Reactive extends Requests {
+
+        @MockitoBean
+        private ReactiveHabitReads reactiveHabitReads;
+
+        @MockitoBean
+        private ReactiveAppUserService reactiveAppUserService;
+
+        @BeforeEach
+        void setUp() {
+            when(reactiveAppUserService.getUserId(any(OAuth2User.class))).thenReturn(Mono.just("user123"));
+            givenUserHabitsVersion(0L);
+        }
+
+        @Override
+        Stack stack() {
+            return Stack.REACTIVE;
+        }
+
+        @Override
+        void givenUserHabitsVersion(long version) {
+            when(reactiveHabitReads.getUserHabitsVersion("user123")).thenReturn(Mono.just(version));
+        }
+
+        @Override
+        void givenUserHabits(FieldSelection fields, List<UserHabit> userHabits) {
+            when(reactiveHabitReads.getUserHabits("user123", fields)).thenReturn(Flux.fromIterable(userHabits));
+        }
+
+        @Override
+        void givenUserHabitsPage(String pageToken, int limit, FieldSelection fields, KeysetPage<UserHabit> page) {
+            when(reactiveHabitReads.getUserHabitsPage("user123", pageToken, limit, fields)).thenReturn(Mono.just(page));
+        }
+
+        @Override
+        void givenHeatmap(int year, HabitHeatmap heatmap) {
+            when(reactiveHabitReads.getHeatmap("user123", year)).thenReturn(Mono.just(heatmap));
+        }
+
+        @Override
+        void verifyUserHabitsRead(int count) {
+            verify(reactiveHabitReads, times(count)).getUserHabits(any(), any());
+        }
     }
 
-    @Test
-    void completeUserHabit_whenNotAuthenticated_redirectsToLogin() throws Exception {
-        mockMvc.perform(post("/api/my-habits/habit456/complete"))
-                .andExpect(status().is3xxRedirection());
+    abstract static class Requests extends WebStackTest {
+
+        @MockitoBean
+        UserHabitService userHabitService;
+
+        @MockitoBean
+        AppUserService appUserService;
+
+        abstract void givenUserHabitsVersion(long version);
+
+        /** Answers both the list and the NDJSON stream. */
+        abstract void givenUserHabits(FieldSelection fields, List<UserHabit> userHabits);
+
+        abstract void givenUserHabitsPage(String pageToken, int limit, FieldSelection fields, KeysetPage<UserHabit> page);
+
+        abstract void givenHeatmap(int year, HabitHeatmap heatmap);
+
+        abstract void verifyUserHabitsRead(int count);
+
+        private UserHabit createUserHabit(String id, String habitId, String habitName, HabitDifficulty difficulty,
+                                          HabitFrequency frequency) {
+            UserHabit userHabit = new UserHabit();
+            userHabit.setId(id);
+            userHabit.setUserId("user123");
+            userHabit.setHabitId(habitId);
+            userHabit.setHabitName(habitName);
+            userHabit.setDifficulty(difficulty);
+            userHabit.setFrequency(frequency);
+            userHabit.setActive(true);
+            return userHabit;
+        }
+
+        @Test
+        void getMyHabits_whenAuthenticated_returnsUserHabits() {
+            UserHabit userHabit1 = createUserHabit("uh1", "habit1", "Make your bed", HabitDifficulty.EASY, HabitFrequency.DAILY);
+            userHabit1.setCurrentStreak(5);
+            userHabit1.setLastCompletedPeriod(20480L);
+            userHabit1.setLastCompletionId("completion1");
+            UserHabit userHabit2 = createUserHabit("uh2", "habit2", "Meal prep", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
+            userHabit2.setCurrentStreak(2);
+            givenUserHabits(FieldSelection.ALL, List.of(userHabit1, userHabit2));
+
+            signedIn.get().uri("/api/my-habits").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.length()").isEqualTo(2)
+                    .jsonPath("$[0].id").isEqualTo("uh1")
+                    .jsonPath("$[0].habitName").isEqualTo("Make your bed")
+                    .jsonPath("$[0].difficulty").isEqualTo("EASY")
+                    .jsonPath("$[0].xp").isEqualTo(25)
+                    .jsonPath("$[0].currentStreak").isEqualTo(5)
+                    .jsonPath("$[0].lastCompletedPeriod").doesNotExist()
+                    .jsonPath("$[0].lastCompletionId").doesNotExist()
+                    .jsonPath("$[1].id").isEqualTo("uh2")
+                    .jsonPath("$[1].habitName").isEqualTo("Meal prep");
+        }
+
+        @Test
+        void getMyHabits_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.get().uri("/api/my-habits").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+
+        @Test
+        void acceptUserHabit_whenAuthenticated_returnsCreatedUserHabit() {
+            UserHabit userHabit = createUserHabit("uh123", "habit456", "Read for 20 minutes", HabitDifficulty.MEDIUM,
+                    HabitFrequency.DAILY);
+            when(userHabitService.acceptUserHabit("user123", "habit456")).thenReturn(userHabit);
+
+            signedIn.post().uri("/api/my-habits/habit456").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo("uh123")
+                    .jsonPath("$.userId").isEqualTo("user123")
+                    .jsonPath("$.habitId").isEqualTo("habit456")
+                    .jsonPath("$.habitName").isEqualTo("Read for 20 minutes")
+                    .jsonPath("$.currentStreak").isEqualTo(0)
+                    .jsonPath("$.active").isEqualTo(true);
+
+            verify(userHabitService).acceptUserHabit("user123", "habit456");
+        }
+
+        @Test
+        void acceptUserHabit_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.post().uri("/api/my-habits/habit456").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+
+        @Test
+        void deleteUserHabit_whenAuthenticated_returnsNoContent() {
+            signedIn.delete().uri("/api/my-habits/habit456").exchange()
+                    .expectStatus().isNoContent();
+
+            verify(userHabitService).deleteUserHabit("user123", "habit456");
+        }
+
+        @Test
+        void deleteUserHabit_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.delete().uri("/api/my-habits/habit456").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+
+        @Test
+        void completeUserHabit_whenAuthenticated_returnsCompletedHabit() {
+            UserHabit completedHabit = createUserHabit("uh123", "habit456", "Read for 20 minutes", HabitDifficulty.MEDIUM,
+                    HabitFrequency.DAILY);
+            completedHabit.setCurrentStreak(5);
+            completedHabit.setLongestStreak(5);
+            completedHabit.setTotalCompletions(10);
+            when(userHabitService.completeUserHabit("user123", "habit456")).thenReturn(completedHabit);
+
+            signedIn.post().uri("/api/my-habits/habit456/complete").exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo("uh123")
+                    .jsonPath("$.habitName").isEqualTo("Read for 20 minutes")
+                    .jsonPath("$.currentStreak").isEqualTo(5)
+                    .jsonPath("$.totalCompletions").isEqualTo(10);
+
+            verify(userHabitService).completeUserHabit("user123", "habit456");
+            verify(appUserService).addXp("user123", HabitDifficulty.MEDIUM.getBaseXp());
+        }
+
+        @Test
+        void completeUserHabit_whenNotAuthenticated_redirectsToLogin() {
+            anonymous.post().uri("/api/my-habits/habit456/complete").exchange()
+                    .expectStatus().is3xxRedirection();
+        }
+
+        @Test
+        void applyBatch_whenAuthenticated_returnsResultsAndAddsXpOnce() {
+            when(userHabitService.applyBatch(eq("user123"), any())).thenReturn(new HabitBatchResponse(List.of(
+                    new HabitBatchResult(0, HabitBatchOperationType.COMPLETE, "habit1", 200, null, null),
+                    new HabitBatchResult(1, HabitBatchOperationType.DELETE, "habit2", 404, "Habit not found in user's habit-list", null)),
+                    HabitDifficulty.MEDIUM.getBaseXp()));
+
+            signedIn.post().uri("/api/my-habits/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("""
+                            [{"type": "COMPLETE", "habitId": "habit1"}, {"type": "DELETE", "habitId": "habit2"}]
+                            """)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.results.length()").isEqualTo(2)
+                    .jsonPath("$.results[0].status").isEqualTo(200)
+                    .jsonPath("$.results[1].status").isEqualTo(404)
+                    .jsonPath("$.xpEarned").isEqualTo(HabitDifficulty.MEDIUM.getBaseXp());
+
+            verify(appUserService).addXp("user123", HabitDifficulty.MEDIUM.getBaseXp());
+        }
+
+        @Test
+        void applyBatch_whenNothingCompleted_doesNotAddXp() {
+            when(userHabitService.applyBatch(eq("user123"), any())).thenReturn(new HabitBatchResponse(List.of(
+                    new HabitBatchResult(0, HabitBatchOperationType.DELETE, "habit2", 204, null, null)), 0));
+
+            signedIn.post().uri("/api/my-habits/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("""
+                            [{"type": "DELETE", "habitId": "habit2"}]
+                            """)
+                    .exchange()
+                    .expectStatus().isOk();
+
+            verify(appUserService, never()).addXp(anyString(), anyInt());
+        }
+
+        @Test
+        void getMyHabits_whenHabitsUnchanged_returnsNotModified() {
+            givenUserHabitsVersion(4L);
+            givenUserHabits(FieldSelection.ALL, List.of());
+
+            String eTag = signedIn.get().uri("/api/my-habits").exchange()
+                    .expectStatus().isOk()
+                    .returnResult(String.class).getResponseHeaders().getETag();
+
+            signedIn.get().uri("/api/my-habits").header("If-None-Match", eTag).exchange()
+                    .expectStatus().isNotModified();
+            verifyUserHabitsRead(1);
+
+            givenUserHabitsVersion(5L);
+
+            signedIn.get().uri("/api/my-habits").header("If-None-Match", eTag).exchange()
+                    .expectStatus().isOk();
+            verifyUserHabitsRead(2);
+        }
+
+        @Test
+        void getMyHabits_withPageToken_returnsPageWithoutNextToken() {
+            String token = KeysetPage.encodeToken("uh1");
+            givenUserHabitsPage(token, KeysetPage.DEFAULT_LIMIT, FieldSelection.ALL, new KeysetPage<>(List.of(), null));
+
+            signedIn.get().uri("/api/my-habits?pageToken={token}", token).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().doesNotExist("X-Next-Page-Token")
+                    .expectBody().json("[]");
+        }
+
+        @Test
+        void getMyHabits_withLimit_returnsPageAndNextToken() {
+            UserHabit projected = new UserHabit();
+            projected.setId("uh1");
+            projected.setHabitId("habit1");
+            givenUserHabitsPage(null, 1, FieldSelection.parse("habitId", UserHabit.class, JsonMapper.shared()),
+                    new KeysetPage<>(List.of(projected), KeysetPage.encodeToken("uh1")));
+
+            signedIn.get().uri("/api/my-habits?limit=1&fields=habitId").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("X-Next-Page-Token", KeysetPage.encodeToken("uh1"))
+                    .expectBody().json("[{\"id\": \"uh1\", \"habitId\": \"habit1\"}]");
+        }
+
+        @Test
+        void getMyHabits_acceptingNdjson_streamsOneHabitPerLine() {
+            givenUserHabits(FieldSelection.ALL, List.of(
+                    createUserHabit("uh1", "habit1", "Make your bed", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                    createUserHabit("uh2", "habit2", "Meal prep", HabitDifficulty.HARD, HabitFrequency.WEEKLY)));
+
+            signedIn.get().uri("/api/my-habits").accept(MediaType.APPLICATION_NDJSON).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                    .expectBodyList(UserHabit.class).hasSize(2);
+        }
+
+        @Test
+        void getMyHabits_withFields_returnsOnlySelectedFields() {
+            UserHabit projected = new UserHabit();
+            projected.setId("uh1");
+            projected.setHabitName("Make your bed");
+            givenUserHabits(FieldSelection.parse("habitName", UserHabit.class, JsonMapper.shared()), List.of(projected));
+
+            signedIn.get().uri("/api/my-habits?fields=habitName").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueMatches("ETag", ".*;fields=habitName,id\"")
+                    .expectBody().json("""
+                            [{"id": "uh1", "habitName": "Make your bed"}]
+                            """, JsonCompareMode.STRICT);
+        }
+
+        @Test
+        void getMyHabits_withUnknownField_returnsBadRequest() {
+            signedIn.get().uri("/api/my-habits?fields=habitName,secret").exchange()
+                    .expectStatus().isBadRequest();
+            verifyUserHabitsRead(0);
+        }
+
+        @Test
+        void getHeatmap_returnsYearOfCompletionDaysWithoutBitmaps() {
+            givenHeatmap(2025, new HabitHeatmap(2025, List.of(
+                    new HabitHeatmapRow("habit1", "Make your bed", HabitFrequency.DAILY, 2,
+                            List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 30))))));
+
+            signedIn.get().uri("/api/my-habits/heatmap?year=2025").exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueMatches("ETag", "\"heatmap-2025-.*")
+                    .expectBody().json("""
+                            {"year": 2025, "habits": [{"habitId": "habit1", "habitName": "Make your bed", "frequency": "DAILY",
+                              "completions": 2, "days": ["2025-01-01", "2025-06-30"]}]}
+                            """, JsonCompareMode.STRICT);
+        }
+
+        @Test
+        void getHeatmap_withoutYear_usesCurrentYear() {
+            givenHeatmap(LocalDate.now().getYear(), new HabitHeatmap(LocalDate.now().getYear(), List.of()));
+
+            signedIn.get().uri("/api/my-habits/heatmap").exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.year").isEqualTo(LocalDate.now().getYear());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package org.example.backend.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOidcLogin;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Base of the request tests shared by a servlet controller and its reactive counterpart. Each controller test
+ * declares its requests once and runs them in a nested {@code @WebMvcTest} and a nested {@code @WebFluxTest}, both
+ * driven through {@link WebTestClient}.
+ */
+abstract class WebStackTest {
+
+    static final int GITHUB_ID = 12345;
+
+    @Autowired
+    private ApplicationContext context;
+
+    /** A client without a session. */
+    WebTestClient anonymous;
+
+    /** A client signed in through GitHub as {@link #GITHUB_ID}. */
+    WebTestClient signedIn;
+
+    abstract Stack stack();
+
+    @BeforeEach
+    void bindClients() {
+        anonymous = stack().client(context, false);
+        signedIn = stack().client(context, true);
+    }
+
+    enum Stack {
+        SERVLET {
+            @Override
+            WebTestClient client(ApplicationContext context, boolean signedIn) {
+                DefaultMockMvcBuilder mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                        .apply(SecurityMockMvcConfigurers.springSecurity());
+                if (signedIn) {
+                    mockMvc.defaultRequest(get("/").with(oidcLogin().idToken(Stack::githubId)));
+                }
+                return MockMvcWebTestClient.bindTo(mockMvc.build()).build();
+            }
+        },
+        REACTIVE {
+            @Override
+            WebTestClient client(ApplicationContext context, boolean signedIn) {
+                WebTestClient client = WebTestClient.bindToApplicationContext(context).apply(springSecurity())
+                        .configureClient().build();
+                return signedIn ? client.mutateWith(mockOidcLogin().idToken(Stack::githubId)) : client;
+            }
+        };
+
+        abstract WebTestClient client(ApplicationContext context, boolean signedIn);
+
+        private static void githubId(OidcIdToken.Builder token) {
+            token.claim("id", GITHUB_ID);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.backend.repository;
+
+import org.bson.Document;
+import org.example.backend.config.MongoIndexProperties;
+import org.example.backend.config.MongoIndexProvisioner;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mongodb.MongoDBContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryQueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @BeforeEach
+    void setUp() {
+        new MongoIndexProvisioner(mongoTemplate, mappingContext, new MongoIndexProperties(MongoIndexProperties.Mode.CREATE))
+                .createIndexes();
+
+        AppUser user = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
+        mongoTemplate.save(user);
+        Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        mongoTemplate.save(habit);
+        UserHabit userHabit = new UserHabit(user.getId(), habit);
+        mongoTemplate.save(userHabit);
+        mongoTemplate.save(new HabitCompletion(user.getId(), userHabit));
+    }
+
+    private Document explainFind(Class<?> entity, Document filter) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity)).find(filter).explain();
+    }
+
+    private Document explainFind(Class<?> entity, Document filter, Document sort) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity)).find(filter).sort(sort).explain();
+    }
+
+    private List<String> winningPlanStages(Object node) {
+        List<String> stages = new ArrayList<>();
+        collectWinningPlanStages(node, false, stages);
+        return stages;
+    }
+
+    private void collectWinningPlanStages(Object node, boolean inWinningPlan, List<String> stages) {
+        if (node instanceof Document document) {
+            for (String key : document.keySet()) {
+                Object value = document.get(key);
+                if (inWinningPlan && key.equals("stage")) {
+                    stages.add(value.toString());
+                }
+                if (!key.equals("rejectedPlans")) {
+                    collectWinningPlanStages(value, inWinningPlan || key.equals("winningPlan"), stages);
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectWinningPlanStages(item, inWinningPlan, stages));
+        }
+    }
+
+    private void assertUsesIndex(Document explain) {
+        List<String> stages = winningPlanStages(explain);
+        assertFalse(stages.isEmpty(), "explain output has no winning plan: " + explain.toJson());
+        assertFalse(stages.contains("COLLSCAN"), "query plan contains COLLSCAN: " + stages);
+    }
+
+    @Test
+    void appUserRepository_findByGithubId_usesIndex() {
+        assertUsesIndex(explainFind(AppUser.class, new Document("githubId", "12345")));
+    }
+
+    @Test
+    void habitRepository_findByCategory_usesIndex() {
+        assertUsesIndex(explainFind(Habit.class, new Document("category", "Morning Routine")));
+    }
+
+    @Test
+    void habitRepository_findByDifficulty_usesIndex() {
+        assertUsesIndex(explainFind(Habit.class, new Document("difficulty", "EASY")));
+    }
+
+    @Test
+    void userHabitRepository_findByUserId_usesIndex() {
+        assertUsesIndex(explainFind(UserHabit.class, new Document("userId", "user123")));
+    }
+
+    @Test
+    void userHabitRepository_findByUserIdAndActiveTrue_usesIndex() {
+        assertUsesIndex(explainFind(UserHabit.class, new Document("userId", "user123").append("active", true)));
+    }
+
+    @Test
+    void userHabitKeysetPage_usesIndexWithoutInMemorySort() {
+        Document explain = explainFind(UserHabit.class,
+                new Document("userId", "user123").append("active", true).append("_id", new Document("$gt", "uh1")),
+                new Document("_id", 1));
+        assertUsesIndex(explain);
+        assertFalse(winningPlanStages(explain).contains("SORT"), "keyset page sorts in memory: " + winningPlanStages(explain));
+    }
+
+    @Test
+    void userHabitRepository_findByUserIdAndHabitId_usesIndex() {
+        assertUsesIndex(explainFind(UserHabit.class, new Document("userId", "user123").append("habitId", "habit123")));
+    }
+
+    @Test
+    void userHabitRepository_findByUserIdAndHabitIdIn_usesIndex() {
+        assertUsesIndex(explainFind(UserHabit.class, new Document("userId", "user123")
+                .append("habitId", new Document("$in", List.of("habit123", "habit456")))));
+    }
+
+    @Test
+    void habitCompletionWeekQuery_usesIndex() {
+        assertUsesIndex(explainFind(HabitCompletion.class, new Document("userId", "user123")
+                .append("completionDay", new Document("$gte", 20479).append("$lte", 20485))));
+    }
+
+    @Test
+    void habitCompletionWeekQuery_duringMigration_usesIndexForBothBranches() {
+        assertUsesIndex(explainFind(HabitCompletion.class, new Document("userId", "user123").append("$or", List.of(
+                new Document("completionDay", new Document("$gte", 20479).append("$lte", 20485)),
+                new Document("completionDay", new Document("$exists", false))
+                        .append("completionDate", new Document("$gte", "2026-01-26").append("$lte", "2026-02-01"))))));
+    }
+
+    @Test
+    void weeklyCompletionRollup_readById_usesIdIndex() {
+        assertUsesIndex(explainFind(WeeklyCompletionRollup.class, new Document("_id", "user123:2026-01-26")));
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.backend.security;
+
+import org.example.backend.config.AdminProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminAuthoritiesMapperTest {
+
+    private final AdminAuthoritiesMapper mapper = new AdminAuthoritiesMapper(new AdminProperties(List.of("123")));
+
+    private List<GrantedAuthority> githubUser(int githubId) {
+        return List.of(new OAuth2UserAuthority(Map.of("id", githubId, "login", "testUser")));
+    }
+
+    @Test
+    void mapAuthorities_configuredGithubId_addsAdminRole() {
+        assertTrue(mapper.mapAuthorities(githubUser(123)).contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Test
+    void mapAuthorities_otherGithubId_keepsAuthorities() {
+        List<GrantedAuthority> authorities = githubUser(456);
+
+        assertEquals(authorities, mapper.mapAuthorities(authorities));
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.config.UserCacheProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppUserCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppUserCache appUserCache = new AppUserCache(new UserCacheProperties(100, Duration.ofMinutes(5)), meterRegistry);
+
+    private String userId(String githubId) {
+        return "user-" + githubId;
+    }
+
+    @Test
+    void get_loadsOnceAndRecordsHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        appUserCache.get("123", id -> {
+            loads.incrementAndGet();
+            return userId(id);
+        });
+        String result = appUserCache.get("123", id -> {
+            loads.incrementAndGet();
+            return userId(id);
+        });
+
+        assertEquals("user-123", result);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "appUsers").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "appUsers").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        appUserCache.get("123", this::userId);
+
+        appUserCache.invalidate("123");
+
+        AtomicInteger loads = new AtomicInteger();
+        appUserCache.get("123", id -> {
+            loads.incrementAndGet();
+            return userId(id);
+        });
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_loadingOnVirtualThread_doesNotPinCarrier() throws Exception {
+        assertEquals(List.of(), VirtualThreadPinning.pinnedEventsWhile(() -> appUserCache.get("123", id -> {
+            VirtualThreadPinning.blockBriefly();
+            return userId(id);
+        })));
+        assertEquals("user-123", appUserCache.get("123", id -> fail("should be cached")));
+    }
+
+    @Test
+    void get_whenLoaderFails_doesNotCacheFailure() {
+        assertThrows(IllegalStateException.class, () -> appUserCache.get("123", id -> {
+            throw new IllegalStateException("mongo down");
+        }));
+
+        assertEquals("user-123", appUserCache.get("123", this::userId));
+    }
+
+    @Test
+    void getAsync_sharesPendingLoadAndDropsFailedOne() {
+        CompletableFuture<String> loading = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> first = appUserCache.getAsync("123", id -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+        CompletableFuture<String> second = appUserCache.getAsync("123", id -> fail("should share the pending load"));
+        loading.completeExceptionally(new IllegalStateException("mongo down"));
+
+        assertTrue(first.isCompletedExceptionally() && second.isCompletedExceptionally());
+        assertEquals(1, loads.get());
+        assertEquals("user-123", appUserCache.getAsync("123", id -> CompletableFuture.completedFuture(userId(id))).join());
+        assertEquals("user-123", appUserCache.get("123", id -> fail("should be cached")));
+    }
+}
@@ -1,21 +1,64 @@
 package org.example.backend.service;
 
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.example.backend.config.LevelCurveProperties;
+import org.example.backend.config.UserCacheProperties;
+import org.example.backend.config.XpProperties;
+import org.example.backend.exception.UserNotFoundException;
 import org.example.backend.model.AppUser;
+import org.example.backend.model.LeaderboardBoard;
+import org.example.backend.model.LeaderboardEntry;
 import org.example.backend.repository.AppUserRepository;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AppUserServiceTest {
 
     private final AppUserRepository appUserRepository = mock(AppUserRepository.class);
-    private final AppUserService appUserService = new AppUserService(appUserRepository);
+    private final AppUserCache appUserCache = new AppUserCache(new UserCacheProperties(100, Duration.ofMinutes(5)), new SimpleMeterRegistry());
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LevelCurve levelCurve = new LevelCurve(new LevelCurveProperties(LevelCurveProperties.Type.LINEAR, 100, 1.5, 1000, List.of()));
+    private final SimpleMeterRegistry writeBehindMeterRegistry = new SimpleMeterRegistry();
+    private final Leaderboard leaderboard = new Leaderboard(mongoTemplate, new SimpleMeterRegistry());
+    private PendingXpBuffer pendingXpBuffer;
+    private final AppUserService appUserService = createService(false, meterRegistry);
+
+    private AppUserService createService(boolean writeBehind, SimpleMeterRegistry meterRegistry) {
+        XpProperties xpProperties = new XpProperties(3, new XpProperties.WriteBehind(writeBehind, Duration.ofSeconds(1), 3));
+        pendingXpBuffer = new PendingXpBuffer(xpProperties, meterRegistry);
+        return new AppUserService(appUserRepository, appUserCache, mongoTemplate, xpProperties, levelCurve,
+                pendingXpBuffer, leaderboard, meterRegistry);
+    }
+
+    private OAuth2User mockOAuth2User(int githubId) {
+        OAuth2User oAuth2User = mock(OAuth2User.class);
+        when(oAuth2User.getAttribute("id")).thenReturn(githubId);
+        when(oAuth2User.getAttribute("login")).thenReturn("testUser");
+        when(oAuth2User.getAttribute("email")).thenReturn("test@example.com");
+        when(oAuth2User.getAttribute("avatar_url")).thenReturn("https://example.com/avatar.png");
+        return oAuth2User;
+    }
 
     @Test
     void getUserById_returnsUser() {
@@ -85,44 +128,143 @@ class AppUserServiceTest {
         assertEquals("newUser", result.getUsername());
         assertEquals(1, result.getLevel());
         verify(appUserRepository).save(any(AppUser.class));
+        assertEquals(1, leaderboard.getStanding(LeaderboardBoard.XP, "456").getEntry().getRank());
     }
 
     @Test
-    void addXp_addsXpToUser() {
-        AppUser user = new AppUser("github123", "testUser", "test@example.com", "https://example.com/avatar.png");
+    void getOrCreateUser_cachedId_skipsGithubIdLookupAndReadsCurrentUser() {
+        AppUser existingUser = createUser(0, 1, 0, 0, null);
+        AppUser updatedElsewhere = createUser(500, 3, 1, 1, LocalDate.now());
+        when(appUserRepository.findByGithubId("123")).thenReturn(Optional.of(existingUser));
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(updatedElsewhere));
+
+        AppUser first = appUserService.getOrCreateUser(mockOAuth2User(123));
+        AppUser result = appUserService.getOrCreateUser(mockOAuth2User(123));
+
+        assertEquals(0, first.getTotalXp());
+        assertEquals(500, result.getTotalXp());
+        verify(appUserRepository, times(1)).findByGithubId("123");
+        verify(appUserRepository, times(1)).findById("user123");
+    }
+
+    @Test
+    void getOrCreateUser_cachedIdOfDeletedUser_looksUpAgain() {
+        AppUser existingUser = createUser(0, 1, 0, 0, null);
+        AppUser recreated = createUser(0, 1, 0, 0, null);
+        recreated.setId("user456");
+        when(appUserRepository.findByGithubId("123")).thenReturn(Optional.of(existingUser), Optional.of(recreated));
+        when(appUserRepository.findById("user123")).thenReturn(Optional.empty());
+
+        appUserService.getOrCreateUser(mockOAuth2User(123));
+        AppUser result = appUserService.getOrCreateUser(mockOAuth2User(123));
+
+        assertEquals("user456", result.getId());
+        verify(appUserRepository, times(2)).findByGithubId("123");
+    }
+
+    @Test
+    void getUserId_cachedId_readsNoUser() {
+        when(appUserRepository.findByGithubId("123")).thenReturn(Optional.of(createUser(0, 1, 0, 0, null)));
+
+        String first = appUserService.getUserId(mockOAuth2User(123));
+        String second = appUserService.getUserId(mockOAuth2User(123));
+
+        assertEquals("user123", first);
+        assertEquals("user123", second);
+        verify(appUserRepository, times(1)).findByGithubId("123");
+        verify(appUserRepository, never()).findById(any());
+    }
+
+    @Test
+    void getUserId_newUser_createsUserOnce() {
+        when(appUserRepository.findByGithubId("456")).thenReturn(Optional.empty());
+        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> {
+            AppUser saved = invocation.getArgument(0);
+            saved.setId("newUser123");
+            return saved;
+        });
+
+        assertEquals("newUser123", appUserService.getUserId(mockOAuth2User(456)));
+        assertEquals("newUser123", appUserService.getUserId(mockOAuth2User(456)));
+
+        verify(appUserRepository, times(1)).save(any(AppUser.class));
+        assertEquals(1, leaderboard.getStanding(LeaderboardBoard.XP, "456").getEntry().getRank());
+    }
+
+    private AppUser createUser(int totalXp, int level, int currentStreak, int longestStreak, LocalDate lastActiveDate) {
+        AppUser user = new AppUser("123", "testUser", "test@example.com", "https://example.com/avatar.png");
         user.setId("user123");
-        user.setTotalXp(50);
-        user.setLevel(1);
-        user.setCurrentStreak(0);
-        user.setLongestStreak(0);
-        user.setLastActiveDate(null);
+        user.setTotalXp(totalXp);
+        user.setLevel(level);
+        user.setCurrentStreak(currentStreak);
+        user.setLongestStreak(longestStreak);
+        user.setLastActiveDate(lastActiveDate);
+        user.setVersion(3L);
+        return user;
+    }
 
-        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    private void givenUpdateSucceeds() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @Test
+    void addXp_addsXpToUser() {
+        AppUser user = createUser(50, 1, 0, 0, null);
+        givenUpdateSucceeds();
 
-        AppUser result = appUserService.addXp("user123", 25);
+        AppUser result = appUserService.addXp(user, 25);
 
         assertEquals(75, result.getTotalXp());
         assertEquals(1, result.getCurrentStreak());
         assertEquals(1, result.getLongestStreak());
         assertEquals(LocalDate.now(), result.getLastActiveDate());
-        verify(appUserRepository).save(user);
+        assertEquals(4L, result.getVersion());
+        assertEquals(50, user.getTotalXp());
+        verify(appUserRepository, never()).save(any());
     }
 
     @Test
-    void addXp_levelsUpUser() {
-        AppUser user = new AppUser("github123", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        user.setTotalXp(90);
-        user.setLevel(1);
-        user.setCurrentStreak(1);
-        user.setLongestStreak(1);
-        user.setLastActiveDate(LocalDate.now().minusDays(1));
+    void addXp_recordsNewScoresOnLeaderboard() {
+        givenUpdateSucceeds();
+
+        appUserService.addXp(createUser(50, 1, 2, 2, LocalDate.now().minusDays(1)), 25);
+
+        LeaderboardEntry xp = leaderboard.getStanding(LeaderboardBoard.XP, "123").getEntry();
+        LeaderboardEntry streak = leaderboard.getStanding(LeaderboardBoard.STREAK, "123").getEntry();
+        assertEquals(75, xp.getScore());
+        assertEquals("user123", xp.getUserId());
+        assertEquals(3, streak.getScore());
+    }
 
+    @Test
+    void addXp_byUserId_loadsUserFirst() {
+        AppUser user = createUser(50, 1, 0, 0, null);
         when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        givenUpdateSucceeds();
+
+        appUserService.addXp("user123", 25);
+
+        verify(appUserRepository).findById("user123");
+        assertEquals(75, leaderboard.getStanding(LeaderboardBoard.XP, "123").getEntry().getScore());
+    }
+
+    @Test
+    void addXp_byUserIdWithWriteBehind_buffersWithoutReadingUser() {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
 
-        AppUser result = appUserService.addXp("user123", 50);
+        writeBehindService.addXp("user123", 25);
+
+        verify(appUserRepository, never()).findById(any());
+        assertEquals(25.0, writeBehindMeterRegistry.get("app.xp.write-behind.pending.xp").gauge().value());
+    }
+
+    @Test
+    void addXp_levelsUpUser() {
+        AppUser user = createUser(90, 1, 1, 1, LocalDate.now().minusDays(1));
+        givenUpdateSucceeds();
+
+        AppUser result = appUserService.addXp(user, 50);
 
         assertEquals(140, result.getTotalXp());
         assertEquals(2, result.getLevel());
@@ -132,18 +274,10 @@ class AppUserServiceTest {
 
     @Test
     void addXp_consecutiveDay_incrementsStreak() {
-        AppUser user = new AppUser("github123", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        user.setTotalXp(50);
-        user.setLevel(1);
-        user.setCurrentStreak(5);
-        user.setLongestStreak(5);
-        user.setLastActiveDate(LocalDate.now().minusDays(1));
+        AppUser user = createUser(50, 1, 5, 5, LocalDate.now().minusDays(1));
+        givenUpdateSucceeds();
 
-        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        AppUser result = appUserService.addXp("user123", 10);
+        AppUser result = appUserService.addXp(user, 10);
 
         assertEquals(6, result.getCurrentStreak());
         assertEquals(6, result.getLongestStreak());
@@ -151,18 +285,10 @@ class AppUserServiceTest {
 
     @Test
     void addXp_missedDay_resetsStreak() {
-        AppUser user = new AppUser("github123", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        user.setTotalXp(50);
-        user.setLevel(1);
-        user.setCurrentStreak(5);
-        user.setLongestStreak(10);
-        user.setLastActiveDate(LocalDate.now().minusDays(3));
+        AppUser user = createUser(50, 1, 5, 10, LocalDate.now().minusDays(3));
+        givenUpdateSucceeds();
 
-        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        AppUser result = appUserService.addXp("user123", 10);
+        AppUser result = appUserService.addXp(user, 10);
 
         assertEquals(1, result.getCurrentStreak());
         assertEquals(10, result.getLongestStreak());
@@ -170,18 +296,10 @@ class AppUserServiceTest {
 
     @Test
     void addXp_sameDay_keepsStreakUnchanged() {
-        AppUser user = new AppUser("github123", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        user.setTotalXp(50);
-        user.setLevel(1);
-        user.setCurrentStreak(5);
-        user.setLongestStreak(5);
-        user.setLastActiveDate(LocalDate.now());
+        AppUser user = createUser(50, 1, 5, 5, LocalDate.now());
+        givenUpdateSucceeds();
 
-        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        AppUser result = appUserService.addXp("user123", 10);
+        AppUser result = appUserService.addXp(user, 10);
 
         assertEquals(60, result.getTotalXp());
         assertEquals(5, result.getCurrentStreak());
@@ -189,22 +307,195 @@ class AppUserServiceTest {
     }
 
     @Test
-    void addXp_firstTimeActivity_startsStreakAtOne() {
-        AppUser user = new AppUser("github123", "testUser", "test@example.com", "https://example.com/avatar.png");
-        user.setId("user123");
-        user.setTotalXp(0);
-        user.setLevel(1);
-        user.setCurrentStreak(0);
-        user.setLongestStreak(0);
-        user.setLastActiveDate(null);
+    void addXp_comparesAndSetsOnVersion() {
+        AppUser user = createUser(50, 1, 0, 0, null);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        when(mongoTemplate.updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        appUserService.addXp(user, 25);
+
+        Document query = queryCaptor.getValue().getQueryObject();
+        assertEquals("user123", query.get("id"));
+        assertEquals(3L, query.get("version"));
+        Document set = updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(75, set.get("totalXp"));
+        assertEquals(4L, set.get("version"));
+    }
 
+    @Test
+    void addXp_onConflict_retriesWithFreshUser() {
+        AppUser stale = createUser(50, 1, 0, 0, null);
+        AppUser fresh = createUser(80, 1, 1, 1, LocalDate.now());
+        fresh.setVersion(4L);
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(fresh));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        AppUser result = appUserService.addXp(stale, 25);
+
+        assertEquals(105, result.getTotalXp());
+        assertEquals(2, result.getLevel());
+        assertEquals(5L, result.getVersion());
+        assertEquals(1.0, meterRegistry.counter("app.users.xp.update.conflicts").count());
+        assertEquals(1.0, meterRegistry.counter("app.users.xp.update.retries").count());
+    }
+
+    @Test
+    void addXp_whenConflictsPersist_throwsAfterMaxAttempts() {
+        AppUser user = createUser(50, 1, 0, 0, null);
         when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
 
-        AppUser result = appUserService.addXp("user123", 25);
+        assertThrows(OptimisticLockingFailureException.class, () -> appUserService.addXp(user, 25));
 
-        assertEquals(1, result.getCurrentStreak());
-        assertEquals(1, result.getLongestStreak());
-        assertEquals(LocalDate.now(), result.getLastActiveDate());
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class));
+        assertEquals(3.0, meterRegistry.counter("app.users.xp.update.conflicts").count());
+        assertEquals(2.0, meterRegistry.counter("app.users.xp.update.retries").count());
+        assertEquals(1.0, meterRegistry.counter("app.users.xp.update.failures").count());
+    }
+
+    @Test
+    void addXp_whenUserNotFound_throwsException() {
+        when(appUserRepository.findById("nonexistent")).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(UserNotFoundException.class,
+                () -> appUserService.addXp("nonexistent", 25));
+
+        assertTrue(exception.getMessage().contains("not found"));
+    }
+
+    @Test
+    void addXp_withWriteBehind_buffersXpAndMergesItIntoCurrentUser() {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
+        AppUser user = createUser(50, 1, 0, 0, null);
+        when(appUserRepository.findByGithubId("123")).thenReturn(Optional.of(user));
+
+        AppUser returned = writeBehindService.addXp(user, 25);
+        writeBehindService.addXp(user, 25);
+        AppUser current = writeBehindService.getCurrentUser(mockOAuth2User(123));
+
+        assertEquals(75, returned.getTotalXp());
+        assertEquals(100, current.getTotalXp());
+        assertEquals(2, current.getLevel());
+        assertEquals(0, current.getCurrentLevelXp());
+        assertEquals(50, user.getTotalXp());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class));
+        assertEquals(0, leaderboard.size());
+        assertEquals(50.0, writeBehindMeterRegistry.get("app.xp.write-behind.pending.xp").gauge().value());
+    }
+
+    @Test
+    void flushPendingXp_writesCoalescedDeltaOncePerUser() {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
+        AppUser user = createUser(50, 1, 0, 0, null);
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
+        givenUpdateSucceeds();
+
+        writeBehindService.addXp(user, 25);
+        writeBehindService.addXp(user, 25);
+        writeBehindService.flushPendingXp();
+
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), updateCaptor.capture(), eq(AppUser.class));
+        Document set = updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(100, set.get("totalXp"));
+        assertEquals(2, set.get("level"));
+        assertEquals(100, leaderboard.getStanding(LeaderboardBoard.XP, "123").getEntry().getScore());
+        assertEquals(1.0, writeBehindMeterRegistry.counter("app.xp.write-behind.coalesced").count());
+        assertEquals(0.0, writeBehindMeterRegistry.get("app.xp.write-behind.pending.users").gauge().value());
+    }
+
+    @Test
+    void addXp_withWriteBehind_flushesWhenThresholdIsReached() {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
+        AppUser user = createUser(0, 1, 0, 0, null);
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
+        givenUpdateSucceeds();
+
+        writeBehindService.addXp(user, 10);
+        writeBehindService.addXp(user, 10);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class));
+        writeBehindService.addXp(user, 10);
+
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class));
+    }
+
+    @Test
+    void flushPendingXp_whenConflictsPersist_keepsDeltaForNextFlush() {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
+        AppUser user = createUser(50, 1, 0, 0, null);
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
+        when(appUserRepository.findByGithubId("123")).thenReturn(Optional.of(user));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        writeBehindService.addXp(user, 25);
+        writeBehindService.flushPendingXp();
+
+        assertEquals(75, writeBehindService.getCurrentUser(mockOAuth2User(123)).getTotalXp());
+    }
+
+    @Test
+    void flushPendingXp_concurrentThresholdAndScheduledFlush_writeEachDeltaOnce() throws Exception {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
+        AppUser user = createUser(0, 1, 0, 0, null);
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
+        CountDownLatch scheduledFlushWriting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class))).thenAnswer(invocation -> {
+            written.add(invocation.<UpdateDefinition>getArgument(1).getUpdateObject().get("$set", Document.class).getInteger("totalXp"));
+            if (Thread.currentThread().getName().equals("scheduled-flush")) {
+                scheduledFlushWriting.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return UpdateResult.acknowledged(1, 1L, null);
+        });
+
+        writeBehindService.addXp(user, 10);
+        writeBehindService.addXp(user, 10);
+        Thread scheduled = Thread.ofVirtual().name("scheduled-flush").start(writeBehindService::flushPendingXp);
+        assertTrue(scheduledFlushWriting.await(5, TimeUnit.SECONDS));
+        Thread threshold = Thread.ofVirtual().start(() -> writeBehindService.addXp(user, 10));
+        Thread.sleep(100);
+        release.countDown();
+        scheduled.join(5000);
+        threshold.join(5000);
+
+        // every write starts from the same stored user, so each one carries exactly the delta it flushed
+        assertEquals(30, written.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(List.of(), pendingXpBuffer.get("user123"));
+        assertEquals(0, pendingXpBuffer.getPendingXp("user123"));
+    }
+
+    @Test
+    void addXp_whenPreviousDayFailsToFlush_keepsItApartAndWritesItFirst() {
+        AppUserService writeBehindService = createService(true, writeBehindMeterRegistry);
+        LocalDate today = LocalDate.now();
+        AppUser user = createUser(0, 1, 3, 3, today.minusDays(2));
+        when(appUserRepository.findById("user123")).thenReturn(Optional.of(user));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        pendingXpBuffer.add("user123", 10, today.minusDays(1));
+
+        writeBehindService.addXp(user, 25);
+
+        assertEquals(List.of(new PendingXpBuffer.PendingXp(10, 1, today.minusDays(1)),
+                new PendingXpBuffer.PendingXp(25, 1, today)), pendingXpBuffer.get("user123"));
+
+        reset(mongoTemplate);
+        givenUpdateSucceeds();
+        writeBehindService.flushPendingXp();
+
+        ArgumentCaptor<UpdateDefinition> updates = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(), eq(AppUser.class));
+        assertEquals(today.minusDays(1), updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class).get("lastActiveDate"));
+        assertEquals(10, updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class).get("totalXp"));
+        assertEquals(today, updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("lastActiveDate"));
+        assertEquals(List.of(), pendingXpBuffer.get("user123"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.backend.config.CompletionDayMigrationProperties;
+import org.example.backend.model.HabitCompletion;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CompletionDayMigrationTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    private final ObjectId first = new ObjectId();
+    private final ObjectId second = new ObjectId();
+
+    private CompletionDayMigration createMigration(boolean enabled) {
+        return createMigration(enabled, false);
+    }
+
+    private CompletionDayMigration createMigration(boolean enabled, boolean legacyWrites) {
+        when(mongoTemplate.getCollectionName(HabitCompletion.class)).thenReturn("habit_completion");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "habit_completion")).thenReturn(bulkOperations);
+        return new CompletionDayMigration(mongoTemplate, new CompletionDayMigrationProperties(enabled, 2, Duration.ofSeconds(1),
+                Duration.ofSeconds(30), legacyWrites));
+    }
+
+    private Document legacyCompletion(ObjectId id, String completionDate) {
+        return new Document("_id", id).append("completionDate", completionDate);
+    }
+
+    private Document savedCheckpoint() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).upsert(any(Query.class), update.capture(), eq(CompletionDayMigration.MIGRATIONS_COLLECTION));
+        return (Document) update.getValue().getUpdateObject().get("$set");
+    }
+
+    @Test
+    void migrateNextBatch_convertsDateStringsToEpochDaysAndCheckpoints() {
+        CompletionDayMigration migration = createMigration(true);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("habit_completion"))).thenReturn(List.of(
+                legacyCompletion(first, "2026-01-26"), legacyCompletion(second, "2026-02-01")));
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+
+        migration.migrateNextBatch();
+
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updates.capture());
+        assertEquals(new Document("$set", new Document("completionDay", 20479)).append("$unset", new Document("completionDate", 1)),
+                updates.getAllValues().getFirst().getUpdateObject());
+        assertEquals(20485, ((Document) updates.getAllValues().get(1).getUpdateObject().get("$set")).get("completionDay"));
+        verify(bulkOperations).execute();
+        assertEquals(second, savedCheckpoint().get("lastId"));
+        assertFalse(migration.isComplete());
+    }
+
+    @Test
+    void migrateNextBatch_resumesAfterLastIdAndCompletesOnceAWholePassConvertsNothing() {
+        CompletionDayMigration migration = createMigration(true);
+        when(mongoTemplate.findById(CompletionDayMigration.MIGRATION_ID, Document.class, CompletionDayMigration.MIGRATIONS_COLLECTION))
+                .thenReturn(new Document("lastId", first).append("passMigrated", true).append("complete", false));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Document.class), eq("habit_completion")))
+                .thenReturn(List.of(legacyCompletion(second, "2026-02-01")))
+                .thenReturn(List.of());
+
+        migration.migrateNextBatch();
+
+        assertEquals(new Document("$gt", first), query.getValue().getQueryObject().get("_id"));
+        assertEquals(new Document("$exists", false), query.getValue().getQueryObject().get("completionDay"));
+        assertFalse(migration.isComplete());
+        assertNull(savedCheckpoint().get("lastId"));
+
+        migration.migrateNextBatch();
+
+        // the second pass starts over, so documents older binaries wrote below the position are found too
+        assertFalse(query.getValue().getQueryObject().containsKey("_id"));
+        assertTrue(migration.isComplete());
+        assertFalse(migration.includesLegacyDates());
+        assertEquals(true, savedCheckpoint().get("complete"));
+
+        migration.migrateNextBatch();
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Document.class), eq("habit_completion"));
+    }
+
+    @Test
+    void migrateNextBatch_whileLegacyWritesAreOn_rescansFromTheStartAfterCompletion() {
+        CompletionDayMigration migration = createMigration(true, true);
+        when(mongoTemplate.findById(CompletionDayMigration.MIGRATION_ID, Document.class, CompletionDayMigration.MIGRATIONS_COLLECTION))
+                .thenReturn(new Document("lastId", null).append("passMigrated", false).append("complete", true));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Document.class), eq("habit_completion")))
+                .thenReturn(List.of(legacyCompletion(first, "2026-02-01")));
+
+        migration.migrateNextBatch();
+
+        assertFalse(query.getValue().getQueryObject().containsKey("_id"));
+        verify(bulkOperations).execute();
+        assertFalse(migration.isComplete());
+        assertTrue(migration.includesLegacyDates());
+    }
+
+    @Test
+    void migrateNextBatch_whenAnotherNodeHoldsTheLease_followsItsCheckpoint() {
+        CompletionDayMigration migration = createMigration(true);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CompletionDayMigration.MIGRATIONS_COLLECTION)))
+                .thenThrow(new DuplicateKeyException("lease held"));
+        when(mongoTemplate.findById(CompletionDayMigration.MIGRATION_ID, Document.class, CompletionDayMigration.MIGRATIONS_COLLECTION))
+                .thenReturn(new Document("lastId", first).append("complete", false))
+                .thenReturn(new Document("lastId", second).append("complete", true));
+
+        migration.migrateNextBatch();
+
+        assertTrue(migration.isComplete());
+        assertFalse(migration.includesLegacyDates());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), eq("habit_completion"));
+    }
+
+    @Test
+    void migrateNextBatch_whenCheckpointIsComplete_doesNothing() {
+        CompletionDayMigration migration = createMigration(true);
+        when(mongoTemplate.findById(CompletionDayMigration.MIGRATION_ID, Document.class, CompletionDayMigration.MIGRATIONS_COLLECTION))
+                .thenReturn(new Document("lastId", second).append("complete", true));
+
+        migration.migrateNextBatch();
+
+        assertTrue(migration.isComplete());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), eq("habit_completion"));
+    }
+
+    @Test
+    void migrateNextBatch_skipsUnreadableDates() {
+        CompletionDayMigration migration = createMigration(true);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("habit_completion"))).thenReturn(List.of(
+                legacyCompletion(first, "not a date"), new Document("_id", second)));
+
+        migration.migrateNextBatch();
+
+        verify(bulkOperations, never()).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, never()).execute();
+        assertEquals(second, savedCheckpoint().get("lastId"));
+    }
+
+    @Test
+    void migrateNextBatch_whenDisabled_onlyReadsCheckpoint() {
+        CompletionDayMigration migration = createMigration(false);
+
+        migration.migrateNextBatch();
+
+        assertFalse(migration.isComplete());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), eq("habit_completion"));
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), any(String.class));
+    }
+}
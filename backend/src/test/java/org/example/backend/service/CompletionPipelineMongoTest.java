@@ -0,0 +1,129 @@
+package org.example.backend.service;
+
+import org.example.backend.config.UserHabitProperties;
+import org.example.backend.exception.HabitAlreadyExistsException;
+import org.example.backend.model.CompletionBitmap;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.example.backend.repository.UserHabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mongodb.MongoDBContainer;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the completion update against a real server: the aggregation pipeline ($bitOr needs MongoDB 6.3 or later)
+ * can't be checked by the mocked template of {@link UserHabitServiceTest}.
+ */
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class CompletionPipelineMongoTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserHabitRepository userHabitRepository;
+
+    private final HabitCompletionService habitCompletionService = mock(HabitCompletionService.class);
+    private UserHabitService userHabitService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(UserHabit.class);
+        userHabitService = new UserHabitService(userHabitRepository, mock(HabitService.class), habitCompletionService,
+                mongoTemplate, new ResourceVersions(mongoTemplate), mock(TrendingHabits.class), new UserHabitProperties(false));
+    }
+
+    private UserHabit givenUserHabit(HabitFrequency frequency) {
+        Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.MEDIUM, frequency);
+        habit.setId("habit1");
+        UserHabit userHabit = new UserHabit("user123", habit);
+        userHabit.setActive(true);
+        return userHabit;
+    }
+
+    private UserHabit stored() {
+        return userHabitRepository.findByUserIdAndHabitId("user123", "habit1").orElseThrow();
+    }
+
+    @Test
+    void completeUserHabit_firstCompletion_startsStreakAndSetsTodaysBit() {
+        mongoTemplate.save(givenUserHabit(HabitFrequency.DAILY));
+        LocalDate today = LocalDate.now();
+
+        UserHabit completed = userHabitService.completeUserHabit("user123", "habit1");
+
+        assertEquals(1, completed.getCurrentStreak());
+        assertEquals(1, completed.getLongestStreak());
+        assertEquals(1, completed.getTotalCompletions());
+        assertEquals(HabitDifficulty.MEDIUM.getBaseXp(), completed.getTotalXpEarned());
+        assertEquals(today, completed.getLastCompletedDate());
+        assertEquals(HabitFrequency.DAILY.periodKey(today, 0), completed.getLastCompletedPeriod());
+        assertEquals(List.of(today), CompletionBitmap.days(today.getYear(),
+                completed.getCompletionBits().get(String.valueOf(today.getYear()))));
+        verify(habitCompletionService).recordCompletion(eq("user123"), any(UserHabit.class));
+    }
+
+    @Test
+    void completeUserHabit_secondCompletionInSamePeriod_isRejected() {
+        mongoTemplate.save(givenUserHabit(HabitFrequency.WEEKLY));
+        userHabitService.completeUserHabit("user123", "habit1");
+
+        assertThrows(HabitAlreadyExistsException.class, () -> userHabitService.completeUserHabit("user123", "habit1"));
+
+        assertEquals(1, stored().getTotalCompletions());
+        verify(habitCompletionService, times(1)).recordCompletion(any(), any());
+    }
+
+    @Test
+    void completeUserHabit_afterCompletingPreviousPeriod_continuesStreak() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        UserHabit userHabit = givenUserHabit(HabitFrequency.DAILY);
+        userHabit.setCurrentStreak(3);
+        userHabit.setLongestStreak(3);
+        userHabit.setLastCompletedDate(yesterday);
+        userHabit.setLastCompletedPeriod(HabitFrequency.DAILY.periodKey(yesterday, 0));
+        mongoTemplate.save(userHabit);
+
+        UserHabit completed = userHabitService.completeUserHabit("user123", "habit1");
+
+        assertEquals(4, completed.getCurrentStreak());
+        assertEquals(4, completed.getLongestStreak());
+    }
+
+    @Test
+    void completeUserHabit_withoutStoredPeriodKey_continuesStreakFromLastCompletedDate() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        UserHabit userHabit = givenUserHabit(HabitFrequency.DAILY);
+        userHabit.setCurrentStreak(3);
+        userHabit.setLongestStreak(5);
+        userHabit.setLastCompletedDate(yesterday);
+        mongoTemplate.save(userHabit);
+
+        UserHabit completed = userHabitService.completeUserHabit("user123", "habit1");
+
+        assertEquals(4, completed.getCurrentStreak());
+        assertEquals(5, completed.getLongestStreak());
+        assertEquals(HabitFrequency.DAILY.periodKey(LocalDate.now(), 0), stored().getLastCompletedPeriod());
+    }
+}
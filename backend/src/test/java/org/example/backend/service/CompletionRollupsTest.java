@@ -0,0 +1,158 @@
+package org.example.backend.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CompletionRollupsTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    private final CompletionDayMigration completionDayMigration = mock(CompletionDayMigration.class);
+    private final CompletionRollups completionRollups = new CompletionRollups(mongoTemplate, completionDayMigration);
+
+    private HabitCompletion completion(String id, String habitId, String date, int xp) {
+        HabitCompletion completion = new HabitCompletion();
+        completion.setId(id);
+        completion.setUserId("user123");
+        completion.setHabitId(habitId);
+        completion.setCompletionDay((int) LocalDate.parse(date).toEpochDay());
+        completion.setXpEarned(xp);
+        return completion;
+    }
+
+    private void givenMatchedCount(int matched) {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WeeklyCompletionRollup.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, matched, 0, matched, List.of(), List.of()));
+    }
+
+    @Test
+    void apply_incrementsRollupOnceGuardedByCompletionId() {
+        givenMatchedCount(1);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+
+        completionRollups.apply(List.of(completion("c1", "habit1", "2026-01-28", 50)));
+
+        verify(bulkOperations).updateOne(query.capture(), update.capture());
+        assertEquals(new Document("_id", "user123:2026-01-26").append("completionIds", new Document("$ne", "c1")),
+                query.getValue().getQueryObject());
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(1, inc.get("completionsByDay.2026-01-28"));
+        assertEquals(50, inc.get("xpByDay.2026-01-28"));
+        assertEquals(1, inc.get("completionsByHabit.habit1"));
+        assertEquals(50, inc.get("totalXp"));
+        verify(mongoTemplate, never()).find(any(), any());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(HabitCompletion.class));
+    }
+
+    @Test
+    void apply_whenWeekHasNoRollup_buildsItFromStoredCompletions() {
+        givenMatchedCount(0);
+        HabitCompletion earlier = completion("c0", "habit1", "2026-01-26", 25);
+        HabitCompletion current = completion("c1", "habit2", "2026-01-28", 50);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklyCompletionRollup.class))).thenReturn(List.of());
+        when(mongoTemplate.find(any(Query.class), eq(HabitCompletion.class))).thenReturn(List.of(earlier, current));
+        ArgumentCaptor<WeeklyCompletionRollup> inserted = ArgumentCaptor.forClass(WeeklyCompletionRollup.class);
+
+        completionRollups.apply(List.of(current));
+
+        verify(mongoTemplate).insert(inserted.capture());
+        WeeklyCompletionRollup rollup = inserted.getValue();
+        assertEquals("user123:2026-01-26", rollup.getId());
+        assertEquals(Map.of("2026-01-26", 1, "2026-01-28", 1), rollup.getCompletionsByDay());
+        assertEquals(Map.of("2026-01-26", 25, "2026-01-28", 50), rollup.getXpByDay());
+        assertEquals(Map.of("habit1", 1, "habit2", 1), rollup.getCompletionsByHabit());
+        assertEquals(2, rollup.getTotalCompletions());
+        assertEquals(75, rollup.getTotalXp());
+        assertEquals(List.of("c0", "c1"), rollup.getCompletionIds());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(WeeklyCompletionRollup.class));
+    }
+
+    @Test
+    void apply_whenRollupCreatedConcurrently_reappliesIncrement() {
+        givenMatchedCount(0);
+        HabitCompletion current = completion("c1", "habit1", "2026-01-28", 50);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklyCompletionRollup.class))).thenReturn(List.of());
+        when(mongoTemplate.find(any(Query.class), eq(HabitCompletion.class))).thenReturn(List.of(current));
+        when(mongoTemplate.insert(any(WeeklyCompletionRollup.class))).thenThrow(new DuplicateKeyException("duplicate key"));
+
+        completionRollups.apply(List.of(current));
+
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(WeeklyCompletionRollup.class));
+    }
+
+    @Test
+    void apply_whenBackfillRacedAheadOfCompletion_reappliesGuardedIncrement() {
+        // a reader's backfill read the week before c1 was stored and inserted the rollup after our bulk update
+        givenMatchedCount(0);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklyCompletionRollup.class)))
+                .thenReturn(List.of(new WeeklyCompletionRollup("user123", "2026-01-26")));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+
+        completionRollups.apply(List.of(completion("c1", "habit1", "2026-01-28", 50)));
+
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(WeeklyCompletionRollup.class));
+        assertEquals(new Document("_id", "user123:2026-01-26").append("completionIds", new Document("$ne", "c1")),
+                query.getValue().getQueryObject());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(HabitCompletion.class));
+        verify(mongoTemplate, never()).insert(any(WeeklyCompletionRollup.class));
+    }
+
+    @Test
+    void apply_whenOnlySomeCompletionsMatched_reappliesTheWholeBatchOfThatWeekOnly() {
+        givenMatchedCount(1);
+        HabitCompletion counted = completion("c1", "habit1", "2026-01-20", 50);
+        HabitCompletion raced = completion("c2", "habit1", "2026-01-28", 25);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklyCompletionRollup.class))).thenReturn(List.of(
+                new WeeklyCompletionRollup("user123", "2026-01-19"), new WeeklyCompletionRollup("user123", "2026-01-26")));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+
+        completionRollups.apply(List.of(counted, raced));
+
+        // both weeks exist, so both are retried; c1 is skipped in Mongo by its completionIds guard
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), any(Update.class), eq(WeeklyCompletionRollup.class));
+        assertEquals(List.of("c1", "c2"), query.getAllValues().stream()
+                .map(q -> ((Document) q.getQueryObject().get("completionIds")).get("$ne")).toList());
+    }
+
+    @Test
+    void getWeek_readsRollupByIdWithoutCompletionIds() {
+        WeeklyCompletionRollup rollup = new WeeklyCompletionRollup("user123", "2026-01-26");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.findOne(query.capture(), eq(WeeklyCompletionRollup.class))).thenReturn(rollup);
+
+        assertSame(rollup, completionRollups.getWeek("user123", LocalDate.of(2026, 2, 1)));
+        assertEquals(new Document("_id", "user123:2026-01-26"), query.getValue().getQueryObject());
+        assertEquals(new Document("completionIds", 0), query.getValue().getFieldsObject());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(HabitCompletion.class));
+    }
+
+    @Test
+    void getWeek_whenWeekIsEmpty_returnsEmptyRollupWithoutStoringIt() {
+        when(mongoTemplate.find(any(Query.class), eq(HabitCompletion.class))).thenReturn(List.of());
+
+        WeeklyCompletionRollup rollup = completionRollups.getWeek("user123", LocalDate.of(2026, 1, 28));
+
+        assertEquals("2026-01-26", rollup.getWeekStart());
+        assertEquals(0, rollup.getTotalCompletions());
+        verify(mongoTemplate, never()).insert(any(WeeklyCompletionRollup.class));
+    }
+}
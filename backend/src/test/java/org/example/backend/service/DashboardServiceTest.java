@@ -0,0 +1,94 @@
+package org.example.backend.service;
+
+import org.example.backend.exception.HabitNotFoundException;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Dashboard;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DashboardServiceTest {
+
+    private final UserHabitService userHabitService = mock(UserHabitService.class);
+    private final HabitCompletionService habitCompletionService = mock(HabitCompletionService.class);
+    private final HabitService habitService = mock(HabitService.class);
+    private final DashboardService dashboardService = new DashboardService(userHabitService, habitCompletionService, habitService);
+
+    private final LocalDate today = LocalDate.of(2026, 1, 28);
+
+    private AppUser createUser() {
+        AppUser user = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
+        user.setId("user123");
+        return user;
+    }
+
+    private UserHabit createUserHabit(String habitId) {
+        UserHabit userHabit = new UserHabit();
+        userHabit.setId("uh-" + habitId);
+        userHabit.setUserId("user123");
+        userHabit.setHabitId(habitId);
+        return userHabit;
+    }
+
+    @Test
+    void getDashboard_runsQueriesConcurrentlyAndComposesPayload() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        UserHabit userHabit = createUserHabit("habit1");
+        WeeklyCompletionRollup week = new WeeklyCompletionRollup("user123", "2026-01-26");
+        Habit suggestion = new Habit("Drink water", "Stay hydrated", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        suggestion.setId("habit2");
+        when(userHabitService.getUserHabits("user123")).thenAnswer(invocation -> {
+            awaitOther(bothStarted);
+            return List.of(userHabit);
+        });
+        when(habitCompletionService.getWeekSummary("user123", today)).thenAnswer(invocation -> {
+            awaitOther(bothStarted);
+            return week;
+        });
+        when(habitService.getRandomDailyHabitExcluding(List.of("habit1"))).thenReturn(suggestion);
+
+        Dashboard dashboard = dashboardService.getDashboard(createUser(), today);
+
+        assertEquals("user123", dashboard.getUser().getId());
+        assertEquals(List.of(userHabit), dashboard.getHabits());
+        assertEquals(week, dashboard.getWeekSummary());
+        assertEquals(suggestion, dashboard.getDailySuggestion());
+    }
+
+    @Test
+    void getDashboard_whenNoSuggestionLeft_returnsNullSuggestion() {
+        when(userHabitService.getUserHabits("user123")).thenReturn(List.of());
+        when(habitCompletionService.getWeekSummary("user123", today)).thenReturn(new WeeklyCompletionRollup("user123", "2026-01-26"));
+        when(habitService.getRandomDailyHabitExcluding(List.of())).thenThrow(new HabitNotFoundException("No daily habit found"));
+
+        assertNull(dashboardService.getDashboard(createUser(), today).getDailySuggestion());
+    }
+
+    @Test
+    void getDashboard_whenQueryFails_propagatesException() {
+        when(userHabitService.getUserHabits("user123")).thenThrow(new IllegalStateException("mongo down"));
+        when(habitCompletionService.getWeekSummary("user123", today)).thenReturn(new WeeklyCompletionRollup("user123", "2026-01-26"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> dashboardService.getDashboard(createUser(), today));
+        assertEquals("mongo down", e.getMessage());
+        verifyNoInteractions(habitService);
+    }
+
+    // Only returns once the other query has started too, so a sequential implementation would time out.
+    private static void awaitOther(CountDownLatch bothStarted) throws InterruptedException {
+        bothStarted.countDown();
+        assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "dashboard queries did not run concurrently");
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.repository.HabitRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HabitCatalogTest {
+
+    private final HabitRepository habitRepository = mock(HabitRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HabitCatalog habitCatalog = new HabitCatalog(habitRepository, meterRegistry);
+
+    private Habit habit(String id, String category, HabitDifficulty difficulty, HabitFrequency frequency) {
+        Habit habit = new Habit(id + " name", "description", category, difficulty, frequency);
+        habit.setId(id);
+        return habit;
+    }
+
+    @Test
+    void current_loadsCatalogOnceAndIndexesIt() {
+        Habit bed = habit("habit1", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        Habit gym = habit("habit2", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
+        Habit water = habit("habit3", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        when(habitRepository.findAll()).thenReturn(List.of(bed, gym, water));
+
+        assertEquals(List.of(bed, gym, water), habitCatalog.getAllHabits());
+        assertEquals(gym, habitCatalog.findById("habit2").orElseThrow());
+        assertTrue(habitCatalog.findById("missing").isEmpty());
+        assertEquals(List.of(bed, water), habitCatalog.findAllById(List.of("habit1", "missing", "habit3")));
+        assertEquals(List.of(gym), habitCatalog.findByCategory("Fitness"));
+        assertEquals(List.of(), habitCatalog.findByCategory("Unknown"));
+        assertEquals(List.of(bed, water), habitCatalog.findByDifficulty(HabitDifficulty.EASY));
+        assertEquals(List.of(gym), habitCatalog.findByFrequency(HabitFrequency.WEEKLY));
+
+        verify(habitRepository, times(1)).findAll();
+        assertEquals(3.0, meterRegistry.get("app.habits.catalog.size").gauge().value());
+    }
+
+    @Test
+    void snapshot_isImmutable() {
+        when(habitRepository.findAll()).thenReturn(List.of(habit("habit1", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY)));
+
+        assertThrows(UnsupportedOperationException.class, () -> habitCatalog.getAllHabits().clear());
+        assertThrows(UnsupportedOperationException.class, () -> habitCatalog.findByCategory("Health").clear());
+    }
+
+    @Test
+    void refresh_swapsSnapshotAndBumpsVersionOnlyWhenCatalogChanges() {
+        Habit bed = habit("habit1", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        Habit gym = habit("habit2", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
+        when(habitRepository.findAll())
+                .thenReturn(List.of(bed))
+                .thenReturn(List.of(habit("habit1", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY)))
+                .thenReturn(List.of(bed, gym));
+
+        HabitCatalog.Snapshot first = habitCatalog.refresh();
+        HabitCatalog.Snapshot unchanged = habitCatalog.refresh();
+        HabitCatalog.Snapshot changed = habitCatalog.refresh();
+
+        assertEquals(1, first.version());
+        assertSame(first, unchanged);
+        assertEquals(2, changed.version());
+        assertEquals(2, habitCatalog.getVersion());
+        assertEquals(List.of(bed), first.habits());
+        assertEquals(gym, habitCatalog.findById("habit2").orElseThrow());
+        assertNotEquals(first.contentHash(), changed.contentHash());
+    }
+
+    @Test
+    void contentHash_isTheSameForTheSameHabitsOnAnotherNode() {
+        Habit bed = habit("habit1", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        Habit gym = habit("habit2", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
+        HabitRepository otherRepository = mock(HabitRepository.class);
+        HabitCatalog otherNode = new HabitCatalog(otherRepository, new SimpleMeterRegistry());
+        when(habitRepository.findAll()).thenReturn(List.of(bed, gym));
+        when(otherRepository.findAll())
+                .thenReturn(List.of(habit("habit1", "Fitness", HabitDifficulty.EASY, HabitFrequency.DAILY)))
+                .thenReturn(List.of(gym, bed));
+
+        otherNode.refresh();
+        HabitCatalog.Snapshot other = otherNode.refresh();
+        HabitCatalog.Snapshot snapshot = habitCatalog.refresh();
+
+        assertNotEquals(snapshot.version(), other.version());
+        assertEquals(snapshot.contentHash(), other.contentHash());
+        assertEquals(snapshot.contentHash(), habitCatalog.getContentHash());
+    }
+
+    @Test
+    void page_walksHabitsInIdOrderUsingContinuationTokens() {
+        when(habitRepository.findAll()).thenReturn(List.of(
+                habit("habit3", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                habit("habit1", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                habit("habit2", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY)));
+
+        KeysetPage<Habit> first = habitCatalog.page(null, null, 2);
+        KeysetPage<Habit> second = habitCatalog.page(null, KeysetPage.decodeToken(first.nextPageToken()), 2);
+        KeysetPage<Habit> health = habitCatalog.page("Health", "habit1", 2);
+
+        assertEquals(List.of("habit1", "habit2"), first.items().stream().map(Habit::getId).toList());
+        assertEquals(List.of("habit3"), second.items().stream().map(Habit::getId).toList());
+        assertNull(second.nextPageToken());
+        assertEquals(List.of("habit3"), health.items().stream().map(Habit::getId).toList());
+    }
+
+    @Test
+    void decodeToken_rejectsMalformedTokens() {
+        assertThrows(InvalidRequestException.class, () -> KeysetPage.decodeToken("not a token"));
+        assertThrows(InvalidRequestException.class, () -> KeysetPage.decodeToken("aGVsbG8"));
+        assertThrows(InvalidRequestException.class, () -> KeysetPage.checkLimit(0));
+    }
+
+    @Test
+    void refresh_onVirtualThread_doesNotPinCarrierDuringMongoRead() throws Exception {
+        when(habitRepository.findAll()).thenAnswer(invocation -> {
+            VirtualThreadPinning.blockBriefly();
+            return List.of(habit("habit1", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY));
+        });
+
+        assertEquals(List.of(), VirtualThreadPinning.pinnedEventsWhile(habitCatalog::refresh));
+        assertEquals(1, habitCatalog.getVersion());
+    }
+}
@@ -1,25 +1,39 @@
 package org.example.backend.service;
 
+import org.bson.Document;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.HabitCompletion;
 import org.example.backend.model.HabitDifficulty;
 import org.example.backend.model.HabitFrequency;
 import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
 import org.example.backend.repository.HabitCompletionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class HabitCompletionServiceTest {
 
     private final HabitCompletionRepository habitCompletionRepository = mock(HabitCompletionRepository.class);
-    private final HabitCompletionService habitCompletionService = new HabitCompletionService(habitCompletionRepository);
+    private final HabitCompletionWriter habitCompletionWriter = mock(HabitCompletionWriter.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CompletionRollups completionRollups = mock(CompletionRollups.class);
+    private final CompletionDayMigration completionDayMigration = mock(CompletionDayMigration.class);
+    private final HabitCompletionService habitCompletionService = new HabitCompletionService(habitCompletionRepository,
+            mongoTemplate, habitCompletionWriter, completionRollups, completionDayMigration, mock(ResourceVersions.class));
 
     private UserHabit createMockUserHabit() {
         UserHabit userHabit = new UserHabit();
@@ -53,9 +67,11 @@ class HabitCompletionServiceTest {
         assertEquals(HabitDifficulty.EASY, result.getDifficulty());
         assertEquals(HabitFrequency.DAILY, result.getFrequency());
         assertEquals(25, result.getXpEarned());
-        assertNotNull(result.getCompletionDate());
+        assertEquals((int) LocalDate.now().toEpochDay(), result.getCompletionDay());
+        assertEquals(LocalDate.now().toString(), result.getCompletionDate());
 
         verify(habitCompletionRepository).save(any(HabitCompletion.class));
+        verify(completionRollups).apply(List.of(result));
     }
 
     @Test
@@ -94,15 +110,14 @@ class HabitCompletionServiceTest {
         completion2.setUserId("user123");
         completion2.setCompletionDate("2026-01-28");
 
-        when(habitCompletionRepository.findByUserIdAndWeek("user123", "2026-01-26", "2026-02-01"))
-                .thenReturn(List.of(completion1, completion2));
+        when(mongoTemplate.find(any(Query.class), eq(HabitCompletion.class))).thenReturn(List.of(completion1, completion2));
 
         List<HabitCompletion> result = habitCompletionService.getCompletionsForWeek("user123", LocalDate.of(2026, 1, 28));
 
         assertEquals(2, result.size());
         assertEquals("c1", result.get(0).getId());
         assertEquals("c2", result.get(1).getId());
-        verify(habitCompletionRepository).findByUserIdAndWeek("user123", "2026-01-26", "2026-02-01");
+        verifyNoInteractions(habitCompletionRepository);
     }
 
     @ParameterizedTest(name = "date {0} should calculate week as {1} to {2}")
@@ -112,19 +127,97 @@ class HabitCompletionServiceTest {
             "2026-02-01, 2026-01-26, 2026-02-01"
     })
     void getCompletionsForWeek_calculatesCorrectWeekBounds(String inputDate, String expectedStart, String expectedEnd) {
-        when(habitCompletionRepository.findByUserIdAndWeek(any(), any(), any())).thenReturn(List.of());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(HabitCompletion.class))).thenReturn(List.of());
 
         habitCompletionService.getCompletionsForWeek("user123", LocalDate.parse(inputDate));
 
-        verify(habitCompletionRepository).findByUserIdAndWeek("user123", expectedStart, expectedEnd);
+        assertEquals(new Document("userId", "user123").append("completionDay", new Document("$gte",
+                        (int) LocalDate.parse(expectedStart).toEpochDay()).append("$lte", (int) LocalDate.parse(expectedEnd).toEpochDay())),
+                queryCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    void getCompletionsForWeek_whileLegacyDatesMayExist_alsoMatchesThem() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(completionDayMigration.includesLegacyDates()).thenReturn(true);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(HabitCompletion.class))).thenReturn(List.of());
+
+        habitCompletionService.getCompletionsForWeek("user123", LocalDate.of(2026, 1, 28));
+
+        assertEquals(List.of(
+                new Document("completionDay", new Document("$gte", 20479).append("$lte", 20485)),
+                new Document("completionDay", new Document("$exists", false))
+                        .append("completionDate", new Document("$gte", "2026-01-26").append("$lte", "2026-02-01"))),
+                queryCaptor.getValue().getQueryObject().get("$or"));
     }
 
     @Test
     void getCompletionsForWeek_whenNoCompletions_returnsEmptyList() {
-        when(habitCompletionRepository.findByUserIdAndWeek(any(), any(), any())).thenReturn(List.of());
+        when(mongoTemplate.find(any(Query.class), eq(HabitCompletion.class))).thenReturn(List.of());
 
         List<HabitCompletion> result = habitCompletionService.getCompletionsForWeek("user123", LocalDate.of(2026, 1, 28));
 
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void recordCompletions_insertsAllCompletionsAtOnce() {
+        UserHabit userHabit = createMockUserHabit();
+        userHabit.setLastCompletionId("completion123");
+        List<HabitCompletion> completions = List.of(new HabitCompletion("user123", userHabit));
+
+        when(habitCompletionRepository.insert(completions)).thenReturn(completions);
+
+        List<HabitCompletion> result = habitCompletionService.recordCompletions(completions);
+
+        assertEquals("completion123", result.getFirst().getId());
+        verify(habitCompletionRepository).insert(completions);
+        verify(completionRollups).apply(completions);
+    }
+
+    @Test
+    void recordCompletions_whenEmpty_skipsInsert() {
+        assertTrue(habitCompletionService.recordCompletions(List.of()).isEmpty());
+        verify(habitCompletionRepository, never()).insert(anyList());
+    }
+
+    @Test
+    void recordCompletion_whenAsyncWritesEnabled_enqueuesInsteadOfSaving() {
+        UserHabit userHabit = createMockUserHabit();
+
+        when(habitCompletionWriter.isEnabled()).thenReturn(true);
+        when(habitCompletionWriter.enqueue(any(HabitCompletion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        HabitCompletion result = habitCompletionService.recordCompletion("user123", userHabit);
+
+        assertEquals("habit123", result.getHabitId());
+        verify(habitCompletionWriter).enqueue(result);
+        verify(habitCompletionRepository, never()).save(any());
+        verifyNoInteractions(completionRollups);
+    }
+
+    @Test
+    void getCompletionsForWeek_withFieldSelection_projectsInMongo() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(HabitCompletion.class))).thenReturn(List.of());
+
+        habitCompletionService.getCompletionsForWeek("user123", LocalDate.of(2026, 1, 28),
+                FieldSelection.parse("habitId,completionDate", HabitCompletion.class, JsonMapper.shared()));
+
+        Query query = queryCaptor.getValue();
+        assertEquals(new Document("completionDate", 1).append("habitId", 1).append("id", 1).append("completionDay", 1),
+                query.getFieldsObject());
+        assertEquals(new Document("$gte", 20479).append("$lte", 20485), query.getQueryObject().get("completionDay"));
+        verifyNoInteractions(habitCompletionRepository);
+    }
+
+    @Test
+    void getWeekSummary_readsRollup() {
+        WeeklyCompletionRollup rollup = new WeeklyCompletionRollup("user123", "2026-01-26");
+        when(completionRollups.getWeek("user123", LocalDate.of(2026, 1, 28))).thenReturn(rollup);
+
+        assertSame(rollup, habitCompletionService.getWeekSummary("user123", LocalDate.of(2026, 1, 28)));
+        verifyNoInteractions(habitCompletionRepository);
+    }
+}
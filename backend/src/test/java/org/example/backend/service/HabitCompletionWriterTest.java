@@ -0,0 +1,217 @@
+package org.example.backend.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.example.backend.config.CompletionWriteProperties;
+import org.example.backend.model.HabitCompletion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class HabitCompletionWriterTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResourceVersions resourceVersions = mock(ResourceVersions.class);
+    private final CompletionRollups completionRollups = mock(CompletionRollups.class);
+    private HabitCompletionWriter writer;
+
+    private HabitCompletionWriter createWriter(int queueCapacity, int batchSize, Duration flushInterval) {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HabitCompletion.class)).thenReturn(bulkOperations);
+        writer = new HabitCompletionWriter(mongoTemplate, new CompletionWriteProperties(true, queueCapacity, batchSize,
+                flushInterval, Duration.ofMillis(10), 2, Duration.ofMillis(20), Duration.ofMillis(40), Duration.ofSeconds(5)),
+                resourceVersions, completionRollups, meterRegistry);
+        return writer;
+    }
+
+    private HabitCompletion completion(String habitId) {
+        HabitCompletion completion = new HabitCompletion();
+        completion.setUserId("user123");
+        completion.setHabitId(habitId);
+        completion.setCompletionDate(LocalDate.now().toString());
+        return completion;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void enqueue_assignsIdAndFlushesInBatches() throws InterruptedException {
+        createWriter(100, 3, Duration.ofSeconds(5));
+        CountDownLatch released = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            released.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        writer.start();
+
+        for (int i = 0; i < 7; i++) {
+            assertNotNull(writer.enqueue(completion("habit" + i)).getId());
+        }
+        released.countDown();
+        writer.stop();
+
+        ArgumentCaptor<List<HabitCompletion>> batches = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, atLeast(3)).insert(batches.capture());
+        assertTrue(batches.getAllValues().stream().allMatch(batch -> batch.size() <= 3));
+        assertEquals(7, batches.getAllValues().stream().mapToInt(List::size).sum());
+        assertEquals(0, writer.getQueueDepth());
+        assertTrue(meterRegistry.get("app.completions.write.flush").timer().count() >= 3);
+    }
+
+    @Test
+    void enqueue_whenQueueIsFull_writesOnCallerThread() throws InterruptedException {
+        createWriter(1, 1, Duration.ofMillis(50));
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("habit-completion-writer")) {
+                flushing.countDown();
+                released.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        });
+        writer.start();
+
+        writer.enqueue(completion("habit1"));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        writer.enqueue(completion("habit2"));
+        writer.enqueue(completion("habit3"));
+
+        assertEquals(1.0, meterRegistry.get("app.completions.write.backpressure").counter().count());
+        assertEquals(1.0, meterRegistry.get("app.completions.write.queue.depth").gauge().value());
+        released.countDown();
+    }
+
+    @Test
+    void flush_ignoresDuplicatesFromAnEarlierAttempt() {
+        createWriter(10, 10, Duration.ofMillis(50));
+        BulkOperationException duplicate = new BulkOperationException("duplicate key", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)),
+                null, new ServerAddress(), Collections.emptySet()));
+        when(bulkOperations.execute()).thenThrow(duplicate);
+
+        writer.flush(List.of(completion("habit1")));
+
+        verify(bulkOperations, times(1)).execute();
+        assertEquals(0.0, meterRegistry.get("app.completions.write.dropped").counter().count());
+    }
+
+    @Test
+    void flush_whenRollupFails_retriesWholeBatch() {
+        createWriter(10, 10, Duration.ofMillis(50));
+        List<HabitCompletion> batch = List.of(completion("habit1"));
+        doThrow(new DataAccessResourceFailureException("mongo down")).doNothing().when(completionRollups).apply(batch);
+
+        writer.flush(batch);
+
+        InOrder order = inOrder(bulkOperations, completionRollups);
+        order.verify(bulkOperations).execute();
+        order.verify(completionRollups).apply(batch);
+        order.verify(bulkOperations).execute();
+        order.verify(completionRollups).apply(batch);
+        assertEquals(0.0, meterRegistry.get("app.completions.write.dropped").counter().count());
+    }
+
+    @Test
+    void flush_changesCompletionsVersionOfTheWeek() {
+        createWriter(10, 10, Duration.ofMillis(50));
+        List<HabitCompletion> batch = List.of(completion("habit1"));
+
+        writer.flush(batch);
+
+        verify(resourceVersions).completionsChanged(batch);
+    }
+
+    @Test
+    void flush_backsOffExponentiallyBetweenAttempts() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HabitCompletion.class)).thenReturn(bulkOperations);
+        writer = new HabitCompletionWriter(mongoTemplate, new CompletionWriteProperties(true, 10, 10, Duration.ofMillis(50),
+                Duration.ofMillis(10), 3, Duration.ofMillis(50), Duration.ofSeconds(1), Duration.ofSeconds(5)),
+                resourceVersions, completionRollups, meterRegistry);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down")).thenReturn(null);
+        List<Long> attempts = new ArrayList<>();
+        when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            attempts.add(System.nanoTime());
+            return bulkOperations;
+        });
+        doThrow(new DataAccessResourceFailureException("mongo down")).doNothing().when(completionRollups).apply(anyList());
+
+        writer.flush(List.of(completion("habit1")));
+
+        assertEquals(3, attempts.size());
+        assertTrue(attempts.get(1) - attempts.get(0) >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(attempts.get(2) - attempts.get(1) >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void flush_whenAllAttemptsFail_rethrowsWithoutDropping() {
+        createWriter(10, 10, Duration.ofMillis(50));
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> writer.flush(List.of(completion("habit1"), completion("habit2"))));
+
+        verify(bulkOperations, times(2)).insert(anyList());
+        assertEquals(0.0, meterRegistry.get("app.completions.write.dropped").counter().count());
+    }
+
+    @Test
+    void writer_whenFirstFlushesFail_keepsBatchQueuedUntilItIsWritten() throws InterruptedException {
+        createWriter(10, 10, Duration.ofMillis(20));
+        CountDownLatch written = new CountDownLatch(1);
+        when(bulkOperations.execute())
+                .thenThrow(new DataAccessResourceFailureException("mongo down"))
+                .thenThrow(new DataAccessResourceFailureException("mongo down"))
+                .thenThrow(new DataAccessResourceFailureException("mongo down"))
+                .thenAnswer(invocation -> {
+                    written.countDown();
+                    return null;
+                });
+        writer.start();
+
+        writer.enqueue(completion("habit1"));
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        ArgumentCaptor<List<HabitCompletion>> batches = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, times(4)).insert(batches.capture());
+        assertTrue(batches.getAllValues().stream().allMatch(batch -> batch.size() == 1
+                && batch.getFirst().getHabitId().equals("habit1")));
+        assertEquals(0.0, meterRegistry.get("app.completions.write.dropped").counter().count());
+    }
+
+    @Test
+    void enqueue_whenWriteOnCallerThreadFails_failsTheCaller() {
+        createWriter(10, 10, Duration.ofMillis(50));
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> writer.enqueue(completion("habit1")));
+    }
+}
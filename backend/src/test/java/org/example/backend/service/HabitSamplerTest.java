@@ -0,0 +1,107 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.repository.HabitRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HabitSamplerTest {
+
+    private final HabitRepository habitRepository = mock(HabitRepository.class);
+    private final HabitCatalog habitCatalog = new HabitCatalog(habitRepository, new SimpleMeterRegistry());
+    private final HabitSampler habitSampler = new HabitSampler(habitCatalog);
+
+    private Habit habit(String id, HabitDifficulty difficulty, HabitFrequency frequency) {
+        Habit habit = new Habit(id, "description", "Health", difficulty, frequency);
+        habit.setId(id);
+        return habit;
+    }
+
+    @Test
+    void sampleDaily_onlyPicksEasyAndMediumDailyHabits() {
+        when(habitRepository.findAll()).thenReturn(List.of(
+                habit("easy", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                habit("hard", HabitDifficulty.HARD, HabitFrequency.DAILY),
+                habit("weekly", HabitDifficulty.EASY, HabitFrequency.WEEKLY),
+                habit("medium", HabitDifficulty.MEDIUM, HabitFrequency.DAILY)));
+
+        for (int i = 0; i < 200; i++) {
+            String id = habitSampler.sampleDaily(List.of()).orElseThrow().getId();
+            assertTrue(id.equals("easy") || id.equals("medium"), id);
+        }
+    }
+
+    @Test
+    void sampleWeekly_includesHardHabits() {
+        when(habitRepository.findAll()).thenReturn(List.of(
+                habit("daily", HabitDifficulty.EASY, HabitFrequency.DAILY),
+                habit("hard", HabitDifficulty.HARD, HabitFrequency.WEEKLY)));
+
+        assertEquals("hard", habitSampler.sampleWeekly(List.of()).orElseThrow().getId());
+    }
+
+    @Test
+    void sample_neverReturnsExcludedHabits() {
+        List<Habit> habits = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            habits.add(habit("daily" + i, HabitDifficulty.EASY, HabitFrequency.DAILY));
+        }
+        when(habitRepository.findAll()).thenReturn(habits);
+        List<String> excluded = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            excluded.add("daily" + i);
+        }
+        excluded.add("unknown");
+
+        for (int i = 0; i < 200; i++) {
+            String id = habitSampler.sampleDaily(excluded).orElseThrow().getId();
+            assertTrue(id.equals("daily48") || id.equals("daily49"), id);
+        }
+    }
+
+    @Test
+    void sample_whenEverythingIsExcluded_returnsEmpty() {
+        when(habitRepository.findAll()).thenReturn(List.of(habit("daily", HabitDifficulty.EASY, HabitFrequency.DAILY)));
+
+        assertTrue(habitSampler.sampleDaily(List.of("daily")).isEmpty());
+        assertTrue(habitSampler.sampleWeekly(List.of()).isEmpty());
+    }
+
+    @Test
+    void sample_isRoughlyUniform() {
+        List<Habit> habits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            habits.add(habit("daily" + i, HabitDifficulty.EASY, HabitFrequency.DAILY));
+        }
+        when(habitRepository.findAll()).thenReturn(habits);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 8000; i++) {
+            counts.merge(habitSampler.sampleDaily(List.of("daily0")).orElseThrow().getId(), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 2300 && count < 3000, counts.toString()));
+    }
+
+    @Test
+    void sample_followsCatalogRefresh() {
+        when(habitRepository.findAll())
+                .thenReturn(List.of(habit("old", HabitDifficulty.EASY, HabitFrequency.DAILY)))
+                .thenReturn(List.of(habit("new", HabitDifficulty.EASY, HabitFrequency.DAILY)));
+
+        assertEquals("old", habitSampler.sampleDaily(List.of()).orElseThrow().getId());
+        habitCatalog.refresh();
+        assertEquals("new", habitSampler.sampleDaily(List.of()).orElseThrow().getId());
+    }
+}
@@ -3,7 +3,6 @@ package org.example.backend.service;
 import org.example.backend.model.Habit;
 import org.example.backend.model.HabitDifficulty;
 import org.example.backend.model.HabitFrequency;
-import org.example.backend.repository.HabitRepository;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -14,8 +13,10 @@ import static org.mockito.Mockito.*;
 
 class HabitServiceTest {
 
-    private final HabitRepository habitRepository = mock(HabitRepository.class);
-    private final HabitService habitService = new HabitService(habitRepository);
+    private final HabitCatalog habitCatalog = mock(HabitCatalog.class);
+    private final HabitSampler habitSampler = mock(HabitSampler.class);
+    private final TrendingHabits trendingHabits = mock(TrendingHabits.class);
+    private final HabitService habitService = new HabitService(habitCatalog, habitSampler, trendingHabits);
 
     @Test
     void getAllHabits_returnsAllHabits() {
@@ -24,24 +25,24 @@ class HabitServiceTest {
         Habit habit2 = new Habit("Gym workout", "Push your limits", "Fitness", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
         habit2.setId("habit2");
 
-        when(habitRepository.findAll()).thenReturn(List.of(habit1, habit2));
+        when(habitCatalog.getAllHabits()).thenReturn(List.of(habit1, habit2));
 
         List<Habit> result = habitService.getAllHabits();
 
         assertEquals(2, result.size());
         assertEquals("habit1", result.get(0).getId());
         assertEquals("habit2", result.get(1).getId());
-        verify(habitRepository).findAll();
+        verify(habitCatalog).getAllHabits();
     }
 
     @Test
     void getAllHabits_whenEmpty_returnsEmptyList() {
-        when(habitRepository.findAll()).thenReturn(List.of());
+        when(habitCatalog.getAllHabits()).thenReturn(List.of());
 
         List<Habit> result = habitService.getAllHabits();
 
         assertTrue(result.isEmpty());
-        verify(habitRepository).findAll();
+        verify(habitCatalog).getAllHabits();
     }
 
     @Test
@@ -49,25 +50,25 @@ class HabitServiceTest {
         Habit habit = new Habit("Read for 20 minutes", "Expand your mind", "Personal Growth", HabitDifficulty.MEDIUM, HabitFrequency.DAILY);
         habit.setId("habit123");
 
-        when(habitRepository.findById("habit123")).thenReturn(Optional.of(habit));
+        when(habitCatalog.findById("habit123")).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getHabitById("habit123");
 
         assertNotNull(result);
         assertEquals("habit123", result.getId());
         assertEquals("Read for 20 minutes", result.getName());
-        verify(habitRepository).findById("habit123");
+        verify(habitCatalog).findById("habit123");
     }
 
     @Test
     void getHabitById_whenNotFound_throwsException() {
-        when(habitRepository.findById("nonexistent")).thenReturn(Optional.empty());
+        when(habitCatalog.findById("nonexistent")).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> habitService.getHabitById("nonexistent"));
 
         assertTrue(exception.getMessage().contains("not found"));
-        verify(habitRepository).findById("nonexistent");
+        verify(habitCatalog).findById("nonexistent");
     }
 
     @Test
@@ -75,25 +76,25 @@ class HabitServiceTest {
         Habit habit1 = new Habit("Brush teeth", "Oral hygiene", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
         Habit habit2 = new Habit("Take vitamins", "Stay healthy", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
 
-        when(habitRepository.findByCategory("Health")).thenReturn(List.of(habit1, habit2));
+        when(habitCatalog.findByCategory("Health")).thenReturn(List.of(habit1, habit2));
 
         List<Habit> result = habitService.getHabitsByCategory("Health");
 
         assertEquals(2, result.size());
-        verify(habitRepository).findByCategory("Health");
+        verify(habitCatalog).findByCategory("Health");
     }
 
     @Test
     void getHabitsByDifficulty_returnsMatchingHabits() {
         Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
 
-        when(habitRepository.findByDifficulty(HabitDifficulty.EASY)).thenReturn(List.of(habit));
+        when(habitCatalog.findByDifficulty(HabitDifficulty.EASY)).thenReturn(List.of(habit));
 
         List<Habit> result = habitService.getHabitsByDifficulty(HabitDifficulty.EASY);
 
         assertEquals(1, result.size());
         assertEquals(HabitDifficulty.EASY, result.getFirst().getDifficulty());
-        verify(habitRepository).findByDifficulty(HabitDifficulty.EASY);
+        verify(habitCatalog).findByDifficulty(HabitDifficulty.EASY);
     }
 
     @Test
@@ -101,25 +102,25 @@ class HabitServiceTest {
         Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
         habit.setId("daily123");
 
-        when(habitRepository.findRandomDailyHabit()).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleDaily(List.of())).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomDailyHabit();
 
         assertNotNull(result);
         assertEquals("daily123", result.getId());
         assertEquals(HabitFrequency.DAILY, result.getFrequency());
-        verify(habitRepository).findRandomDailyHabit();
+        verify(habitSampler).sampleDaily(List.of());
     }
 
     @Test
     void getRandomDailyHabit_whenNoneFound_throwsException() {
-        when(habitRepository.findRandomDailyHabit()).thenReturn(Optional.empty());
+        when(habitSampler.sampleDaily(List.of())).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 habitService::getRandomDailyHabit);
 
         assertTrue(exception.getMessage().contains("daily"));
-        verify(habitRepository).findRandomDailyHabit();
+        verify(habitSampler).sampleDaily(List.of());
     }
 
     @Test
@@ -127,25 +128,25 @@ class HabitServiceTest {
         Habit habit = new Habit("Meal prep", "Prepare for the week", "Health", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
         habit.setId("weekly123");
 
-        when(habitRepository.findRandomWeeklyHabit()).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleWeekly(List.of())).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomWeeklyHabit();
 
         assertNotNull(result);
         assertEquals("weekly123", result.getId());
         assertEquals(HabitFrequency.WEEKLY, result.getFrequency());
-        verify(habitRepository).findRandomWeeklyHabit();
+        verify(habitSampler).sampleWeekly(List.of());
     }
 
     @Test
     void getRandomWeeklyHabit_whenNoneFound_throwsException() {
-        when(habitRepository.findRandomWeeklyHabit()).thenReturn(Optional.empty());
+        when(habitSampler.sampleWeekly(List.of())).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 habitService::getRandomWeeklyHabit);
 
         assertTrue(exception.getMessage().contains("weekly"));
-        verify(habitRepository).findRandomWeeklyHabit();
+        verify(habitSampler).sampleWeekly(List.of());
     }
 
     @Test
@@ -154,41 +155,40 @@ class HabitServiceTest {
         habit.setId("daily456");
 
         List<String> excludeIds = List.of("daily123", "daily789");
-        when(habitRepository.findRandomDailyHabitExcluding(excludeIds)).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleDaily(excludeIds)).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomDailyHabitExcluding(excludeIds);
 
         assertNotNull(result);
         assertEquals("daily456", result.getId());
-        verify(habitRepository).findRandomDailyHabitExcluding(excludeIds);
+        verify(habitSampler).sampleDaily(excludeIds);
     }
 
     @Test
-    void getRandomDailyHabitExcluding_whenEmptyExcludeList_callsRegularMethod() {
+    void getRandomDailyHabitExcluding_whenEmptyExcludeList_samplesWholePool() {
         Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
         habit.setId("daily123");
 
-        when(habitRepository.findRandomDailyHabit()).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleDaily(List.of())).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomDailyHabitExcluding(List.of());
 
         assertNotNull(result);
         assertEquals("daily123", result.getId());
-        verify(habitRepository).findRandomDailyHabit();
-        verify(habitRepository, never()).findRandomDailyHabitExcluding(any());
+        verify(habitSampler).sampleDaily(List.of());
     }
 
     @Test
-    void getRandomDailyHabitExcluding_whenNullExcludeList_callsRegularMethod() {
+    void getRandomDailyHabitExcluding_whenNullExcludeList_samplesWholePool() {
         Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
         habit.setId("daily123");
 
-        when(habitRepository.findRandomDailyHabit()).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleDaily(List.of())).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomDailyHabitExcluding(null);
 
         assertNotNull(result);
-        verify(habitRepository).findRandomDailyHabit();
+        verify(habitSampler).sampleDaily(List.of());
     }
 
     @Test
@@ -197,34 +197,33 @@ class HabitServiceTest {
         habit.setId("weekly456");
 
         List<String> excludeIds = List.of("weekly123", "weekly789");
-        when(habitRepository.findRandomWeeklyHabitExcluding(excludeIds)).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleWeekly(excludeIds)).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomWeeklyHabitExcluding(excludeIds);
 
         assertNotNull(result);
         assertEquals("weekly456", result.getId());
-        verify(habitRepository).findRandomWeeklyHabitExcluding(excludeIds);
+        verify(habitSampler).sampleWeekly(excludeIds);
     }
 
     @Test
-    void getRandomWeeklyHabitExcluding_whenEmptyExcludeList_callsRegularMethod() {
+    void getRandomWeeklyHabitExcluding_whenEmptyExcludeList_samplesWholePool() {
         Habit habit = new Habit("Meal prep", "Prepare for the week", "Health", HabitDifficulty.HARD, HabitFrequency.WEEKLY);
         habit.setId("weekly123");
 
-        when(habitRepository.findRandomWeeklyHabit()).thenReturn(Optional.of(habit));
+        when(habitSampler.sampleWeekly(List.of())).thenReturn(Optional.of(habit));
 
         Habit result = habitService.getRandomWeeklyHabitExcluding(List.of());
 
         assertNotNull(result);
         assertEquals("weekly123", result.getId());
-        verify(habitRepository).findRandomWeeklyHabit();
-        verify(habitRepository, never()).findRandomWeeklyHabitExcluding(any());
+        verify(habitSampler).sampleWeekly(List.of());
     }
 
     @Test
     void getRandomDailyHabitExcluding_whenNoneFound_throwsException() {
         List<String> excludeIds = List.of("daily123");
-        when(habitRepository.findRandomDailyHabitExcluding(excludeIds)).thenReturn(Optional.empty());
+        when(habitSampler.sampleDaily(excludeIds)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> habitService.getRandomDailyHabitExcluding(excludeIds));
@@ -235,11 +234,23 @@ class HabitServiceTest {
     @Test
     void getRandomWeeklyHabitExcluding_whenNoneFound_throwsException() {
         List<String> excludeIds = List.of("weekly123");
-        when(habitRepository.findRandomWeeklyHabitExcluding(excludeIds)).thenReturn(Optional.empty());
+        when(habitSampler.sampleWeekly(excludeIds)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> habitService.getRandomWeeklyHabitExcluding(excludeIds));
 
         assertTrue(exception.getMessage().contains("weekly"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getHabitsByIds_readsFromCatalog() {
+        Habit habit = new Habit("Make your bed", "Start the day right", "Morning Routine", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        habit.setId("habit1");
+
+        when(habitCatalog.findAllById(List.of("habit1", "missing"))).thenReturn(List.of(habit));
+
+        List<Habit> result = habitService.getHabitsByIds(List.of("habit1", "missing"));
+
+        assertEquals(List.of(habit), result);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.exception.UserNotFoundException;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.LeaderboardBoard;
+import org.example.backend.model.LeaderboardEntry;
+import org.example.backend.model.LeaderboardPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LeaderboardTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Leaderboard leaderboard = new Leaderboard(mongoTemplate, meterRegistry);
+
+    private AppUser user(String githubId, int totalXp, int longestStreak) {
+        AppUser user = new AppUser(githubId, "user" + githubId, null, null);
+        user.setId("id" + githubId);
+        user.setTotalXp(totalXp);
+        user.setLongestStreak(longestStreak);
+        return user;
+    }
+
+    private List<String> topUsernames(LeaderboardBoard board, int limit) {
+        return leaderboard.getTop(board, limit).getEntries().stream().map(LeaderboardEntry::getUsername).toList();
+    }
+
+    @Test
+    void getTop_ordersByScoreAndKeepsFirstComerAheadOnTies() {
+        leaderboard.record(user("1", 100, 3));
+        leaderboard.record(user("2", 300, 1));
+        leaderboard.record(user("3", 100, 7));
+        leaderboard.record(user("4", 200, 7));
+
+        LeaderboardPage xp = leaderboard.getTop(LeaderboardBoard.XP, 3);
+
+        assertEquals(4, xp.getTotalUsers());
+        assertEquals(List.of("user2", "user4", "user1"), xp.getEntries().stream().map(LeaderboardEntry::getUsername).toList());
+        assertEquals(List.of(1, 2, 3), xp.getEntries().stream().map(LeaderboardEntry::getRank).toList());
+        assertEquals(List.of("user3", "user4", "user1", "user2"), topUsernames(LeaderboardBoard.STREAK, 10));
+    }
+
+    @Test
+    void record_movesUserAndNeverLowersScore() {
+        leaderboard.record(user("1", 100, 1));
+        leaderboard.record(user("2", 200, 1));
+
+        leaderboard.record(user("1", 250, 2));
+        leaderboard.record(user("1", 150, 1));
+
+        assertEquals(List.of("user1", "user2"), topUsernames(LeaderboardBoard.XP, 10));
+        assertEquals(250, leaderboard.getStanding(LeaderboardBoard.XP, "1").getEntry().getScore());
+        assertEquals(2, leaderboard.getStanding(LeaderboardBoard.STREAK, "2").getEntry().getRank());
+        assertEquals(2, leaderboard.size());
+    }
+
+    @Test
+    void getStanding_whenUserUnknown_throwsException() {
+        assertThrows(UserNotFoundException.class, () -> leaderboard.getStanding(LeaderboardBoard.XP, "missing"));
+    }
+
+    @Test
+    void rebuild_loadsUsersAndKeepsGrantsRecordedMeanwhile() {
+        when(mongoTemplate.stream(any(Query.class), eq(AppUser.class))).thenAnswer(invocation -> {
+            leaderboard.record(user("2", 500, 4));
+            return Stream.of(user("1", 100, 2), user("2", 400, 3), user("3", 50, 9));
+        });
+
+        leaderboard.rebuild();
+
+        assertEquals(List.of("user2", "user1", "user3"), topUsernames(LeaderboardBoard.XP, 10));
+        assertEquals(500, leaderboard.getStanding(LeaderboardBoard.XP, "2").getEntry().getScore());
+        assertEquals(3.0, meterRegistry.get("app.leaderboard.users").gauge().value());
+        assertEquals(Set.of("githubId", "username", "avatarUrl", "level", "totalXp", "longestStreak"),
+                Leaderboard.rebuildQuery().getFieldsObject().keySet());
+    }
+
+    @Test
+    void rebuild_picksUpGrantsAppliedByOtherNodes() {
+        leaderboard.record(user("1", 100, 2));
+        leaderboard.record(user("2", 300, 1));
+        when(mongoTemplate.stream(any(Query.class), eq(AppUser.class)))
+                .thenAnswer(invocation -> Stream.of(user("1", 450, 5), user("2", 300, 1), user("3", 200, 0)));
+
+        leaderboard.rebuild();
+
+        assertEquals(List.of("user1", "user2", "user3"), topUsernames(LeaderboardBoard.XP, 10));
+        assertEquals(5, leaderboard.getStanding(LeaderboardBoard.STREAK, "1").getEntry().getScore());
+    }
+
+    @Test
+    void ranks_matchFullSortAfterRandomUpdates() {
+        Random random = new Random(7);
+        int[] scores = new int[500];
+        for (int i = 0; i < 5000; i++) {
+            int githubId = random.nextInt(scores.length);
+            scores[githubId] += random.nextInt(50);
+            leaderboard.record(user(String.valueOf(githubId), scores[githubId], 0));
+        }
+
+        List<Integer> sorted = IntStream.range(0, scores.length).boxed()
+                .filter(this::isRecorded)
+                .sorted(Comparator.comparingInt((Integer id) -> -scores[id]))
+                .toList();
+        Set<Integer> ranks = new HashSet<>();
+        for (int githubId : sorted) {
+            LeaderboardEntry entry = leaderboard.getStanding(LeaderboardBoard.XP, String.valueOf(githubId)).getEntry();
+            long higher = sorted.stream().filter(id -> scores[id] > scores[githubId]).count();
+            long tied = sorted.stream().filter(id -> scores[id] == scores[githubId]).count();
+            assertEquals(scores[githubId], entry.getScore());
+            assertTrue(entry.getRank() > higher && entry.getRank() <= higher + tied, "rank " + entry.getRank());
+            ranks.add(entry.getRank());
+        }
+        assertEquals(sorted.size(), ranks.size());
+        assertEquals(sorted.stream().limit(20).map(id -> scores[id]).toList(),
+                leaderboard.getTop(LeaderboardBoard.XP, 20).getEntries().stream().map(LeaderboardEntry::getScore).toList());
+    }
+
+    private boolean isRecorded(int githubId) {
+        try {
+            leaderboard.getStanding(LeaderboardBoard.XP, String.valueOf(githubId));
+            return true;
+        } catch (UserNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void checkLimit_rejectsOutOfRangeLimits() {
+        assertEquals(Leaderboard.DEFAULT_LIMIT, Leaderboard.checkLimit(null));
+        assertThrows(InvalidRequestException.class, () -> Leaderboard.checkLimit(0));
+        assertThrows(InvalidRequestException.class, () -> Leaderboard.checkLimit(Leaderboard.MAX_LIMIT + 1));
+    }
+}
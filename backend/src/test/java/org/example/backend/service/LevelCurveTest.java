@@ -0,0 +1,95 @@
+package org.example.backend.service;
+
+import org.example.backend.config.LevelCurveProperties;
+import org.example.backend.model.AppUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelCurveTest {
+
+    private static LevelCurve curve(LevelCurveProperties.Type type, int baseXp, double growth, int maxLevel, List<Integer> table) {
+        return new LevelCurve(new LevelCurveProperties(type, baseXp, growth, maxLevel, table));
+    }
+
+    @Test
+    void linearCurve_matchesPreviousLevelFormula() {
+        LevelCurve levelCurve = curve(LevelCurveProperties.Type.LINEAR, 100, 1.5, 1000, List.of());
+
+        for (int xp = 0; xp <= 60000; xp += 7) {
+            int expectedLevel = 1;
+            while (xp >= 50 * expectedLevel * (expectedLevel + 1)) {
+                expectedLevel++;
+            }
+            assertEquals(expectedLevel, levelCurve.levelFor(xp), "xp " + xp);
+        }
+    }
+
+    @Test
+    void linearCurve_boundaries() {
+        LevelCurve levelCurve = curve(LevelCurveProperties.Type.LINEAR, 100, 1.5, 1000, List.of());
+
+        assertEquals(1, levelCurve.levelFor(0));
+        assertEquals(1, levelCurve.levelFor(99));
+        assertEquals(2, levelCurve.levelFor(100));
+        assertEquals(2, levelCurve.levelFor(299));
+        assertEquals(3, levelCurve.levelFor(300));
+        assertEquals(1000, levelCurve.levelFor(Integer.MAX_VALUE));
+        assertEquals(200, levelCurve.getXpForNextLevel(2));
+        assertEquals(0, levelCurve.getXpForNextLevel(1000));
+    }
+
+    @Test
+    void exponentialCurve_growsByFactor() {
+        LevelCurve levelCurve = curve(LevelCurveProperties.Type.EXPONENTIAL, 100, 2.0, 10, List.of());
+
+        assertEquals(100, levelCurve.getXpForNextLevel(1));
+        assertEquals(200, levelCurve.getXpForNextLevel(2));
+        assertEquals(400, levelCurve.getXpForNextLevel(3));
+        assertEquals(3, levelCurve.levelFor(300));
+        assertEquals(10, levelCurve.getMaxLevel());
+    }
+
+    @Test
+    void exponentialCurve_stopsBeforeOverflow() {
+        LevelCurve levelCurve = curve(LevelCurveProperties.Type.EXPONENTIAL, 100, 2.0, 1000, List.of());
+
+        assertTrue(levelCurve.getMaxLevel() < 1000);
+        assertEquals(levelCurve.getMaxLevel(), levelCurve.levelFor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void tableCurve_usesConfiguredThresholds() {
+        LevelCurve levelCurve = curve(LevelCurveProperties.Type.TABLE, 0, 0, 0, List.of(0, 50, 150, 400));
+
+        assertEquals(1, levelCurve.levelFor(49));
+        assertEquals(2, levelCurve.levelFor(50));
+        assertEquals(4, levelCurve.levelFor(1000));
+        assertEquals(4, levelCurve.getMaxLevel());
+    }
+
+    @Test
+    void tableCurve_rejectsInvalidTables() {
+        assertThrows(IllegalArgumentException.class,
+                () -> curve(LevelCurveProperties.Type.TABLE, 0, 0, 0, List.of(10, 50)));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve(LevelCurveProperties.Type.TABLE, 0, 0, 0, List.of(0, 50, 50)));
+        assertThrows(IllegalArgumentException.class,
+                () -> curve(LevelCurveProperties.Type.TABLE, 0, 0, 0, List.of()));
+    }
+
+    @Test
+    void describe_setsProgressWithinLevel() {
+        LevelCurve levelCurve = curve(LevelCurveProperties.Type.LINEAR, 100, 1.5, 1000, List.of());
+        AppUser user = new AppUser("123", "testUser", "test@example.com", "https://example.com/avatar.png");
+        user.setTotalXp(350);
+        user.setLevel(3);
+
+        levelCurve.describe(user);
+
+        assertEquals(300, user.getXpForNextLevel());
+        assertEquals(50, user.getCurrentLevelXp());
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.config.XpProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingXpBufferTest {
+
+    private final PendingXpBuffer buffer = new PendingXpBuffer(
+            new XpProperties(5, new XpProperties.WriteBehind(true, Duration.ofSeconds(1), 3)), new SimpleMeterRegistry());
+
+    @Test
+    void add_coalescesDeltasPerUser() {
+        LocalDate today = LocalDate.now();
+
+        buffer.add("user1", 25, today);
+        PendingXpBuffer.PendingXp pending = buffer.add("user1", 50, today);
+        buffer.add("user2", 10, today);
+
+        assertEquals(75, pending.xp());
+        assertEquals(2, pending.grants());
+        assertEquals(75, buffer.getPendingXp("user1"));
+        assertEquals(Set.of("user1", "user2"), buffer.getPendingUserIds());
+        assertFalse(buffer.reachedThreshold(pending));
+        assertTrue(buffer.reachedThreshold(buffer.add("user1", 5, today)));
+    }
+
+    @Test
+    void remove_keepsDeltasAddedDuringFlush() {
+        LocalDate today = LocalDate.now();
+        buffer.add("user1", 25, today);
+        PendingXpBuffer.PendingXp flushing = buffer.get("user1").getFirst();
+        buffer.add("user1", 50, today);
+
+        buffer.remove("user1", flushing);
+
+        assertEquals(50, buffer.getPendingXp("user1"));
+        assertEquals(1, buffer.get("user1").getFirst().grants());
+
+        buffer.remove("user1", buffer.get("user1").getFirst());
+
+        assertEquals(List.of(), buffer.get("user1"));
+        assertEquals(0, buffer.getPendingXp("user1"));
+    }
+
+    @Test
+    void add_keepsEachDayApart() {
+        LocalDate today = LocalDate.now();
+        buffer.add("user1", 25, today);
+        buffer.add("user1", 10, today.minusDays(1));
+        buffer.add("user1", 5, today);
+
+        List<PendingXpBuffer.PendingXp> days = buffer.get("user1");
+
+        assertEquals(List.of(new PendingXpBuffer.PendingXp(10, 1, today.minusDays(1)),
+                new PendingXpBuffer.PendingXp(30, 2, today)), days);
+        assertEquals(40, buffer.getPendingXp("user1"));
+
+        buffer.remove("user1", days.getFirst());
+
+        assertEquals(List.of(new PendingXpBuffer.PendingXp(30, 2, today)), buffer.get("user1"));
+    }
+}
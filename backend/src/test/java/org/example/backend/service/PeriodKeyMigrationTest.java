@@ -0,0 +1,112 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.backend.config.PeriodKeyMigrationProperties;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PeriodKeyMigrationTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    private final ObjectId first = new ObjectId();
+    private final ObjectId second = new ObjectId();
+
+    private PeriodKeyMigration createMigration(boolean enabled) {
+        when(mongoTemplate.getCollectionName(UserHabit.class)).thenReturn("user_habits");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "user_habits")).thenReturn(bulkOperations);
+        return new PeriodKeyMigration(mongoTemplate, new PeriodKeyMigrationProperties(enabled, 2, Duration.ofSeconds(1), Duration.ofSeconds(30)));
+    }
+
+    private Document legacyHabit(ObjectId id, String frequency, LocalDate lastCompletedDate) {
+        return new Document("_id", id).append("frequency", frequency)
+                .append("lastCompletedDate", Date.from(lastCompletedDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+    }
+
+    private Document savedCheckpoint() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).upsert(any(Query.class), update.capture(), eq(CompletionDayMigration.MIGRATIONS_COLLECTION));
+        return (Document) update.getValue().getUpdateObject().get("$set");
+    }
+
+    @Test
+    void migrateNextBatch_storesPeriodKeysOfLastCompletionsAndCheckpoints() {
+        PeriodKeyMigration migration = createMigration(true);
+        LocalDate sunday = LocalDate.of(2026, 3, 1);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("user_habits"))).thenReturn(List.of(
+                legacyHabit(first, "DAILY", sunday), legacyHabit(second, "WEEKLY", sunday)));
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+
+        migration.migrateNextBatch();
+
+        verify(bulkOperations, times(2)).updateOne(queries.capture(), updates.capture());
+        assertEquals(new Document("$set", new Document("lastCompletedPeriod", sunday.toEpochDay())),
+                updates.getAllValues().getFirst().getUpdateObject());
+        assertEquals(HabitFrequency.WEEKLY.periodKey(LocalDate.of(2026, 2, 23), 0),
+                ((Document) updates.getAllValues().get(1).getUpdateObject().get("$set")).get("lastCompletedPeriod"));
+        assertEquals(new Document("$exists", false), queries.getAllValues().getFirst().getQueryObject().get("lastCompletedPeriod"));
+        verify(bulkOperations).execute();
+        assertEquals(second, savedCheckpoint().get("lastId"));
+        assertFalse(migration.isComplete());
+    }
+
+    @Test
+    void migrateNextBatch_resumesAfterLastIdAndCompletesOnShortBatch() {
+        PeriodKeyMigration migration = createMigration(true);
+        when(mongoTemplate.findById(PeriodKeyMigration.MIGRATION_ID, Document.class, CompletionDayMigration.MIGRATIONS_COLLECTION))
+                .thenReturn(new Document("lastId", first).append("complete", false));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Document.class), eq("user_habits")))
+                .thenReturn(List.of(legacyHabit(second, "DAILY", LocalDate.of(2026, 3, 1))));
+
+        migration.migrateNextBatch();
+
+        assertEquals(new Document("$gt", first), query.getValue().getQueryObject().get("_id"));
+        assertTrue(migration.isComplete());
+        assertEquals(true, savedCheckpoint().get("complete"));
+
+        migration.migrateNextBatch();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), eq("user_habits"));
+    }
+
+    @Test
+    void migrateNextBatch_skipsUnknownFrequencies() {
+        PeriodKeyMigration migration = createMigration(true);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("user_habits")))
+                .thenReturn(List.of(legacyHabit(first, "HOURLY", LocalDate.of(2026, 3, 1))));
+
+        migration.migrateNextBatch();
+
+        verify(bulkOperations, never()).execute();
+        assertEquals(first, savedCheckpoint().get("lastId"));
+    }
+
+    @Test
+    void migrateNextBatch_whenDisabled_doesNothing() {
+        PeriodKeyMigration migration = createMigration(false);
+
+        migration.migrateNextBatch();
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), eq("user_habits"));
+        assertFalse(migration.isComplete());
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.config.LevelCurveProperties;
+import org.example.backend.config.UserCacheProperties;
+import org.example.backend.config.XpProperties;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.LeaderboardBoard;
+import org.example.backend.repository.AppUserRepository;
+import org.example.backend.repository.ReactiveAppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReactiveAppUserServiceTest {
+
+    private final ReactiveAppUserRepository appUserRepository = mock(ReactiveAppUserRepository.class);
+    private final AppUserCache appUserCache = new AppUserCache(new UserCacheProperties(100, Duration.ofMinutes(5)), new SimpleMeterRegistry());
+    private final LevelCurve levelCurve = new LevelCurve(new LevelCurveProperties(LevelCurveProperties.Type.LINEAR, 100, 1.5, 1000, List.of()));
+    private final Leaderboard leaderboard = new Leaderboard(mock(MongoTemplate.class), new SimpleMeterRegistry());
+    private final XpProperties xpProperties = new XpProperties(3, new XpProperties.WriteBehind(true, Duration.ofSeconds(1), 3));
+    private final AppUserService appUserService = new AppUserService(mock(AppUserRepository.class), appUserCache,
+            mock(MongoTemplate.class), xpProperties, levelCurve, new PendingXpBuffer(xpProperties, new SimpleMeterRegistry()),
+            leaderboard, new SimpleMeterRegistry());
+    private final ReactiveAppUserService reactiveAppUserService = new ReactiveAppUserService(appUserRepository,
+            appUserCache, appUserService, levelCurve, leaderboard);
+
+    private OAuth2User mockOAuth2User() {
+        OAuth2User oAuth2User = mock(OAuth2User.class);
+        when(oAuth2User.getAttribute("id")).thenReturn(123);
+        when(oAuth2User.getAttribute("login")).thenReturn("testUser");
+        when(oAuth2User.getAttribute("email")).thenReturn("test@example.com");
+        when(oAuth2User.getAttribute("avatar_url")).thenReturn("https://example.com/avatar.png");
+        return oAuth2User;
+    }
+
+    private AppUser user(String id) {
+        AppUser user = new AppUser("123", "testUser", "test@example.com", "https://example.com/avatar.png");
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    void getUserId_cachedId_readsNoUser() {
+        when(appUserRepository.findByGithubId("123")).thenReturn(Mono.just(user("user123")));
+
+        assertEquals("user123", reactiveAppUserService.getUserId(mockOAuth2User()).block());
+        assertEquals("user123", reactiveAppUserService.getUserId(mockOAuth2User()).block());
+
+        verify(appUserRepository, times(1)).findByGithubId("123");
+        verify(appUserRepository, never()).findById(any(String.class));
+    }
+
+    @Test
+    void getUserId_newUser_createsUserOnceAndRecordsItOnLeaderboard() {
+        when(appUserRepository.findByGithubId("123")).thenReturn(Mono.empty());
+        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> {
+            AppUser saved = invocation.getArgument(0);
+            saved.setId("user123");
+            return Mono.just(saved);
+        });
+
+        assertEquals("user123", reactiveAppUserService.getUserId(mockOAuth2User()).block());
+        assertEquals("user123", reactiveAppUserService.getUserId(mockOAuth2User()).block());
+
+        verify(appUserRepository, times(1)).save(any(AppUser.class));
+        assertEquals(1, leaderboard.getStanding(LeaderboardBoard.XP, "123").getEntry().getRank());
+    }
+
+    @Test
+    void getUserId_concurrentCallers_shareOneLoadThatOutlivesACancelledCaller() {
+        Sinks.One<AppUser> lookup = Sinks.one();
+        when(appUserRepository.findByGithubId("123")).thenReturn(lookup.asMono());
+
+        Disposable cancelled = reactiveAppUserService.getUserId(mockOAuth2User()).subscribe();
+        AtomicReference<String> resolved = new AtomicReference<>();
+        reactiveAppUserService.getUserId(mockOAuth2User()).subscribe(resolved::set);
+        cancelled.dispose();
+        lookup.tryEmitValue(user("user123"));
+
+        assertEquals("user123", resolved.get());
+        verify(appUserRepository, times(1)).findByGithubId("123");
+    }
+
+    @Test
+    void getCurrentUser_onCacheMiss_readsUserOnceAndAddsPendingXp() {
+        when(appUserRepository.findByGithubId("123")).thenReturn(Mono.just(user("user123")));
+        appUserService.addXp("user123", 50);
+
+        AppUser current = reactiveAppUserService.getCurrentUser(mockOAuth2User()).block();
+
+        assertEquals("user123", current.getId());
+        assertEquals(50, current.getTotalXp());
+        verify(appUserRepository, never()).findById(any(String.class));
+    }
+
+    @Test
+    void getCurrentUser_cachedId_readsUserById() {
+        when(appUserRepository.findByGithubId("123")).thenReturn(Mono.just(user("user123")));
+        reactiveAppUserService.getUserId(mockOAuth2User()).block();
+        AppUser updated = user("user123");
+        updated.setTotalXp(250);
+        when(appUserRepository.findById("user123")).thenReturn(Mono.just(updated));
+
+        AppUser current = reactiveAppUserService.getCurrentUser(mockOAuth2User()).block();
+
+        assertEquals(250, current.getTotalXp());
+        assertEquals(250, current.getCurrentLevelXp());
+        verify(appUserRepository, times(1)).findByGithubId("123");
+    }
+
+    @Test
+    void getOrCreateUser_cachedIdOfDeletedUser_createsUserAgain() {
+        when(appUserRepository.findByGithubId("123")).thenReturn(Mono.just(user("user123"))).thenReturn(Mono.empty());
+        reactiveAppUserService.getUserId(mockOAuth2User()).block();
+        when(appUserRepository.findById("user123")).thenReturn(Mono.empty());
+        when(appUserRepository.save(any(AppUser.class))).thenAnswer(invocation -> {
+            AppUser saved = invocation.getArgument(0);
+            saved.setId("user456");
+            return Mono.just(saved);
+        });
+
+        assertEquals("user456", reactiveAppUserService.getOrCreateUser(mockOAuth2User()).block().getId());
+        assertEquals("user456", reactiveAppUserService.getUserId(mockOAuth2User()).block());
+    }
+}
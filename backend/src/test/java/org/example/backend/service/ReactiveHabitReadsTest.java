@@ -0,0 +1,150 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.example.backend.exception.HabitNotFoundException;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Dashboard;
+import org.example.backend.model.FieldSelection;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.KeysetPage;
+import org.example.backend.model.UserHabit;
+import org.example.backend.model.WeeklyCompletionRollup;
+import org.example.backend.repository.ReactiveUserHabitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveHabitReadsTest {
+
+    private final ReactiveUserHabitRepository userHabitRepository = mock(ReactiveUserHabitRepository.class);
+    private final ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+    private final HabitService habitService = mock(HabitService.class);
+    private final CompletionRollups completionRollups = mock(CompletionRollups.class);
+    private final CompletionDayMigration completionDayMigration = mock(CompletionDayMigration.class);
+    private final ReactiveHabitReads reactiveHabitReads = new ReactiveHabitReads(userHabitRepository,
+            reactiveMongoTemplate, habitService, completionRollups, completionDayMigration);
+
+    private UserHabit createUserHabit(String id, String habitId) {
+        UserHabit userHabit = new UserHabit();
+        userHabit.setId(id);
+        userHabit.setUserId("user123");
+        userHabit.setHabitId(habitId);
+        return userHabit;
+    }
+
+    @Test
+    void getUserHabits_withAllFields_usesDerivedQuery() {
+        UserHabit userHabit = createUserHabit("uh1", "habit1");
+        when(userHabitRepository.findByUserIdAndActiveTrue("user123")).thenReturn(Flux.just(userHabit));
+
+        assertEquals(List.of(userHabit), reactiveHabitReads.getUserHabits("user123", FieldSelection.ALL).collectList().block());
+        verifyNoInteractions(reactiveMongoTemplate);
+    }
+
+    @Test
+    void getUserHabits_withFields_projectsInMongo() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(UserHabit.class))).thenReturn(Flux.empty());
+
+        reactiveHabitReads.getUserHabits("user123", FieldSelection.parse("habitId", UserHabit.class, JsonMapper.shared())).collectList().block();
+
+        verify(reactiveMongoTemplate).find(argThat((Query query) ->
+                query.getFieldsObject().containsKey("habitId") && query.getQueryObject().getBoolean("active")), eq(UserHabit.class));
+        verifyNoInteractions(userHabitRepository);
+    }
+
+    @Test
+    void getCompletionsVersion_readsSharedCounterOfTheWeekAndDefaultsToZero() {
+        when(reactiveMongoTemplate.findOne(ResourceVersions.versionQuery("completions:user123:2026-01-19"), Document.class,
+                "resource_versions")).thenReturn(Mono.just(new Document("version", 3L)));
+        when(reactiveMongoTemplate.findOne(ResourceVersions.versionQuery("completions:user123:2026-01-26"), Document.class,
+                "resource_versions")).thenReturn(Mono.empty());
+
+        assertEquals(3L, reactiveHabitReads.getCompletionsVersion("user123", LocalDate.of(2026, 1, 21)).block());
+        assertEquals(0L, reactiveHabitReads.getCompletionsVersion("user123", LocalDate.of(2026, 1, 26)).block());
+    }
+
+    @Test
+    void getUserHabitsPage_fetchesOneExtraToDetectNextPage() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(UserHabit.class)))
+                .thenReturn(Flux.just(createUserHabit("uh1", "habit1"), createUserHabit("uh2", "habit2")));
+
+        KeysetPage<UserHabit> page = reactiveHabitReads.getUserHabitsPage("user123", null, 1, FieldSelection.ALL).block();
+
+        assertEquals(List.of("uh1"), page.items().stream().map(UserHabit::getId).toList());
+        assertEquals("uh1", KeysetPage.decodeToken(page.nextPageToken()));
+        verify(reactiveMongoTemplate).find(argThat((Query query) -> query.getLimit() == 2), eq(UserHabit.class));
+    }
+
+    @Test
+    void getCompletionsForWeek_queriesMondayToSundayByEpochDay() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(HabitCompletion.class))).thenReturn(Flux.empty());
+
+        assertEquals(List.of(), reactiveHabitReads.getCompletionsForWeek("user123", LocalDate.of(2026, 1, 28), FieldSelection.ALL)
+                .collectList().block());
+
+        verify(reactiveMongoTemplate).find(argThat((Query query) -> query.getQueryObject().get("completionDay")
+                .equals(new Document("$gte", 20479).append("$lte", 20485))), eq(HabitCompletion.class));
+    }
+
+    @Test
+    void getWeekSummary_readsRollupById() {
+        WeeklyCompletionRollup rollup = new WeeklyCompletionRollup("user123", "2026-01-26");
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(WeeklyCompletionRollup.class))).thenReturn(Mono.just(rollup));
+
+        assertSame(rollup, reactiveHabitReads.getWeekSummary("user123", LocalDate.of(2026, 1, 28)).block());
+
+        verify(reactiveMongoTemplate).findOne(argThat((Query query) ->
+                query.getQueryObject().get("_id").equals("user123:2026-01-26")), eq(WeeklyCompletionRollup.class));
+        verifyNoInteractions(completionRollups);
+    }
+
+    @Test
+    void getWeekSummary_whenRollupMissing_buildsItOnBlockingThread() {
+        WeeklyCompletionRollup rollup = new WeeklyCompletionRollup("user123", "2026-01-26");
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(WeeklyCompletionRollup.class))).thenReturn(Mono.empty());
+        when(completionRollups.getWeek("user123", LocalDate.of(2026, 1, 28))).thenAnswer(invocation -> {
+            assertTrue(Thread.currentThread().getName().startsWith("boundedElastic"));
+            return rollup;
+        });
+
+        assertSame(rollup, reactiveHabitReads.getWeekSummary("user123", LocalDate.of(2026, 1, 28)).block());
+    }
+
+    @Test
+    void getDashboard_subscribesToBothQueriesBeforeEitherCompletes() {
+        AppUser user = new AppUser("12345", "testUser", "test@example.com", "https://example.com/avatar.png");
+        user.setId("user123");
+        Sinks.Many<UserHabit> habits = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.One<WeeklyCompletionRollup> week = Sinks.one();
+        when(userHabitRepository.findByUserIdAndActiveTrue("user123")).thenReturn(habits.asFlux());
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(WeeklyCompletionRollup.class))).thenReturn(week.asMono());
+        when(habitService.getRandomDailyHabitExcluding(List.of("habit1"))).thenThrow(new HabitNotFoundException("No daily habit found"));
+
+        List<Dashboard> result = new ArrayList<>();
+        reactiveHabitReads.getDashboard(user, LocalDate.of(2026, 1, 28)).subscribe(result::add);
+
+        assertEquals(1, habits.currentSubscriberCount());
+        assertEquals(1, week.currentSubscriberCount());
+
+        habits.tryEmitNext(createUserHabit("uh1", "habit1"));
+        habits.tryEmitComplete();
+        week.tryEmitValue(new WeeklyCompletionRollup("user123", "2026-01-26"));
+
+        assertEquals(1, result.size());
+        assertEquals(1, result.getFirst().getHabits().size());
+        assertNull(result.getFirst().getDailySuggestion());
+    }
+}
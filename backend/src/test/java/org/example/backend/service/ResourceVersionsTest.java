@@ -0,0 +1,74 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.example.backend.model.HabitCompletion;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ResourceVersionsTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    private final ResourceVersions resourceVersions = new ResourceVersions(mongoTemplate);
+
+    @Test
+    void getUserHabitsVersion_readsSharedCounterAndDefaultsToZero() {
+        when(mongoTemplate.findOne(ResourceVersions.versionQuery("habits:user123"), Document.class, "resource_versions"))
+                .thenReturn(new Document("_id", "habits:user123").append("version", 7L));
+
+        assertEquals(7L, resourceVersions.getUserHabitsVersion("user123"));
+        assertEquals(0L, resourceVersions.getUserHabitsVersion("user456"));
+    }
+
+    @Test
+    void userHabitsChanged_incrementsCounterWithUpsert() {
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+
+        resourceVersions.userHabitsChanged("user123");
+
+        verify(mongoTemplate).upsert(eq(ResourceVersions.versionQuery("habits:user123")), updateCaptor.capture(),
+                eq("resource_versions"));
+        assertEquals(new Document("version", 1L), updateCaptor.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void completionsChanged_incrementsEachWeekOnceInOneBulkWrite() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "resource_versions")).thenReturn(bulkOperations);
+
+        resourceVersions.completionsChanged(List.of(completion(LocalDate.of(2026, 1, 19)),
+                completion(LocalDate.of(2026, 1, 25)), completion(LocalDate.of(2026, 1, 26))));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(2)).upsert(queryCaptor.capture(), any(Update.class));
+        assertEquals(List.of("completions:user123:2026-01-19", "completions:user123:2026-01-26"),
+                queryCaptor.getAllValues().stream().map(query -> query.getQueryObject().get("_id")).toList());
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    void completionsChanged_withoutCompletions_writesNothing() {
+        resourceVersions.completionsChanged(List.of());
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private HabitCompletion completion(LocalDate day) {
+        HabitCompletion completion = new HabitCompletion();
+        completion.setUserId("user123");
+        completion.setCompletionDay((int) day.toEpochDay());
+        return completion;
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.backend.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.backend.config.StreakExpiryProperties;
+import org.example.backend.model.AppUser;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StreakExpiryJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 4);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    private final ResourceVersions resourceVersions = mock(ResourceVersions.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(AppUser.class)).thenReturn("users");
+        when(mongoTemplate.getCollectionName(UserHabit.class)).thenReturn("user_habits");
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), anyString())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), anyString())).thenReturn(List.of());
+    }
+
+    private StreakExpiryJob createJob(boolean enabled) {
+        return new StreakExpiryJob(mongoTemplate, resourceVersions,
+                new StreakExpiryProperties(enabled, "0 5 0 * * *", 2, Duration.ofMinutes(1)), meterRegistry);
+    }
+
+    private static Date date(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private Document lapsedUser(ObjectId id, String githubId) {
+        return new Document("_id", id).append("lastActiveDate", date(TODAY.minusDays(5))).append("githubId", githubId);
+    }
+
+    private Map<String, Document> savedCheckpoints() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).upsert(query.capture(), update.capture(), eq(StreakExpiryJob.CHECKPOINTS_COLLECTION));
+        Map<String, Document> checkpoints = new HashMap<>();
+        for (int i = 0; i < query.getAllValues().size(); i++) {
+            checkpoints.put(query.getAllValues().get(i).getQueryObject().getString("_id"),
+                    (Document) update.getAllValues().get(i).getUpdateObject().get("$set"));
+        }
+        return checkpoints;
+    }
+
+    @Test
+    void partitions_selectActiveStreaksLapsedBeforeEachPeriodCutoff() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("intervalDays"), eq("user_habits"), eq(Integer.class)))
+                .thenReturn(List.of(3));
+        Map<String, StreakExpiryJob.Partition> partitions = createJob(true).partitions(TODAY).stream()
+                .collect(Collectors.toMap(StreakExpiryJob.Partition::name, partition -> partition));
+
+        assertEquals(date(TODAY.minusDays(1)), partitions.get("users").cutoff());
+        assertEquals(date(TODAY.minusDays(1)), partitions.get("user_habits.DAILY").cutoff());
+        assertEquals(date(LocalDate.of(2026, 2, 23)), partitions.get("user_habits.WEEKLY").cutoff());
+        assertEquals(date(LocalDate.of(2026, 2, 1)), partitions.get("user_habits.MONTHLY").cutoff());
+        assertEquals(date(HabitFrequency.INTERVAL.previousPeriodStart(TODAY, 3)), partitions.get("user_habits.INTERVAL.3").cutoff());
+        assertEquals(3, partitions.get("user_habits.INTERVAL.3").batchQuery(new StreakExpiryJob.Checkpoint(), 2)
+                .getQueryObject().get("intervalDays"));
+
+        Document weekly = partitions.get("user_habits.WEEKLY").batchQuery(new StreakExpiryJob.Checkpoint(), 2).getQueryObject();
+        assertEquals(new Document("$gt", 0), weekly.get("currentStreak"));
+        assertEquals("WEEKLY", weekly.get("frequency"));
+        assertEquals(new Document("$lt", date(LocalDate.of(2026, 2, 23))), weekly.get("lastCompletedDate"));
+    }
+
+    @Test
+    void expireStreaks_resetsLapsedUsersBatchByBatchAndCheckpoints() {
+        ObjectId first = new ObjectId();
+        ObjectId second = new ObjectId();
+        ObjectId third = new ObjectId();
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queries.capture(), eq(Document.class), eq("users")))
+                .thenReturn(List.of(lapsedUser(first, "1"), lapsedUser(second, "2")))
+                .thenReturn(List.of(lapsedUser(third, "3")));
+
+        createJob(true).expireStreaks(TODAY);
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).updateOne(any(Query.class), updates.capture());
+        assertEquals(new Document("$set", new Document("currentStreak", 0)).append("$inc", new Document("version", 1)),
+                updates.getValue().getUpdateObject());
+        assertTrue(queries.getAllValues().get(1).getQueryObject().containsKey("$and"));
+
+        Document checkpoint = savedCheckpoints().get("streak-expiry.users");
+        assertEquals(TODAY.toString(), checkpoint.get("runDate"));
+        assertEquals(third, checkpoint.get("lastId"));
+        assertEquals(true, checkpoint.get("complete"));
+        assertEquals(2.0, meterRegistry.get("app.streaks.expired").tag("partition", "users").counter().count());
+    }
+
+    @Test
+    void expireStreaks_bumpsHabitVersionsOfAffectedUsers() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("user_habits")))
+                .thenReturn(List.of(new Document("_id", new ObjectId())
+                        .append("lastCompletedDate", date(TODAY.minusDays(3))).append("userId", "user123")))
+                .thenReturn(List.of());
+
+        createJob(true).expireStreaks(TODAY);
+
+        verify(resourceVersions).userHabitsChanged(Set.of("user123"));
+    }
+
+    @Test
+    void expireStreaks_resumesTodaysCheckpointAndSkipsCompletedPartitions() {
+        ObjectId lastId = new ObjectId();
+        Date lastDate = date(TODAY.minusDays(9));
+        when(mongoTemplate.findById(anyString(), eq(Document.class), eq(StreakExpiryJob.CHECKPOINTS_COLLECTION)))
+                .thenReturn(new Document("runDate", TODAY.toString()).append("complete", true));
+        when(mongoTemplate.findById("streak-expiry.users", Document.class, StreakExpiryJob.CHECKPOINTS_COLLECTION))
+                .thenReturn(new Document("runDate", TODAY.toString()).append("lastDate", lastDate)
+                        .append("lastId", lastId).append("reset", 40L).append("complete", false));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Document.class), eq("users"))).thenReturn(List.of());
+
+        createJob(true).expireStreaks(TODAY);
+
+        List<?> keyset = (List<?>) ((Document) ((List<?>) query.getValue().getQueryObject().get("$and")).get(1)).get("$or");
+        assertEquals(new Document("lastActiveDate", new Document("$gt", lastDate)), keyset.get(0));
+        assertEquals(new Document("lastActiveDate", lastDate).append("_id", new Document("$gt", lastId)), keyset.get(1));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), eq("user_habits"));
+        assertEquals(40L, savedCheckpoints().get("streak-expiry.users").get("reset"));
+    }
+
+    @Test
+    void expireStreaks_ignoresCheckpointsFromEarlierRuns() {
+        when(mongoTemplate.findById(anyString(), eq(Document.class), eq(StreakExpiryJob.CHECKPOINTS_COLLECTION)))
+                .thenReturn(new Document("runDate", TODAY.minusDays(1).toString()).append("complete", true));
+
+        createJob(true).expireStreaks(TODAY);
+
+        verify(mongoTemplate, times(4)).find(any(Query.class), eq(Document.class), anyString());
+    }
+
+    @Test
+    void expireStreaks_skipsPartitionsLeasedByAnotherNode() {
+        when(mongoTemplate.upsert(argThat((Query query) -> "streak-expiry.users".equals(query.getQueryObject().get("_id"))),
+                any(Update.class), eq(StreakExpiryJob.CHECKPOINTS_COLLECTION)))
+                .thenThrow(new DuplicateKeyException("lease held"));
+
+        createJob(true).expireStreaks(TODAY);
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), eq("users"));
+        verify(mongoTemplate, times(3)).find(any(Query.class), eq(Document.class), eq("user_habits"));
+        verify(mongoTemplate, never()).findById(eq("streak-expiry.users"), eq(Document.class), anyString());
+    }
+
+    @Test
+    void expireStreaks_whenDisabled_doesNothing() {
+        createJob(false).expireStreaks(TODAY);
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), anyString());
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), anyString());
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.example.backend.config.TrendingProperties;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.HabitTrend;
+import org.example.backend.model.TrendingHabit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TrendingHabitsTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final HabitCatalog habitCatalog = mock(HabitCatalog.class);
+    private final TrendingProperties properties = new TrendingProperties(Duration.ofHours(24), 3, 1, 2,
+            Duration.ofMinutes(1), Duration.ofMinutes(5));
+    private final TrendingHabits trendingHabits = new TrendingHabits(mongoTemplate, habitCatalog, properties,
+            new SimpleMeterRegistry());
+    private final Instant now = Instant.parse("2026-03-02T12:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        when(habitCatalog.findById(anyString())).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            if (id.equals("removed")) {
+                return Optional.empty();
+            }
+            Habit habit = new Habit(id + " name", "description", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
+            habit.setId(id);
+            return Optional.of(habit);
+        });
+    }
+
+    private List<String> topIds(int limit) {
+        return trendingHabits.getTop(limit).stream().map(trending -> trending.getHabit().getId()).toList();
+    }
+
+    @Test
+    void refresh_foldsWeightedCountsIntoPrecomputedTopK() {
+        trendingHabits.recordCompletion("habit1");
+        trendingHabits.recordCompletion("habit1");
+        trendingHabits.recordAccept("habit2");
+        trendingHabits.recordCompletion("habit3");
+        IntStream.range(0, 10).forEach(i -> trendingHabits.recordAccept("removed"));
+
+        assertEquals(List.of(), trendingHabits.getTop(10));
+        trendingHabits.refresh(now);
+
+        assertEquals(List.of("habit2", "habit1"), topIds(10));
+        assertEquals(List.of("habit2"), topIds(1));
+        TrendingHabit top = trendingHabits.getTop(1).getFirst();
+        assertEquals(3.0, top.getScore());
+        assertEquals(1, top.getAcceptCount());
+        String hash = trendingHabits.getContentHash();
+        trendingHabits.refresh(now);
+        assertEquals(hash, trendingHabits.getContentHash());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void refresh_decaysScoresByHalfLife() {
+        trendingHabits.recordAccept("habit1");
+        trendingHabits.refresh(now);
+        trendingHabits.recordCompletion("habit2");
+        trendingHabits.recordCompletion("habit2");
+
+        trendingHabits.refresh(now.plus(Duration.ofHours(24)));
+
+        List<TrendingHabit> top = trendingHabits.getTop(2);
+        assertEquals(List.of("habit2", "habit1"), topIds(2));
+        assertEquals(2.0, top.get(0).getScore(), 1e-9);
+        assertEquals(1.5, top.get(1).getScore(), 1e-9);
+    }
+
+    @Test
+    void record_fromManyThreads_countsEveryEvent() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 1000).forEach(i -> executor.submit(() -> trendingHabits.recordCompletion("habit1")));
+        }
+
+        trendingHabits.refresh(now);
+
+        assertEquals(1000, trendingHabits.getTop(1).getFirst().getCompletionCount());
+    }
+
+    @Test
+    void flush_upsertsOnlyHabitsChangedSinceLastFlush() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HabitTrend.class)).thenReturn(bulkOperations);
+        trendingHabits.recordAccept("habit1");
+        trendingHabits.recordAccept("habit2");
+
+        trendingHabits.flush();
+        trendingHabits.flush();
+        trendingHabits.recordCompletion("habit1");
+        trendingHabits.flush();
+
+        verify(bulkOperations, times(3)).upsert(any(Query.class), any(UpdateDefinition.class));
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    void flush_incrementsPersistedScoresAndReadsBackOtherNodes() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HabitTrend.class)).thenReturn(bulkOperations);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        when(bulkOperations.upsert(any(Query.class), update.capture())).thenReturn(bulkOperations);
+        // another node flushed habit2 meanwhile
+        when(mongoTemplate.findAll(HabitTrend.class)).thenReturn(List.of(
+                new HabitTrend("habit1", 3, Instant.now(), 1, 0),
+                new HabitTrend("habit2", 5, Instant.now(), 0, 5)));
+        trendingHabits.recordAccept("habit1");
+
+        trendingHabits.flush();
+
+        Document set = (Document) ((AggregationUpdate) update.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT).getFirst().get("$set");
+        Document score = (Document) set.get("score");
+        assertEquals(3.0, ((List<?>) score.get("$add")).get(1));
+        assertEquals(new Document("$add", List.of(new Document("$ifNull", List.of("$acceptCount", 0)), 1L)),
+                set.get("acceptCount"));
+        assertEquals(List.of("habit2", "habit1"), topIds(2));
+        assertEquals(3.0, trendingHabits.getTop(2).get(1).getScore(), 0.01);
+    }
+
+    @Test
+    void load_decaysPersistedScoresToNow() {
+        when(mongoTemplate.findAll(HabitTrend.class)).thenReturn(List.of(
+                new HabitTrend("habit1", 8, Instant.now().minus(Duration.ofHours(48)), 2, 2),
+                new HabitTrend("habit2", 3, Instant.now(), 1, 0)));
+
+        trendingHabits.load();
+
+        List<TrendingHabit> top = trendingHabits.getTop(2);
+        assertEquals(List.of("habit2", "habit1"), topIds(2));
+        assertEquals(2.0, top.get(1).getScore(), 0.01);
+        assertEquals(2, top.get(1).getAcceptCount());
+    }
+
+    @Test
+    void checkLimit_allowsUpToTopK() {
+        assertEquals(2, trendingHabits.checkLimit(2));
+        assertThrows(InvalidRequestException.class, () -> trendingHabits.checkLimit(3));
+        assertThrows(InvalidRequestException.class, () -> trendingHabits.checkLimit(0));
+    }
+}
@@ -1,18 +1,57 @@
 package org.example.backend.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.example.backend.config.UserHabitProperties;
+import org.example.backend.exception.HabitAlreadyExistsException;
+import org.example.backend.exception.InvalidRequestException;
+import org.example.backend.model.CompletionBitmap;
+import org.example.backend.model.FieldSelection;
 import org.example.backend.model.Habit;
+import org.example.backend.model.HabitBatchOperation;
+import org.example.backend.model.HabitBatchOperationType;
+import org.example.backend.model.HabitBatchResponse;
+import org.example.backend.model.HabitBatchResult;
+import org.example.backend.model.HabitCompletion;
 import org.example.backend.model.HabitDifficulty;
 import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.HabitHeatmap;
+import org.example.backend.model.HabitHeatmapRow;
+import org.example.backend.model.KeysetPage;
 import org.example.backend.model.UserHabit;
 import org.example.backend.repository.UserHabitRepository;
 import org.junit.jupiter.api.Test;
-
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class UserHabitServiceTest {
@@ -20,7 +59,11 @@ class UserHabitServiceTest {
     private final UserHabitRepository userHabitRepository = mock(UserHabitRepository.class);
     private final HabitService habitService = mock(HabitService.class);
     private final HabitCompletionService habitCompletionService = mock(HabitCompletionService.class);
-    private final UserHabitService userHabitService = new UserHabitService(userHabitRepository, habitService, habitCompletionService);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ResourceVersions resourceVersions = mock(ResourceVersions.class);
+    private final TrendingHabits trendingHabits = mock(TrendingHabits.class);
+    private final UserHabitService userHabitService = new UserHabitService(userHabitRepository, habitService, habitCompletionService,
+            mongoTemplate, resourceVersions, trendingHabits, new UserHabitProperties(false));
 
     @Test
     void getUserHabits_returnsActiveHabits() {
@@ -87,6 +130,7 @@ class UserHabitServiceTest {
         verify(userHabitRepository).existsByUserIdAndHabitId("user123", "habit123");
         verify(habitService).getHabitById("habit123");
         verify(userHabitRepository).save(any(UserHabit.class));
+        verify(trendingHabits).recordAccept("habit123");
     }
 
     @Test
@@ -129,130 +173,502 @@ class UserHabitServiceTest {
         verify(userHabitRepository, never()).delete(any());
     }
 
-    @Test
-    void completeUserHabit_firstCompletion_setsStreakToOne() {
+    private UserHabit createCompletedHabit(HabitFrequency frequency) {
         UserHabit userHabit = new UserHabit();
         userHabit.setId("uh123");
         userHabit.setUserId("user123");
         userHabit.setHabitId("habit123");
         userHabit.setDifficulty(HabitDifficulty.EASY);
-        userHabit.setFrequency(HabitFrequency.DAILY);
-        userHabit.setCurrentStreak(0);
-        userHabit.setLongestStreak(0);
-        userHabit.setTotalCompletions(0);
-        userHabit.setTotalXpEarned(0);
-        userHabit.setLastCompletedDate(null);
+        userHabit.setFrequency(frequency);
+        userHabit.setCurrentStreak(1);
+        userHabit.setLongestStreak(1);
+        userHabit.setTotalCompletions(1);
+        userHabit.setTotalXpEarned(25);
+        userHabit.setLastCompletedDate(LocalDate.now());
+        return userHabit;
+    }
 
-        when(userHabitRepository.findByUserIdAndHabitId("user123", "habit123")).thenReturn(Optional.of(userHabit));
-        when(userHabitRepository.save(any(UserHabit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Test
+    void completeUserHabit_returnsUpdatedHabitAndRecordsCompletion() {
+        UserHabit completed = createCompletedHabit(HabitFrequency.DAILY);
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(completed);
 
         UserHabit result = userHabitService.completeUserHabit("user123", "habit123");
 
-        assertEquals(1, result.getCurrentStreak());
-        assertEquals(1, result.getLongestStreak());
-        assertEquals(1, result.getTotalCompletions());
-        assertEquals(LocalDate.now(), result.getLastCompletedDate());
-        verify(userHabitRepository).save(userHabit);
+        assertSame(completed, result);
+        verify(habitCompletionService).recordCompletion("user123", completed);
+        verify(trendingHabits).recordCompletion("habit123");
+        verify(userHabitRepository, never()).save(any());
+        verify(userHabitRepository, never()).findByUserIdAndHabitId(any(), any());
     }
 
     @Test
-    void completeUserHabit_consecutiveDay_incrementsStreak() {
-        UserHabit userHabit = new UserHabit();
-        userHabit.setId("uh123");
-        userHabit.setUserId("user123");
-        userHabit.setHabitId("habit123");
-        userHabit.setDifficulty(HabitDifficulty.MEDIUM);
-        userHabit.setFrequency(HabitFrequency.DAILY);
-        userHabit.setCurrentStreak(5);
-        userHabit.setLongestStreak(5);
-        userHabit.setTotalCompletions(5);
-        userHabit.setTotalXpEarned(100);
-        userHabit.setLastCompletedDate(LocalDate.now().minusDays(1));
+    void completeUserHabit_onlyMatchesHabitsNotCompletedInCurrentPeriod() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.findAndModify(queryCaptor.capture(), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(createCompletedHabit(HabitFrequency.DAILY));
+        LocalDate today = LocalDate.now();
+
+        userHabitService.completeUserHabit("user123", "habit123");
+
+        Document queryObject = queryCaptor.getValue().getQueryObject();
+        assertEquals("user123", queryObject.get("userId"));
+        assertEquals("habit123", queryObject.get("habitId"));
+        List<?> notCompletedThisPeriod = expr(queryObject).getList("$lt", Object.class);
+        assertEquals("$lastCompletedPeriod", ((Document) notCompletedThisPeriod.get(0)).getList("$max", Object.class).get(0));
+        List<?> branches = ((Document) notCompletedThisPeriod.get(1)).get("$switch", Document.class).getList("branches", Object.class);
+        assertEquals(new Document("case", new Document("$eq", List.of("$frequency", "DAILY"))).append("then", today.toEpochDay()),
+                branches.get(0));
+        assertEquals(HabitFrequency.WEEKLY.periodKey(today, 0), ((Document) branches.get(1)).get("then"));
+        assertEquals(HabitFrequency.MONTHLY.periodKey(today, 0), ((Document) branches.get(2)).get("then"));
+    }
 
-        when(userHabitRepository.findByUserIdAndHabitId("user123", "habit123")).thenReturn(Optional.of(userHabit));
-        when(userHabitRepository.save(any(UserHabit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    @Test
+    void completeUserHabit_alsoDerivesLastCompletedPeriodFromLastCompletedDate() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.findAndModify(queryCaptor.capture(), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(createCompletedHabit(HabitFrequency.DAILY));
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+        userHabitService.completeUserHabit("user123", "habit123");
+
+        Document lastCompletedPeriod = (Document) expr(queryCaptor.getValue().getQueryObject()).getList("$lt", Object.class).get(0);
+        // keys left missing or stale by older binaries must not let a habit be completed twice in a period
+        List<?> max = lastCompletedPeriod.getList("$max", Object.class);
+        assertEquals("$lastCompletedPeriod", max.get(0));
+        Document weekly = (Document) ((Document) max.get(1)).get("$switch", Document.class).getList("branches", Object.class).get(1);
+        List<?> thisWeek = weekly.get("then", Document.class).getList("$cond", Object.class);
+        assertEquals(new Document("$gte", List.of("$lastCompletedDate", toDate(monday))), thisWeek.get(0));
+        assertEquals(HabitFrequency.WEEKLY.periodKey(monday, 0), thisWeek.get(1));
+    }
 
-        UserHabit result = userHabitService.completeUserHabit("user123", "habit123");
+    @Test
+    void completeUserHabit_whenPeriodKeyTrusted_readsOnlyStoredKey() {
+        UserHabitService trusting = new UserHabitService(userHabitRepository, habitService, habitCompletionService,
+                mongoTemplate, resourceVersions, trendingHabits, new UserHabitProperties(true));
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        when(mongoTemplate.findAndModify(queryCaptor.capture(), updateCaptor.capture(), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(createCompletedHabit(HabitFrequency.DAILY));
+
+        trusting.completeUserHabit("user123", "habit123");
+
+        assertEquals("$lastCompletedPeriod", expr(queryCaptor.getValue().getQueryObject()).getList("$lt", Object.class).get(0));
+        Document completion = ((AggregationUpdate) updateCaptor.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT)
+                .getFirst().get("$set", Document.class);
+        List<?> previousPeriodCompleted = completion.get("currentStreak", Document.class).getList("$cond", Object.class);
+        assertEquals("$lastCompletedPeriod", ((Document) previousPeriodCompleted.get(0)).getList("$eq", Object.class).get(0));
+    }
 
-        assertEquals(6, result.getCurrentStreak());
-        assertEquals(6, result.getLongestStreak());
-        assertEquals(6, result.getTotalCompletions());
+    private Document expr(Document queryObject) {
+        Object expr = ((Document) queryObject.getList("$and", Object.class).getFirst()).get("$expr");
+        return expr instanceof MongoExpression expression ? expression.toDocument() : (Document) expr;
     }
 
     @Test
-    void completeUserHabit_missedDay_resetsStreak() {
-        UserHabit userHabit = new UserHabit();
-        userHabit.setId("uh123");
-        userHabit.setUserId("user123");
-        userHabit.setHabitId("habit123");
-        userHabit.setDifficulty(HabitDifficulty.EASY);
-        userHabit.setFrequency(HabitFrequency.DAILY);
-        userHabit.setCurrentStreak(5);
-        userHabit.setLongestStreak(10);
-        userHabit.setTotalCompletions(15);
-        userHabit.setTotalXpEarned(150);
-        userHabit.setLastCompletedDate(LocalDate.now().minusDays(3));
+    void periodKeys_areConsecutiveAcrossYearBoundariesAndMapBackToPeriodStarts() {
+        // 2026-12-31 is a Thursday, so it shares an ISO week with 2027-01-01
+        LocalDate newYearsEve = LocalDate.of(2026, 12, 31);
+        LocalDate newYear = LocalDate.of(2027, 1, 1);
+        assertEquals(HabitFrequency.WEEKLY.periodKey(newYearsEve, 0), HabitFrequency.WEEKLY.periodKey(newYear, 0));
+        assertEquals(HabitFrequency.WEEKLY.periodKey(newYear, 0) + 1, HabitFrequency.WEEKLY.periodKey(LocalDate.of(2027, 1, 4), 0));
+        assertEquals(LocalDate.of(2026, 12, 28), HabitFrequency.WEEKLY.periodStart(HabitFrequency.WEEKLY.periodKey(newYear, 0), 0));
+        assertEquals(HabitFrequency.MONTHLY.periodKey(newYearsEve, 0) + 1, HabitFrequency.MONTHLY.periodKey(newYear, 0));
+        assertEquals(LocalDate.of(2026, 12, 1), HabitFrequency.MONTHLY.previousPeriodStart(newYear, 0));
+        assertEquals(LocalDate.of(1969, 12, 1), HabitFrequency.MONTHLY.periodStart(-1, 0));
+        assertEquals(newYear.toEpochDay() / 3, HabitFrequency.INTERVAL.periodKey(newYear, 3));
+        assertEquals(LocalDate.ofEpochDay(newYear.toEpochDay() / 3 * 3), HabitFrequency.INTERVAL.periodStart(newYear.toEpochDay() / 3, 3));
+        assertEquals(HabitFrequency.DAILY.periodKey(newYear, 0), HabitFrequency.INTERVAL.periodKey(newYear, 0));
+    }
 
-        when(userHabitRepository.findByUserIdAndHabitId("user123", "habit123")).thenReturn(Optional.of(userHabit));
-        when(userHabitRepository.save(any(UserHabit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    @Test
+    void completeUserHabit_updatesStreakAndTotalsInDatabase() {
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        when(mongoTemplate.findAndModify(any(Query.class), updateCaptor.capture(), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(createCompletedHabit(HabitFrequency.DAILY));
+
+        userHabitService.completeUserHabit("user123", "habit123");
+
+        List<Document> pipeline = ((AggregationUpdate) updateCaptor.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(2, pipeline.size());
+        Document completion = pipeline.get(0).get("$set", Document.class);
+        assertTrue(completion.keySet().containsAll(List.of("currentStreak", "lastCompletedDate", "lastCompletedPeriod",
+                "totalCompletions", "totalXpEarned")));
+        assertEquals(toDate(LocalDate.now()), completion.get("lastCompletedDate"));
+        Document currentPeriod = completion.get("lastCompletedPeriod", Document.class);
+        List<?> previousPeriodCompleted = ((Document) completion.get("currentStreak", Document.class)
+                .getList("$cond", Object.class).get(0)).getList("$eq", Object.class);
+        assertEquals("$lastCompletedPeriod", ((Document) previousPeriodCompleted.get(0)).getList("$max", Object.class).get(0));
+        assertEquals(new Document("$subtract", List.of(currentPeriod, 1L)), previousPeriodCompleted.get(1));
+        assertEquals(new Document("$max", List.of("$longestStreak", "$currentStreak")),
+                pipeline.get(1).get("$set", Document.class).get("longestStreak"));
+    }
 
-        UserHabit result = userHabitService.completeUserHabit("user123", "habit123");
+    @Test
+    void completeUserHabit_setsTodaysBitInThisYearsBitmap() {
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        when(mongoTemplate.findAndModify(any(Query.class), updateCaptor.capture(), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(createCompletedHabit(HabitFrequency.DAILY));
+        LocalDate today = LocalDate.now();
+
+        userHabitService.completeUserHabit("user123", "habit123");
+
+        Document completion = ((AggregationUpdate) updateCaptor.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT)
+                .get(0).get("$set", Document.class);
+        Document map = completion.get("completionBits." + today.getYear(), Document.class).get("$map", Document.class);
+        List<?> cond = map.get("in", Document.class).getList("$cond", Object.class);
+        assertEquals(new Document("$eq", List.of("$$i", CompletionBitmap.word(today))), cond.get(0));
+        assertEquals(CompletionBitmap.mask(today), ((Document) cond.get(1)).getList("$bitOr", Object.class).get(1));
+    }
 
-        assertEquals(1, result.getCurrentStreak());
-        assertEquals(10, result.getLongestStreak());
-        assertEquals(16, result.getTotalCompletions());
+    @Test
+    void getHeatmap_readsOneYearOfBitmapsAndDecodesDays() {
+        UserHabit userHabit = createUserHabit("habit1", HabitFrequency.DAILY, null);
+        LocalDate newYear = LocalDate.of(2026, 1, 1);
+        LocalDate leapDay = LocalDate.of(2024, 12, 31);
+        userHabit.setCompletionBits(Map.of(
+                "2026", List.of(CompletionBitmap.mask(newYear) | CompletionBitmap.mask(LocalDate.of(2026, 3, 5)), 0L, 0L, 0L, 0L,
+                        CompletionBitmap.mask(LocalDate.of(2026, 12, 31))),
+                "2024", List.of(0L, 0L, 0L, 0L, 0L, CompletionBitmap.mask(leapDay))));
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(UserHabit.class))).thenReturn(List.of(userHabit));
+
+        HabitHeatmap heatmap = userHabitService.getHeatmap("user123", 2026);
+
+        assertEquals(new Document("habitId", 1).append("habitName", 1).append("frequency", 1).append("completionBits.2026", 1),
+                queryCaptor.getValue().getFieldsObject());
+        HabitHeatmapRow row = heatmap.getHabits().getFirst();
+        assertEquals(List.of(newYear, LocalDate.of(2026, 3, 5), LocalDate.of(2026, 12, 31)), row.getDays());
+        assertEquals(3, row.getCompletions());
+        assertEquals(List.of(leapDay), CompletionBitmap.days(2024, userHabit.getCompletionBits().get("2024")));
+        assertEquals(5, CompletionBitmap.word(leapDay));
     }
 
     @Test
     void completeUserHabit_alreadyCompletedToday_throwsException() {
-        UserHabit userHabit = new UserHabit();
-        userHabit.setId("uh123");
-        userHabit.setUserId("user123");
-        userHabit.setHabitId("habit123");
-        userHabit.setFrequency(HabitFrequency.DAILY);
-        userHabit.setLastCompletedDate(LocalDate.now());
+        UserHabit userHabit = createCompletedHabit(HabitFrequency.DAILY);
 
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(null);
         when(userHabitRepository.findByUserIdAndHabitId("user123", "habit123")).thenReturn(Optional.of(userHabit));
 
-        RuntimeException exception = assertThrows(RuntimeException.class,
+        RuntimeException exception = assertThrows(HabitAlreadyExistsException.class,
                 () -> userHabitService.completeUserHabit("user123", "habit123"));
 
-        assertTrue(exception.getMessage().contains("already completed"));
-        verify(userHabitRepository, never()).save(any());
+        assertTrue(exception.getMessage().contains("already completed for this day"));
+        verify(habitCompletionService, never()).recordCompletion(any(), any());
     }
 
     @Test
-    void completeUserHabit_weeklyHabit_consecutiveWeek_incrementsStreak() {
-        UserHabit userHabit = new UserHabit();
-        userHabit.setId("uh123");
-        userHabit.setUserId("user123");
-        userHabit.setHabitId("habit123");
-        userHabit.setDifficulty(HabitDifficulty.HARD);
-        userHabit.setFrequency(HabitFrequency.WEEKLY);
-        userHabit.setCurrentStreak(3);
-        userHabit.setLongestStreak(3);
-        userHabit.setTotalCompletions(3);
-        userHabit.setTotalXpEarned(150);
-        userHabit.setLastCompletedDate(LocalDate.now().minusWeeks(1));
+    void completeUserHabit_weeklyHabitAlreadyCompleted_throwsException() {
+        UserHabit userHabit = createCompletedHabit(HabitFrequency.WEEKLY);
 
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(null);
         when(userHabitRepository.findByUserIdAndHabitId("user123", "habit123")).thenReturn(Optional.of(userHabit));
-        when(userHabitRepository.save(any(UserHabit.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        UserHabit result = userHabitService.completeUserHabit("user123", "habit123");
+        RuntimeException exception = assertThrows(HabitAlreadyExistsException.class,
+                () -> userHabitService.completeUserHabit("user123", "habit123"));
 
-        assertEquals(4, result.getCurrentStreak());
-        assertEquals(4, result.getLongestStreak());
-        assertEquals(4, result.getTotalCompletions());
+        assertTrue(exception.getMessage().contains("already completed for this week"));
     }
 
     @Test
     void completeUserHabit_whenNotFound_throwsException() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(null);
         when(userHabitRepository.findByUserIdAndHabitId("user123", "habit123")).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> userHabitService.completeUserHabit("user123", "habit123"));
 
         assertTrue(exception.getMessage().contains("not found"));
-        verify(userHabitRepository, never()).save(any());
+        verify(habitCompletionService, never()).recordCompletion(any(), any());
+    }
+
+    private UserHabit createUserHabit(String habitId, HabitFrequency frequency, LocalDate lastCompletedDate) {
+        UserHabit userHabit = new UserHabit();
+        userHabit.setId("uh-" + habitId);
+        userHabit.setUserId("user123");
+        userHabit.setHabitId(habitId);
+        userHabit.setDifficulty(HabitDifficulty.EASY);
+        userHabit.setFrequency(frequency);
+        userHabit.setLastCompletedDate(lastCompletedDate);
+        userHabit.setActive(true);
+        return userHabit;
+    }
+
+    private BulkOperations givenBulkOperations() {
+        BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, UserHabit.class)).thenReturn(bulkOperations);
+        return bulkOperations;
+    }
+
+    private String stampedCompletionId(BulkOperations bulkOperations) {
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(bulkOperations, atLeastOnce()).updateOne(any(Query.class), updateCaptor.capture());
+        return ((AggregationUpdate) updateCaptor.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0)
+                .get("$set", Document.class).getString("lastCompletionId");
+    }
+
+    @Test
+    void applyBatch_appliesAllOperationsInOneBulkAndReportsResultsInOrder() {
+        Habit newHabit = new Habit("Drink water", "Stay hydrated", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        newHabit.setId("habit3");
+        UserHabit toComplete = createUserHabit("habit1", HabitFrequency.DAILY, LocalDate.now().minusDays(1));
+        UserHabit toDelete = createUserHabit("habit2", HabitFrequency.WEEKLY, null);
+        BulkOperations bulkOperations = givenBulkOperations();
+
+        toComplete.setCurrentStreak(4);
+        toComplete.setLongestStreak(4);
+        toComplete.setTotalCompletions(9);
+
+        when(habitService.getHabitsByIds(Set.of("habit3"))).thenReturn(List.of(newHabit));
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any())).thenReturn(List.of(toComplete, toDelete));
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(1, 1, 1, 1, List.of(), List.of()));
+
+        HabitBatchResponse response = userHabitService.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.ACCEPT, "habit3"),
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit1"),
+                new HabitBatchOperation(HabitBatchOperationType.DELETE, "habit2"),
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "unknown"),
+                new HabitBatchOperation(HabitBatchOperationType.ACCEPT, "habit1")));
+
+        assertEquals(List.of(201, 200, 204, 404, 409), response.getResults().stream().map(HabitBatchResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3, 4), response.getResults().stream().map(HabitBatchResult::getIndex).toList());
+        assertEquals("habit3", response.getResults().get(0).getUserHabit().getHabitId());
+        assertEquals(HabitDifficulty.EASY.getBaseXp(), response.getXpEarned());
+        UserHabit completed = response.getResults().get(1).getUserHabit();
+        assertEquals(5, completed.getCurrentStreak());
+        assertEquals(5, completed.getLongestStreak());
+        assertEquals(10, completed.getTotalCompletions());
+        assertEquals(LocalDate.now(), completed.getLastCompletedDate());
+        assertEquals(HabitFrequency.DAILY.periodKey(LocalDate.now(), 0), completed.getLastCompletedPeriod());
+        assertEquals(stampedCompletionId(bulkOperations), completed.getLastCompletionId());
+        assertEquals(4, toComplete.getCurrentStreak());
+
+        verify(userHabitRepository, times(1)).findByUserIdAndHabitIdIn(eq("user123"), any());
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.ORDERED, UserHabit.class);
+        verify(bulkOperations).insert(any(UserHabit.class));
+        verify(bulkOperations).updateOne(any(Query.class), any(UpdateDefinition.class));
+        verify(bulkOperations).remove(any(Query.class));
+        verify(bulkOperations, times(1)).execute();
+
+        ArgumentCaptor<List<HabitCompletion>> completionsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(habitCompletionService).recordCompletions(completionsCaptor.capture());
+        assertEquals(1, completionsCaptor.getValue().size());
+        assertEquals(stampedCompletionId(bulkOperations), completionsCaptor.getValue().getFirst().getId());
+        verify(habitCompletionService, never()).recordCompletion(any(), any());
+        verify(trendingHabits).recordAccept("habit3");
+        verify(trendingHabits).recordCompletion("habit1");
+        verifyNoMoreInteractions(trendingHabits);
+    }
+
+    @Test
+    void applyBatch_rejectsSecondCompletionInSamePeriodWithoutWriting() {
+        UserHabit completedToday = createUserHabit("habit1", HabitFrequency.DAILY, LocalDate.now());
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any())).thenReturn(List.of(completedToday));
+
+        HabitBatchResponse response = userHabitService.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit1"),
+                new HabitBatchOperation(null, "habit1")));
+
+        assertEquals(409, response.getResults().get(0).getStatus());
+        assertTrue(response.getResults().get(0).getMessage().contains("already completed for this day"));
+        assertEquals(400, response.getResults().get(1).getStatus());
+        assertEquals(0, response.getXpEarned());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+        verify(habitCompletionService, never()).recordCompletions(any());
+    }
+
+    @Test
+    void applyBatch_whenPeriodKeyTrusted_ignoresLastCompletedDate() {
+        UserHabitService trusting = new UserHabitService(userHabitRepository, habitService, habitCompletionService,
+                mongoTemplate, resourceVersions, trendingHabits, new UserHabitProperties(true));
+        UserHabit keyedYesterday = createUserHabit("habit1", HabitFrequency.DAILY, LocalDate.now());
+        keyedYesterday.setLastCompletedPeriod(HabitFrequency.DAILY.periodKey(LocalDate.now().minusDays(1), 0));
+        keyedYesterday.setCurrentStreak(2);
+        when(givenBulkOperations().execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any())).thenReturn(List.of(keyedYesterday));
+
+        HabitBatchResponse response = trusting.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit1")));
+
+        assertEquals(200, response.getResults().getFirst().getStatus());
+        assertEquals(3, response.getResults().getFirst().getUserHabit().getCurrentStreak());
+    }
+
+    @Test
+    void applyBatch_comparesStoredPeriodKeysForMonthlyAndIntervalHabits() {
+        LocalDate today = LocalDate.now();
+        UserHabit monthly = createUserHabit("habit1", HabitFrequency.MONTHLY, today.withDayOfMonth(1));
+        monthly.setLastCompletedPeriod(HabitFrequency.MONTHLY.periodKey(today, 0));
+        UserHabit everyThirdDay = createUserHabit("habit2", HabitFrequency.INTERVAL, null);
+        everyThirdDay.setIntervalDays(3);
+        everyThirdDay.setLastCompletedPeriod(HabitFrequency.INTERVAL.periodKey(today, 3));
+        UserHabit lastMonth = createUserHabit("habit3", HabitFrequency.MONTHLY, null);
+        lastMonth.setLastCompletedPeriod(HabitFrequency.MONTHLY.periodKey(today, 0) - 1);
+        when(givenBulkOperations().execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any()))
+                .thenReturn(List.of(monthly, everyThirdDay, lastMonth));
+
+        HabitBatchResponse response = userHabitService.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit1"),
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit2"),
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit3")));
+
+        assertTrue(response.getResults().get(0).getMessage().contains("already completed for this month"));
+        assertTrue(response.getResults().get(1).getMessage().contains("already completed for this interval"));
+        assertEquals(200, response.getResults().get(2).getStatus());
+        assertEquals(1, response.getResults().get(2).getUserHabit().getCurrentStreak());
+        verify(mongoTemplate).bulkOps(BulkOperations.BulkMode.ORDERED, UserHabit.class);
+    }
+
+    @Test
+    void applyBatch_whenCompletionLostToConcurrentRequest_reportsConflictWithoutXp() {
+        UserHabit userHabit = createUserHabit("habit1", HabitFrequency.WEEKLY, null);
+        UserHabit completedElsewhere = createUserHabit("habit1", HabitFrequency.WEEKLY, LocalDate.now());
+        completedElsewhere.setLastCompletionId("other-request");
+        when(givenBulkOperations().execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any()))
+                .thenReturn(List.of(userHabit))
+                .thenReturn(List.of(completedElsewhere));
+
+        HabitBatchResponse response = userHabitService.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit1")));
+
+        assertEquals(409, response.getResults().getFirst().getStatus());
+        assertTrue(response.getResults().getFirst().getMessage().contains("already completed for this week"));
+        assertEquals(0, response.getXpEarned());
+        verify(habitCompletionService).recordCompletions(List.of());
+        verifyNoInteractions(trendingHabits);
+    }
+
+    @Test
+    void applyBatch_whenBulkWriteFails_rejectsDependentWritesAndResubmitsTheRest() {
+        Habit habit = new Habit("Drink water", "Stay hydrated", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        habit.setId("habit3");
+        UserHabit toDelete = createUserHabit("habit2", HabitFrequency.WEEKLY, null);
+        BulkOperations bulkOperations = givenBulkOperations();
+        BulkOperationException duplicateKey = new BulkOperationException("duplicate key", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)),
+                null, new ServerAddress(), Collections.emptySet()));
+
+        when(habitService.getHabitsByIds(Set.of("habit3"))).thenReturn(List.of(habit));
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any())).thenReturn(List.of(toDelete));
+        when(bulkOperations.execute()).thenThrow(duplicateKey)
+                .thenReturn(BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+
+        HabitBatchResponse response = userHabitService.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.ACCEPT, "habit3"),
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit3"),
+                new HabitBatchOperation(HabitBatchOperationType.DELETE, "habit2")));
+
+        assertEquals(List.of(409, 409, 204), response.getResults().stream().map(HabitBatchResult::getStatus).toList());
+        assertEquals(0, response.getXpEarned());
+        verify(bulkOperations, times(2)).execute();
+        verify(bulkOperations, times(2)).remove(any(Query.class));
+    }
+
+    @Test
+    void applyBatch_whenBulkFailsWithoutWriteErrors_rethrows() {
+        UserHabit userHabit = createUserHabit("habit1", HabitFrequency.DAILY, null);
+        BulkOperationException writeConcern = new BulkOperationException("write concern", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()), List.of(),
+                new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out", new BsonDocument()),
+                new ServerAddress(), Collections.emptySet()));
+        when(userHabitRepository.findByUserIdAndHabitIdIn(eq("user123"), any())).thenReturn(List.of(userHabit));
+        when(givenBulkOperations().execute()).thenThrow(writeConcern);
+
+        assertThrows(BulkOperationException.class, () -> userHabitService.applyBatch("user123", List.of(
+                new HabitBatchOperation(HabitBatchOperationType.COMPLETE, "habit1"))));
+        verify(habitCompletionService, never()).recordCompletions(any());
+    }
+
+    @Test
+    void applyBatch_whenBatchIsEmptyOrTooLarge_throwsException() {
+        assertThrows(InvalidRequestException.class, () -> userHabitService.applyBatch("user123", List.of()));
+        assertThrows(InvalidRequestException.class, () -> userHabitService.applyBatch("user123",
+                Collections.nCopies(UserHabitService.MAX_BATCH_SIZE + 1,
+                        new HabitBatchOperation(HabitBatchOperationType.DELETE, "habit1"))));
+    }
+
+    @Test
+    void completeUserHabit_changesUserHabitsVersion() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(UserHabit.class)))
+                .thenReturn(createCompletedHabit(HabitFrequency.DAILY));
+
+        userHabitService.completeUserHabit("user123", "habit123");
+
+        verify(resourceVersions).userHabitsChanged("user123");
+    }
+
+    @Test
+    void getUserHabitsPage_queriesAfterTokenAndReturnsNextToken() {
+        UserHabit first = createUserHabit("habit1", HabitFrequency.DAILY, null);
+        first.setId("uh2");
+        UserHabit second = createUserHabit("habit2", HabitFrequency.DAILY, null);
+        second.setId("uh3");
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(UserHabit.class))).thenReturn(List.of(first, second));
+
+        KeysetPage<UserHabit> page = userHabitService.getUserHabitsPage("user123", KeysetPage.encodeToken("uh1"), 1, FieldSelection.ALL);
+
+        assertEquals(List.of(first), page.items());
+        assertEquals("uh2", KeysetPage.decodeToken(page.nextPageToken()));
+        Query query = queryCaptor.getValue();
+        assertEquals(new Document("$gt", "uh1"), query.getQueryObject().get("id"));
+        assertEquals(new Document("id", 1), query.getSortObject());
+        assertEquals(2, query.getLimit());
+    }
+
+    @Test
+    void getUserHabits_withFieldSelection_projectsInMongo() {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(UserHabit.class))).thenReturn(List.of());
+
+        userHabitService.getUserHabits("user123", FieldSelection.parse("habitName, currentStreak", UserHabit.class, JsonMapper.shared()));
+
+        assertEquals(new Document("currentStreak", 1).append("habitName", 1).append("id", 1),
+                queryCaptor.getValue().getFieldsObject());
+        verify(userHabitRepository, never()).findByUserIdAndActiveTrue(any());
+    }
+
+    @Test
+    void getUserHabitIds_readsOnlyHabitIds() {
+        UserHabit projected = new UserHabit();
+        projected.setHabitId("habit1");
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(queryCaptor.capture(), eq(UserHabit.class))).thenReturn(List.of(projected));
+
+        assertEquals(List.of("habit1"), userHabitService.getUserHabitIds("user123"));
+        assertEquals(new Document("habitId", 1).append("id", 0), queryCaptor.getValue().getFieldsObject());
+        assertEquals(new Document("userId", "user123").append("active", true), queryCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    void fieldSelection_rejectsUnknownFields() {
+        assertThrows(InvalidRequestException.class, () -> FieldSelection.parse("habitName,password", UserHabit.class, JsonMapper.shared()));
+        assertThrows(InvalidRequestException.class, () -> FieldSelection.parse("completionBits", UserHabit.class, JsonMapper.shared()));
+        assertThrows(InvalidRequestException.class, () -> FieldSelection.parse("lastCompletedPeriod", UserHabit.class, JsonMapper.shared()));
+        assertThrows(InvalidRequestException.class, () -> FieldSelection.parse("lastCompletionId", UserHabit.class, JsonMapper.shared()));
+        assertSame(FieldSelection.ALL, FieldSelection.parse(" ", UserHabit.class, JsonMapper.shared()));
+    }
+
+    @Test
+    void fieldSelection_projectsFieldsOfDerivedProperties() {
+        FieldSelection fields = FieldSelection.parse("xp,habitName", UserHabit.class, JsonMapper.shared());
+
+        assertEquals(Set.of("habitName", "id", "xp"), fields.getFields());
+        assertEquals(new Document("difficulty", 1).append("habitName", 1).append("id", 1),
+                fields.applyTo(new Query()).getFieldsObject());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package org.example.backend.service;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs an action on a virtual thread and collects the JFR events for every time it blocked while pinned to its
+ * carrier (for example inside a synchronized block).
+ */
+final class VirtualThreadPinning {
+
+    private VirtualThreadPinning() {
+    }
+
+    static List<RecordedEvent> pinnedEventsWhile(Runnable action) throws InterruptedException {
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", events::add);
+            stream.startAsync();
+            Thread.ofVirtual().start(action).join();
+            stream.stop();
+        }
+        return events;
+    }
+
+    static void blockBriefly() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.backend.benchmarks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.config.CompletionDayMigrationProperties;
+import org.example.backend.config.CompletionWriteProperties;
+import org.example.backend.config.TrendingProperties;
+import org.example.backend.config.UserHabitProperties;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.example.backend.service.CompletionDayMigration;
+import org.example.backend.service.CompletionRollups;
+import org.example.backend.service.HabitCompletionService;
+import org.example.backend.service.HabitCompletionWriter;
+import org.example.backend.service.ResourceVersions;
+import org.example.backend.service.TrendingHabits;
+import org.example.backend.service.UserHabitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserHabitService.completeUserHabit from the conditional update through recording the completion, the weekly
+ * rollup and the trending counter, with Mongo and the repositories answered from memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompleteUserHabitBenchmark {
+
+    private static final String USER_ID = "user1";
+
+    @Param({"DAILY", "WEEKLY"})
+    public HabitFrequency frequency;
+
+    private InMemoryMongoTemplate mongoTemplate;
+    private UserHabitService userHabitService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        mongoTemplate = new InMemoryMongoTemplate();
+        ResourceVersions resourceVersions = new ResourceVersions(mongoTemplate);
+
+        Habit habit = new Habit("Drink water", "Stay hydrated", "Health", HabitDifficulty.EASY, frequency);
+        habit.setId("habit1");
+        UserHabit userHabit = new UserHabit(USER_ID, habit);
+        userHabit.setId("userHabit1");
+        userHabit.setLastCompletionId("completion1");
+        mongoTemplate.putUserHabit(userHabit);
+        Map<String, UserHabit> userHabits = new HashMap<>(Map.of(habit.getId(), userHabit));
+
+        CompletionDayMigration completionDayMigration = new CompletionDayMigration(mongoTemplate,
+                new CompletionDayMigrationProperties(true, 1000, Duration.ofSeconds(1), Duration.ofSeconds(30), false));
+        completionDayMigration.migrateNextBatch();
+        CompletionRollups completionRollups = new CompletionRollups(mongoTemplate, completionDayMigration);
+        HabitCompletionWriter habitCompletionWriter = new HabitCompletionWriter(mongoTemplate,
+                new CompletionWriteProperties(false, 10000, 500, Duration.ofMillis(200), Duration.ofMillis(50), 3,
+                        Duration.ofMillis(100), Duration.ofSeconds(5), Duration.ofSeconds(10)),
+                resourceVersions, completionRollups, meterRegistry);
+        HabitCompletionService habitCompletionService = new HabitCompletionService(InMemoryRepositories.habitCompletions(),
+                mongoTemplate, habitCompletionWriter, completionRollups, completionDayMigration, resourceVersions);
+        TrendingHabits trendingHabits = new TrendingHabits(mongoTemplate, null,
+                new TrendingProperties(Duration.ofHours(24), 3, 1, 50, Duration.ofMinutes(1), Duration.ofMinutes(5)),
+                meterRegistry);
+
+        // completing never touches the habit catalog, so HabitService is left out
+        userHabitService = new UserHabitService(InMemoryRepositories.userHabits(userHabits), null,
+                habitCompletionService, mongoTemplate, resourceVersions, trendingHabits, new UserHabitProperties(false));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.close();
+    }
+
+    @Benchmark
+    public UserHabit completeUserHabit() {
+        return userHabitService.completeUserHabit(USER_ID, "habit1");
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.backend.benchmarks;
+
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HabitCompletionBenchmark {
+
+    private UserHabit userHabit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Habit habit = new Habit("Drink water", "Stay hydrated", "Health", HabitDifficulty.EASY, HabitFrequency.DAILY);
+        habit.setId("habit1");
+        userHabit = new UserHabit("user1", habit);
+        userHabit.setId("userHabit1");
+        userHabit.setLastCompletionId("completion1");
+    }
+
+    @Benchmark
+    public HabitCompletion newHabitCompletion() {
+        return new HabitCompletion("user1", userHabit);
+    }
+}
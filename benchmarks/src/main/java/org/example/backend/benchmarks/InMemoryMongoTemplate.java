@@ -0,0 +1,134 @@
+package org.example.backend.benchmarks;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.example.backend.model.UserHabit;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A MongoTemplate that answers the calls on the benchmarked paths from memory. Queries and updates are still
+ * rendered to the documents the driver would send, so building them is part of the measurement; the round trip to
+ * the database is not. The underlying client is never used and never connects.
+ */
+class InMemoryMongoTemplate extends MongoTemplate implements AutoCloseable {
+
+    private static final UpdateResult MATCHED_ONE = UpdateResult.acknowledged(1, 1L, null);
+
+    private final MongoClient client;
+    private final Map<String, UserHabit> userHabits = new ConcurrentHashMap<>();
+    // keeps rendered statements reachable so the JIT can't drop building them
+    private volatile Object lastStatement;
+
+    InMemoryMongoTemplate() {
+        this(MongoClients.create("mongodb://localhost:27017/?serverSelectionTimeoutMS=1"));
+    }
+
+    private InMemoryMongoTemplate(MongoClient client) {
+        super(client, "benchmarks");
+        this.client = client;
+    }
+
+    void putUserHabit(UserHabit userHabit) {
+        userHabits.put(key(userHabit.getUserId(), userHabit.getHabitId()), userHabit);
+    }
+
+    @Override
+    public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options, Class<T> entityClass) {
+        Document queryObject = query.getQueryObject();
+        render(update);
+        return entityClass.cast(userHabits.get(key(queryObject.getString("userId"), queryObject.getString("habitId"))));
+    }
+
+    @Override
+    public UpdateResult updateFirst(Query query, UpdateDefinition update, Class<?> entityClass) {
+        lastStatement = query.getQueryObject();
+        render(update);
+        return MATCHED_ONE;
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, UpdateDefinition update, String collectionName) {
+        lastStatement = query.getQueryObject();
+        render(update);
+        return MATCHED_ONE;
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        lastStatement = query.getQueryObject();
+        return List.of();
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+        lastStatement = query.getQueryObject();
+        return List.of();
+    }
+
+    @Override
+    public <T> T findById(Object id, Class<T> entityClass, String collectionName) {
+        return null;
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityClass) {
+        return bulkOperations();
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, String collectionName) {
+        return bulkOperations();
+    }
+
+    // every queued write matches, as it would against an existing document
+    private BulkOperations bulkOperations() {
+        int[] writes = new int[1];
+        return (BulkOperations) Proxy.newProxyInstance(BulkOperations.class.getClassLoader(),
+                new Class<?>[]{BulkOperations.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("execute")) {
+                        return BulkWriteResult.acknowledged(0, writes[0], 0, writes[0], List.of(), List.of());
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(this, args);
+                    }
+                    for (Object arg : args) {
+                        if (arg instanceof Query query) {
+                            lastStatement = query.getQueryObject();
+                        } else if (arg instanceof UpdateDefinition update) {
+                            render(update);
+                        }
+                    }
+                    writes[0]++;
+                    return proxy;
+                });
+    }
+
+    private void render(UpdateDefinition update) {
+        lastStatement = update instanceof AggregationUpdate pipeline
+                ? pipeline.toPipeline(Aggregation.DEFAULT_CONTEXT)
+                : update.getUpdateObject();
+    }
+
+    private static String key(String userId, String habitId) {
+        return userId + ":" + habitId;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.backend.benchmarks;
+
+import org.example.backend.model.AppUser;
+import org.example.backend.model.UserHabit;
+import org.example.backend.repository.AppUserRepository;
+import org.example.backend.repository.HabitCompletionRepository;
+import org.example.backend.repository.UserHabitRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Map-backed stand-ins for the Spring Data repositories. Only the methods the benchmarked paths call are answered;
+ * anything else fails loudly instead of silently measuring nothing.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static UserHabitRepository userHabits(Map<String, UserHabit> byHabitId) {
+        return proxy(UserHabitRepository.class, (method, args) -> switch (method.getName()) {
+            case "findByUserIdAndHabitId" -> Optional.ofNullable(byHabitId.get((String) args[1]))
+                    .filter(userHabit -> userHabit.getUserId().equals(args[0]));
+            case "findByUserIdAndHabitIdIn" -> ((Collection<?>) args[1]).stream()
+                    .map(byHabitId::get)
+                    .filter(Objects::nonNull)
+                    .filter(userHabit -> userHabit.getUserId().equals(args[0]))
+                    .toList();
+            case "existsByUserIdAndHabitId" -> byHabitId.containsKey((String) args[1]);
+            case "save" -> args[0];
+            default -> throw unsupported(method);
+        });
+    }
+
+    static HabitCompletionRepository habitCompletions() {
+        return proxy(HabitCompletionRepository.class, (method, args) -> switch (method.getName()) {
+            case "save", "insert" -> args[0];
+            default -> throw unsupported(method);
+        });
+    }
+
+    static AppUserRepository appUsers(Map<String, AppUser> byId) {
+        return proxy(AppUserRepository.class, (method, args) -> switch (method.getName()) {
+            case "findById" -> Optional.ofNullable(byId.get((String) args[0]));
+            case "save" -> args[0];
+            default -> throw unsupported(method);
+        });
+    }
+
+    private static <R> R proxy(Class<R> repository, Handler handler) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> "InMemory" + repository.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> handler.invoke(method, args);
+                }));
+    }
+
+    private static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException(method.getName() + " is not used by the benchmarks");
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+}
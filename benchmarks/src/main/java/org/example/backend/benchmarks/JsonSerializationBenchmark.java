@@ -0,0 +1,91 @@
+package org.example.backend.benchmarks;
+
+import org.example.backend.model.AppUser;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitCompletion;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.model.UserHabit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response lists the API returns most often.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private List<AppUser> appUsers;
+    private List<UserHabit> userHabits;
+    private List<HabitCompletion> habitCompletions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        appUsers = new ArrayList<>(size);
+        userHabits = new ArrayList<>(size);
+        habitCompletions = new ArrayList<>(size);
+        HabitDifficulty[] difficulties = HabitDifficulty.values();
+        for (int i = 0; i < size; i++) {
+            AppUser appUser = new AppUser(String.valueOf(i), "user" + i, "user" + i + "@example.org",
+                    "https://avatars.example.org/" + i);
+            appUser.setId("id" + i);
+            appUser.setTotalXp(i * 25);
+            appUser.setLevel(1 + i / 10);
+            appUser.setLastActiveDate(LocalDate.of(2026, 3, 1));
+            appUser.setVersion((long) i);
+            appUsers.add(appUser);
+
+            Habit habit = new Habit("Habit " + i, "Description " + i, "Health", difficulties[i % difficulties.length],
+                    i % 2 == 0 ? HabitFrequency.DAILY : HabitFrequency.WEEKLY);
+            habit.setId("habit" + i);
+            UserHabit userHabit = new UserHabit("id0", habit);
+            userHabit.setId("userHabit" + i);
+            userHabit.setCurrentStreak(i % 30);
+            userHabit.setLastCompletedDate(LocalDate.of(2026, 3, 1));
+            userHabit.setLastCompletionId("completion" + i);
+            userHabits.add(userHabit);
+
+            habitCompletions.add(new HabitCompletion("id0", userHabit));
+        }
+    }
+
+    @Benchmark
+    public byte[] appUsers() {
+        return jsonMapper.writeValueAsBytes(appUsers);
+    }
+
+    @Benchmark
+    public byte[] userHabits() {
+        return jsonMapper.writeValueAsBytes(userHabits);
+    }
+
+    @Benchmark
+    public byte[] habitCompletions() {
+        return jsonMapper.writeValueAsBytes(habitCompletions);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.backend.benchmarks;
+
+import org.example.backend.model.HabitFrequency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same-period and consecutive-period checks behind every completion, for pairs of dates up to three weeks apart.
+ * weekFieldsBaseline is the locale-dependent week arithmetic the period keys replaced, kept as a reference point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeriodCheckBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private LocalDate[] lastCompleted;
+    private LocalDate[] today;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        lastCompleted = new LocalDate[PAIRS];
+        today = new LocalDate[PAIRS];
+        LocalDate start = LocalDate.of(2025, 12, 1);
+        for (int i = 0; i < PAIRS; i++) {
+            lastCompleted[i] = start.plusDays(random.nextInt(90));
+            today[i] = lastCompleted[i].plusDays(random.nextInt(21));
+        }
+    }
+
+    @Benchmark
+    public int dailyPeriodKeys() {
+        return checkPeriods(HabitFrequency.DAILY);
+    }
+
+    @Benchmark
+    public int weeklyPeriodKeys() {
+        return checkPeriods(HabitFrequency.WEEKLY);
+    }
+
+    @Benchmark
+    public int monthlyPeriodKeys() {
+        return checkPeriods(HabitFrequency.MONTHLY);
+    }
+
+    private int checkPeriods(HabitFrequency frequency) {
+        next = (next + 1) & (PAIRS - 1);
+        long lastPeriod = frequency.periodKey(lastCompleted[next], 0);
+        long currentPeriod = frequency.periodKey(today[next], 0);
+        if (HabitFrequency.isSamePeriod(lastPeriod, currentPeriod)) {
+            return 0;
+        }
+        return lastPeriod == currentPeriod - 1 ? 1 : 2;
+    }
+
+    @Benchmark
+    public int weekFieldsBaseline() {
+        next = (next + 1) & (PAIRS - 1);
+        LocalDate last = lastCompleted[next];
+        LocalDate now = today[next];
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        int lastWeek = last.get(weekFields.weekOfWeekBasedYear());
+        int lastYear = last.get(weekFields.weekBasedYear());
+        int currentWeek = now.get(weekFields.weekOfWeekBasedYear());
+        int currentYear = now.get(weekFields.weekBasedYear());
+        if (lastWeek == currentWeek && lastYear == currentYear) {
+            return 0;
+        }
+        boolean consecutive = (lastYear == currentYear && lastWeek == currentWeek - 1)
+                || (lastYear == currentYear - 1 && currentWeek == 1 && lastWeek >= 52);
+        return consecutive ? 1 : 2;
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.backend.benchmarks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.config.LevelCurveProperties;
+import org.example.backend.config.UserCacheProperties;
+import org.example.backend.config.XpProperties;
+import org.example.backend.model.AppUser;
+import org.example.backend.service.AppUserCache;
+import org.example.backend.service.AppUserService;
+import org.example.backend.service.Leaderboard;
+import org.example.backend.service.LevelCurve;
+import org.example.backend.service.PendingXpBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Level lookup on its own, and AppUserService.addXp around it: copy, level and streak computation, the versioned
+ * update, the user cache and the leaderboard.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XpBenchmark {
+
+    private static final int XP_SAMPLES = 1024;
+
+    @Param({"LINEAR", "EXPONENTIAL"})
+    public LevelCurveProperties.Type curve;
+
+    private LevelCurve levelCurve;
+    private int[] totalXp;
+    private int next;
+    private InMemoryMongoTemplate mongoTemplate;
+    private AppUserService appUserService;
+    private AppUser snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        levelCurve = new LevelCurve(new LevelCurveProperties(curve, 100, 1.5, 1000, List.of()));
+        Random random = new Random(42);
+        totalXp = random.ints(XP_SAMPLES, 0, levelCurve.getLevelStartXp(levelCurve.getMaxLevel())).toArray();
+
+        snapshot = new AppUser("1", "user1", null, null);
+        snapshot.setId("id1");
+        snapshot.setTotalXp(12_345);
+        snapshot.setLevel(levelCurve.levelFor(snapshot.getTotalXp()));
+        snapshot.setVersion(7L);
+
+        mongoTemplate = new InMemoryMongoTemplate();
+        XpProperties xpProperties = new XpProperties(5, new XpProperties.WriteBehind(false, Duration.ofSeconds(1), 20));
+        appUserService = new AppUserService(InMemoryRepositories.appUsers(Map.of(snapshot.getId(), snapshot)),
+                new AppUserCache(new UserCacheProperties(10_000, Duration.ofMinutes(10)), meterRegistry), mongoTemplate,
+                xpProperties, levelCurve, new PendingXpBuffer(xpProperties, meterRegistry),
+                new Leaderboard(mongoTemplate, meterRegistry), meterRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.close();
+    }
+
+    @Benchmark
+    public int levelFor() {
+        next = (next + 1) & (XP_SAMPLES - 1);
+        return levelCurve.levelFor(totalXp[next]);
+    }
+
+    @Benchmark
+    public AppUser addXp() {
+        return appUserService.addXp(snapshot, 25);
+    }
+}
@@ -17,7 +17,8 @@ export interface Habit {
     description: string;
     category: string;
     difficulty: "EASY" | "MEDIUM" | "HARD";
-    frequency: "DAILY" | "WEEKLY";
+    frequency: "DAILY" | "WEEKLY" | "MONTHLY" | "INTERVAL";
+    intervalDays: number;
     xp: number;
 }
 
@@ -27,7 +28,8 @@ export interface UserHabit {
     habitId: string;
     habitName: string;
     difficulty: "EASY" | "MEDIUM" | "HARD";
-    frequency: "DAILY" | "WEEKLY";
+    frequency: "DAILY" | "WEEKLY" | "MONTHLY" | "INTERVAL";
+    intervalDays: number;
     xp: number;
     active: boolean;
     currentStreak: number;
@@ -44,7 +46,7 @@ export interface HabitCompletion {
     habitId: string;
     habitName: string;
     difficulty: "EASY" | "MEDIUM" | "HARD";
-    frequency: "DAILY" | "WEEKLY";
+    frequency: "DAILY" | "WEEKLY" | "MONTHLY" | "INTERVAL";
     completionDate: string;
     xpEarned: number;
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package org.example.backend.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per endpoint for the measured phase of a run, in nanoseconds. Response time counts from the
+ * moment a request was scheduled, so time spent queued behind a slow server or a late generator is included and the
+ * percentiles are corrected for coordinated omission. Service time counts from when the request was actually sent,
+ * which is what a closed-loop client would have reported.
+ */
+final class LatencyReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final String ALL = "all";
+
+    private final Map<LoadTestEndpoint, Histogram> responseTimes = new EnumMap<>(LoadTestEndpoint.class);
+    private final Map<LoadTestEndpoint, Histogram> serviceTimes = new EnumMap<>(LoadTestEndpoint.class);
+    private final Map<LoadTestEndpoint, LongAdder> errors = new EnumMap<>(LoadTestEndpoint.class);
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Duration measured;
+    private long startMillis;
+    private long endMillis;
+
+    LatencyReport(Duration measured) {
+        this.measured = measured;
+        for (LoadTestEndpoint endpoint : LoadTestEndpoint.values()) {
+            responseTimes.put(endpoint, new ConcurrentHistogram(3));
+            serviceTimes.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    void start() {
+        startMillis = System.currentTimeMillis();
+    }
+
+    void finish() {
+        endMillis = System.currentTimeMillis();
+    }
+
+    // failure is null for a 2xx response, otherwise the status code or exception
+    void record(LoadTestEndpoint endpoint, long responseNanos, long serviceNanos, String failure) {
+        responseTimes.get(endpoint).recordValue(responseNanos);
+        serviceTimes.get(endpoint).recordValue(serviceNanos);
+        if (failure != null) {
+            errors.get(endpoint).increment();
+            failures.computeIfAbsent(endpoint.getLabel() + " -> " + failure, key -> new LongAdder()).increment();
+        }
+    }
+
+    long getRequests() {
+        return responseTimes.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    long getErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    String summary() {
+        StringBuilder summary = new StringBuilder(String.format("%-40s %9s %7s %8s %9s %9s %9s %9s %9s %12s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                "p99 sent ms"));
+        Histogram allResponses = new Histogram(3);
+        Histogram allServices = new Histogram(3);
+        for (LoadTestEndpoint endpoint : LoadTestEndpoint.values()) {
+            Histogram response = responseTimes.get(endpoint);
+            if (response.getTotalCount() == 0) {
+                continue;
+            }
+            allResponses.add(response);
+            allServices.add(serviceTimes.get(endpoint));
+            summary.append(row(endpoint.getLabel(), response, serviceTimes.get(endpoint), errors.get(endpoint).sum()));
+        }
+        summary.append(row(ALL, allResponses, allServices, getErrors()));
+        new TreeMap<>(failures).forEach((failure, count) ->
+                summary.append(String.format("%9d x %s%n", count.sum(), failure)));
+        return summary.toString();
+    }
+
+    void write(Path directory, String settings) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("summary.txt"), settings + System.lineSeparator() + summary());
+        try (PrintStream log = new PrintStream(directory.resolve("latency.hlog").toFile())) {
+            HistogramLogWriter writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(startMillis);
+            writer.setBaseTime(startMillis);
+            writer.outputLegend();
+            for (LoadTestEndpoint endpoint : LoadTestEndpoint.values()) {
+                writeHistogram(directory, writer, endpoint.getFileName(), responseTimes.get(endpoint));
+                writeHistogram(directory, writer, endpoint.getFileName() + "-sent", serviceTimes.get(endpoint));
+            }
+        }
+    }
+
+    private void writeHistogram(Path directory, HistogramLogWriter writer, String name, Histogram histogram)
+            throws IOException {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        Histogram tagged = histogram.copy();
+        tagged.setTag(name);
+        tagged.setStartTimeStamp(startMillis);
+        tagged.setEndTimeStamp(endMillis);
+        writer.outputIntervalHistogram(tagged);
+        try (PrintStream out = new PrintStream(directory.resolve(name + ".hgrm").toFile())) {
+            histogram.outputPercentileDistribution(out, 5, NANOS_PER_MILLI);
+        }
+    }
+
+    private String row(String label, Histogram response, Histogram service, long errorCount) {
+        return String.format("%-40s %9d %7d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+                label, response.getTotalCount(), errorCount, response.getTotalCount() / (measured.toNanos() / 1e9),
+                millis(response, 50), millis(response, 90), millis(response, 99), millis(response, 99.9),
+                response.getMaxValue() / NANOS_PER_MILLI, millis(service, 99));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.backend.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model traffic against one backend: requests arrive as a Poisson process at the configured rate no matter how
+ * fast the backend answers, and each one is sent from its own virtual thread, so a slow response never holds back the
+ * next arrival. Every virtual user holds a session from {@link LoadTestLogin} and a few accepted habits, which the
+ * completions work through so each one is the first of its period.
+ */
+final class LoadGenerator {
+
+    private static final int SETUP_CONCURRENCY = 32;
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final LoadTestProperties properties;
+    private final List<VirtualUser> users;
+    private final Queue<Completion> completions;
+    private final LoadTestEndpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private long repeatedCompletions;
+    private long maxLagNanos;
+
+    private LoadGenerator(HttpClient client, URI baseUri, LoadTestProperties properties, List<VirtualUser> users) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.properties = properties;
+        this.users = users;
+
+        List<Completion> pending = new ArrayList<>();
+        users.forEach(user -> user.habitIds().forEach(habitId -> pending.add(new Completion(user, habitId))));
+        Collections.shuffle(pending, new Random(properties.seed()));
+        this.completions = new ConcurrentLinkedQueue<>(pending);
+
+        this.endpoints = properties.mix().entrySet().stream()
+                .filter(weight -> weight.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .toArray(LoadTestEndpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += properties.mix().get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Logs in every virtual user and accepts habitsPerUser random habits of the catalog for each.
+     */
+    static LoadGenerator prepare(HttpClient client, URI baseUri, LoadTestProperties properties, List<String> habitIds)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(SETUP_CONCURRENCY);
+        List<Future<VirtualUser>> prepared = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int id = 1; id <= properties.users(); id++) {
+                int userId = id;
+                prepared.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return prepareUser(client, baseUri, properties, habitIds, userId);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        List<VirtualUser> users = new ArrayList<>(prepared.size());
+        for (Future<VirtualUser> user : prepared) {
+            try {
+                users.add(user.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Preparing load test users failed", e.getCause());
+            }
+        }
+        return new LoadGenerator(client, baseUri, properties, users);
+    }
+
+    private static VirtualUser prepareUser(HttpClient client, URI baseUri, LoadTestProperties properties,
+                                           List<String> habitIds, int userId) throws IOException, InterruptedException {
+        HttpResponse<Void> login = client.send(HttpRequest.newBuilder(baseUri.resolve(LoadTestLogin.LOGIN_PATH))
+                        .header(LoadTestLogin.USER_HEADER, Integer.toString(userId))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String sessionCookie = login.headers().firstValue("Set-Cookie")
+                .map(cookie -> cookie.split(";", 2)[0])
+                .orElseThrow(() -> new IllegalStateException("Login of user " + userId + " returned no session, status "
+                        + login.statusCode()));
+
+        List<String> accepted = new ArrayList<>(habitIds);
+        Collections.shuffle(accepted, new Random(properties.seed() + userId));
+        accepted = List.copyOf(accepted.subList(0, properties.habitsPerUser()));
+        for (String habitId : accepted) {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/api/my-habits/" + habitId))
+                            .header("Cookie", sessionCookie)
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Accepting habit " + habitId + " for user " + userId + " returned "
+                        + response.statusCode());
+            }
+        }
+        return new VirtualUser(userId, sessionCookie, accepted);
+    }
+
+    /**
+     * Runs the warmup and then the measured phase, and waits for requests still in flight. Latencies are only recorded
+     * for requests scheduled in the measured phase.
+     */
+    LatencyReport run() {
+        LatencyReport report = new LatencyReport(properties.duration());
+        SplittableRandom random = new SplittableRandom(properties.seed());
+        double meanIntervalNanos = 1e9 / properties.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + properties.warmup().toNanos();
+        long end = measureFrom + properties.duration().toNanos();
+        boolean measuring = false;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            double next = start;
+            while ((next += -Math.log(1 - random.nextDouble()) * meanIntervalNanos) < end) {
+                long scheduled = (long) next;
+                long lag = waitUntil(scheduled);
+                boolean measured = scheduled >= measureFrom;
+                if (measured && !measuring) {
+                    measuring = true;
+                    report.start();
+                }
+                if (measured) {
+                    maxLagNanos = Math.max(maxLagNanos, lag);
+                }
+                LoadTestEndpoint endpoint = nextEndpoint(random);
+                HttpRequest request = request(endpoint, users.get(random.nextInt(users.size())), random);
+                executor.execute(() -> send(report, endpoint, request, scheduled, measured));
+            }
+        }
+        report.finish();
+        return report;
+    }
+
+    /**
+     * Completions sent for a habit that was already completed in its period because every accepted habit had been
+     * used up; they fail with a conflict and show up as errors.
+     */
+    long getRepeatedCompletions() {
+        return repeatedCompletions;
+    }
+
+    /**
+     * How late the generator dispatched a measured request at worst. Latencies include this delay, so a large value
+     * means the generator itself was saturated.
+     */
+    long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    private void send(LatencyReport report, LoadTestEndpoint endpoint, HttpRequest request, long scheduled,
+                      boolean measured) {
+        long sent = System.nanoTime();
+        String failure;
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            failure = status >= 200 && status < 300 ? null : Integer.toString(status);
+        } catch (IOException e) {
+            failure = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measured) {
+            long done = System.nanoTime();
+            report.record(endpoint, done - scheduled, done - sent, failure);
+        }
+    }
+
+    private HttpRequest request(LoadTestEndpoint endpoint, VirtualUser user, SplittableRandom random) {
+        return switch (endpoint) {
+            case DAILY_HABITS -> get("/api/habits/daily", user);
+            case MY_HABITS -> get("/api/my-habits", user);
+            case WEEK_COMPLETIONS -> get("/api/completions/week", user);
+            case COMPLETE -> {
+                Completion completion = completions.poll();
+                if (completion == null) {
+                    repeatedCompletions++;
+                    completion = new Completion(user, user.habitIds().get(random.nextInt(user.habitIds().size())));
+                }
+                yield builder("/api/my-habits/" + completion.habitId() + "/complete", completion.user())
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+            }
+        };
+    }
+
+    private HttpRequest get(String path, VirtualUser user) {
+        return builder(path, user).GET().build();
+    }
+
+    private HttpRequest.Builder builder(String path, VirtualUser user) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(properties.timeout())
+                .header("Accept", "application/json")
+                .header("Cookie", user.sessionCookie());
+    }
+
+    private LoadTestEndpoint nextEndpoint(SplittableRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        throw new IllegalStateException("No endpoint for weight " + pick);
+    }
+
+    private static long waitUntil(long scheduled) {
+        long now;
+        while ((now = System.nanoTime()) < scheduled) {
+            LockSupport.parkNanos(scheduled - now);
+        }
+        return now - scheduled;
+    }
+
+    record VirtualUser(int id, String sessionCookie, List<String> habitIds) {
+    }
+
+    private record Completion(VirtualUser user, String habitId) {
+    }
+}
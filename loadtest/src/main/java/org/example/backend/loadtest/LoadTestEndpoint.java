@@ -0,0 +1,31 @@
+package org.example.backend.loadtest;
+
+/**
+ * The endpoints in the traffic mix, with the default share of requests each one gets.
+ */
+public enum LoadTestEndpoint {
+    DAILY_HABITS("GET /api/habits/daily", 25),
+    MY_HABITS("GET /api/my-habits", 35),
+    COMPLETE("POST /api/my-habits/{habitId}/complete", 20),
+    WEEK_COMPLETIONS("GET /api/completions/week", 20);
+
+    private final String label;
+    private final int defaultWeight;
+
+    LoadTestEndpoint(String label, int defaultWeight) {
+        this.label = label;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public String getFileName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
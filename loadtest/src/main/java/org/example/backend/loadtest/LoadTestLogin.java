@@ -0,0 +1,98 @@
+package org.example.backend.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stands in for the GitHub OAuth2 login: POST /loadtest/login with an X-Load-Test-User header stores the principal
+ * GitHub would have produced in the session, so every later request authenticates through the regular session lookup.
+ * Only part of the load test module, never of the backend itself.
+ */
+@Configuration
+public class LoadTestLogin {
+
+    static final String LOGIN_PATH = "/loadtest/login";
+    static final String USER_HEADER = "X-Load-Test-User";
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    FilterRegistrationBean<OncePerRequestFilter> loadTestLoginFilter() {
+        HttpSessionSecurityContextRepository repository = new HttpSessionSecurityContextRepository();
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws IOException {
+                String userId = request.getHeader(USER_HEADER);
+                if (!HttpMethod.POST.matches(request.getMethod()) || !isUserId(userId)) {
+                    response.sendError(HttpStatus.BAD_REQUEST.value());
+                    return;
+                }
+                request.getSession();
+                repository.saveContext(new SecurityContextImpl(authentication(userId)), request, response);
+                response.setStatus(HttpStatus.NO_CONTENT.value());
+            }
+        });
+        registration.addUrlPatterns(LOGIN_PATH);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    WebFilter loadTestLoginWebFilter() {
+        WebSessionServerSecurityContextRepository repository = new WebSessionServerSecurityContextRepository();
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!LOGIN_PATH.equals(request.getPath().value())) {
+                return chain.filter(exchange);
+            }
+            String userId = request.getHeaders().getFirst(USER_HEADER);
+            if (request.getMethod() != HttpMethod.POST || !isUserId(userId)) {
+                exchange.getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
+                return exchange.getResponse().setComplete();
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.NO_CONTENT);
+            return repository.save(exchange, new SecurityContextImpl(authentication(userId)))
+                    .then(Mono.defer(() -> exchange.getResponse().setComplete()));
+        };
+    }
+
+    private static boolean isUserId(String userId) {
+        return userId != null && userId.matches("\\d{1,9}");
+    }
+
+    private static OAuth2AuthenticationToken authentication(String userId) {
+        Map<String, Object> attributes = Map.of(
+                "id", Integer.parseInt(userId),
+                "login", "loadtest-" + userId,
+                "email", "loadtest-" + userId + "@example.org",
+                "avatar_url", "https://avatars.githubusercontent.com/u/" + userId);
+        List<GrantedAuthority> authorities = List.of(new OAuth2UserAuthority(attributes));
+        return new OAuth2AuthenticationToken(new DefaultOAuth2User(authorities, attributes, "id"), authorities, "github");
+    }
+}
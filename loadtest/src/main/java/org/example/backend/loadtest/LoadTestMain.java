@@ -0,0 +1,154 @@
+package org.example.backend.loadtest;
+
+import org.example.backend.BackendApplication;
+import org.example.backend.model.Habit;
+import org.example.backend.model.HabitDifficulty;
+import org.example.backend.model.HabitFrequency;
+import org.example.backend.service.HabitCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.mongodb.MongoDBContainer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the backend against a throwaway Mongo, signs in the virtual users and drives the configured traffic mix at it.
+ * Any --spring.* argument is passed on to the backend, e.g. --spring.threads.virtual.enabled=false or
+ * --spring.profiles.active=reactive to compare request models under the same load.
+ */
+public final class LoadTestMain {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestMain.class);
+    private static final List<String> CATEGORIES = List.of("Health", "Fitness", "Mindfulness", "Learning", "Productivity");
+    private static final long MAX_LAG_MILLIS = 10;
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (Exception e) {
+            log.error("Load test failed", e);
+            System.exit(1);
+        }
+        // event loops of the Mongo driver and Netty can outlive the backend context
+        System.exit(0);
+    }
+
+    private static void run(String[] args) throws Exception {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        LoadTestProperties properties = Binder.get(environment).bindOrCreate("loadtest", LoadTestProperties.class);
+
+        MongoDBContainer mongo = null;
+        String mongoUri = properties.mongoUri();
+        if (mongoUri == null) {
+            mongo = new MongoDBContainer(properties.mongoImage());
+            mongo.start();
+            mongoUri = mongo.getReplicaSetUrl("loadtest");
+        }
+        try (ConfigurableApplicationContext backend = boot(mongoUri, args)) {
+            List<String> habitIds = seedHabits(backend, properties.habits());
+            URI baseUri = URI.create("http://localhost:" + ((WebServerApplicationContext) backend).getWebServer().getPort());
+            try (HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(properties.timeout())
+                    .build()) {
+                log.info("Preparing {} users with {} habits each", properties.users(), properties.habitsPerUser());
+                LoadGenerator generator = LoadGenerator.prepare(client, baseUri, properties, habitIds);
+
+                log.info("Sending {} requests/s: {} warmup, {} measured", properties.rate(), properties.warmup(),
+                        properties.duration());
+                LatencyReport report = generator.run();
+                report(backend, properties, generator, report);
+            }
+        } finally {
+            if (mongo != null) {
+                mongo.stop();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext boot(String mongoUri, String[] args) {
+        // below the command line, so an explicit --server.port and the like still win
+        Map<String, Object> overrides = Map.of(
+                "server.port", "0",
+                "spring.mongodb.uri", mongoUri,
+                "spring.security.oauth2.client.registration.github.client-id", "loadtest",
+                "spring.security.oauth2.client.registration.github.client-secret", "loadtest");
+        return new SpringApplicationBuilder(BackendApplication.class, LoadTestLogin.class)
+                .initializers(context -> {
+                    MutablePropertySources sources = context.getEnvironment().getPropertySources();
+                    MapPropertySource loadTest = new MapPropertySource("loadtest", overrides);
+                    if (sources.contains(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+                        sources.addAfter(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME, loadTest);
+                    } else {
+                        sources.addFirst(loadTest);
+                    }
+                })
+                .run(args);
+    }
+
+    private static List<String> seedHabits(ConfigurableApplicationContext backend, int count) {
+        MongoTemplate mongoTemplate = backend.getBean(MongoTemplate.class);
+        if (mongoTemplate.count(new Query(), Habit.class) > 0) {
+            throw new IllegalStateException("loadtest.mongo-uri must point to an empty database");
+        }
+        List<Habit> habits = new ArrayList<>(count);
+        HabitDifficulty[] difficulties = HabitDifficulty.values();
+        for (int i = 0; i < count; i++) {
+            HabitFrequency frequency = i % 5 == 4 ? HabitFrequency.WEEKLY : HabitFrequency.DAILY;
+            habits.add(new Habit("Load test habit " + i, "Seeded by the load test", CATEGORIES.get(i % CATEGORIES.size()),
+                    difficulties[i % difficulties.length], frequency));
+        }
+        List<String> habitIds = mongoTemplate.insertAll(habits).stream().map(Habit::getId).toList();
+        backend.getBean(HabitCatalog.class).refresh();
+        return habitIds;
+    }
+
+    private static void report(ConfigurableApplicationContext backend, LoadTestProperties properties,
+                               LoadGenerator generator, LatencyReport report) throws Exception {
+        String settings = String.format("rate=%s/s users=%d habits-per-user=%d warmup=%s duration=%s mix=%s "
+                        + "profiles=%s virtual-threads=%s",
+                properties.rate(), properties.users(), properties.habitsPerUser(), properties.warmup(),
+                properties.duration(), properties.mix(), Arrays.toString(backend.getEnvironment().getActiveProfiles()),
+                backend.getEnvironment().getProperty("spring.threads.virtual.enabled", "false"));
+        System.out.println();
+        System.out.println(settings);
+        System.out.print(report.summary());
+
+        if (TimeUnit.NANOSECONDS.toMillis(generator.getMaxLagNanos()) > MAX_LAG_MILLIS) {
+            log.warn("The load generator fell up to {} ms behind schedule; latencies include that delay",
+                    TimeUnit.NANOSECONDS.toMillis(generator.getMaxLagNanos()));
+        }
+        if (generator.getRepeatedCompletions() > 0) {
+            log.warn("{} completions repeated an already completed habit; raise loadtest.users or "
+                    + "loadtest.habits-per-user", generator.getRepeatedCompletions());
+        }
+        Path directory = Path.of(properties.output(),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        report.write(directory, settings);
+        log.info("Wrote {} measured requests ({} errors) to {}", report.getRequests(), report.getErrors(), directory);
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.backend.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, passed as --loadtest.* arguments. Weights in mix override the endpoint defaults one by
+ * one; a weight of 0 leaves an endpoint out.
+ */
+@ConfigurationProperties(prefix = "loadtest")
+public record LoadTestProperties(
+        String mongoUri,
+        @DefaultValue("mongo:7.0") String mongoImage,
+        @DefaultValue("1000") int users,
+        @DefaultValue("50") int habits,
+        @DefaultValue("5") int habitsPerUser,
+        @DefaultValue("200") double rate,
+        @DefaultValue("30s") Duration warmup,
+        @DefaultValue("60s") Duration duration,
+        @DefaultValue("10s") Duration timeout,
+        Map<LoadTestEndpoint, Integer> mix,
+        @DefaultValue("loadtest-results") String output,
+        @DefaultValue("42") long seed
+) {
+
+    public LoadTestProperties {
+        if (users < 1 || habits < 1 || rate <= 0) {
+            throw new IllegalArgumentException("loadtest.users, loadtest.habits and loadtest.rate must be positive");
+        }
+        if (habitsPerUser < 1 || habitsPerUser > habits) {
+            throw new IllegalArgumentException("loadtest.habits-per-user must be between 1 and loadtest.habits");
+        }
+        Map<LoadTestEndpoint, Integer> weights = new EnumMap<>(LoadTestEndpoint.class);
+        for (LoadTestEndpoint endpoint : LoadTestEndpoint.values()) {
+            weights.put(endpoint, endpoint.getDefaultWeight());
+        }
+        if (mix != null) {
+            weights.putAll(mix);
+        }
+        if (weights.values().stream().anyMatch(weight -> weight < 0)
+                || weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix weights must not be negative and not all 0");
+        }
+        mix = weights;
+    }
+}